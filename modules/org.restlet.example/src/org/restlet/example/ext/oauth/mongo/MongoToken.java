@@ -64,6 +64,10 @@ public class MongoToken implements ServerToken, OAuthResourceDefs {
         return false;
     }
 
+    public long getExpirationTime() {
+        return (getTimestamp() + (long) getExpirePeriod()) * 1000L;
+    }
+
     public int getTimestamp() {
         return ((Number) token.get(TIMESTAMP)).intValue();
     }
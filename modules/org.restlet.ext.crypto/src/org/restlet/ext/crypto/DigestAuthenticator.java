@@ -65,6 +65,9 @@ public class DigestAuthenticator extends ChallengeAuthenticator {
     /** Lifespan of nonce in milliseconds */
     private volatile long maxServerNonceAge;
 
+    /** The optional registry of issued nonces. */
+    private volatile NonceStore nonceStore;
+
     /** The secret key known only to server. */
     private volatile String serverKey;
 
@@ -124,7 +127,15 @@ public class DigestAuthenticator extends ChallengeAuthenticator {
      * @return A new server nonce.
      */
     public String generateServerNonce() {
-        return CryptoUtils.makeNonce(getServerKey());
+        String result = CryptoUtils.makeNonce(getServerKey());
+        NonceStore store = getNonceStore();
+
+        if (store != null) {
+            store.add(result,
+                    System.currentTimeMillis() + getMaxServerNonceAge());
+        }
+
+        return result;
     }
 
     /**
@@ -177,6 +188,17 @@ public class DigestAuthenticator extends ChallengeAuthenticator {
         return this.maxServerNonceAge;
     }
 
+    /**
+     * Returns the optional registry of issued nonces. When set, only the
+     * nonces it contains are accepted and each nonce count can only be used
+     * once, which protects against replayed requests. Null by default.
+     * 
+     * @return The registry of issued nonces.
+     */
+    public NonceStore getNonceStore() {
+        return this.nonceStore;
+    }
+
     /**
      * Returns the secret key known only by server.
      * 
@@ -213,6 +235,19 @@ public class DigestAuthenticator extends ChallengeAuthenticator {
         this.maxServerNonceAge = maxServerNonceAge;
     }
 
+    /**
+     * Sets the optional registry of issued nonces. When servers are
+     * clustered, the store should be shared by all of them, otherwise
+     * requests reaching another server are answered with a stale challenge.
+     * 
+     * @param nonceStore
+     *            The registry of issued nonces.
+     * @see MemoryNonceStore
+     */
+    public void setNonceStore(NonceStore nonceStore) {
+        this.nonceStore = nonceStore;
+    }
+
     /**
      * Sets the secret key known only by server.
      * 
@@ -35,14 +35,13 @@ package org.restlet.ext.crypto;
 
 import java.io.UnsupportedEncodingException;
 import java.security.InvalidKeyException;
-import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 
 import javax.crypto.Mac;
-import javax.crypto.spec.SecretKeySpec;
 
 import org.restlet.data.Digest;
 import org.restlet.engine.util.Base64;
+import org.restlet.ext.crypto.internal.CryptoCache;
 
 /**
  * Security data manipulation utilities.
@@ -107,12 +106,9 @@ public class DigestUtils {
         byte[] result = null;
 
         try {
-            // Create the HMAC/SHA1 key
-            SecretKeySpec signingKey = new SecretKeySpec(secretKey, "HmacSHA1");
-
-            // Create the message authentication code (MAC)
-            Mac mac = Mac.getInstance("HmacSHA1");
-            mac.init(signingKey);
+            // Get the message authentication code (MAC) keyed with the
+            // HMAC/SHA1 secret
+            Mac mac = CryptoCache.getMac("HmacSHA1", secretKey);
 
             // Compute the HMAC value
             result = mac.doFinal(source.getBytes());
@@ -155,13 +151,9 @@ public class DigestUtils {
         byte[] result = null;
 
         try {
-            // Create the HMAC/SHA256 key
-            SecretKeySpec signingKey = new SecretKeySpec(secretKey,
-                    "HmacSHA256");
-
-            // Create the message authentication code (MAC)
-            Mac mac = Mac.getInstance("HmacSHA256");
-            mac.init(signingKey);
+            // Get the message authentication code (MAC) keyed with the
+            // HMAC/SHA256 secret
+            Mac mac = CryptoCache.getMac("HmacSHA256", secretKey);
 
             // Compute the HMAC value
             result = mac.doFinal(source.getBytes("UTF-8"));
@@ -258,7 +250,7 @@ public class DigestUtils {
     public static String toMd5(String target, String charsetName)
             throws UnsupportedEncodingException {
         try {
-            final byte[] md5 = MessageDigest.getInstance("MD5").digest(
+            final byte[] md5 = CryptoCache.getMessageDigest("MD5").digest(
                     target.getBytes(charsetName));
             final char[] md5Chars = new char[32];
             int i = 0;
@@ -307,7 +299,7 @@ public class DigestUtils {
             throws UnsupportedEncodingException {
         try {
             return Base64.encode(
-                    MessageDigest.getInstance("SHA1").digest(
+                    CryptoCache.getMessageDigest("SHA1").digest(
                             target.getBytes(charsetName)), false);
         } catch (NoSuchAlgorithmException nsae) {
             throw new RuntimeException(
@@ -0,0 +1,224 @@
+/**
+ * Copyright 2005-2013 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+package org.restlet.ext.crypto;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Nonce store keeping the issued nonces in memory. Nonces are grouped by
+ * expiration time into buckets which are dropped as a whole once expired, so
+ * eviction doesn't require scanning the store. When the maximum number of
+ * nonces is reached, the buckets expiring first are dropped early, which
+ * makes the affected clients receive a stale challenge.
+ * 
+ * @see DigestAuthenticator#setNonceStore(NonceStore)
+ */
+public class MemoryNonceStore implements NonceStore {
+
+    /**
+     * Registered nonce.
+     */
+    private static final class Entry {
+
+        /** The last nonce count received. */
+        private final AtomicInteger count;
+
+        /** The expiration time in milliseconds. */
+        private final long expirationTime;
+
+        private Entry(long expirationTime) {
+            this.expirationTime = expirationTime;
+            this.count = new AtomicInteger(-1);
+        }
+    }
+
+    /** Default duration of an expiration bucket (10 seconds). */
+    private static final long DEFAULT_BUCKET_DURATION = 10 * 1000L;
+
+    /** Default maximum number of nonces. */
+    private static final int DEFAULT_MAX_SIZE = 100000;
+
+    /** The nonces grouped by expiration bucket. */
+    private final ConcurrentSkipListMap<Long, Queue<String>> buckets;
+
+    /** The duration of an expiration bucket in milliseconds. */
+    private final long bucketDuration;
+
+    /** The index of the last purged bucket. */
+    private final AtomicLong lastPurge;
+
+    /** The maximum number of nonces. */
+    private final int maxSize;
+
+    /** The registered nonces. */
+    private final ConcurrentMap<String, Entry> nonces;
+
+    /**
+     * Constructor. Keeps up to 100 000 nonces, expired by buckets of 10
+     * seconds.
+     */
+    public MemoryNonceStore() {
+        this(DEFAULT_MAX_SIZE, DEFAULT_BUCKET_DURATION);
+    }
+
+    /**
+     * Constructor.
+     * 
+     * @param maxSize
+     *            The maximum number of nonces.
+     * @param bucketDuration
+     *            The duration of an expiration bucket in milliseconds.
+     */
+    public MemoryNonceStore(int maxSize, long bucketDuration) {
+        this.buckets = new ConcurrentSkipListMap<Long, Queue<String>>();
+        this.bucketDuration = bucketDuration;
+        this.lastPurge = new AtomicLong();
+        this.maxSize = maxSize;
+        this.nonces = new ConcurrentHashMap<String, Entry>();
+    }
+
+    public void add(String nonce, long expirationTime) {
+        long now = System.currentTimeMillis();
+        long index = now / bucketDuration;
+        long last = lastPurge.get();
+
+        if (index > last && lastPurge.compareAndSet(last, index)) {
+            purge(index);
+        }
+
+        Map.Entry<Long, Queue<String>> first;
+
+        while (nonces.size() >= maxSize
+                && (first = buckets.firstEntry()) != null) {
+            // Drop the nonces expiring first
+            purge(first.getKey() + 1);
+        }
+
+        nonces.put(nonce, new Entry(expirationTime));
+        // Round up so that a bucket only holds expired nonces once passed
+        Long key = Long.valueOf((expirationTime + bucketDuration - 1)
+                / bucketDuration);
+        Queue<String> bucket = buckets.get(key);
+
+        if (bucket == null) {
+            bucket = new ConcurrentLinkedQueue<String>();
+            Queue<String> previous = buckets.putIfAbsent(key, bucket);
+
+            if (previous != null) {
+                bucket = previous;
+            }
+        }
+
+        bucket.add(nonce);
+    }
+
+    public boolean contains(String nonce) {
+        return getEntry(nonce) != null;
+    }
+
+    /**
+     * Returns the entry of a registered nonce if not expired.
+     * 
+     * @param nonce
+     *            The server nonce.
+     * @return The entry or null.
+     */
+    private Entry getEntry(String nonce) {
+        Entry result = (nonce == null) ? null : nonces.get(nonce);
+
+        if (result != null
+                && result.expirationTime <= System.currentTimeMillis()) {
+            nonces.remove(nonce, result);
+            result = null;
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the number of registered nonces, including the expired ones not
+     * evicted yet.
+     * 
+     * @return The number of registered nonces.
+     */
+    public int getSize() {
+        return nonces.size();
+    }
+
+    /**
+     * Drops the buckets before a given bucket index.
+     * 
+     * @param index
+     *            The first bucket index to keep.
+     */
+    private void purge(long index) {
+        Map.Entry<Long, Queue<String>> bucket;
+
+        while ((bucket = buckets.firstEntry()) != null
+                && bucket.getKey() < index) {
+            if (buckets.remove(bucket.getKey(), bucket.getValue())) {
+                for (String nonce : bucket.getValue()) {
+                    nonces.remove(nonce);
+                }
+            }
+        }
+    }
+
+    public boolean updateCount(String nonce, int count) {
+        Entry entry = getEntry(nonce);
+
+        if (entry == null) {
+            return false;
+        }
+
+        int last;
+
+        do {
+            last = entry.count.get();
+
+            if (count <= last) {
+                return false;
+            }
+        } while (!entry.count.compareAndSet(last, count));
+
+        return true;
+    }
+
+}
@@ -0,0 +1,78 @@
+/**
+ * Copyright 2005-2013 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+package org.restlet.ext.crypto;
+
+/**
+ * Registry of the server nonces issued by a {@link DigestAuthenticator}. It
+ * remembers the last nonce count received with each nonce so that replayed
+ * requests can be detected. Implementations must be thread-safe and can be
+ * backed by a store shared by several servers.
+ * 
+ * @see MemoryNonceStore
+ */
+public interface NonceStore {
+
+    /**
+     * Registers a newly issued nonce.
+     * 
+     * @param nonce
+     *            The server nonce.
+     * @param expirationTime
+     *            The time after which the nonce can be forgotten, in
+     *            milliseconds.
+     */
+    void add(String nonce, long expirationTime);
+
+    /**
+     * Indicates if a nonce is registered and not yet expired.
+     * 
+     * @param nonce
+     *            The server nonce.
+     * @return True if the nonce is known.
+     */
+    boolean contains(String nonce);
+
+    /**
+     * Atomically records the nonce count received with a nonce if it is
+     * greater than all the counts received before.
+     * 
+     * @param nonce
+     *            The server nonce.
+     * @param count
+     *            The nonce count sent by the client.
+     * @return True if the count was recorded, false if the nonce is unknown
+     *         or the count was already used.
+     */
+    boolean updateCount(String nonce, int count);
+
+}
@@ -0,0 +1,208 @@
+/**
+ * Copyright 2005-2013 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+package org.restlet.ext.crypto.internal;
+
+import java.security.GeneralSecurityException;
+import java.security.InvalidKeyException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.crypto.Cipher;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * Per-thread cache of JCE primitives. Looking up a provider for each digest,
+ * signature or encryption is costly and partly synchronized inside the JCE,
+ * so each thread keeps its own instances which are never shared. MACs are
+ * cached already initialized for a given secret key, ciphers are initialized
+ * again on each use.
+ */
+public final class CryptoCache {
+
+    /**
+     * Cache key made of the primitive type, the algorithm and an optional
+     * secret key.
+     */
+    private static final class Key {
+
+        private final String algorithm;
+
+        private final int hash;
+
+        private final byte[] secretKey;
+
+        private final Class<?> type;
+
+        private Key(Class<?> type, String algorithm, byte[] secretKey) {
+            this.type = type;
+            this.algorithm = algorithm;
+            this.secretKey = secretKey;
+            this.hash = (type.hashCode() * 31 + algorithm.hashCode()) * 31
+                    + Arrays.hashCode(secretKey);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+
+            Key other = (Key) obj;
+            return (hash == other.hash) && (type == other.type)
+                    && algorithm.equals(other.algorithm)
+                    && Arrays.equals(secretKey, other.secretKey);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    /** Maximum number of instances cached per thread. */
+    private static final int MAX_ENTRIES = 32;
+
+    /** The instances of the current thread, in access order. */
+    private static final ThreadLocal<Map<Key, Object>> INSTANCES = new ThreadLocal<Map<Key, Object>>() {
+        @Override
+        protected Map<Key, Object> initialValue() {
+            return new LinkedHashMap<Key, Object>(16, 0.75f, true) {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected boolean removeEldestEntry(
+                        Map.Entry<Key, Object> eldest) {
+                    return size() > MAX_ENTRIES;
+                }
+            };
+        }
+    };
+
+    /**
+     * Returns a cipher of the current thread, initialized for a given
+     * algorithm, secret and mode.
+     * 
+     * @param algorithm
+     *            The cryptographic algorithm.
+     * @param secretKey
+     *            The cryptographic secret.
+     * @param mode
+     *            The cipher mode, either {@link Cipher#ENCRYPT_MODE} or
+     *            {@link Cipher#DECRYPT_MODE}.
+     * @return The initialized cipher.
+     * @throws GeneralSecurityException
+     */
+    public static Cipher getCipher(String algorithm, byte[] secretKey, int mode)
+            throws GeneralSecurityException {
+        Map<Key, Object> instances = INSTANCES.get();
+        Key key = new Key(Cipher.class, algorithm, null);
+        Cipher result = (Cipher) instances.get(key);
+
+        if (result == null) {
+            result = Cipher.getInstance(algorithm);
+            instances.put(key, result);
+        }
+
+        // Always initialize again so that fresh parameters are generated
+        result.init(mode, new SecretKeySpec(secretKey, algorithm));
+        return result;
+    }
+
+    /**
+     * Returns a MAC of the current thread, initialized for a given algorithm
+     * and secret key. The MAC is ready to use and must not be kept by the
+     * caller after the final computation.
+     * 
+     * @param algorithm
+     *            The MAC algorithm.
+     * @param secretKey
+     *            The secret key.
+     * @return The initialized MAC.
+     * @throws NoSuchAlgorithmException
+     * @throws InvalidKeyException
+     */
+    public static Mac getMac(String algorithm, byte[] secretKey)
+            throws NoSuchAlgorithmException, InvalidKeyException {
+        Map<Key, Object> instances = INSTANCES.get();
+        Mac result = (Mac) instances.get(new Key(Mac.class, algorithm,
+                secretKey));
+
+        if (result == null) {
+            result = Mac.getInstance(algorithm);
+            result.init(new SecretKeySpec(secretKey, algorithm));
+            instances.put(
+                    new Key(Mac.class, algorithm, secretKey.clone()), result);
+        } else {
+            result.reset();
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns a message digest of the current thread for a given algorithm.
+     * The digest is reset and must not be kept by the caller after the final
+     * computation.
+     * 
+     * @param algorithm
+     *            The digest algorithm.
+     * @return The message digest.
+     * @throws NoSuchAlgorithmException
+     */
+    public static MessageDigest getMessageDigest(String algorithm)
+            throws NoSuchAlgorithmException {
+        Map<Key, Object> instances = INSTANCES.get();
+        Key key = new Key(MessageDigest.class, algorithm, null);
+        MessageDigest result = (MessageDigest) instances.get(key);
+
+        if (result == null) {
+            result = MessageDigest.getInstance(algorithm);
+            instances.put(key, result);
+        } else {
+            result.reset();
+        }
+
+        return result;
+    }
+
+    /**
+     * Private constructor to ensure that the class acts as a true utility class
+     * i.e. it isn't instantiable and extensible.
+     */
+    private CryptoCache() {
+    }
+}
@@ -36,7 +36,6 @@ package org.restlet.ext.crypto.internal;
 import java.security.GeneralSecurityException;
 
 import javax.crypto.Cipher;
-import javax.crypto.spec.SecretKeySpec;
 
 import org.restlet.engine.util.Base64;
 import org.restlet.ext.crypto.DigestUtils;
@@ -50,7 +49,8 @@ import org.restlet.ext.crypto.DigestUtils;
 public final class CryptoUtils {
 
     /**
-     * Creates a cipher for a given algorithm and secret.
+     * Returns a cipher for a given algorithm and secret. The cipher is cached
+     * for the current thread and must not be kept after the final processing.
      * 
      * @param algorithm
      *            The cryptographic algorithm.
@@ -59,14 +59,12 @@ public final class CryptoUtils {
      * @param mode
      *            The cipher mode, either {@link Cipher#ENCRYPT_MODE} or
      *            {@link Cipher#DECRYPT_MODE}.
-     * @return The new cipher.
+     * @return The initialized cipher.
      * @throws GeneralSecurityException
      */
     private static Cipher createCipher(String algorithm, byte[] secretKey,
             int mode) throws GeneralSecurityException {
-        Cipher cipher = Cipher.getInstance(algorithm);
-        cipher.init(mode, new SecretKeySpec(secretKey, algorithm));
-        return cipher;
+        return CryptoCache.getCipher(algorithm, secretKey, mode);
     }
 
     /**
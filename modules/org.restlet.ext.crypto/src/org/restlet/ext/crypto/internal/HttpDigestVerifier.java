@@ -41,6 +41,7 @@ import org.restlet.data.Reference;
 import org.restlet.engine.security.AuthenticatorUtils;
 import org.restlet.ext.crypto.DigestAuthenticator;
 import org.restlet.ext.crypto.DigestUtils;
+import org.restlet.ext.crypto.NonceStore;
 import org.restlet.security.LocalVerifier;
 import org.restlet.security.User;
 
@@ -185,6 +186,8 @@ public class HttpDigestVerifier extends
                             if (!DigestUtils.toMd5(expectedResponse.toString())
                                     .equals(cresponse)) {
                                 result = RESULT_INVALID;
+                            } else {
+                                result = verifyNonce(nonce, qop, nc);
                             }
                         } else {
                             // The HA1 is null
@@ -205,4 +208,36 @@ public class HttpDigestVerifier extends
         return result;
     }
 
+    /**
+     * Checks a nonce against the nonce store of the authenticator, if any.
+     * Unknown nonces, for example issued before a restart, lead to a stale
+     * challenge while reused nonce counts are rejected.
+     * 
+     * @param nonce
+     *            The server nonce.
+     * @param qop
+     *            The quality of protection.
+     * @param nc
+     *            The nonce count.
+     * @return The verification result.
+     */
+    private int verifyNonce(String nonce, String qop, int nc) {
+        NonceStore store = getDigestAuthenticator().getNonceStore();
+
+        if (store == null) {
+            return RESULT_VALID;
+        }
+
+        if (qop == null) {
+            // No nonce count without quality of protection (RFC 2069)
+            return store.contains(nonce) ? RESULT_VALID : RESULT_STALE;
+        }
+
+        if (store.updateCount(nonce, nc)) {
+            return RESULT_VALID;
+        }
+
+        return store.contains(nonce) ? RESULT_INVALID : RESULT_STALE;
+    }
+
 }
@@ -0,0 +1,446 @@
+/**
+ * Copyright 2005-2013 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.ext.freemarker;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.restlet.Application;
+import org.restlet.Context;
+import org.restlet.engine.log.LoggingThreadFactory;
+import org.restlet.representation.FileRepresentation;
+import org.restlet.representation.Representation;
+import org.restlet.service.Service;
+
+import freemarker.template.Configuration;
+import freemarker.template.Template;
+
+/**
+ * Application service sharing a single FreeMarker configuration and caching the
+ * parsed templates. Templates retrieved by name are cached once parsed and
+ * refreshed in the background by a dedicated thread, which lets the template
+ * loader of the configuration (for example a {@link ContextTemplateLoader})
+ * check their modification dates out of the request processing path. Templates
+ * * provided as representations are cached by location reference, or by file
+ * for file representations, and reused as long as the modification date of
+ * the representation doesn't change. Other representations are parsed at each
+ * call. Both caches keep the most recently used templates, up to
+ * {@link #getCacheSize()} entries each.<br>
+ * <br>
+ * This service isn't part of the default application services, it must be
+ * added explicitly:
+ * 
+ * <pre>
+ * getServices().add(new FreemarkerService());
+ * </pre>
+ * 
+ * {@link TemplateFilter} automatically relies on the service of the current
+ * application when no specific configuration has been set.
+ */
+public class FreemarkerService extends Service {
+
+    /** The default maximum number of templates kept by each cache. */
+    public static final int DEFAULT_CACHE_SIZE = 256;
+
+    /**
+     * Template parsed from a representation along with the modification date
+     * of the representation.
+     */
+    private static class CachedTemplate {
+
+        /** The modification date of the source representation. */
+        private final Date modificationDate;
+
+        /** The parsed template. */
+        private final Template template;
+
+        /**
+         * Constructor.
+         * 
+         * @param template
+         *            The parsed template.
+         * @param modificationDate
+         *            The modification date of the source representation.
+         */
+        public CachedTemplate(Template template, Date modificationDate) {
+            this.template = template;
+            this.modificationDate = modificationDate;
+        }
+    }
+
+    /**
+     * Returns the cache key of a template representation, either its location
+     * reference or its file.
+     * 
+     * @param templateRepresentation
+     *            The template representation.
+     * @return The cache key or null if the representation has no identity.
+     */
+    private static String getKey(Representation templateRepresentation) {
+        String result = null;
+
+        if (templateRepresentation.getLocationRef() != null) {
+            result = templateRepresentation.getLocationRef().toString();
+        } else if (templateRepresentation instanceof FileRepresentation) {
+            File file = ((FileRepresentation) templateRepresentation)
+                    .getFile();
+            result = (file == null) ? null : file.toURI().toString();
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the FreeMarker service of the current application if any.
+     * 
+     * @return The FreeMarker service of the current application or null.
+     */
+    public static FreemarkerService getCurrent() {
+        Application application = Application.getCurrent();
+        return (application == null) ? null : application.getServices().get(
+                FreemarkerService.class);
+    }
+
+    /** The shared FreeMarker configuration. */
+    private volatile Configuration configuration;
+
+    /** The maximum number of templates kept by each cache. */
+    private volatile int cacheSize;
+
+    /** The delay in milliseconds between two refreshes of the templates. */
+    private volatile long refreshDelay;
+
+    /** The executor refreshing the named templates in the background. */
+    private volatile ScheduledExecutorService refreshExecutor;
+
+    /** The cache of templates parsed from representations. */
+    private final Map<String, CachedTemplate> representationTemplates;
+
+    /** The cache of templates retrieved by name. */
+    private final Map<String, Template> templates;
+
+    /**
+     * Constructor.
+     */
+    public FreemarkerService() {
+        this(true);
+    }
+
+    /**
+     * Constructor.
+     * 
+     * @param enabled
+     *            True if the service has been enabled.
+     */
+    public FreemarkerService(boolean enabled) {
+        super(enabled);
+        this.configuration = new Configuration();
+        this.cacheSize = DEFAULT_CACHE_SIZE;
+        this.refreshDelay = 5000L;
+        this.representationTemplates = createCache();
+        this.templates = createCache();
+    }
+
+    /**
+     * Clears the cached templates.
+     */
+    public void clear() {
+        synchronized (this.representationTemplates) {
+            this.representationTemplates.clear();
+        }
+
+        synchronized (this.templates) {
+            this.templates.clear();
+        }
+    }
+
+    /**
+     * Creates a cache keeping the most recently used entries, up to
+     * {@link #getCacheSize()} entries. Accesses must be synchronized on the
+     * cache.
+     * 
+     * @return A new cache.
+     */
+    private <V> Map<String, V> createCache() {
+        return new LinkedHashMap<String, V>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, V> eldest) {
+                return size() > getCacheSize();
+            }
+        };
+    }
+
+    /**
+     * Returns the shared FreeMarker configuration.
+     * 
+     * @return The shared FreeMarker configuration.
+     */
+    public Configuration getConfiguration() {
+        return this.configuration;
+    }
+
+    /**
+     * Returns the logger.
+     * 
+     * @return The logger.
+     */
+    private Logger getLogger() {
+        return (getContext() == null) ? Context.getCurrentLogger()
+                : getContext().getLogger();
+    }
+
+    /**
+     * Returns the maximum number of templates kept by each cache. A value of
+     * zero disables the caches. The default value is
+     * {@link #DEFAULT_CACHE_SIZE}.
+     * 
+     * @return The maximum number of templates kept by each cache.
+     */
+    public int getCacheSize() {
+        return this.cacheSize;
+    }
+
+    /**
+     * Returns the delay in milliseconds between two background refreshes of
+     * the named templates. A negative or zero value disables the background
+     * refresh. Defaults to 5000 milliseconds.
+     * 
+     * @return The delay in milliseconds between two background refreshes.
+     */
+    public long getRefreshDelay() {
+        return this.refreshDelay;
+    }
+
+    /**
+     * Returns the template parsed from the given representation. The parsed
+     * template is cached by location reference, or by file for file
+     * representations, and reused as long as the representation has the same
+     * modification date. In this case the given representation is released
+     * without being read. Other representations are parsed at each call.
+     * 
+     * @param templateRepresentation
+     *            The template representation.
+     * @return The parsed template or null if it couldn't be parsed.
+     */
+    public Template getTemplate(Representation templateRepresentation) {
+        Template result = null;
+        Date modificationDate = templateRepresentation.getModificationDate();
+        String key = getKey(templateRepresentation);
+
+        if ((key == null) || (modificationDate == null)) {
+            result = TemplateRepresentation.getTemplate(getConfiguration(),
+                    templateRepresentation);
+        } else {
+            CachedTemplate cached;
+
+            synchronized (this.representationTemplates) {
+                cached = this.representationTemplates.get(key);
+            }
+
+            if ((cached != null)
+                    && modificationDate.equals(cached.modificationDate)) {
+                result = cached.template;
+                templateRepresentation.release();
+            } else {
+                result = TemplateRepresentation.getTemplate(
+                        getConfiguration(), templateRepresentation);
+
+                if (result != null) {
+                    synchronized (this.representationTemplates) {
+                        this.representationTemplates.put(key,
+                                new CachedTemplate(result, modificationDate));
+                    }
+                }
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the template with the given name. It is retrieved once via the
+     * shared FreeMarker configuration, then served from the cache and
+     * refreshed in the background.
+     * 
+     * @param templateName
+     *            The template name.
+     * @return The template or null if not found.
+     */
+    public Template getTemplate(String templateName) {
+        Template result;
+
+        synchronized (this.templates) {
+            result = this.templates.get(templateName);
+        }
+
+        if (result == null) {
+            result = TemplateRepresentation.getTemplate(getConfiguration(),
+                    templateName);
+
+            if (result != null) {
+                synchronized (this.templates) {
+                    this.templates.put(templateName, result);
+                }
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Refreshes the cached named templates. The FreeMarker configuration
+     * reloads the templates whose source has been modified, according to its
+     * template update delay. Templates that can't be found anymore are removed
+     * from the cache.
+     */
+    protected void refresh() {
+        Map<String, Template> snapshot;
+
+        synchronized (this.templates) {
+            snapshot = new HashMap<String, Template>(this.templates);
+        }
+
+        for (Map.Entry<String, Template> entry : snapshot.entrySet()) {
+            try {
+                Template template = getConfiguration().getTemplate(
+                        entry.getKey());
+
+                if (template != entry.getValue()) {
+                    replace(entry.getKey(), entry.getValue(), template);
+                }
+            } catch (IOException e) {
+                getLogger().log(Level.FINE,
+                        "Unable to refresh the template " + entry.getKey(), e);
+                replace(entry.getKey(), entry.getValue(), null);
+            }
+        }
+    }
+
+    /**
+     * Sets the shared FreeMarker configuration. The cached templates are
+     * cleared.
+     * 
+     * @param configuration
+     *            The shared FreeMarker configuration.
+     */
+    public void setConfiguration(Configuration configuration) {
+        this.configuration = configuration;
+        clear();
+    }
+
+    /**
+     * Replaces a cached named template if it hasn't changed in the meantime.
+     * 
+     * @param templateName
+     *            The template name.
+     * @param oldTemplate
+     *            The template expected in the cache.
+     * @param newTemplate
+     *            The new template or null to remove it from the cache.
+     */
+    private void replace(String templateName, Template oldTemplate,
+            Template newTemplate) {
+        synchronized (this.templates) {
+            if (this.templates.get(templateName) == oldTemplate) {
+                if (newTemplate == null) {
+                    this.templates.remove(templateName);
+                } else {
+                    this.templates.put(templateName, newTemplate);
+                }
+            }
+        }
+    }
+
+    /**
+     * Sets the maximum number of templates kept by each cache. A value of zero
+     * disables the caches. The cached templates are cleared.
+     * 
+     * @param cacheSize
+     *            The maximum number of templates kept by each cache.
+     */
+    public void setCacheSize(int cacheSize) {
+        this.cacheSize = cacheSize;
+        clear();
+    }
+
+    /**
+     * Sets the delay in milliseconds between two background refreshes of the
+     * named templates. A negative or zero value disables the background
+     * refresh. Must be set before starting the service.
+     * 
+     * @param refreshDelay
+     *            The delay in milliseconds between two background refreshes.
+     */
+    public void setRefreshDelay(long refreshDelay) {
+        this.refreshDelay = refreshDelay;
+    }
+
+    @Override
+    public synchronized void start() throws Exception {
+        if (isEnabled() && (getRefreshDelay() > 0)) {
+            this.refreshExecutor = Executors
+                    .newSingleThreadScheduledExecutor(new LoggingThreadFactory(
+                            getLogger(), true));
+            this.refreshExecutor.scheduleWithFixedDelay(new Runnable() {
+                public void run() {
+                    refresh();
+                }
+            }, getRefreshDelay(), getRefreshDelay(), TimeUnit.MILLISECONDS);
+        }
+
+        super.start();
+    }
+
+    @Override
+    public synchronized void stop() throws Exception {
+        if (this.refreshExecutor != null) {
+            this.refreshExecutor.shutdownNow();
+            this.refreshExecutor = null;
+        }
+
+        super.stop();
+    }
+
+}
@@ -50,7 +50,9 @@ import freemarker.template.TemplateHashModel;
  * representation. By default, the template representation provides a data model
  * based on the request and response objects. In order for the wrapping to
  * happen, the representations must have the {@link Encoding#FREEMARKER}
- * encoding set.<br>
+ * encoding set. When no FreeMarker configuration is explicitly set, the
+ * {@link FreemarkerService} of the current application is used to share the
+ * configuration and cache the parsed templates.<br>
  * <br>
  * Concurrency note: instances of this class or its subclasses can be invoked by
  * several threads at the same time and therefore must be thread-safe. You
@@ -71,7 +73,6 @@ public class TemplateFilter extends Filter {
      */
     public TemplateFilter() {
         super();
-        this.configuration = new Configuration();
     }
 
     /**
@@ -82,7 +83,6 @@ public class TemplateFilter extends Filter {
      */
     public TemplateFilter(Context context) {
         super(context);
-        this.configuration = new Configuration();
     }
 
     /**
@@ -95,7 +95,6 @@ public class TemplateFilter extends Filter {
      */
     public TemplateFilter(Context context, Restlet next) {
         super(context, next);
-        this.configuration = new Configuration();
     }
 
     /**
@@ -134,9 +133,13 @@ public class TemplateFilter extends Filter {
         if (response.isEntityAvailable()
                 && response.getEntity().getEncodings().contains(
                         Encoding.FREEMARKER)) {
+            FreemarkerService service = (this.configuration == null) ? FreemarkerService
+                    .getCurrent() : null;
             TemplateRepresentation representation = new TemplateRepresentation(
-                    response.getEntity(), this.configuration, response
-                            .getEntity().getMediaType());
+                    (service == null) ? TemplateRepresentation.getTemplate(
+                            getConfiguration(), response.getEntity())
+                            : service.getTemplate(response.getEntity()),
+                    response.getEntity().getMediaType());
             representation.setDataModel(createDataModel(request, response));
             response.setEntity(representation);
         }
@@ -168,11 +171,27 @@ public class TemplateFilter extends Filter {
     }
 
     /**
-     * Returns the FreeMarker configuration.
+     * Returns the FreeMarker configuration. If none has been set, the shared
+     * configuration of the current application's {@link FreemarkerService} is
+     * returned, or a new configuration is created if there is no such service.
      * 
      * @return The FreeMarker configuration.
      */
     public Configuration getConfiguration() {
+        if (this.configuration == null) {
+            FreemarkerService service = FreemarkerService.getCurrent();
+
+            if (service != null) {
+                return service.getConfiguration();
+            }
+
+            synchronized (this) {
+                if (this.configuration == null) {
+                    this.configuration = new Configuration();
+                }
+            }
+        }
+
         return this.configuration;
     }
 
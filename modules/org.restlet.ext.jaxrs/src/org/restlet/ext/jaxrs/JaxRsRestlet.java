@@ -35,8 +35,6 @@ package org.restlet.ext.jaxrs;
 
 import static org.restlet.ext.jaxrs.internal.util.AlgorithmUtil.addPathVarsToMap;
 import static org.restlet.ext.jaxrs.internal.util.AlgorithmUtil.getBestMethod;
-import static org.restlet.ext.jaxrs.internal.util.AlgorithmUtil.getFirstByNoOfLiteralCharsNoOfCapturingGroups;
-import static org.restlet.ext.jaxrs.internal.util.AlgorithmUtil.removeNotSupportedHttpMethod;
 import static org.restlet.ext.jaxrs.internal.util.Util.copyResponseHeaders;
 import static org.restlet.ext.jaxrs.internal.util.Util.getMediaType;
 import static org.restlet.ext.jaxrs.internal.util.Util.getSupportedCharSet;
@@ -849,17 +847,15 @@ public class JaxRsRestlet extends Restlet {
         // (a)
         ResourceObject resObj = resObjAndRemPath.resourceObject;
         RemainingPath u = resObjAndRemPath.u;
-        // (a) 1
+        // (a) 1 and (a) 2: the precomputed methods for the path, that
+        // support the given method
         ResourceClass resourceClass = resObj.getResourceClass();
         Collection<ResourceMethod> resourceMethods = resourceClass
-                .getMethodsForPath(u);
-        if (resourceMethods.isEmpty())
-            excHandler.resourceMethodNotFound();// NICE (resourceClass, u);
-        // (a) 2: remove methods not support the given method
-        boolean alsoGet = httpMethod.equals(Method.HEAD);
-        removeNotSupportedHttpMethod(resourceMethods, httpMethod, alsoGet);
+                .getMethodsForPath(u, httpMethod);
         if (resourceMethods.isEmpty()) {
             Set<Method> allowedMethods = resourceClass.getAllowedMethods(u);
+            if (allowedMethods.isEmpty())
+                excHandler.resourceMethodNotFound();// NICE (resourceClass, u);
             if (httpMethod.equals(Method.OPTIONS)) {
                 callContext.getResponse().getAllowedMethods()
                         .addAll(allowedMethods);
@@ -918,33 +914,27 @@ public class JaxRsRestlet extends Restlet {
     private RroRemPathAndMatchedPath identifyRootResource(RemainingPath u)
             throws WebApplicationException, RequestHandledException {
         // 1. Identify the root resource class:
-        // (a)
-        // c: Set<Class>: root resource classes
-        // e: Set<RegExp>
-        // Map<UriTemplateRegExp, Class> eAndCs = new HashMap();
-        Collection<RootResourceClass> eAndCs = new ArrayList<RootResourceClass>();
-        // (a) and (b) and (c) Filter E
-        for (RootResourceClass rootResourceClass : this.resourceClasses.roots()) {
-            // Map.Entry<UriTemplateRegExp, Class> eAndC = eAndCIter.next();
-            // UriTemplateRegExp regExp = eAndC.getKey();
-            // Class clazz = eAndC.getValue();
+        // (a) and (b) and (c) Filter E, (e) sort E: the root resource
+        // classes are already sorted, so the first matching one is used.
+        RootResourceClass tClass = null;
+        MatchingResult matchResult = null;
+        for (RootResourceClass rootResourceClass : this.resourceClasses
+                .sortedRoots()) {
             PathRegExp rrcPathRegExp = rootResourceClass.getPathRegExp();
             MatchingResult matchingResult = rrcPathRegExp.match(u);
             if (matchingResult == null)
                 continue; // doesn't match
-            if (matchingResult.getFinalCapturingGroup().isEmptyOrSlash())
-                eAndCs.add(rootResourceClass);
-            else if (rootResourceClass.hasSubResourceMethodsOrLocators())
-                eAndCs.add(rootResourceClass);
+            if (matchingResult.getFinalCapturingGroup().isEmptyOrSlash()
+                    || rootResourceClass.hasSubResourceMethodsOrLocators()) {
+                tClass = rootResourceClass;
+                matchResult = matchingResult;
+                break;
+            }
         }
         // (d)
-        if (eAndCs.isEmpty())
+        if (tClass == null)
             excHandler.rootResourceNotFound();
-        // (e) and (f)
-        RootResourceClass tClass = getFirstByNoOfLiteralCharsNoOfCapturingGroups(eAndCs);
         // (f)
-        PathRegExp rMatch = tClass.getPathRegExp();
-        MatchingResult matchResult = rMatch.match(u);
         u = matchResult.getFinalCapturingGroup();
         addPathVarsToMap(matchResult, tlContext.get());
         ResourceObject o = instantiateRrc(tClass);
@@ -1107,29 +1097,30 @@ public class JaxRsRestlet extends Restlet {
                 return new ResObjAndRemPath(o, u);
             }
             // (b) Set C = class ofO,E = {}
-            Collection<ResourceMethodOrLocator> eWithMethod = new ArrayList<ResourceMethodOrLocator>();
             // (c) and (d) Filter E: remove members do not match U or final
             // match not empty
+            // (f) and (g) sort E, use first member of E: the methods and
+            // locators are already sorted, so the first matching one is used.
+            ResourceMethodOrLocator firstMeth = null;
+            MatchingResult matchingResult = null;
             for (ResourceMethodOrLocator methodOrLocator : resClass
                     .getResourceMethodsAndLocators()) {
                 PathRegExp pathRegExp = methodOrLocator.getPathRegExp();
-                MatchingResult matchingResult = pathRegExp.match(u);
-                if (matchingResult == null)
+                MatchingResult mr = pathRegExp.match(u);
+                if (mr == null)
                     continue;
-                if (matchingResult.getFinalCapturingGroup().isEmptyOrSlash())
-                    eWithMethod.add(methodOrLocator);
-                // the following is added by Stephan (is not in spec 2008-03-06)
-                else if (methodOrLocator instanceof SubResourceLocator)
-                    eWithMethod.add(methodOrLocator);
+                // the locator case is added by Stephan (is not in spec
+                // 2008-03-06)
+                if (mr.getFinalCapturingGroup().isEmptyOrSlash()
+                        || (methodOrLocator instanceof SubResourceLocator)) {
+                    firstMeth = methodOrLocator;
+                    matchingResult = mr;
+                    break;
+                }
             }
             // (e) If E is empty -> HTTP 404
-            if (eWithMethod.isEmpty())
+            if (firstMeth == null)
                 excHandler.resourceNotFound();// NICE (o.getClass(), u);
-            // (f) and (g) sort E, use first member of E
-            ResourceMethodOrLocator firstMeth = getFirstByNoOfLiteralCharsNoOfCapturingGroups(eWithMethod);
-
-            PathRegExp rMatch = firstMeth.getPathRegExp();
-            MatchingResult matchingResult = rMatch.match(u);
 
             addPathVarsToMap(matchingResult, callContext);
 
@@ -34,6 +34,7 @@
 package org.restlet.ext.jaxrs.internal.util;
 
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.Iterator;
 import java.util.List;
@@ -175,7 +176,7 @@ public class AlgorithmUtil {
      * Sorts the ResourceMethods by it's number of non default regular
      * expressions
      */
-    private static Comparator<ResourceMethod> COMP = new Comparator<ResourceMethod>() {
+    private static final Comparator<ResourceMethod> COMP = new Comparator<ResourceMethod>() {
         public int compare(ResourceMethod rm1, ResourceMethod rm2) {
             int nndre1 = rm1.getPathRegExp().getNoNonDefCaprGroups();
             int nndre2 = rm2.getPathRegExp().getNoNonDefCaprGroups();
@@ -183,6 +184,39 @@ public class AlgorithmUtil {
         }
     };
 
+    /**
+     * Sorts root resource classes, sub resource methods and sub resource
+     * locators by the keys of JSR-311-Spec, Section 3.7.2, Part 1.e and 2.f,
+     * see {@link #getFirstByNoOfLiteralCharsNoOfCapturingGroups(Collection)}.
+     */
+    private static final Comparator<RrcOrRml> MATCHING_COMP = new Comparator<RrcOrRml>() {
+        public int compare(RrcOrRml r1, RrcOrRml r2) {
+            PathRegExp p1 = r1.getPathRegExp();
+            PathRegExp p2 = r2.getPathRegExp();
+            int diff = p2.getNoOfLiteralChars() - p1.getNoOfLiteralChars();
+            if (diff != 0) {
+                return diff;
+            }
+            diff = p2.getNoOfCapturingGroups() - p1.getNoOfCapturingGroups();
+            if (diff != 0) {
+                return diff;
+            }
+            diff = p2.getNoNonDefCaprGroups() - p1.getNoNonDefCaprGroups();
+            if (diff != 0) {
+                return diff;
+            }
+            if ((r1 instanceof ResourceMethod)
+                    && (r2 instanceof SubResourceLocator)) {
+                return -1;
+            }
+            if ((r1 instanceof SubResourceLocator)
+                    && (r2 instanceof ResourceMethod)) {
+                return 1;
+            }
+            return 0;
+        }
+    };
+
     /**
      * Sort by using the media type of input data as the primary key and the
      * media type of output data as the secondary key.<br>
@@ -193,8 +227,9 @@ public class AlgorithmUtil {
      * See JSR-311 Spec, section 2.6, Part 3b+c. <br>
      * Never returns null.
      * 
-     * @param unsortedResourceMethods
-     *                the resourceMethods that provide the required mediaType
+     * @param resourceMethods
+     *                the resourceMethods that provide the required mediaType,
+     *                already sorted by {@link #sortResourceMethods(List)}.
      * @param givenMediaType
      *                The MediaType of the given entity.
      * @param accMediaTypes
@@ -205,12 +240,9 @@ public class AlgorithmUtil {
      *         type in the request, or null
      */
     public static ResourceMethod getBestMethod(
-            Collection<ResourceMethod> unsortedResourceMethods,
+            Collection<ResourceMethod> resourceMethods,
             MediaType givenMediaType, SortedMetadata<MediaType> accMediaTypes,
             Method requHttpMethod) {
-        final Collection<ResourceMethod> resourceMethods;
-        resourceMethods = new SortedOrderedBag<ResourceMethod>(COMP, 
-                unsortedResourceMethods);
         // 3 b+c
         SortedMetadata<MediaType> givenMediaTypes;
         if (givenMediaType != null) {
@@ -401,4 +433,32 @@ public class AlgorithmUtil {
             }
         }
     }
+
+    /**
+     * Sorts the given root resource classes, sub resource methods and sub
+     * resource locators, so that the first member matching a path is the one
+     * {@link #getFirstByNoOfLiteralCharsNoOfCapturingGroups(Collection)} would
+     * return. The sort is stable, so equal members keep their order.
+     * 
+     * @param <R>
+     * @param rrcOrRmls
+     *                the list to sort.
+     */
+    public static <R extends RrcOrRml> void sortByNoOfLiteralCharsNoOfCapturingGroups(
+            List<R> rrcOrRmls) {
+        Collections.sort(rrcOrRmls, MATCHING_COMP);
+    }
+
+    /**
+     * Sorts the given resource methods by their number of capturing groups
+     * with non default regular expressions (descending order), as needed by
+     * {@link #getBestMethod(Collection, MediaType, SortedMetadata, Method)}.
+     * The sort is stable, so equal methods keep their order.
+     * 
+     * @param resourceMethods
+     *                the list to sort.
+     */
+    public static void sortResourceMethods(List<ResourceMethod> resourceMethods) {
+        Collections.sort(resourceMethods, COMP);
+    }
 }
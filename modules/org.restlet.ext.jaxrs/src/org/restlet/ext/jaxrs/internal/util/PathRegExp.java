@@ -43,7 +43,6 @@ import java.util.regex.Pattern;
 
 import javax.ws.rs.Path;
 
-import org.restlet.engine.util.SystemUtils;
 import org.restlet.ext.jaxrs.internal.exceptions.IllegalPathException;
 import org.restlet.ext.jaxrs.internal.exceptions.IllegalPathOnClassException;
 import org.restlet.ext.jaxrs.internal.exceptions.IllegalPathOnMethodException;
@@ -304,7 +303,7 @@ public class PathRegExp {
 
     @Override
     public int hashCode() {
-        return SystemUtils.hashCode(this.pattern);
+        return this.pattern.pattern().hashCode();
     }
 
     /**
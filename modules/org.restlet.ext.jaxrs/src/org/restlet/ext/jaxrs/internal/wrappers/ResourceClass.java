@@ -33,6 +33,8 @@
 
 package org.restlet.ext.jaxrs.internal.wrappers;
 
+import static org.restlet.ext.jaxrs.internal.util.AlgorithmUtil.sortByNoOfLiteralCharsNoOfCapturingGroups;
+import static org.restlet.ext.jaxrs.internal.util.AlgorithmUtil.sortResourceMethods;
 import static org.restlet.ext.jaxrs.internal.wrappers.WrapperUtil.checkForJaxRsAnnotations;
 import static org.restlet.ext.jaxrs.internal.wrappers.WrapperUtil.getHttpMethod;
 import static org.restlet.ext.jaxrs.internal.wrappers.WrapperUtil.isVolatile;
@@ -43,6 +45,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -75,9 +78,10 @@ import org.restlet.ext.jaxrs.internal.wrappers.provider.JaxRsProviders;
 public class ResourceClass extends AbstractJaxRsWrapper {
 
     /**
-     * Caches the allowed methods (unmodifiable) for given remainingParts.
+     * The allowed methods (unmodifiable) for each path template of the
+     * resource methods. It is initialized with the resource methods.
      */
-    private final Map<RemainingPath, Set<org.restlet.data.Method>> allowedMethods = new HashMap<RemainingPath, Set<org.restlet.data.Method>>();
+    private final Map<PathRegExp, Set<org.restlet.data.Method>> allowedMethods = new LinkedHashMap<PathRegExp, Set<org.restlet.data.Method>>();
 
     protected final Class<?> jaxRsClass;
 
@@ -88,18 +92,27 @@ public class ResourceClass extends AbstractJaxRsWrapper {
     private final boolean leaveEncoded;
 
     /**
-     * The resource methods of this resource class. (It is initialized in
-     * method.)
+     * The resource methods for each path template and HTTP method, sorted as
+     * needed to select the best method. The list for HEAD also contains the
+     * methods for GET. It is initialized with the resource methods.
+     */
+    private final Map<PathRegExp, Map<org.restlet.data.Method, List<ResourceMethod>>> methodsForPath = new LinkedHashMap<PathRegExp, Map<org.restlet.data.Method, List<ResourceMethod>>>();
+
+    /**
+     * The resource methods of this resource class, sorted by the number of
+     * capturing groups with non default regular expressions. (It is
+     * initialized in method.)
      * {@link #initResourceMethodsAndLocators(ThreadLocalizedContext, JaxRsProviders, ExtensionBackwardMapping, Logger)}
      */
-    private final Collection<ResourceMethod> resourceMethods = new ArrayList<ResourceMethod>();
+    private final List<ResourceMethod> resourceMethods = new ArrayList<ResourceMethod>();
 
     /**
-     * The resource methods and sub resource locators of this resource class.
-     * (It is initialized in method.)
+     * The resource methods and sub resource locators of this resource class,
+     * sorted in the order they have to be matched. (It is initialized in
+     * method.)
      * {@link #initResourceMethodsAndLocators(ThreadLocalizedContext, JaxRsProviders, ExtensionBackwardMapping, Logger)}
      */
-    private final Collection<ResourceMethodOrLocator> resourceMethodsAndLocators = new ArrayList<ResourceMethodOrLocator>();
+    private final List<ResourceMethodOrLocator> resourceMethodsAndLocators = new ArrayList<ResourceMethodOrLocator>();
 
     /**
      * The sub resource locators of this resource class. (It is initialized in
@@ -168,6 +181,27 @@ public class ResourceClass extends AbstractJaxRsWrapper {
                 extensionBackwardMapping, logger);
     }
 
+    /**
+     * Adds the resource method to the list for the given HTTP method.
+     * 
+     * @param methods
+     *                the resource methods by HTTP method.
+     * @param httpMethod
+     *                the HTTP method.
+     * @param method
+     *                the resource method to add.
+     */
+    private static void addMethod(
+            Map<org.restlet.data.Method, List<ResourceMethod>> methods,
+            org.restlet.data.Method httpMethod, ResourceMethod method) {
+        List<ResourceMethod> list = methods.get(httpMethod);
+        if (list == null) {
+            list = new ArrayList<ResourceMethod>(2);
+            methods.put(httpMethod, list);
+        }
+        list.add(method);
+    }
+
     /**
      * Warn, if one of the message parameters is primitive.
      * 
@@ -209,24 +243,19 @@ public class ResourceClass extends AbstractJaxRsWrapper {
      */
     public Set<org.restlet.data.Method> getAllowedMethods(
             RemainingPath remainingPath) {
-        Set<org.restlet.data.Method> allowedMethods = this.allowedMethods
-                .get(remainingPath);
-        if (allowedMethods != null) {
-            return allowedMethods;
+        final List<PathRegExp> paths = getPathsMatching(remainingPath);
+        if (paths.isEmpty()) {
+            return Collections.emptySet();
         }
-        allowedMethods = new HashSet<org.restlet.data.Method>(6);
-        for (final ResourceMethod rm : getMethodsForPath(remainingPath)) {
-            allowedMethods.add(rm.getHttpMethod());
+        if (paths.size() == 1) {
+            return this.allowedMethods.get(paths.get(0));
         }
-        if (!allowedMethods.isEmpty()) {
-            if (allowedMethods.contains(org.restlet.data.Method.GET)) {
-                allowedMethods.add(org.restlet.data.Method.HEAD);
-            }
+        final Set<org.restlet.data.Method> allowedMethods = new HashSet<org.restlet.data.Method>(
+                6);
+        for (final PathRegExp path : paths) {
+            allowedMethods.addAll(this.allowedMethods.get(path));
         }
-        final Set<org.restlet.data.Method> unmodifiable = Collections
-                .unmodifiableSet(allowedMethods);
-        this.allowedMethods.put(remainingPath, unmodifiable);
-        return unmodifiable;
+        return Collections.unmodifiableSet(allowedMethods);
     }
 
     /**
@@ -311,17 +340,11 @@ public class ResourceClass extends AbstractJaxRsWrapper {
      */
     public Collection<ResourceMethod> getMethodsForPath(
             RemainingPath remainingPath) {
-        // NICE results may be chached, if any method is returned.
-        // The 404 case will be called rarely and produce a lot of cached data.
+        final List<PathRegExp> paths = getPathsMatching(remainingPath);
         final List<ResourceMethod> resourceMethods = new ArrayList<ResourceMethod>();
-        for (final ResourceMethod method : this.resourceMethods) {
-            final PathRegExp methodPath = method.getPathRegExp();
-            if (remainingPath.isEmptyOrSlash()) {
-                if (methodPath.isEmptyOrSlash()) {
-                    resourceMethods.add(method);
-                }
-            } else {
-                if (methodPath.matchesWithEmpty(remainingPath)) {
+        if (!paths.isEmpty()) {
+            for (final ResourceMethod method : this.resourceMethods) {
+                if (paths.contains(method.getPathRegExp())) {
                     resourceMethods.add(method);
                 }
             }
@@ -329,6 +352,44 @@ public class ResourceClass extends AbstractJaxRsWrapper {
         return resourceMethods;
     }
 
+    /**
+     * Return the resource methods for the given path supporting the given HTTP
+     * method, ignoring consumed or produced mimes. For HEAD, the resource
+     * methods for GET are also returned. The methods are sorted as required by
+     * {@link org.restlet.ext.jaxrs.internal.util.AlgorithmUtil#getBestMethod(Collection, org.restlet.data.MediaType, org.restlet.ext.jaxrs.internal.util.SortedMetadata, org.restlet.data.Method)}
+     * .
+     * 
+     * @param remainingPath
+     *                the path
+     * @param httpMethod
+     *                the HTTP method of the request.
+     * @return The unmodifiable list of ResourceMethods
+     */
+    public List<ResourceMethod> getMethodsForPath(RemainingPath remainingPath,
+            org.restlet.data.Method httpMethod) {
+        final List<PathRegExp> paths = getPathsMatching(remainingPath);
+        if (paths.isEmpty()) {
+            return Collections.emptyList();
+        }
+        if (paths.size() == 1) {
+            final List<ResourceMethod> methods = this.methodsForPath.get(
+                    paths.get(0)).get(httpMethod);
+            if (methods == null) {
+                return Collections.emptyList();
+            }
+            return methods;
+        }
+        final boolean alsoGet = httpMethod.equals(org.restlet.data.Method.HEAD);
+        final List<ResourceMethod> resourceMethods = new ArrayList<ResourceMethod>();
+        for (final ResourceMethod method : this.resourceMethods) {
+            if (method.isHttpMethodSupported(httpMethod, alsoGet)
+                    && paths.contains(method.getPathRegExp())) {
+                resourceMethods.add(method);
+            }
+        }
+        return Collections.unmodifiableList(resourceMethods);
+    }
+
     /**
      * @return returns the name of the wrapped class
      */
@@ -336,6 +397,37 @@ public class ResourceClass extends AbstractJaxRsWrapper {
         return this.jaxRsClass.getName();
     }
 
+    /**
+     * Returns the path templates of the resource methods matching the given
+     * path without a final capturing group. Each path template is matched only
+     * once, also if more than one resource method is annotated with it.
+     * 
+     * @param remainingPath
+     *                the path
+     * @return the matching path templates.
+     */
+    private List<PathRegExp> getPathsMatching(RemainingPath remainingPath) {
+        List<PathRegExp> result = null;
+        for (final PathRegExp methodPath : this.methodsForPath.keySet()) {
+            final boolean matches;
+            if (remainingPath.isEmptyOrSlash()) {
+                matches = methodPath.isEmptyOrSlash();
+            } else {
+                matches = methodPath.matchesWithEmpty(remainingPath);
+            }
+            if (matches) {
+                if (result == null) {
+                    result = new ArrayList<PathRegExp>(2);
+                }
+                result.add(methodPath);
+            }
+        }
+        if (result == null) {
+            return Collections.emptyList();
+        }
+        return result;
+    }
+
     /**
      * @return Return the sub resource methods of the given class.
      */
@@ -344,9 +436,12 @@ public class ResourceClass extends AbstractJaxRsWrapper {
     }
 
     /**
-     * @return Returns the sub resource locatores and sub resource methods.
+     * @return Returns the sub resource locatores and sub resource methods,
+     *         sorted in the order they have to be matched, see
+     *         {@link org.restlet.ext.jaxrs.internal.util.AlgorithmUtil#sortByNoOfLiteralCharsNoOfCapturingGroups(List)}
+     *         .
      */
-    public final Collection<ResourceMethodOrLocator> getResourceMethodsAndLocators() {
+    public final List<ResourceMethodOrLocator> getResourceMethodsAndLocators() {
         return this.resourceMethodsAndLocators;
     }
 
@@ -447,6 +542,43 @@ public class ResourceClass extends AbstractJaxRsWrapper {
                         + ". Ignoring this method. (" + e.getMessage() + ")");
             }
         }
+        sortResourceMethods(this.resourceMethods);
+        sortByNoOfLiteralCharsNoOfCapturingGroups(this.resourceMethodsAndLocators);
+        initMethodsForPath();
+    }
+
+    /**
+     * Precomputes the resource methods and the allowed methods for each path
+     * template, so that no sorting or filtering is needed per request.
+     */
+    private void initMethodsForPath() {
+        for (final ResourceMethod method : this.resourceMethods) {
+            final PathRegExp path = method.getPathRegExp();
+            Map<org.restlet.data.Method, List<ResourceMethod>> methods = this.methodsForPath
+                    .get(path);
+            if (methods == null) {
+                methods = new HashMap<org.restlet.data.Method, List<ResourceMethod>>();
+                this.methodsForPath.put(path, methods);
+            }
+            final org.restlet.data.Method httpMethod = method.getHttpMethod();
+            addMethod(methods, httpMethod, method);
+            if (httpMethod.equals(org.restlet.data.Method.GET)) {
+                addMethod(methods, org.restlet.data.Method.HEAD, method);
+            }
+        }
+        for (final Map.Entry<PathRegExp, Map<org.restlet.data.Method, List<ResourceMethod>>> entry : this.methodsForPath
+                .entrySet()) {
+            final Map<org.restlet.data.Method, List<ResourceMethod>> methods = entry
+                    .getValue();
+            for (final Map.Entry<org.restlet.data.Method, List<ResourceMethod>> methodEntry : methods
+                    .entrySet()) {
+                methodEntry.setValue(Collections.unmodifiableList(methodEntry
+                        .getValue()));
+            }
+            this.allowedMethods.put(entry.getKey(), Collections
+                    .unmodifiableSet(new HashSet<org.restlet.data.Method>(
+                            methods.keySet())));
+        }
     }
 
     /**
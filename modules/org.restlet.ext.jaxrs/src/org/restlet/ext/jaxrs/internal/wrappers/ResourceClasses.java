@@ -34,7 +34,10 @@
 package org.restlet.ext.jaxrs.internal.wrappers;
 
 import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.CopyOnWriteArraySet;
@@ -52,6 +55,7 @@ import org.restlet.ext.jaxrs.internal.exceptions.IllegalPathParamTypeException;
 import org.restlet.ext.jaxrs.internal.exceptions.InjectException;
 import org.restlet.ext.jaxrs.internal.exceptions.MissingAnnotationException;
 import org.restlet.ext.jaxrs.internal.exceptions.MissingConstructorException;
+import org.restlet.ext.jaxrs.internal.util.AlgorithmUtil;
 import org.restlet.ext.jaxrs.internal.util.PathRegExp;
 import org.restlet.ext.jaxrs.internal.wrappers.provider.ExtensionBackwardMapping;
 import org.restlet.ext.jaxrs.internal.wrappers.provider.JaxRsProviders;
@@ -77,6 +81,13 @@ public class ResourceClasses {
      */
     private final Set<RootResourceClass> rootResourceClasses = new CopyOnWriteArraySet<RootResourceClass>();
 
+    /**
+     * The root resource classes, sorted in the order they have to be matched.
+     * It is recomputed each time a root resource class is added.
+     */
+    private volatile List<RootResourceClass> sortedRoots = Collections
+            .emptyList();
+
     private final ThreadLocalizedContext tlContext;
 
     /**
@@ -166,6 +177,7 @@ public class ResourceClasses {
             }
         }
         rootResourceClasses.add(newRrc);
+        sortRoots();
         return true;
     }
 
@@ -250,6 +262,7 @@ public class ResourceClasses {
             }
         }
         rootResourceClasses.add(newRrc);
+        sortRoots();
         return true;
     }
 
@@ -340,4 +353,25 @@ public class ResourceClasses {
     public Iterable<RootResourceClass> roots() {
         return this.rootResourceClasses;
     }
+
+    /**
+     * Returns the wrapped root resource classes, sorted in the order they have
+     * to be matched, see
+     * {@link AlgorithmUtil#sortByNoOfLiteralCharsNoOfCapturingGroups(List)}.
+     * 
+     * @return the unmodifiable sorted list of root resource classes.
+     */
+    public List<RootResourceClass> sortedRoots() {
+        return this.sortedRoots;
+    }
+
+    /**
+     * Recomputes the sorted list of root resource classes.
+     */
+    private synchronized void sortRoots() {
+        List<RootResourceClass> roots = new ArrayList<RootResourceClass>(
+                this.rootResourceClasses);
+        AlgorithmUtil.sortByNoOfLiteralCharsNoOfCapturingGroups(roots);
+        this.sortedRoots = Collections.unmodifiableList(roots);
+    }
 }
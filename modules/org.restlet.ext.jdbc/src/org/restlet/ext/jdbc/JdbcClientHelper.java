@@ -36,11 +36,15 @@ package org.restlet.ext.jdbc;
 import java.io.IOException;
 import java.sql.Connection;
 import java.sql.DriverManager;
+import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.logging.Level;
 
 import javax.xml.parsers.DocumentBuilder;
@@ -50,11 +54,15 @@ import javax.xml.parsers.ParserConfigurationException;
 import org.apache.commons.dbcp.ConnectionFactory;
 import org.apache.commons.dbcp.DriverManagerConnectionFactory;
 import org.apache.commons.dbcp.PoolableConnectionFactory;
+import org.apache.commons.pool.KeyedObjectPoolFactory;
 import org.apache.commons.pool.ObjectPool;
+import org.apache.commons.pool.impl.GenericKeyedObjectPool;
+import org.apache.commons.pool.impl.GenericKeyedObjectPoolFactory;
 import org.apache.commons.pool.impl.GenericObjectPool;
 import org.restlet.Client;
 import org.restlet.Request;
 import org.restlet.Response;
+import org.restlet.data.MediaType;
 import org.restlet.data.Method;
 import org.restlet.data.Protocol;
 import org.restlet.data.Status;
@@ -83,6 +91,16 @@ import org.xml.sax.SAXException;
  * first result (0 by default) and "limit" for the maximum number of results
  * retrieved (unlimited by default).
  * <p>
+ * Large results can be streamed by setting the "streaming" header element to
+ * true. In this case, a {@link ResultSetRepresentation} writes the rows while
+ * they are fetched, as XML, JSON or CSV depending on the media types accepted
+ * by the request. The number of rows fetched at once from the database can be
+ * tuned with the "fetchSize" header element.
+ * <p>
+ * Asynchronous calls, having a response callback, are executed by a bounded
+ * pool of worker threads instead of the calling thread. Pooled connections
+ * also cache their prepared statements.
+ * <p>
  * Do not forget to register your JDBC drivers before using this client. See
  * {@link DriverManager} for details.
  * <p>
@@ -104,6 +122,8 @@ import org.xml.sax.SAXException;
  * &nbsp;&nbsp;&nbsp;&nbsp;{@code </connection>}<br>
  * &nbsp;&nbsp;&nbsp;&nbsp;{@code <start>10</start>}<br>
  * &nbsp;&nbsp;&nbsp;&nbsp;{@code <limit>20</limit>}<br>
+ * &nbsp;&nbsp;&nbsp;&nbsp;{@code <streaming>true</streaming>}<br>
+ * &nbsp;&nbsp;&nbsp;&nbsp;{@code <fetchSize>100</fetchSize>}<br>
  * &nbsp;&nbsp;&nbsp;&nbsp;
  * {@code <returnGeneratedKeys>true</returnGeneratedKeys>}<br>
  * &nbsp;&nbsp;{@code </header>}<br>
@@ -117,8 +137,40 @@ import org.xml.sax.SAXException;
  * <p>
  * Several SQL Statements can be specified. A {@link RowSetRepresentation} of
  * the last correctly executed SQL request is returned to the Client.
+ * <p>
+ * Here is the list of parameters that are supported. They should be set in the
+ * Client's context before it is started:
+ * <table>
+ * <tr>
+ * <th>Parameter name</th>
+ * <th>Value type</th>
+ * <th>Default value</th>
+ * <th>Description</th>
+ * </tr>
+ * <tr>
+ * <td>maxThreads</td>
+ * <td>int</td>
+ * <td>10</td>
+ * <td>Maximum number of worker threads executing asynchronous calls.</td>
+ * </tr>
+ * <tr>
+ * <td>maxQueued</td>
+ * <td>int</td>
+ * <td>100</td>
+ * <td>Maximum number of asynchronous calls waiting for a worker thread. Calls
+ * exceeding this number are answered with a 503 status.</td>
+ * </tr>
+ * <tr>
+ * <td>maxOpenPreparedStatements</td>
+ * <td>int</td>
+ * <td>20</td>
+ * <td>Maximum number of prepared statements cached by each pooled connection.
+ * Use 0 to disable the cache and execute plain statements.</td>
+ * </tr>
+ * </table>
  * 
  * @see org.restlet.ext.jdbc.RowSetRepresentation
+ * @see org.restlet.ext.jdbc.ResultSetRepresentation
  * 
  * @author Jerome Louvel
  * @author Thierry Boileau
@@ -153,6 +205,23 @@ public class JdbcClientHelper extends ClientHelper {
      */
     public static ObjectPool createConnectionPool(String uri,
             Properties properties) {
+        return createConnectionPool(uri, properties, 0);
+    }
+
+    /**
+     * Creates a connection pool for a given connection configuration.
+     * 
+     * @param uri
+     *            The connection URI.
+     * @param properties
+     *            The connection properties.
+     * @param maxOpenPreparedStatements
+     *            The maximum number of prepared statements cached by each
+     *            connection, or 0 to disable the cache.
+     * @return The new connection pool.
+     */
+    public static ObjectPool createConnectionPool(String uri,
+            Properties properties, int maxOpenPreparedStatements) {
         // Create an ObjectPool that will serve as the actual pool of
         // connections
         ObjectPool result = new GenericObjectPool(null);
@@ -165,8 +234,13 @@ public class JdbcClientHelper extends ClientHelper {
         // Create the PoolableConnectionFactory, which wraps the "real"
         // Connections created by the ConnectionFactory with
         // the classes that implement the pooling functionality.
+        // Prepared statements are pooled per connection when enabled.
+        KeyedObjectPoolFactory statementPoolFactory = (maxOpenPreparedStatements > 0) ? new GenericKeyedObjectPoolFactory(
+                null, -1, GenericKeyedObjectPool.WHEN_EXHAUSTED_FAIL, 0, 1,
+                maxOpenPreparedStatements) : null;
         PoolableConnectionFactory poolableConnectionFactory = new PoolableConnectionFactory(
-                connectionFactory, result, null, null, false, false);
+                connectionFactory, result, statementPoolFactory, null, false,
+                false);
 
         // To remove warnings
         poolableConnectionFactory.getPool();
@@ -197,9 +271,17 @@ public class JdbcClientHelper extends ClientHelper {
         return result.toString();
     }
 
+    /** The media types supported by the streaming mode. */
+    private static final List<MediaType> STREAMING_MEDIA_TYPES = Arrays
+            .asList(MediaType.TEXT_XML, MediaType.APPLICATION_JSON,
+                    MediaType.TEXT_CSV);
+
     /** Map of connection factories. */
     private volatile List<ConnectionSource> connectionSources;
 
+    /** The worker service executing asynchronous calls. */
+    private volatile ThreadPoolExecutor workerService;
+
     /**
      * Constructor.
      * 
@@ -212,7 +294,7 @@ public class JdbcClientHelper extends ClientHelper {
         getProtocols().add(Protocol.JDBC);
 
         // Set up the list of factories
-        this.connectionSources = new ArrayList<ConnectionSource>();
+        this.connectionSources = new CopyOnWriteArrayList<ConnectionSource>();
     }
 
     /**
@@ -257,7 +339,8 @@ public class JdbcClientHelper extends ClientHelper {
 
             if (result == null) {
                 // No existing connection source found
-                ConnectionSource cs = new ConnectionSource(uri, properties);
+                ConnectionSource cs = new ConnectionSource(uri, properties,
+                        getMaxOpenPreparedStatements());
                 this.connectionSources.add(cs);
                 result = cs.getConnection();
             }
@@ -269,15 +352,23 @@ public class JdbcClientHelper extends ClientHelper {
     }
 
     /**
-     * Handles a call.
+     * Creates the worker service executing asynchronous calls.
+     * 
+     * @return The worker service.
+     */
+    protected ThreadPoolExecutor createWorkerService() {
+        return createWorkerService(getMaxThreads(), getMaxQueued());
+    }
+
+    /**
+     * Handles a call using the current thread.
      * 
      * @param request
      *            The request to handle.
      * @param response
      *            The response to update.
      */
-    @Override
-    public void handle(Request request, Response response) {
+    protected void doHandle(Request request, Response response) {
         Connection connection = null;
 
         if (request.getMethod().equals(Method.POST)) {
@@ -317,6 +408,18 @@ public class JdbcClientHelper extends ClientHelper {
                         && limitNode.getTextContent().trim().length() > 0 ? Integer
                         .parseInt(limitNode.getTextContent()) : -1;
 
+                // Read the streaming settings
+                Node streamingNode = headerElt.getElementsByTagName(
+                        "streaming").item(0);
+                boolean streaming = streamingNode != null
+                        && streamingNode.getTextContent().trim().equals("true");
+
+                Node fetchSizeNode = headerElt.getElementsByTagName(
+                        "fetchSize").item(0);
+                int fetchSize = fetchSizeNode != null
+                        && fetchSizeNode.getTextContent().trim().length() > 0 ? Integer
+                        .parseInt(fetchSizeNode.getTextContent().trim()) : 0;
+
                 // Read the connection properties
                 NodeList propertyNodes = connectionElt
                         .getElementsByTagName("property");
@@ -356,9 +459,19 @@ public class JdbcClientHelper extends ClientHelper {
                 connection = getConnection(connectionURI, properties,
                         usePooling);
                 JdbcResult result = handleSqlRequests(connection,
-                        returnGeneratedKeys, sqlRequests);
-                response.setEntity(new RowSetRepresentation(result, start,
-                        limit));
+                        returnGeneratedKeys, sqlRequests, fetchSize, usePooling
+                                && (getMaxOpenPreparedStatements() > 0));
+
+                if (streaming) {
+                    MediaType mediaType = request.getClientInfo()
+                            .getPreferredMediaType(STREAMING_MEDIA_TYPES);
+                    response.setEntity(new ResultSetRepresentation(result,
+                            (mediaType == null) ? MediaType.TEXT_XML
+                                    : mediaType, start, limit));
+                } else {
+                    response.setEntity(new RowSetRepresentation(result, start,
+                            limit));
+                }
             } catch (SQLException se) {
                 getLogger().log(Level.WARNING,
                         "Error while processing the SQL request", se);
@@ -381,24 +494,119 @@ public class JdbcClientHelper extends ClientHelper {
         }
     }
 
+    /**
+     * Returns the maximum number of prepared statements cached by each pooled
+     * connection.
+     * 
+     * @return The maximum number of prepared statements cached by each pooled
+     *         connection.
+     */
+    public int getMaxOpenPreparedStatements() {
+        return Integer.parseInt(getHelpedParameters().getFirstValue(
+                "maxOpenPreparedStatements", "20"));
+    }
+
+    /**
+     * Returns the maximum number of asynchronous calls waiting for a worker
+     * thread.
+     * 
+     * @return The maximum number of asynchronous calls waiting for a worker
+     *         thread.
+     */
+    public int getMaxQueued() {
+        return Integer.parseInt(getHelpedParameters().getFirstValue(
+                "maxQueued", "100"));
+    }
+
+    /**
+     * Returns the maximum number of worker threads executing asynchronous
+     * calls.
+     * 
+     * @return The maximum number of worker threads.
+     */
+    public int getMaxThreads() {
+        return Integer.parseInt(getHelpedParameters().getFirstValue(
+                "maxThreads", "10"));
+    }
+
+    /**
+     * Returns the worker service executing asynchronous calls.
+     * 
+     * @return The worker service or null if the helper isn't started.
+     */
+    public ThreadPoolExecutor getWorkerService() {
+        return this.workerService;
+    }
+
+    /**
+     * Handles a call. Asynchronous calls are executed by the worker service
+     * once the helper is started.
+     * 
+     * @param request
+     *            The request to handle.
+     * @param response
+     *            The response to update.
+     */
+    @Override
+    public void handle(Request request, Response response) {
+        ThreadPoolExecutor service = getWorkerService();
+
+        if (request.isAsynchronous() && (service != null)) {
+            handleAsynchronously(request, response, service);
+        } else {
+            doHandle(request, response);
+        }
+    }
+
     /**
      * Helper
      * 
      * @param connection
      * @param returnGeneratedKeys
      * @param sqlRequests
+     * @param fetchSize
+     *            The number of rows fetched at once, or 0 for the driver
+     *            default.
+     * @param prepared
+     *            Indicates if pooled prepared statements should be used.
      * @return the result of the last executed SQL request
      */
     private JdbcResult handleSqlRequests(Connection connection,
-            boolean returnGeneratedKeys, List<String> sqlRequests) {
+            boolean returnGeneratedKeys, List<String> sqlRequests,
+            int fetchSize, boolean prepared) {
         JdbcResult result = null;
         try {
             connection.setAutoCommit(true);
-            Statement statement = connection.createStatement();
+            Statement statement = prepared ? null : connection
+                    .createStatement();
             for (String sqlRequest : sqlRequests) {
-                statement.execute(sqlRequest,
-                        returnGeneratedKeys ? Statement.RETURN_GENERATED_KEYS
-                                : Statement.NO_GENERATED_KEYS);
+                if (prepared) {
+                    if (statement != null) {
+                        // Returns the previous statement to its pool
+                        statement.close();
+                    }
+
+                    PreparedStatement preparedStatement = returnGeneratedKeys ? connection
+                            .prepareStatement(sqlRequest,
+                                    Statement.RETURN_GENERATED_KEYS)
+                            : connection.prepareStatement(sqlRequest);
+                    statement = preparedStatement;
+
+                    if (fetchSize > 0) {
+                        statement.setFetchSize(fetchSize);
+                    }
+
+                    preparedStatement.execute();
+                } else {
+                    if (fetchSize > 0) {
+                        statement.setFetchSize(fetchSize);
+                    }
+
+                    statement.execute(sqlRequest,
+                            returnGeneratedKeys ? Statement.RETURN_GENERATED_KEYS
+                                    : Statement.NO_GENERATED_KEYS);
+                }
+
                 result = new JdbcResult(statement);
             }
 
@@ -421,4 +629,20 @@ public class JdbcClientHelper extends ClientHelper {
         return result;
 
     }
+
+    @Override
+    public synchronized void start() throws Exception {
+        super.start();
+        this.workerService = createWorkerService();
+    }
+
+    @Override
+    public synchronized void stop() throws Exception {
+        if (this.workerService != null) {
+            this.workerService.shutdown();
+            this.workerService = null;
+        }
+
+        super.stop();
+    }
 }
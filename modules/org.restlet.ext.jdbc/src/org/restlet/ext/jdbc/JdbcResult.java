@@ -34,6 +34,7 @@
 package org.restlet.ext.jdbc;
 
 import java.io.Serializable;
+import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
@@ -98,8 +99,15 @@ public class JdbcResult implements Serializable {
     public void release() throws SQLException {
         // One connection per jdbcResult
         // releasing the instance means releasing the connection too
-        // and not only the statement.
-        this.statement.getConnection().close();
+        // and not only the statement. Pooled prepared statements must be
+        // closed first to be returned to their pool.
+        Connection connection = this.statement.getConnection();
+
+        try {
+            this.statement.close();
+        } finally {
+            connection.close();
+        }
     }
 
 }
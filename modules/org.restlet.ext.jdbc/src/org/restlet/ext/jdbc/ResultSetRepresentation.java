@@ -0,0 +1,457 @@
+/**
+ * Copyright 2005-2013 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+package org.restlet.ext.jdbc;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.logging.Level;
+
+import org.restlet.Context;
+import org.restlet.data.CharacterSet;
+import org.restlet.data.MediaType;
+import org.restlet.representation.WriterRepresentation;
+
+/**
+ * Representation streaming the rows of a ResultSet while they are fetched from
+ * the database, so that large results are written using a constant amount of
+ * memory. Rows are written as XML, JSON or CSV depending on the media type.
+ * The wrapped JdbcResult is released once the rows are written.<br>
+ * <br>
+ * The XML format is:<br>
+ * <br>
+ * {@code <resultSet>}<br>
+ * &nbsp;&nbsp;{@code <row>}<br>
+ * &nbsp;&nbsp;&nbsp;&nbsp;{@code <column name="myField1">value1</column>}<br>
+ * &nbsp;&nbsp;&nbsp;&nbsp;{@code <column name="myField2" null="true"/>}<br>
+ * &nbsp;&nbsp;{@code </row>}<br>
+ * {@code </resultSet>}<br>
+ * <br>
+ * The JSON format is an array of objects, one per row, where NaN and infinite
+ * numbers are written as null. The CSV format starts with a line containing
+ * the column labels.
+ * 
+ * @see RowSetRepresentation
+ */
+public class ResultSetRepresentation extends WriterRepresentation {
+
+    /**
+     * Escapes a value written in CSV.
+     * 
+     * @param value
+     *            The value to escape.
+     * @return The escaped value.
+     */
+    private static String escapeCsv(String value) {
+        if ((value.indexOf(',') == -1) && (value.indexOf('"') == -1)
+                && (value.indexOf('\n') == -1) && (value.indexOf('\r') == -1)) {
+            return value;
+        }
+
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    /**
+     * Escapes a string written in JSON.
+     * 
+     * @param value
+     *            The string to escape.
+     * @return The escaped string, including the quotes.
+     */
+    private static String escapeJson(String value) {
+        StringBuilder sb = new StringBuilder(value.length() + 2);
+        sb.append('"');
+
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+
+            switch (c) {
+            case '"':
+                sb.append("\\\"");
+                break;
+            case '\\':
+                sb.append("\\\\");
+                break;
+            case '\n':
+                sb.append("\\n");
+                break;
+            case '\r':
+                sb.append("\\r");
+                break;
+            case '\t':
+                sb.append("\\t");
+                break;
+            default:
+                if (c < ' ') {
+                    sb.append(String.format("\\u%04x", (int) c));
+                } else {
+                    sb.append(c);
+                }
+            }
+        }
+
+        return sb.append('"').toString();
+    }
+
+    /**
+     * Escapes a string written in XML.
+     * 
+     * @param value
+     *            The string to escape.
+     * @return The escaped string.
+     */
+    private static String escapeXml(String value) {
+        StringBuilder sb = new StringBuilder(value.length());
+
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+
+            switch (c) {
+            case '<':
+                sb.append("&lt;");
+                break;
+            case '>':
+                sb.append("&gt;");
+                break;
+            case '&':
+                sb.append("&amp;");
+                break;
+            case '"':
+                sb.append("&quot;");
+                break;
+            default:
+                sb.append(c);
+            }
+        }
+
+        return sb.toString();
+    }
+
+    /**
+     * Indicates if a value is a NaN or infinite floating point number.
+     * 
+     * @param value
+     *            The value to test.
+     * @return True if the value is a NaN or infinite floating point number.
+     */
+    private static boolean isNonFinite(Object value) {
+        if (value instanceof Double) {
+            Double d = (Double) value;
+            return d.isNaN() || d.isInfinite();
+        } else if (value instanceof Float) {
+            Float f = (Float) value;
+            return f.isNaN() || f.isInfinite();
+        }
+
+        return false;
+    }
+
+    /** JdbcResult instance that gives access to the resultSet. */
+    private volatile JdbcResult jdbcResult;
+
+    /** The page size or -1 if no limit is set. */
+    private final int limit;
+
+    /** Indicates if the JdbcResult was released. */
+    private volatile boolean released;
+
+    /** The start index of the page or 0 for the first result. */
+    private final int start;
+
+    /**
+     * Constructor.
+     * 
+     * @param jdbcResult
+     *            The inner JdbcResult.
+     * @param mediaType
+     *            The media type, either {@link MediaType#TEXT_XML},
+     *            {@link MediaType#APPLICATION_JSON} or
+     *            {@link MediaType#TEXT_CSV}.
+     */
+    public ResultSetRepresentation(JdbcResult jdbcResult, MediaType mediaType) {
+        this(jdbcResult, mediaType, -1, -1);
+    }
+
+    /**
+     * Constructor with paging.
+     * 
+     * @param jdbcResult
+     *            The inner JdbcResult.
+     * @param mediaType
+     *            The media type, either {@link MediaType#TEXT_XML},
+     *            {@link MediaType#APPLICATION_JSON} or
+     *            {@link MediaType#TEXT_CSV}.
+     * @param start
+     *            The start index of the page or 0 for the first result.
+     * @param limit
+     *            The page size or -1 if no limit is set.
+     */
+    public ResultSetRepresentation(JdbcResult jdbcResult, MediaType mediaType,
+            int start, int limit) {
+        super(mediaType);
+        setCharacterSet(CharacterSet.UTF_8);
+        this.jdbcResult = jdbcResult;
+        this.start = start;
+        this.limit = limit;
+    }
+
+    /**
+     * Returns the inner JdbcResult instance or null.
+     * 
+     * @return The inner JdbcResult instance or null.
+     */
+    public JdbcResult getJdbcResult() {
+        return this.jdbcResult;
+    }
+
+    /**
+     * Releases the inner JdbcResult if the rows weren't written.
+     */
+    @Override
+    public void release() {
+        try {
+            releaseResult();
+        } catch (SQLException se) {
+            Context.getCurrentLogger().log(Level.WARNING,
+                    "Unable to release the JdbcResult instance", se);
+        }
+
+        super.release();
+    }
+
+    /**
+     * Releases the inner JdbcResult once.
+     * 
+     * @throws SQLException
+     */
+    private void releaseResult() throws SQLException {
+        if (!this.released && (this.jdbcResult != null)) {
+            this.released = true;
+            this.jdbcResult.release();
+        }
+    }
+
+    @Override
+    public void write(Writer writer) throws IOException {
+        try {
+            ResultSet resultSet = (this.jdbcResult == null) ? null
+                    : this.jdbcResult.getResultSet();
+
+            if (MediaType.APPLICATION_JSON.isCompatible(getMediaType())) {
+                writeJson(resultSet, writer);
+            } else if (MediaType.TEXT_CSV.isCompatible(getMediaType())) {
+                writeCsv(resultSet, writer);
+            } else {
+                writeXml(resultSet, writer);
+            }
+
+            writer.flush();
+        } catch (SQLException se) {
+            throw new IOException(
+                    "SQL exception while streaming the result set. "
+                            + se.getMessage());
+        } finally {
+            try {
+                releaseResult();
+            } catch (SQLException se) {
+                throw new IOException(
+                        "SQL exception while releasing the JdbcResult instance after writing the representation. "
+                                + se.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Moves the cursor to the next row of the current page.
+     * 
+     * @param resultSet
+     *            The result set.
+     * @param index
+     *            The index of the row in the page.
+     * @return True if a row is available.
+     * @throws SQLException
+     */
+    private boolean next(ResultSet resultSet, int index) throws SQLException {
+        if (index == 0) {
+            // Skip the rows before the page without loading them
+            for (int i = 0; i < this.start; i++) {
+                if (!resultSet.next()) {
+                    return false;
+                }
+            }
+        }
+
+        return ((this.limit < 0) || (index < this.limit)) && resultSet.next();
+    }
+
+    /**
+     * Writes the rows as CSV.
+     * 
+     * @param resultSet
+     *            The result set.
+     * @param writer
+     *            The writer.
+     * @throws IOException
+     * @throws SQLException
+     */
+    private void writeCsv(ResultSet resultSet, Writer writer)
+            throws IOException, SQLException {
+        if (resultSet != null) {
+            ResultSetMetaData metaData = resultSet.getMetaData();
+            int count = metaData.getColumnCount();
+
+            for (int i = 1; i <= count; i++) {
+                if (i > 1) {
+                    writer.write(',');
+                }
+
+                writer.write(escapeCsv(metaData.getColumnLabel(i)));
+            }
+
+            writer.write("\r\n");
+
+            for (int row = 0; next(resultSet, row); row++) {
+                for (int i = 1; i <= count; i++) {
+                    if (i > 1) {
+                        writer.write(',');
+                    }
+
+                    String value = resultSet.getString(i);
+
+                    if (value != null) {
+                        writer.write(escapeCsv(value));
+                    }
+                }
+
+                writer.write("\r\n");
+            }
+        }
+    }
+
+    /**
+     * Writes the rows as JSON.
+     * 
+     * @param resultSet
+     *            The result set.
+     * @param writer
+     *            The writer.
+     * @throws IOException
+     * @throws SQLException
+     */
+    private void writeJson(ResultSet resultSet, Writer writer)
+            throws IOException, SQLException {
+        writer.write('[');
+
+        if (resultSet != null) {
+            ResultSetMetaData metaData = resultSet.getMetaData();
+            int count = metaData.getColumnCount();
+
+            for (int row = 0; next(resultSet, row); row++) {
+                writer.write((row == 0) ? "{" : ",{");
+
+                for (int i = 1; i <= count; i++) {
+                    if (i > 1) {
+                        writer.write(',');
+                    }
+
+                    writer.write(escapeJson(metaData.getColumnLabel(i)));
+                    writer.write(':');
+                    Object value = resultSet.getObject(i);
+
+                    if ((value == null) || isNonFinite(value)) {
+                        // JSON has no literal for NaN and infinite numbers
+                        writer.write("null");
+                    } else if ((value instanceof Number)
+                            || (value instanceof Boolean)) {
+                        writer.write(value.toString());
+                    } else {
+                        writer.write(escapeJson(resultSet.getString(i)));
+                    }
+                }
+
+                writer.write('}');
+            }
+        }
+
+        writer.write(']');
+    }
+
+    /**
+     * Writes the rows as XML.
+     * 
+     * @param resultSet
+     *            The result set.
+     * @param writer
+     *            The writer.
+     * @throws IOException
+     * @throws SQLException
+     */
+    private void writeXml(ResultSet resultSet, Writer writer)
+            throws IOException, SQLException {
+        writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<resultSet>\n");
+
+        if (resultSet != null) {
+            ResultSetMetaData metaData = resultSet.getMetaData();
+            int count = metaData.getColumnCount();
+            String[] names = new String[count + 1];
+
+            for (int i = 1; i <= count; i++) {
+                names[i] = escapeXml(metaData.getColumnLabel(i));
+            }
+
+            for (int row = 0; next(resultSet, row); row++) {
+                writer.write("  <row>\n");
+
+                for (int i = 1; i <= count; i++) {
+                    String value = resultSet.getString(i);
+                    writer.write("    <column name=\"");
+                    writer.write(names[i]);
+
+                    if (value == null) {
+                        writer.write("\" null=\"true\"/>\n");
+                    } else {
+                        writer.write("\">");
+                        writer.write(escapeXml(value));
+                        writer.write("</column>\n");
+                    }
+                }
+
+                writer.write("  </row>\n");
+            }
+        }
+
+        writer.write("</resultSet>\n");
+    }
+}
@@ -59,7 +59,24 @@ public class ConnectionSource extends PoolingDataSource {
      *            The connection properties.
      */
     public ConnectionSource(String uri, Properties properties) {
-        super(JdbcClientHelper.createConnectionPool(uri, properties));
+        this(uri, properties, 0);
+    }
+
+    /**
+     * Constructor.
+     * 
+     * @param uri
+     *            The connection URI.
+     * @param properties
+     *            The connection properties.
+     * @param maxOpenPreparedStatements
+     *            The maximum number of prepared statements cached by each
+     *            connection, or 0 to disable the cache.
+     */
+    public ConnectionSource(String uri, Properties properties,
+            int maxOpenPreparedStatements) {
+        super(JdbcClientHelper.createConnectionPool(uri, properties,
+                maxOpenPreparedStatements));
         this.uri = uri;
         this.properties = properties;
     }
@@ -40,6 +40,8 @@ import javax.servlet.ServletException;
 import org.eclipse.jetty.server.AbstractConnector;
 import org.eclipse.jetty.server.AbstractHttpConnection;
 import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.nio.AbstractNIOConnector;
+import org.eclipse.jetty.server.ssl.SslConnector;
 import org.eclipse.jetty.util.thread.QueuedThreadPool;
 import org.restlet.ext.jetty.internal.JettyCall;
 
@@ -133,6 +135,36 @@ import org.restlet.ext.jetty.internal.JettyCall;
  * <td>The time (in ms) to wait for existing requests to complete before fully
  * stopping the server.</td>
  * </tr>
+ * <tr>
+ * <td>asyncEnabled</td>
+ * <td>boolean</td>
+ * <td>false</td>
+ * <td>Indicates if calls whose response isn't committed when the Restlet call
+ * returns are suspended using a Jetty continuation, releasing the Jetty thread
+ * until {@link org.restlet.Response#commit()} is invoked. This requires the
+ * "autoCommitting" property of the response to be set to false.</td>
+ * </tr>
+ * <tr>
+ * <td>asyncTimeoutMs</td>
+ * <td>long</td>
+ * <td>-1</td>
+ * <td>Time in ms after which a suspended call is ended with a 503 status. A
+ * negative value uses the default timeout of Jetty.</td>
+ * </tr>
+ * <tr>
+ * <td>useDirectBuffers</td>
+ * <td>boolean</td>
+ * <td>true</td>
+ * <td>Indicates if non-SSL NIO connectors use direct buffers. In this case,
+ * file entities are memory mapped and written without intermediary copy.</td>
+ * </tr>
+ * <tr>
+ * <td>directBuffersMaxSize</td>
+ * <td>long</td>
+ * <td>16777216</td>
+ * <td>Maximum size in bytes of the file entities memory mapped when direct
+ * buffers are used. Larger files are copied to the response stream.</td>
+ * </tr>
  * </table>
  * 
  * @see <a href="jetty.codehaus.org/">Jetty home page</a>
@@ -167,8 +199,7 @@ public abstract class JettyServerHelper extends
         @Override
         public void handle(AbstractHttpConnection connection) throws IOException,
                 ServletException {
-            this.helper.handle(new JettyCall(this.helper.getHelped(),
-                    connection));
+            this.helper.handle(this.helper.createCall(connection));
         }
     }
 
@@ -210,6 +241,28 @@ public abstract class JettyServerHelper extends
         connector.setResponseBufferSize(getResponseBufferSize());
         connector.setMaxIdleTime(getIoMaxIdleTimeMs());
         connector.setSoLingerTime(getSoLingerTime());
+
+        if ((connector instanceof AbstractNIOConnector)
+                && !(connector instanceof SslConnector)) {
+            ((AbstractNIOConnector) connector)
+                    .setUseDirectBuffers(isUseDirectBuffers());
+        }
+    }
+
+    /**
+     * Creates a new call wrapping a Jetty HTTP connection, configured with the
+     * asynchronous parameters of this helper.
+     * 
+     * @param connection
+     *            The wrapped Jetty HTTP connection.
+     * @return A new call.
+     */
+    public JettyCall createCall(AbstractHttpConnection connection) {
+        JettyCall result = new JettyCall(getHelped(), connection);
+        result.setAsyncEnabled(isAsyncEnabled());
+        result.setAsyncTimeout(getAsyncTimeoutMs());
+        result.setDirectBuffersMaxSize(getDirectBuffersMaxSize());
+        return result;
     }
 
     /**
@@ -239,6 +292,29 @@ public abstract class JettyServerHelper extends
                 "acceptQueueSize", "0"));
     }
 
+    /**
+     * Returns the time in ms after which a suspended call is ended with a 503
+     * status. A negative value uses the default timeout of Jetty.
+     * 
+     * @return The timeout of suspended calls.
+     */
+    public long getAsyncTimeoutMs() {
+        return Long.parseLong(getHelpedParameters().getFirstValue(
+                "asyncTimeoutMs", "-1"));
+    }
+
+    /**
+     * Returns the maximum size in bytes of the file entities memory mapped when
+     * direct buffers are used. Larger files are copied to the response stream.
+     * 
+     * @return The maximum size of the memory mapped file entities.
+     */
+    public long getDirectBuffersMaxSize() {
+        return Long.parseLong(getHelpedParameters().getFirstValue(
+                "directBuffersMaxSize",
+                Long.toString(JettyCall.DEFAULT_DIRECT_BUFFERS_MAX_SIZE)));
+    }
+
     /**
      * Returns the time (in ms) to wait for existing requests to complete before
      * fully stopping the server.
@@ -377,6 +453,27 @@ public abstract class JettyServerHelper extends
         return this.wrappedServer;
     }
 
+    /**
+     * Indicates if calls whose response isn't committed when the Restlet call
+     * returns are suspended using a Jetty continuation.
+     * 
+     * @return True if calls can be suspended.
+     */
+    public boolean isAsyncEnabled() {
+        return Boolean.parseBoolean(getHelpedParameters().getFirstValue(
+                "asyncEnabled", "false"));
+    }
+
+    /**
+     * Indicates if non-SSL NIO connectors use direct buffers.
+     * 
+     * @return True if non-SSL NIO connectors use direct buffers.
+     */
+    public boolean isUseDirectBuffers() {
+        return Boolean.parseBoolean(getHelpedParameters().getFirstValue(
+                "useDirectBuffers", "true"));
+    }
+
     /**
      * Sets the wrapped Jetty server.
      * 
@@ -33,9 +33,14 @@
 
 package org.restlet.ext.jetty.internal;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.channels.ReadableByteChannel;
 import java.security.cert.Certificate;
 import java.util.Arrays;
 import java.util.Enumeration;
@@ -43,13 +48,22 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.logging.Level;
 
+import org.eclipse.jetty.continuation.Continuation;
+import org.eclipse.jetty.continuation.ContinuationListener;
 import org.eclipse.jetty.io.EofException;
+import org.eclipse.jetty.io.nio.DirectNIOBuffer;
 import org.eclipse.jetty.server.AbstractHttpConnection;
+import org.eclipse.jetty.server.Connector;
+import org.eclipse.jetty.server.nio.NIOConnector;
+import org.eclipse.jetty.server.ssl.SslConnector;
 import org.restlet.Response;
 import org.restlet.Server;
 import org.restlet.data.Status;
 import org.restlet.engine.adapter.ServerCall;
 import org.restlet.engine.header.Header;
+import org.restlet.representation.FileRepresentation;
+import org.restlet.representation.ReadableRepresentation;
+import org.restlet.representation.Representation;
 import org.restlet.util.Series;
 
 /**
@@ -58,12 +72,62 @@ import org.restlet.util.Series;
  * @author Jerome Louvel
  */
 public class JettyCall extends ServerCall {
+
+    /**
+     * The default maximum size of file entities written as direct NIO buffers.
+     * Larger files are copied to the response stream instead of being memory
+     * mapped at once.
+     */
+    public static final long DEFAULT_DIRECT_BUFFERS_MAX_SIZE = 16L * 1024 * 1024;
+
+    /**
+     * Listener of the Jetty continuation, ending the call with a 503 status if
+     * the response wasn't committed before the timeout.
+     */
+    private class JettyContinuationListener implements ContinuationListener {
+
+        public void onComplete(Continuation continuation) {
+        }
+
+        public void onTimeout(Continuation continuation) {
+            if (expire()) {
+                getLogger().fine(
+                        "Suspended Jetty call timed out before the response was committed");
+                getConnection().getResponse().setStatus(
+                        Status.SERVER_ERROR_SERVICE_UNAVAILABLE.getCode());
+                getConnection().getRequest().setHandled(true);
+                continuation.complete();
+            }
+        }
+    }
+
+    /** Indicates if the call can be suspended using a Jetty continuation. */
+    private volatile boolean asyncEnabled;
+
+    /** Indicates if the continuation expired. */
+    private volatile boolean asyncExpired;
+
+    /**
+     * The timeout in milliseconds of the continuation, or a negative value to
+     * use the default timeout of Jetty.
+     */
+    private volatile long asyncTimeout;
+
     /** The wrapped Jetty HTTP connection. */
     private final AbstractHttpConnection connection;
 
+    /** The maximum size of file entities written as direct NIO buffers. */
+    private volatile long directBuffersMaxSize;
+
+    /** The Jetty continuation, available once the call is suspended. */
+    private volatile Continuation continuation;
+
     /** Indicates if the request headers were parsed and added. */
     private volatile boolean requestHeadersAdded;
 
+    /** Indicates if the response is being sent. */
+    private volatile boolean sending;
+
     /**
      * Constructor.
      * 
@@ -76,6 +140,11 @@ public class JettyCall extends ServerCall {
         super(server);
         this.connection = connection;
         this.requestHeadersAdded = false;
+        this.asyncEnabled = false;
+        this.asyncExpired = false;
+        this.asyncTimeout = -1L;
+        this.directBuffersMaxSize = DEFAULT_DIRECT_BUFFERS_MAX_SIZE;
+        this.sending = false;
     }
 
     /**
@@ -92,8 +161,17 @@ public class JettyCall extends ServerCall {
         return true;
     }
 
+    /**
+     * Flushes and completes the response. If the call was suspended, the Jetty
+     * continuation is completed instead, letting Jetty complete the response.
+     */
     @Override
     public void complete() {
+        if (isSuspended() && this.asyncExpired) {
+            // The continuation already ended the call
+            return;
+        }
+
         // Flush the response
         try {
             this.connection.flushResponse();
@@ -101,12 +179,33 @@ public class JettyCall extends ServerCall {
             getLogger().log(Level.FINE, "Unable to flush the response", ex);
         }
 
-        // Fully complete the response
-        try {
-            this.connection.completeResponse();
-        } catch (IOException ex) {
-            getLogger().log(Level.FINE, "Unable to complete the response", ex);
+        if (isSuspended()) {
+            // Let Jetty fully complete the response
+            getConnection().getRequest().setHandled(true);
+            this.continuation.complete();
+        } else {
+            // Fully complete the response
+            try {
+                this.connection.completeResponse();
+            } catch (IOException ex) {
+                getLogger().log(Level.FINE,
+                        "Unable to complete the response", ex);
+            }
+        }
+    }
+
+    /**
+     * Marks the continuation as expired, unless the response is already being
+     * sent.
+     * 
+     * @return True if the continuation has been marked as expired.
+     */
+    private synchronized boolean expire() {
+        if (!this.sending) {
+            this.asyncExpired = true;
         }
+
+        return this.asyncExpired;
     }
 
     @Override
@@ -114,6 +213,16 @@ public class JettyCall extends ServerCall {
         getConnection().flushResponse();
     }
 
+    /**
+     * Returns the timeout in milliseconds of the continuation, or a negative
+     * value to use the default timeout of Jetty.
+     * 
+     * @return The timeout in milliseconds of the continuation.
+     */
+    public long getAsyncTimeout() {
+        return asyncTimeout;
+    }
+
     @Override
     public List<Certificate> getCertificates() {
         Certificate[] certificateArray = (Certificate[]) getConnection()
@@ -152,6 +261,16 @@ public class JettyCall extends ServerCall {
         return this.connection;
     }
 
+    /**
+     * Returns the maximum size of file entities written as direct NIO buffers.
+     * Larger files are copied to the response stream.
+     * 
+     * @return The maximum size of file entities written as direct NIO buffers.
+     */
+    public long getDirectBuffersMaxSize() {
+        return directBuffersMaxSize;
+    }
+
     /**
      * Returns the request method.
      * 
@@ -273,6 +392,16 @@ public class JettyCall extends ServerCall {
         return null;
     }
 
+    /**
+     * Indicates if the call can be suspended using a Jetty continuation. False
+     * by default.
+     * 
+     * @return True if the call can be suspended.
+     */
+    public boolean isAsyncEnabled() {
+        return asyncEnabled;
+    }
+
     /**
      * Indicates if the request was made using a confidential mean.<br>
      * 
@@ -289,8 +418,44 @@ public class JettyCall extends ServerCall {
                 || super.isConnectionBroken(exception);
     }
 
+    /**
+     * Indicates if the entities can be written using Jetty's direct NIO
+     * buffers. This is the case for NIO connectors configured to use direct
+     * buffers, except for SSL connectors that need to encrypt the content.
+     * 
+     * @return True if the entities can be written using direct NIO buffers.
+     */
+    protected boolean isDirectBuffersUsable() {
+        Connector connector = getConnection().getConnector();
+        return (connector instanceof NIOConnector)
+                && ((NIOConnector) connector).getUseDirectBuffers()
+                && !(connector instanceof SslConnector);
+    }
+
+    @Override
+    public boolean isSuspended() {
+        return this.continuation != null;
+    }
+
+    /**
+     * Sends the response back to the client. If the call was suspended and its
+     * continuation expired in the meantime, the response is ignored.
+     * 
+     * @param response
+     *            The high-level response.
+     */
     @Override
     public void sendResponse(Response response) throws IOException {
+        synchronized (this) {
+            if (this.asyncExpired) {
+                getLogger().fine(
+                        "Suspended Jetty call expired. Ignoring the response.");
+                return;
+            }
+
+            this.sending = true;
+        }
+
         // Add call headers
         Header header;
 
@@ -319,4 +484,134 @@ public class JettyCall extends ServerCall {
         }
 
     }
+
+    /**
+     * Indicates if the call can be suspended using a Jetty continuation.
+     * 
+     * @param asyncEnabled
+     *            True if the call can be suspended.
+     */
+    public void setAsyncEnabled(boolean asyncEnabled) {
+        this.asyncEnabled = asyncEnabled;
+    }
+
+    /**
+     * Sets the timeout in milliseconds of the continuation, or a negative
+     * value to use the default timeout of Jetty.
+     * 
+     * @param asyncTimeout
+     *            The timeout in milliseconds of the continuation.
+     */
+    public void setAsyncTimeout(long asyncTimeout) {
+        this.asyncTimeout = asyncTimeout;
+    }
+
+    /**
+     * Sets the maximum size of file entities written as direct NIO buffers.
+     * Larger files are copied to the response stream.
+     * 
+     * @param directBuffersMaxSize
+     *            The maximum size of file entities written as direct NIO
+     *            buffers.
+     */
+    public void setDirectBuffersMaxSize(long directBuffersMaxSize) {
+        this.directBuffersMaxSize = directBuffersMaxSize;
+    }
+
+    /**
+     * Suspends the call using the Jetty continuation of the request, if
+     * enabled. The Jetty thread is then released once the call returns.
+     * 
+     * @return True if the call has been suspended.
+     */
+    @Override
+    public boolean suspend() {
+        if (isAsyncEnabled()) {
+            Continuation continuation = getConnection().getRequest()
+                    .getAsyncContinuation();
+
+            if (getAsyncTimeout() >= 0) {
+                continuation.setTimeout(getAsyncTimeout());
+            }
+
+            continuation.addContinuationListener(new JettyContinuationListener());
+            continuation.suspend();
+            this.continuation = continuation;
+            return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Indicates if a file region of the given size can be memory mapped and
+     * written as a direct NIO buffer. The size must not exceed the
+     * {@link #getDirectBuffersMaxSize()} limit, nor the maximum size of a
+     * single mapping.
+     * 
+     * @param size
+     *            The size of the file region.
+     * @return True if the file region can be written as a direct NIO buffer.
+     */
+    private boolean isMappable(long size) {
+        return (size >= 0)
+                && (size <= Math.min(getDirectBuffersMaxSize(),
+                        Integer.MAX_VALUE));
+    }
+
+    /**
+     * Writes the response entity. When direct buffers are usable, file
+     * representations and readable representations wrapping a file channel
+     * whose size doesn't exceed {@link #getDirectBuffersMaxSize()} are memory
+     * mapped and given to Jetty as direct NIO buffers, written on the socket
+     * channel without intermediary copy. Other entities, including larger
+     * files, are written to the response entity stream.
+     * 
+     * @param entity
+     *            The response entity to write.
+     * @param responseEntityStream
+     *            The response entity stream.
+     * @throws IOException
+     */
+    @Override
+    protected void writeResponseBody(Representation entity,
+            OutputStream responseEntityStream) throws IOException {
+        DirectNIOBuffer buffer = null;
+
+        if ((responseEntityStream instanceof AbstractHttpConnection.Output)
+                && (entity.getRange() == null) && isDirectBuffersUsable()) {
+            if (entity instanceof FileRepresentation) {
+                File file = ((FileRepresentation) entity).getFile();
+
+                if (isMappable(file.length())) {
+                    buffer = new DirectNIOBuffer(file);
+                }
+            } else if (entity instanceof ReadableRepresentation) {
+                ReadableByteChannel channel = entity.getChannel();
+
+                if (channel instanceof FileChannel) {
+                    FileChannel fileChannel = (FileChannel) channel;
+                    long position = fileChannel.position();
+                    long size = fileChannel.size() - position;
+
+                    if (isMappable(size)) {
+                        try {
+                            ByteBuffer byteBuffer = fileChannel.map(
+                                    MapMode.READ_ONLY, position, size);
+                            buffer = new DirectNIOBuffer(byteBuffer, true);
+                        } finally {
+                            fileChannel.close();
+                        }
+                    }
+                }
+            }
+        }
+
+        if (buffer != null) {
+            ((AbstractHttpConnection.Output) responseEntityStream)
+                    .sendContent(buffer);
+        } else {
+            super.writeResponseBody(entity, responseEntityStream);
+        }
+    }
 }
@@ -117,8 +117,8 @@ public class JettyHandler extends AbstractHandler {
             ServletException {
         final Request baseRequest = (servletRequest instanceof Request) ? (Request) servletRequest
                 : AbstractHttpConnection.getCurrentConnection().getRequest();
-        this.helper.handle(new JettyCall(this.helper.getHelped(),
-                AbstractHttpConnection.getCurrentConnection()));
+        this.helper.handle(this.helper.createCall(AbstractHttpConnection
+                .getCurrentConnection()));
         baseRequest.setHandled(true);
     }
 
@@ -35,6 +35,14 @@ package org.restlet.ext.lucene;
 
 import java.io.File;
 import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.logging.Level;
 
 import org.apache.solr.common.params.CommonParams;
@@ -43,16 +51,24 @@ import org.apache.solr.core.SolrCore;
 import org.apache.solr.request.SolrQueryRequest;
 import org.apache.solr.request.SolrQueryResponse;
 import org.apache.solr.request.SolrRequestHandler;
+import org.apache.solr.search.SolrIndexSearcher;
+import org.apache.solr.util.RefCounted;
 import org.restlet.Client;
 import org.restlet.Request;
 import org.restlet.Response;
+import org.restlet.data.CharacterSet;
+import org.restlet.data.Form;
 import org.restlet.data.MediaType;
+import org.restlet.data.Method;
+import org.restlet.data.Parameter;
 import org.restlet.data.Protocol;
 import org.restlet.data.Reference;
 import org.restlet.data.Status;
 import org.restlet.engine.ClientHelper;
 import org.restlet.ext.lucene.internal.SolrRepresentation;
+import org.restlet.ext.lucene.internal.SolrResultCache;
 import org.restlet.ext.lucene.internal.SolrRestletQueryRequest;
+import org.restlet.representation.StringRepresentation;
 
 /**
  * Solr client connector.
@@ -77,17 +93,82 @@ import org.restlet.ext.lucene.internal.SolrRestletQueryRequest;
  * <br>
  * The helper handles "solr://" requests. There is one additional parameter :
  * "DefaultCore" which gives default core for "solr:///..." requests.
+ * <p>
+ * Responses are streamed: the Solr core and its index searcher are kept open
+ * until the response entity is written or released, so the documents of large
+ * results are loaded while being sent instead of being buffered.
+ * <p>
+ * Here is the list of additional parameters that are supported. They should be
+ * set in the Client's context before it is started:
+ * <table>
+ * <tr>
+ * <th>Parameter name</th>
+ * <th>Value type</th>
+ * <th>Default value</th>
+ * <th>Description</th>
+ * </tr>
+ * <tr>
+ * <td>maxSearchThreads</td>
+ * <td>int</td>
+ * <td>0</td>
+ * <td>Maximum number of queries executed concurrently by a dedicated search
+ * executor. Asynchronous calls are answered from the executor threads while
+ * synchronous calls wait for their query to complete. With 0, queries are
+ * executed by the calling thread.</td>
+ * </tr>
+ * <tr>
+ * <td>maxSearchQueued</td>
+ * <td>int</td>
+ * <td>100</td>
+ * <td>Maximum number of queries waiting for a search thread. Calls exceeding
+ * this number are answered with a 503 status.</td>
+ * </tr>
+ * <tr>
+ * <td>cacheSize</td>
+ * <td>int</td>
+ * <td>0</td>
+ * <td>Maximum number of query results kept in the result cache. The cache is
+ * disabled with 0.</td>
+ * </tr>
+ * <tr>
+ * <td>cacheTtl</td>
+ * <td>int</td>
+ * <td>30</td>
+ * <td>Time to live of a cached result, in seconds. A result is also discarded
+ * when a new index searcher is opened.</td>
+ * </tr>
+ * <tr>
+ * <td>cacheMaxRows</td>
+ * <td>int</td>
+ * <td>100</td>
+ * <td>Maximum number of rows requested by a cacheable query. Larger results
+ * are always streamed.</td>
+ * </tr>
+ * </table>
  * 
  * @author Remi Dewitte <remi@gide.net>
  */
 public class SolrClientHelper extends ClientHelper {
 
+    /** Orders query parameters by name, keeping the order of values. */
+    private static final Comparator<Parameter> PARAMETER_COMPARATOR = new Comparator<Parameter>() {
+        public int compare(Parameter p1, Parameter p2) {
+            return p1.getName().compareTo(p2.getName());
+        }
+    };
+
     public static Protocol SOLR_PROTOCOL = new Protocol("solr", "Solr",
             "Solr indexer helper", Protocol.UNKNOWN_PORT);
 
+    /** The result cache, null when results are not cached. */
+    private volatile SolrResultCache cache;
+
     /** The core Solr container. */
     protected CoreContainer coreContainer;
 
+    /** The search executor, null when queries run on the calling thread. */
+    private volatile ThreadPoolExecutor searchService;
+
     /**
      * Constructor.
      * 
@@ -99,10 +180,38 @@ public class SolrClientHelper extends ClientHelper {
         getProtocols().add(SOLR_PROTOCOL);
     }
 
-    @Override
-    public void handle(Request request, Response response) {
-        super.handle(request, response);
+    /**
+     * Creates the result cache.
+     * 
+     * @return The result cache or null if results should not be cached.
+     */
+    protected SolrResultCache createCache() {
+        int cacheSize = getCacheSize();
+        return (cacheSize > 0) ? new SolrResultCache(cacheSize,
+                getCacheTtl() * 1000L) : null;
+    }
+
+    /**
+     * Creates the search executor.
+     * 
+     * @return The search executor or null if queries should be executed by
+     *         the calling thread.
+     */
+    protected ThreadPoolExecutor createSearchService() {
+        int maxThreads = getMaxSearchThreads();
+        return (maxThreads > 0) ? createWorkerService(maxThreads,
+                getMaxSearchQueued()) : null;
+    }
 
+    /**
+     * Handles a call using the current thread.
+     * 
+     * @param request
+     *            The request to handle.
+     * @param response
+     *            The response to update.
+     */
+    protected void doHandle(Request request, Response response) {
         Reference resRef = request.getResourceRef();
         String path = resRef.getPath();
 
@@ -134,6 +243,7 @@ public class SolrClientHelper extends ClientHelper {
                         .getFirstValue(CommonParams.QT);
                 handler = core.getRequestHandler(qt);
                 if (handler == null) {
+                    core.close();
                     response.setStatus(Status.CLIENT_ERROR_BAD_REQUEST,
                             "unknown handler: " + qt);
                     return;
@@ -153,9 +263,39 @@ public class SolrClientHelper extends ClientHelper {
             return;
         }
 
+        // Look for a cached result
+        SolrResultCache cache = getCache();
+        String query = null;
+        long searcherTime = 0;
+
+        if (cache != null) {
+            if (isCacheable(request)) {
+                query = getCacheQuery(path, request);
+            } else if (handler == coreContainer.getMultiCoreHandler()) {
+                // Cores may be reloaded, swapped or renamed
+                cache.clear();
+            } else {
+                cache.invalidate(coreName);
+            }
+        }
+
+        if (query != null) {
+            searcherTime = getSearcherTime(core);
+            String cached = cache.get(coreName, query, searcherTime);
+
+            if (cached != null) {
+                core.close();
+                response.setEntity(toRepresentation(cached));
+                response.setStatus(Status.SUCCESS_OK);
+                return;
+            }
+        }
+
+        SolrQueryRequest solrReq = null;
+        boolean released = false;
+
         try {
-            SolrQueryRequest solrReq = new SolrRestletQueryRequest(request,
-                    core);
+            solrReq = new SolrRestletQueryRequest(request, core);
             SolrQueryResponse solrResp = new SolrQueryResponse();
             core.execute(handler, solrReq, solrResp);
 
@@ -163,8 +303,26 @@ public class SolrClientHelper extends ClientHelper {
                 response.setStatus(Status.SERVER_ERROR_INTERNAL, solrResp
                         .getException());
             } else {
-                response.setEntity(new SolrRepresentation(
-                        MediaType.APPLICATION_XML, solrReq, solrResp));
+                // The representation now owns the request and the core
+                SolrRepresentation entity = new SolrRepresentation(
+                        MediaType.APPLICATION_XML, solrReq, solrResp, core);
+                released = true;
+
+                if (query != null) {
+                    String text;
+
+                    try {
+                        text = entity.getText();
+                    } finally {
+                        entity.release();
+                    }
+
+                    cache.put(coreName, query, text, searcherTime);
+                    response.setEntity(toRepresentation(text));
+                } else {
+                    response.setEntity(entity);
+                }
+
                 response.setStatus(Status.SUCCESS_OK);
             }
         } catch (Exception e) {
@@ -172,8 +330,197 @@ public class SolrClientHelper extends ClientHelper {
                     "Unable to evaluate " + resRef.toString(), e);
             response.setStatus(Status.SERVER_ERROR_INTERNAL, e);
         } finally {
-            core.close();
+            if (!released) {
+                try {
+                    if (solrReq != null) {
+                        solrReq.close();
+                    }
+                } finally {
+                    core.close();
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the result cache.
+     * 
+     * @return The result cache or null if results are not cached.
+     */
+    public SolrResultCache getCache() {
+        return this.cache;
+    }
+
+    /**
+     * Returns the cached query of a request, based on the path and the query
+     * parameters sorted by name.
+     * 
+     * @param path
+     *            The decoded request path.
+     * @param request
+     *            The request.
+     * @return The cached query.
+     */
+    private String getCacheQuery(String path, Request request) {
+        List<Parameter> params = new ArrayList<Parameter>(request
+                .getResourceRef().getQueryAsForm());
+        Collections.sort(params, PARAMETER_COMPARATOR);
+
+        StringBuilder sb = new StringBuilder();
+        sb.append(path).append('?');
+        sb.append(new Form(params).getQueryString());
+        return sb.toString();
+    }
+
+    /**
+     * Returns the maximum number of rows requested by a cacheable query.
+     * 
+     * @return The maximum number of rows requested by a cacheable query.
+     */
+    public int getCacheMaxRows() {
+        return Integer.parseInt(getHelpedParameters().getFirstValue(
+                "cacheMaxRows", "100"));
+    }
+
+    /**
+     * Returns the maximum number of cached query results.
+     * 
+     * @return The maximum number of cached query results.
+     */
+    public int getCacheSize() {
+        return Integer.parseInt(getHelpedParameters().getFirstValue(
+                "cacheSize", "0"));
+    }
+
+    /**
+     * Returns the time to live of a cached result, in seconds.
+     * 
+     * @return The time to live of a cached result, in seconds.
+     */
+    public int getCacheTtl() {
+        return Integer.parseInt(getHelpedParameters().getFirstValue(
+                "cacheTtl", "30"));
+    }
+
+    /**
+     * Returns the maximum number of queries waiting for a search thread.
+     * 
+     * @return The maximum number of queries waiting for a search thread.
+     */
+    public int getMaxSearchQueued() {
+        return Integer.parseInt(getHelpedParameters().getFirstValue(
+                "maxSearchQueued", "100"));
+    }
+
+    /**
+     * Returns the maximum number of queries executed concurrently.
+     * 
+     * @return The maximum number of queries executed concurrently, 0 if they
+     *         are executed by the calling thread.
+     */
+    public int getMaxSearchThreads() {
+        return Integer.parseInt(getHelpedParameters().getFirstValue(
+                "maxSearchThreads", "0"));
+    }
+
+    /**
+     * Returns the open time of the current index searcher of a core.
+     * 
+     * @param core
+     *            The Solr core.
+     * @return The open time of the current index searcher.
+     */
+    private long getSearcherTime(SolrCore core) {
+        RefCounted<SolrIndexSearcher> searcher = core.getSearcher();
+
+        try {
+            return searcher.get().getOpenTime();
+        } finally {
+            searcher.decref();
+        }
+    }
+
+    /**
+     * Returns the search executor.
+     * 
+     * @return The search executor or null if queries are executed by the
+     *         calling thread.
+     */
+    public ThreadPoolExecutor getSearchService() {
+        return this.searchService;
+    }
+
+    /**
+     * Handles a call. When a search executor is configured, asynchronous calls
+     * are answered from its threads and synchronous calls wait for their
+     * query to complete.
+     * 
+     * @param request
+     *            The request to handle.
+     * @param response
+     *            The response to update.
+     */
+    @Override
+    public void handle(final Request request, final Response response) {
+        super.handle(request, response);
+        ThreadPoolExecutor service = getSearchService();
+
+        if (service == null) {
+            doHandle(request, response);
+        } else if (request.isAsynchronous()) {
+            handleAsynchronously(request, response, service);
+        } else {
+            try {
+                Future<?> future = service.submit(new Runnable() {
+                    public void run() {
+                        doHandle(request, response);
+                    }
+                });
+                future.get();
+            } catch (RejectedExecutionException ree) {
+                getLogger().warning(
+                        "Unable to queue the Solr call, too many pending calls");
+                response.setStatus(Status.SERVER_ERROR_SERVICE_UNAVAILABLE,
+                        ree);
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                response.setStatus(Status.CONNECTOR_ERROR_INTERNAL, ie);
+            } catch (ExecutionException ee) {
+                getLogger().log(Level.WARNING,
+                        "Error while handling the Solr call", ee.getCause());
+                response.setStatus(Status.CONNECTOR_ERROR_INTERNAL,
+                        ee.getCause());
+            }
+        }
+    }
+
+    /**
+     * Indicates if the result of a request can be cached. Only small read-only
+     * queries are cached, and any other call invalidates the cached results of
+     * its core.
+     * 
+     * @param request
+     *            The request.
+     * @return True if the result of the request can be cached.
+     */
+    private boolean isCacheable(Request request) {
+        boolean result = false;
+
+        if (Method.GET.equals(request.getMethod())
+                && ((request.getEntity() == null) || !request.getEntity()
+                        .isAvailable())) {
+            String rows = request.getResourceRef().getQueryAsForm()
+                    .getFirstValue(CommonParams.ROWS);
+
+            try {
+                result = (rows == null)
+                        || (Integer.parseInt(rows) <= getCacheMaxRows());
+            } catch (NumberFormatException nfe) {
+                result = false;
+            }
         }
+
+        return result;
     }
 
     @Override
@@ -204,11 +551,36 @@ public class SolrClientHelper extends ClientHelper {
         } catch (Exception e) {
             throw new RuntimeException("Could not initialize core container", e);
         }
+
+        this.cache = createCache();
+        this.searchService = createSearchService();
     }
 
     @Override
     public void stop() throws Exception {
+        if (this.searchService != null) {
+            this.searchService.shutdown();
+            this.searchService = null;
+        }
+
+        if (this.cache != null) {
+            this.cache.clear();
+            this.cache = null;
+        }
+
         super.stop();
     }
 
+    /**
+     * Wraps a cached response into a representation.
+     * 
+     * @param text
+     *            The serialized response.
+     * @return The representation.
+     */
+    private StringRepresentation toRepresentation(String text) {
+        return new StringRepresentation(text, MediaType.APPLICATION_XML,
+                null, CharacterSet.UTF_8);
+    }
+
 }
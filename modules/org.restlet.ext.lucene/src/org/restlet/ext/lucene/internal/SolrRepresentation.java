@@ -36,6 +36,7 @@ package org.restlet.ext.lucene.internal;
 import java.io.IOException;
 import java.io.Writer;
 
+import org.apache.solr.core.SolrCore;
 import org.apache.solr.request.JSONResponseWriter;
 import org.apache.solr.request.QueryResponseWriter;
 import org.apache.solr.request.SolrQueryRequest;
@@ -47,12 +48,18 @@ import org.restlet.representation.WriterRepresentation;
 
 /**
  * Representation wrapping a Solr query and exposing its response either as XML
- * or JSON.
+ * or JSON. The response is directly written to the target writer, so the
+ * documents of large results are loaded from the index searcher while being
+ * sent. When the representation owns the Solr core, the query request and the
+ * core are kept open until the representation is written or released.
  * 
  * @author Remi Dewitte <remi@gide.net>
  */
 public class SolrRepresentation extends WriterRepresentation {
 
+    /** The Solr core to close once written, if owned. */
+    private volatile SolrCore solrCore;
+
     /** The wrapped Solr query request. */
     protected SolrQueryRequest solrQueryRequest;
 
@@ -78,6 +85,27 @@ public class SolrRepresentation extends WriterRepresentation {
         this.solrQueryResponse = solrQueryResponse;
     }
 
+    /**
+     * Constructor. The representation takes ownership of the query request
+     * and of the Solr core, which are closed once the response is written or
+     * when the representation is released.
+     * 
+     * @param mediaType
+     *            The media type.
+     * @param solrQueryRequest
+     *            The wrapped Solr query request.
+     * @param solrQueryResponse
+     *            The wrapped Solr query response.
+     * @param solrCore
+     *            The Solr core that executed the query.
+     */
+    public SolrRepresentation(MediaType mediaType,
+            SolrQueryRequest solrQueryRequest,
+            SolrQueryResponse solrQueryResponse, SolrCore solrCore) {
+        this(mediaType, solrQueryRequest, solrQueryResponse);
+        this.solrCore = solrCore;
+    }
+
     /**
      * Constructor.
      * 
@@ -92,6 +120,27 @@ public class SolrRepresentation extends WriterRepresentation {
         this(null, solrQueryRequest, solrQueryResponse);
     }
 
+    /**
+     * Closes the query request and the Solr core when they are owned by this
+     * representation.
+     */
+    @Override
+    public void release() {
+        SolrCore core = this.solrCore;
+
+        if (core != null) {
+            this.solrCore = null;
+
+            try {
+                this.solrQueryRequest.close();
+            } finally {
+                core.close();
+            }
+        }
+
+        super.release();
+    }
+
     @Override
     public void write(Writer writer) throws IOException {
         QueryResponseWriter qrWriter;
@@ -103,7 +152,13 @@ public class SolrRepresentation extends WriterRepresentation {
             qrWriter = new XMLResponseWriter();
         }
 
-        qrWriter.write(writer, solrQueryRequest, solrQueryResponse);
+        try {
+            qrWriter.write(writer, solrQueryRequest, solrQueryResponse);
+        } finally {
+            if (this.solrCore != null) {
+                release();
+            }
+        }
     }
 
 }
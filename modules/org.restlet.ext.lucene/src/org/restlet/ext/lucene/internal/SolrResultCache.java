@@ -0,0 +1,186 @@
+/**
+ * Copyright 2005-2013 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.ext.lucene.internal;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Cache of serialized Solr query results, evicting the least recently used
+ * results. A result is only valid for the index searcher that computed it and
+ * until its time to live elapses.
+ */
+public class SolrResultCache {
+
+    /**
+     * Query result kept in the cache.
+     */
+    private static class CachedResult {
+
+        /** Expiration time in milliseconds. */
+        private final long expiration;
+
+        /** Open time of the index searcher that computed the result. */
+        private final long searcherTime;
+
+        /** The serialized response. */
+        private final String text;
+
+        private CachedResult(String text, long searcherTime, long expiration) {
+            this.text = text;
+            this.searcherTime = searcherTime;
+            this.expiration = expiration;
+        }
+    }
+
+    /** The cached query results, in access order. */
+    private final Map<String, CachedResult> results;
+
+    /** Time to live of a cached result, in milliseconds. */
+    private final long ttl;
+
+    /**
+     * Constructor.
+     * 
+     * @param maxSize
+     *            The maximum number of cached results.
+     * @param ttl
+     *            The time to live of a cached result, in milliseconds.
+     */
+    public SolrResultCache(final int maxSize, long ttl) {
+        this.ttl = ttl;
+        this.results = new LinkedHashMap<String, CachedResult>(16, 0.75f,
+                true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(
+                    Map.Entry<String, CachedResult> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * Removes all the cached results.
+     */
+    public synchronized void clear() {
+        this.results.clear();
+    }
+
+    /**
+     * Returns a cached result if it is still valid.
+     * 
+     * @param coreName
+     *            The name of the queried core.
+     * @param query
+     *            The query, including its path and sorted parameters.
+     * @param searcherTime
+     *            The open time of the current index searcher of the core.
+     * @return The serialized response or null.
+     */
+    public synchronized String get(String coreName, String query,
+            long searcherTime) {
+        String key = getKey(coreName, query);
+        CachedResult result = this.results.get(key);
+
+        if ((result != null)
+                && ((result.searcherTime != searcherTime) || (result.expiration < System
+                        .currentTimeMillis()))) {
+            this.results.remove(key);
+            result = null;
+        }
+
+        return (result == null) ? null : result.text;
+    }
+
+    /**
+     * Returns the key of a cached result.
+     * 
+     * @param coreName
+     *            The name of the queried core.
+     * @param query
+     *            The query.
+     * @return The key of the cached result.
+     */
+    private String getKey(String coreName, String query) {
+        return coreName + ' ' + query;
+    }
+
+    /**
+     * Removes the cached results of a core.
+     * 
+     * @param coreName
+     *            The name of the core.
+     */
+    public synchronized void invalidate(String coreName) {
+        String prefix = getKey(coreName, "");
+
+        for (Iterator<String> iter = this.results.keySet().iterator(); iter
+                .hasNext();) {
+            if (iter.next().startsWith(prefix)) {
+                iter.remove();
+            }
+        }
+    }
+
+    /**
+     * Adds a query result to the cache.
+     * 
+     * @param coreName
+     *            The name of the queried core.
+     * @param query
+     *            The query, including its path and sorted parameters.
+     * @param text
+     *            The serialized response.
+     * @param searcherTime
+     *            The open time of the index searcher that computed the result.
+     */
+    public synchronized void put(String coreName, String query, String text,
+            long searcherTime) {
+        this.results.put(getKey(coreName, query), new CachedResult(text,
+                searcherTime, System.currentTimeMillis() + this.ttl));
+    }
+
+    /**
+     * Returns the number of cached results.
+     * 
+     * @return The number of cached results.
+     */
+    public synchronized int size() {
+        return this.results.size();
+    }
+
+}
@@ -69,6 +69,18 @@ public class TokenAuthServerResource extends OAuthServerResource {
         getResponse().setEntity(responseErrorRepresentation(oex));
     }
 
+    /**
+     * Returns the remaining lifetime in seconds of a token.
+     * 
+     * @param token
+     *            The token.
+     * @return The remaining lifetime in seconds of the token.
+     */
+    private static long getExpiresIn(ServerToken token) {
+        long remaining = token.getExpirationTime() - System.currentTimeMillis();
+        return Math.max(0L, remaining / 1000L);
+    }
+
     @Post("json")
     public Representation authenticate(Representation input) throws Exception {
         getLogger().fine("In Authenticate resource");
@@ -101,9 +113,12 @@ public class TokenAuthServerResource extends OAuthServerResource {
                     "Unsupported token_type", null);
         }
 
+        ServerToken serverToken = (ServerToken) token;
         JSONObject resp = new JSONObject();
-        resp.put(USERNAME, ((ServerToken) token).getUsername());
-        resp.put(SCOPE, Scopes.toString(token.getScope()));
+        resp.put(USERNAME, serverToken.getUsername());
+        resp.put(SCOPE, Scopes.toString(serverToken.getScope()));
+        // Used by the verifiers to expire their cached tokens
+        resp.put(EXPIRES_IN, getExpiresIn(serverToken));
 
         return new JsonRepresentation(resp);
     }
@@ -33,8 +33,14 @@
 
 package org.restlet.ext.oauth;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+
 import org.json.JSONException;
 import org.json.JSONObject;
 import org.restlet.Request;
@@ -47,6 +53,7 @@ import org.restlet.data.Form;
 import org.restlet.data.MediaType;
 import org.restlet.data.Method;
 import org.restlet.data.Reference;
+import org.restlet.engine.log.LoggingThreadFactory;
 import org.restlet.ext.json.JsonRepresentation;
 import org.restlet.ext.oauth.internal.Scopes;
 import org.restlet.representation.Representation;
@@ -59,6 +66,14 @@ import org.restlet.security.Verifier;
  * ChallengeAuthenticator. "Bearer" and "MAC" challenge schemes are may
  * supported.
  * 
+ * <br>
+ * Validated tokens can optionally be kept in a bounded local cache (see
+ * {@link #setCacheSize(int)}) so that repeated calls carrying the same token
+ * don't require a round trip to the authorization server. An entry is never
+ * kept longer than the cache TTL nor than the token lifetime reported by the
+ * server, rejected tokens can be remembered for a shorter period and entries
+ * close to their expiration are refreshed in the background.
+ * 
  * @author Shotaro Uchida <fantom@xmaker.mx>
  * @see <a href="http://tools.ietf.org/html/draft-ietf-oauth-v2-bearer-22">
  *      Bearer Token Usage</a>
@@ -73,8 +88,55 @@ public class TokenVerifier implements Verifier {
     // public static final ChallengeScheme HTTP_MAC =
     // new ChallengeScheme("HTTP_MAC", "MAC", "MAC Access Authentication");
 
+    /**
+     * Validation result of a token, as kept in the cache.
+     */
+    private static class CachedToken {
+
+        /** Expiration time in milliseconds. */
+        private final long expiration;
+
+        /** Indicates if a background refresh is pending. */
+        private final AtomicBoolean refreshing;
+
+        /** The granted scope, or null for a rejected token. */
+        private final String scope;
+
+        /** The resource owner name, or null for a rejected token. */
+        private final String username;
+
+        private CachedToken(String username, String scope, long expiration) {
+            this.username = username;
+            this.scope = scope;
+            this.expiration = expiration;
+            this.refreshing = new AtomicBoolean(false);
+        }
+
+        private boolean isValid() {
+            return username != null;
+        }
+    }
+
     private Reference authReference;
 
+    /** The validated tokens, in access order. */
+    private final Map<String, CachedToken> cache;
+
+    /** Maximum number of cached tokens, 0 to disable the cache. */
+    private volatile int cacheSize = 0;
+
+    /** Maximum time to live of a valid token in the cache, in seconds. */
+    private volatile int cacheTtl = 60;
+
+    /** Time to live of a rejected token in the cache, 0 to disable. */
+    private volatile int negativeCacheTtl = 0;
+
+    /** Remaining seconds under which a cached token is refreshed. */
+    private volatile int refreshAhead = 10;
+
+    /** Lazily created executor refreshing tokens in the background. */
+    private volatile ExecutorService refreshService;
+
     private boolean acceptBodyMethod = false; // 2.2. Form-Encoded Body
                                               // Parameter
 
@@ -85,38 +147,46 @@ public class TokenVerifier implements Verifier {
 
     public TokenVerifier(Reference authReference) {
         this.authReference = authReference;
+        this.cache = new LinkedHashMap<String, CachedToken>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(
+                    Map.Entry<String, CachedToken> eldest) {
+                return size() > cacheSize;
+            }
+        };
     }
 
     public int verify(Request request, Response response) {
-        final JSONObject authRequest;
+        final String bearer;
 
         try {
             ChallengeResponse cr = request.getChallengeResponse();
             if (cr == null) {
                 // Try Bearer alternative methods
-                String bearer = null;
+                String token = null;
                 if (acceptBodyMethod) {
-                    bearer = getAccessTokenFromBody(request);
+                    token = getAccessTokenFromBody(request);
                 }
-                if (bearer == null && acceptQueryMethod) {
-                    bearer = getAccessTokenFromQuery(request);
-                    if (bearer != null) {
+                if (token == null && acceptQueryMethod) {
+                    token = getAccessTokenFromQuery(request);
+                    if (token != null) {
                         OAuthServerResource.addCacheDirective(response,
                                 CacheDirective.privateInfo());
                     }
                 }
-                if (bearer == null) {
+                if (token == null) {
                     return RESULT_MISSING;
                 }
                 logger.config("Verify: Bearer (Alternative)");
-                authRequest = createBearerAuthRequest(bearer);
+                bearer = token;
             } else if (ChallengeScheme.HTTP_OAUTH_BEARER.equals(cr.getScheme())) {
                 logger.config("Verify: Bearer");
-                final String bearer = cr.getRawValue();
+                bearer = cr.getRawValue();
                 if (bearer == null || bearer.isEmpty()) {
                     return RESULT_MISSING;
                 }
-                authRequest = createBearerAuthRequest(bearer);
             }/*
               * else if (cr.getScheme().equals(HTTP_MAC)) { // TODO }
               */else {
@@ -126,21 +196,53 @@ public class TokenVerifier implements Verifier {
             return RESULT_INVALID;
         }
 
+        CachedToken token = getCachedToken(bearer);
+
+        if (token == null) {
+            token = authenticate(bearer);
+
+            if (token == null) {
+                return RESULT_INVALID;
+            }
+        }
+
+        if (!token.isValid()) {
+            // TODO: Configure challenge request
+            return RESULT_INVALID;
+        }
+
+        ClientInfo clientInfo = request.getClientInfo();
+        clientInfo.setUser(new User(token.username));
+        clientInfo.setRoles(Scopes.toRoles(token.scope));
+        return RESULT_VALID;
+    }
+
+    /**
+     * Asks the authorization server to validate a bearer token and caches the
+     * result when the cache is enabled.
+     * 
+     * @param bearer
+     *            The bearer token.
+     * @return The validation result or null if the server couldn't be
+     *         queried.
+     */
+    private CachedToken authenticate(String bearer) {
         ClientResource authResource = new ClientResource(authReference);
-        JsonRepresentation jsonRepresentation;
         JSONObject jsonResponse;
 
         try {
             logger.fine("Post auth request to auth resource...");
             Representation resp = authResource.post(new JsonRepresentation(
-                    authRequest));
-            jsonRepresentation = new JsonRepresentation(resp);
-            jsonResponse = jsonRepresentation.getJsonObject();
+                    createBearerAuthRequest(bearer)));
+            jsonResponse = new JsonRepresentation(resp).getJsonObject();
         } catch (Exception ex) {
             logger.log(Level.SEVERE, null, ex);
-            return RESULT_INVALID;
+            return null;
         }
 
+        long now = System.currentTimeMillis();
+        CachedToken result;
+
         if (jsonResponse.has(OAuthServerResource.ERROR)) {
             try {
                 String error = jsonResponse
@@ -151,21 +253,41 @@ public class TokenVerifier implements Verifier {
             } catch (JSONException ex) {
                 logger.log(Level.SEVERE, null, ex);
             }
-            // TODO: Configure challenge request
-            return RESULT_INVALID;
-        }
 
-        try {
-            ClientInfo clientInfo = request.getClientInfo();
-            clientInfo.setUser(new User(jsonResponse
-                    .getString(OAuthServerResource.USERNAME)));
-            clientInfo.setRoles(Scopes.toRoles(jsonResponse
-                    .getString(OAuthServerResource.SCOPE)));
-        } catch (JSONException ex) {
-            return RESULT_INVALID;
+            result = new CachedToken(null, null, now + negativeCacheTtl
+                    * 1000L);
+
+            if (negativeCacheTtl > 0) {
+                putCachedToken(bearer, result);
+            } else {
+                removeCachedToken(bearer);
+            }
+        } else {
+            long ttl = cacheTtl;
+
+            try {
+                if (jsonResponse.has(OAuthServerResource.EXPIRES_IN)) {
+                    // Never keep the token after its remaining lifetime
+                    ttl = Math.min(ttl, jsonResponse
+                            .getLong(OAuthServerResource.EXPIRES_IN));
+                }
+
+                result = new CachedToken(
+                        jsonResponse.getString(OAuthServerResource.USERNAME),
+                        jsonResponse.getString(OAuthServerResource.SCOPE),
+                        now + ttl * 1000L);
+            } catch (JSONException ex) {
+                return null;
+            }
+
+            if (ttl > 0) {
+                putCachedToken(bearer, result);
+            } else {
+                removeCachedToken(bearer);
+            }
         }
 
-        return RESULT_VALID;
+        return result;
     }
 
     private static JSONObject createBearerAuthRequest(String token)
@@ -177,6 +299,55 @@ public class TokenVerifier implements Verifier {
         return request;
     }
 
+    /**
+     * Returns the cached validation result of a token if it hasn't expired
+     * yet. Valid tokens close to their expiration are refreshed in the
+     * background.
+     * 
+     * @param bearer
+     *            The bearer token.
+     * @return The cached validation result or null.
+     */
+    private CachedToken getCachedToken(final String bearer) {
+        if (cacheSize <= 0) {
+            return null;
+        }
+
+        final CachedToken result;
+
+        synchronized (cache) {
+            result = cache.get(bearer);
+        }
+
+        if (result == null) {
+            return null;
+        }
+
+        long remaining = result.expiration - System.currentTimeMillis();
+
+        if (remaining <= 0) {
+            removeCachedToken(bearer);
+            return null;
+        }
+
+        if (result.isValid() && remaining < refreshAhead * 1000L
+                && result.refreshing.compareAndSet(false, true)) {
+            try {
+                getRefreshService().execute(new Runnable() {
+                    public void run() {
+                        logger.fine("Refresh cached token");
+                        authenticate(bearer);
+                    }
+                });
+            } catch (Exception ex) {
+                logger.log(Level.FINE, "Unable to refresh cached token", ex);
+                result.refreshing.set(false);
+            }
+        }
+
+        return result;
+    }
+
     private String getAccessTokenFromQuery(Request request) {
         // Try to find token in URI query
         Form params = request.getOriginalRef().getQueryAsForm();
@@ -213,6 +384,72 @@ public class TokenVerifier implements Verifier {
         return token;
     }
 
+    /**
+     * Returns the executor refreshing cached tokens in the background.
+     * 
+     * @return The executor refreshing cached tokens in the background.
+     */
+    private ExecutorService getRefreshService() {
+        ExecutorService result = this.refreshService;
+
+        if (result == null) {
+            synchronized (this) {
+                result = this.refreshService;
+
+                if (result == null) {
+                    result = Executors
+                            .newSingleThreadExecutor(new LoggingThreadFactory(
+                                    logger, true));
+                    this.refreshService = result;
+                }
+            }
+        }
+
+        return result;
+    }
+
+    private void putCachedToken(String bearer, CachedToken token) {
+        if (cacheSize > 0) {
+            synchronized (cache) {
+                cache.put(bearer, token);
+            }
+        }
+    }
+
+    private void removeCachedToken(String bearer) {
+        synchronized (cache) {
+            cache.remove(bearer);
+        }
+    }
+
+    /**
+     * @return the cacheSize
+     */
+    public int getCacheSize() {
+        return cacheSize;
+    }
+
+    /**
+     * @return the cacheTtl in seconds
+     */
+    public int getCacheTtl() {
+        return cacheTtl;
+    }
+
+    /**
+     * @return the negativeCacheTtl in seconds
+     */
+    public int getNegativeCacheTtl() {
+        return negativeCacheTtl;
+    }
+
+    /**
+     * @return the refreshAhead in seconds
+     */
+    public int getRefreshAhead() {
+        return refreshAhead;
+    }
+
     /**
      * @return the acceptBodyMethod
      */
@@ -242,4 +479,56 @@ public class TokenVerifier implements Verifier {
     public void setAcceptQueryMethod(boolean acceptQueryMethod) {
         this.acceptQueryMethod = acceptQueryMethod;
     }
+
+    /**
+     * Sets the maximum number of validated tokens kept in the cache. The
+     * least recently used tokens are evicted first. A value of 0, the
+     * default, disables the cache.
+     * 
+     * @param cacheSize
+     *            the cacheSize to set
+     */
+    public void setCacheSize(int cacheSize) {
+        this.cacheSize = cacheSize;
+
+        synchronized (cache) {
+            if (cacheSize <= 0) {
+                cache.clear();
+            }
+        }
+    }
+
+    /**
+     * Sets the maximum time to live of a valid token in the cache. The
+     * lifetime reported by the authorization server takes precedence when
+     * shorter.
+     * 
+     * @param cacheTtl
+     *            the cacheTtl to set in seconds
+     */
+    public void setCacheTtl(int cacheTtl) {
+        this.cacheTtl = cacheTtl;
+    }
+
+    /**
+     * Sets the time to live of a rejected token in the cache. A value of 0,
+     * the default, doesn't remember rejected tokens.
+     * 
+     * @param negativeCacheTtl
+     *            the negativeCacheTtl to set in seconds
+     */
+    public void setNegativeCacheTtl(int negativeCacheTtl) {
+        this.negativeCacheTtl = negativeCacheTtl;
+    }
+
+    /**
+     * Sets the remaining lifetime under which a cached token is validated
+     * again in the background, while the cached result is still used.
+     * 
+     * @param refreshAhead
+     *            the refreshAhead to set in seconds
+     */
+    public void setRefreshAhead(int refreshAhead) {
+        this.refreshAhead = refreshAhead;
+    }
 }
@@ -306,6 +306,17 @@ public class AuthSession {
         return attribs.remove(name);
     }
 
+    /**
+     * Indicates if the session timed out since its last activity.
+     * 
+     * @return True if the session timed out.
+     */
+    public boolean isExpired() {
+        long lastActivity = ((Number) getAttribute(LAST_ACTIVITY)).longValue();
+        long delta = System.currentTimeMillis() - lastActivity;
+        return (delta / 1000) >= getSessionTimeout();
+    }
+
     public void updateActivity() throws AuthSessionTimeoutException {
         long currentTime = System.currentTimeMillis();
         long lastActivity = ((Number) getAttribute(LAST_ACTIVITY)).longValue();
@@ -54,6 +54,13 @@ public interface ServerToken extends Token {
      */
     public String getClientId();
 
+    /**
+     * Returns the time after which the token is expired.
+     * 
+     * @return The expiration time in milliseconds since the epoch.
+     */
+    public long getExpirationTime();
+
     /**
      * Check if the token is expired.
      * 
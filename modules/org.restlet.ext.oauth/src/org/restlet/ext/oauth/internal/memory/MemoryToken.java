@@ -58,6 +58,8 @@ public class MemoryToken implements ServerToken {
 
     private String username;
 
+    private long refreshExpirationTime = Long.MAX_VALUE;
+
     protected MemoryToken() {
         timestamp = System.currentTimeMillis();
     }
@@ -167,6 +169,40 @@ public class MemoryToken implements ServerToken {
         this.username = username;
     }
 
+    public long getExpirationTime() {
+        return timestamp + (expirePeriod + 1) * 1000L;
+    }
+
+    /**
+     * Returns the time after which the refresh token can't be used anymore.
+     * 
+     * @return The expiration time of the refresh token in milliseconds, or
+     *         {@link Long#MAX_VALUE} if it never expires.
+     */
+    public long getRefreshExpirationTime() {
+        return refreshExpirationTime;
+    }
+
+    /**
+     * Sets the time after which the refresh token can't be used anymore.
+     * 
+     * @param refreshExpirationTime
+     *            The expiration time of the refresh token in milliseconds, or
+     *            {@link Long#MAX_VALUE} if it never expires.
+     */
+    public void setRefreshExpirationTime(long refreshExpirationTime) {
+        this.refreshExpirationTime = refreshExpirationTime;
+    }
+
+    /**
+     * Check if the refresh token is expired.
+     * 
+     * @return true if the refresh token is expired.
+     */
+    public boolean isRefreshExpired() {
+        return System.currentTimeMillis() >= refreshExpirationTime;
+    }
+
     public boolean isExpired() {
         long elapsedTime = System.currentTimeMillis() - timestamp;
         long timeout = expirePeriod;
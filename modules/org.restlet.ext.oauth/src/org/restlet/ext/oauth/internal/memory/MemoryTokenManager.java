@@ -35,8 +35,14 @@ package org.restlet.ext.oauth.internal.memory;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import org.restlet.ext.oauth.OAuthError;
 import org.restlet.ext.oauth.OAuthException;
 import org.restlet.ext.oauth.OAuthResourceDefs;
@@ -46,18 +52,182 @@ import org.restlet.ext.oauth.internal.Client;
 import org.restlet.ext.oauth.internal.Token;
 
 /**
- * Memory implementation of TokenManager interface.
+ * Memory implementation of TokenManager interface.<br>
+ * <br>
+ * Tokens are indexed by access token, refresh token, client and username so
+ * that lookups don't scan the whole store. Expired access tokens, refresh
+ * tokens and authorization sessions are evicted each time the store is
+ * accessed, or when {@link #purgeExpired()} is called.<br>
+ * <br>
+ * The eviction of an access token keeps its refresh token, which stays usable
+ * until it is used, revoked or until its own lifetime elapses, see
+ * {@link #setRefreshTokenExpirePeriod(int)}. The token is then removed from
+ * every index.
  * 
  * @author Shotaro Uchida <fantom@xmaker.mx>
  */
 public class MemoryTokenManager extends AbstractTokenManager {
 
+    /**
+     * Scheduled expiration of a token or a session.
+     */
+    private static class Expiration implements Delayed {
+
+        /** The access token, the refresh token or the session code. */
+        private final String key;
+
+        /** The expiration time in milliseconds. */
+        private final long time;
+
+        /** The expiring token or session. */
+        private final Object value;
+
+        private Expiration(String key, Object value, long time) {
+            this.key = key;
+            this.value = value;
+            this.time = time;
+        }
+
+        public int compareTo(Delayed other) {
+            long delta = getDelay(TimeUnit.MILLISECONDS)
+                    - other.getDelay(TimeUnit.MILLISECONDS);
+            return (delta < 0) ? -1 : ((delta > 0) ? 1 : 0);
+        }
+
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(time - System.currentTimeMillis(),
+                    TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /** The default lifetime of refresh tokens, two weeks. */
+    public static final int DEFAULT_REFRESH_TOKEN_EXPIRE_PERIOD = 14 * 24 * 3600;
+
+    private final DelayQueue<Expiration> expirations = new DelayQueue<Expiration>();
+
+    private final AtomicLong expiredRefreshTokens = new AtomicLong();
+
+    private final AtomicLong expiredSessions = new AtomicLong();
+
+    private final AtomicLong expiredTokens = new AtomicLong();
+
     private final Map<String, MemoryToken> tokens = new ConcurrentHashMap<String, MemoryToken>();
 
+    private final Map<String, Set<MemoryToken>> tokensByClient = new ConcurrentHashMap<String, Set<MemoryToken>>();
+
+    private final Map<String, MemoryToken> tokensByClientUser = new ConcurrentHashMap<String, MemoryToken>();
+
+    private final Map<String, MemoryToken> tokensByRefreshToken = new ConcurrentHashMap<String, MemoryToken>();
+
+    private final Map<String, Set<MemoryToken>> tokensByUsername = new ConcurrentHashMap<String, Set<MemoryToken>>();
+
+    private volatile int refreshTokenExpirePeriod = DEFAULT_REFRESH_TOKEN_EXPIRE_PERIOD;
+
     private final Map<String, AuthSession> sessions = new ConcurrentHashMap<String, AuthSession>();
 
+    private static void addIndex(Map<String, Set<MemoryToken>> index,
+            String key, MemoryToken token) {
+        Set<MemoryToken> set = index.get(key);
+        if (set == null) {
+            set = Collections
+                    .newSetFromMap(new ConcurrentHashMap<MemoryToken, Boolean>());
+            index.put(key, set);
+        }
+        set.add(token);
+    }
+
+    private static String getClientUserKey(String clientId, String username) {
+        // The username is null for client credentials tokens
+        return (username == null) ? clientId : clientId + '\n' + username;
+    }
+
+    private static void removeIndex(Map<String, Set<MemoryToken>> index,
+            String key, MemoryToken token) {
+        Set<MemoryToken> set = index.get(key);
+        if (set != null) {
+            set.remove(token);
+            if (set.isEmpty()) {
+                index.remove(key);
+            }
+        }
+    }
+
+    /**
+     * Adds a token to the store and its indexes.
+     * 
+     * @param token
+     *            The token to add.
+     */
+    private synchronized void addToken(MemoryToken token) {
+        tokens.put(token.getAccessToken(), token);
+        tokensByClientUser.put(
+                getClientUserKey(token.getClientId(), token.getUsername()),
+                token);
+        tokensByRefreshToken.put(token.getRefreshToken(), token);
+        addIndex(tokensByClient, token.getClientId(), token);
+        if (token.getUsername() != null) {
+            addIndex(tokensByUsername, token.getUsername(), token);
+        }
+        expirations.add(new Expiration(token.getAccessToken(), token, token
+                .getExpirationTime()));
+        if (token.getRefreshExpirationTime() != Long.MAX_VALUE) {
+            // Keep the access token usable until its own expiration
+            expirations.add(new Expiration(token.getRefreshToken(), token, Math
+                    .max(token.getExpirationTime(),
+                            token.getRefreshExpirationTime())));
+        }
+    }
+
+    /**
+     * Returns the expiration time of a refresh token issued now.
+     * 
+     * @return The expiration time in milliseconds, or {@link Long#MAX_VALUE}
+     *         if refresh tokens never expire.
+     */
+    private long getRefreshExpirationTime() {
+        int period = getRefreshTokenExpirePeriod();
+        return (period < 0) ? Long.MAX_VALUE : System.currentTimeMillis()
+                + period * 1000L;
+    }
+
+    /**
+     * Evicts the access token of an expired token. The token stays indexed by
+     * its refresh token, client and username so that it can be refreshed or
+     * revoked until its refresh token expires.
+     * 
+     * @param token
+     *            The expired token.
+     * @return True if the access token was evicted.
+     */
+    private synchronized boolean expireToken(MemoryToken token) {
+        return tokens.remove(token.getAccessToken(), token);
+    }
+
+    /**
+     * Removes a token from the store and its indexes if it is still stored.
+     * 
+     * @param token
+     *            The token to remove.
+     * @return True if the token was removed.
+     */
+    private synchronized boolean removeToken(MemoryToken token) {
+        if (!tokensByRefreshToken.remove(token.getRefreshToken(), token)) {
+            return false;
+        }
+        tokens.remove(token.getAccessToken(), token);
+        tokensByClientUser.remove(
+                getClientUserKey(token.getClientId(), token.getUsername()),
+                token);
+        removeIndex(tokensByClient, token.getClientId(), token);
+        if (token.getUsername() != null) {
+            removeIndex(tokensByUsername, token.getUsername(), token);
+        }
+        return true;
+    }
+
     public Token generateToken(Client client, String username, String[] scope)
             throws OAuthException {
+        purgeExpired();
         revokeToken(client, username);
         MemoryToken token = new MemoryToken();
         token.setClientId(client.getClientId());
@@ -67,7 +237,8 @@ public class MemoryTokenManager extends AbstractTokenManager {
         token.setTokenType(OAuthResourceDefs.TOKEN_TYPE_BEARER);
         token.setAccessToken(generateRawToken());
         token.setRefreshToken(generateRawToken());
-        tokens.put(token.getAccessToken(), token);
+        token.setRefreshExpirationTime(getRefreshExpirationTime());
+        addToken(token);
         return token;
     }
 
@@ -79,6 +250,14 @@ public class MemoryTokenManager extends AbstractTokenManager {
                     "Invalid refresh token.", null);
         }
 
+        if (token.isRefreshExpired()) {
+            if (removeToken(token)) {
+                expiredRefreshTokens.incrementAndGet();
+            }
+            throw new OAuthException(OAuthError.invalid_grant,
+                    "The refresh token expired.", null);
+        }
+
         // ensure that the refresh token was issued to the authenticated client
         if (!token.getClientId().equals(client.getClientId())) {
             throw new OAuthException(OAuthError.invalid_grant,
@@ -114,13 +293,15 @@ public class MemoryTokenManager extends AbstractTokenManager {
         newToken.setAccessToken(generateRawToken());
         if (isUpdateRefreshToken()) {
             newToken.setRefreshToken(generateRawToken());
+            newToken.setRefreshExpirationTime(getRefreshExpirationTime());
         } else {
             newToken.setRefreshToken(token.getRefreshToken());
+            newToken.setRefreshExpirationTime(token.getRefreshExpirationTime());
         }
 
         synchronized (this) {
-            if (tokens.remove(token.getAccessToken()) != null) {
-                tokens.put(newToken.getAccessToken(), newToken);
+            if (removeToken(token)) {
+                addToken(newToken);
                 return newToken;
             }
         }
@@ -129,12 +310,16 @@ public class MemoryTokenManager extends AbstractTokenManager {
     }
 
     public String storeSession(AuthSession session) throws OAuthException {
+        purgeExpired();
         String code = generateRawCode();
         sessions.put(code, session);
+        expirations.add(new Expiration(code, session, System
+                .currentTimeMillis() + session.getSessionTimeout() * 1000L));
         return code;
     }
 
     public AuthSession restoreSession(String code) throws OAuthException {
+        purgeExpired();
         AuthSession session = sessions.remove(code);
         if (session == null) {
             throw new OAuthException(OAuthError.invalid_grant, "Invalid code.",
@@ -144,6 +329,7 @@ public class MemoryTokenManager extends AbstractTokenManager {
     }
 
     public Token validateToken(String accessToken) throws OAuthException {
+        purgeExpired();
         MemoryToken token = tokens.get(accessToken);
         if (token == null) {
             throw new OAuthException(OAuthError.invalid_token,
@@ -157,63 +343,160 @@ public class MemoryTokenManager extends AbstractTokenManager {
     }
 
     public Token findToken(Client client, String username) {
-        for (MemoryToken token : tokens.values()) {
-            if (token.getClientId().equals(client.getClientId())
-                    && ((username == null && token.getUsername() == null) || (username != null && username
-                            .equals(token.getUsername())))) {
-                return token;
-            }
-        }
-        return null;
+        purgeExpired();
+        return tokensByClientUser.get(getClientUserKey(client.getClientId(),
+                username));
     }
 
     protected MemoryToken findTokenByRefreshToken(String refreshToken) {
-        for (MemoryToken token : tokens.values()) {
-            if (token.getRefreshToken().equals(refreshToken)) {
-                return token;
-            }
-        }
-        return null;
+        purgeExpired();
+        return tokensByRefreshToken.get(refreshToken);
     }
 
     public Token[] findTokens(String username) {
-        ArrayList<Token> list = new ArrayList<Token>();
-        for (MemoryToken token : tokens.values()) {
-            if (/* !token.isExpired() && */
-            token.getUsername() != null && token.getUsername().equals(username)) {
-                list.add(token);
-            }
+        purgeExpired();
+        Set<MemoryToken> set = (username == null) ? null : tokensByUsername
+                .get(username);
+        if (set == null) {
+            return new Token[0];
         }
+        ArrayList<Token> list = new ArrayList<Token>(set);
         return list.toArray(new Token[list.size()]);
     }
 
     public Token[] findTokens(Client client) {
-        ArrayList<Token> list = new ArrayList<Token>();
-        for (MemoryToken token : tokens.values()) {
-            if (/* !token.isExpired() && */
-            token.getClientId().equals(client.getClientId())) {
-                list.add(token);
-            }
+        purgeExpired();
+        Set<MemoryToken> set = tokensByClient.get(client.getClientId());
+        if (set == null) {
+            return new Token[0];
         }
+        ArrayList<Token> list = new ArrayList<Token>(set);
         return list.toArray(new Token[list.size()]);
     }
 
+    /**
+     * Returns the number of tokens removed so far because their refresh token
+     * expired.
+     * 
+     * @return The number of tokens removed because their refresh token
+     *         expired.
+     */
+    public long getExpiredRefreshTokenCount() {
+        return expiredRefreshTokens.get();
+    }
+
+    /**
+     * Returns the number of expired sessions evicted so far.
+     * 
+     * @return The number of expired sessions evicted so far.
+     */
+    public long getExpiredSessionCount() {
+        return expiredSessions.get();
+    }
+
+    /**
+     * Returns the number of expired access tokens evicted so far.
+     * 
+     * @return The number of expired access tokens evicted so far.
+     */
+    public long getExpiredTokenCount() {
+        return expiredTokens.get();
+    }
+
+    /**
+     * Returns the lifetime of refresh tokens in seconds.
+     * 
+     * @return The lifetime of refresh tokens in seconds, negative if they
+     *         never expire.
+     */
+    public int getRefreshTokenExpirePeriod() {
+        return refreshTokenExpirePeriod;
+    }
+
+    /**
+     * Returns the number of pending authorization sessions.
+     * 
+     * @return The number of pending authorization sessions.
+     */
+    public int getSessionCount() {
+        return sessions.size();
+    }
+
+    /**
+     * Returns the number of stored tokens, including the ones whose access
+     * token expired but that can still be refreshed.
+     * 
+     * @return The number of stored tokens.
+     */
+    public int getTokenCount() {
+        return tokensByRefreshToken.size();
+    }
+
+    /**
+     * Evicts the expired access tokens, refresh tokens and sessions. This is
+     * done automatically each time the store is accessed but can also be
+     * scheduled by the application, for example on idle servers.
+     */
+    public void purgeExpired() {
+        Expiration expiration;
+        while ((expiration = expirations.poll()) != null) {
+            if (expiration.value instanceof MemoryToken) {
+                MemoryToken token = (MemoryToken) expiration.value;
+                if (expiration.key.equals(token.getAccessToken())) {
+                    if (expireToken(token)) {
+                        expiredTokens.incrementAndGet();
+                    }
+                } else if (removeToken(token)) {
+                    // The refresh token expired
+                    expiredRefreshTokens.incrementAndGet();
+                }
+            } else {
+                AuthSession session = (AuthSession) expiration.value;
+                if (sessions.get(expiration.key) != session) {
+                    // Already restored
+                } else if (session.isExpired()) {
+                    if (sessions.remove(expiration.key) != null) {
+                        expiredSessions.incrementAndGet();
+                    }
+                } else {
+                    // Activity was updated, check again later
+                    expirations.add(new Expiration(expiration.key, session,
+                            System.currentTimeMillis()
+                                    + session.getSessionTimeout() * 1000L));
+                }
+            }
+        }
+    }
+
+    /**
+     * Sets the lifetime of refresh tokens in seconds. It applies to the
+     * refresh tokens issued afterwards.
+     * 
+     * @param refreshTokenExpirePeriod
+     *            The lifetime of refresh tokens in seconds, negative if they
+     *            never expire.
+     */
+    public void setRefreshTokenExpirePeriod(int refreshTokenExpirePeriod) {
+        this.refreshTokenExpirePeriod = refreshTokenExpirePeriod;
+    }
+
     public void revokeToken(Client client, String username) {
-        Token token = findToken(client, username);
+        MemoryToken token = tokensByClientUser.get(getClientUserKey(
+                client.getClientId(), username));
         if (token != null) {
-            tokens.remove(token.getAccessToken());
+            removeToken(token);
         }
     }
 
     public void revokeAllTokens(String username) {
         for (Token token : findTokens(username)) {
-            tokens.remove(token.getAccessToken());
+            removeToken((MemoryToken) token);
         }
     }
 
     public void revokeAllTokens(Client client) {
         for (Token token : findTokens(client)) {
-            tokens.remove(token.getAccessToken());
+            removeToken((MemoryToken) token);
         }
     }
 }
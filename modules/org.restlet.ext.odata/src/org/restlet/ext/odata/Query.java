@@ -49,6 +49,7 @@ import org.restlet.ext.atom.Link;
 import org.restlet.ext.atom.Relation;
 import org.restlet.ext.odata.internal.EntryContentHandler;
 import org.restlet.ext.odata.internal.FeedContentHandler;
+import org.restlet.ext.odata.internal.StreamingEntryIterator;
 import org.restlet.ext.odata.internal.edm.EntityType;
 import org.restlet.ext.odata.internal.edm.Metadata;
 import org.restlet.representation.Representation;
@@ -211,6 +212,12 @@ public class Query<T> implements Iterable<T> {
     /** The parent client service. */
     private Service service;
 
+    /**
+     * The maximum number of entities buffered in streaming mode, or 0 if the
+     * streaming mode is disabled.
+     */
+    private int streamingBufferSize;
+
     /** The path of the targeted entity relatively to the data service URI. */
     private String subpath;
 
@@ -228,6 +235,7 @@ public class Query<T> implements Iterable<T> {
     public Query(Service service, String subpath, Class<T> entityClass) {
         this.count = -1;
         this.executed = false;
+        this.streamingBufferSize = 0;
         this.entityClass = entityClass;
         if (service.getMetadata() != null) {
             this.entityType = ((Metadata) service.getMetadata())
@@ -261,6 +269,7 @@ public class Query<T> implements Iterable<T> {
     public Query<T> addParameter(String name, String value) {
         Query<T> result = new Query<T>(this.getService(), this.getSubpath(),
                 (Class<T>) this.entityClass);
+        result.streamingBufferSize = this.streamingBufferSize;
         if (getQuery() == null || "".equals(getQuery())) {
             result.setQuery(name + "=" + value);
         } else {
@@ -283,6 +292,7 @@ public class Query<T> implements Iterable<T> {
     public Query<T> addParameters(Series<Parameter> params) {
         Query<T> result = new Query<T>(this.getService(), this.getSubpath(),
                 (Class<T>) this.entityClass);
+        result.streamingBufferSize = this.streamingBufferSize;
         StringBuilder builder = new StringBuilder();
 
         if (params != null) {
@@ -637,13 +647,39 @@ public class Query<T> implements Iterable<T> {
 
     /**
      * Returns an iterator over a set of elements of type T. It returns null if
-     * the query does not retrieve elements.
+     * the query does not retrieve elements.<br>
+     * <br>
+     * In streaming mode, each call sends a new request and returns an iterator
+     * that yields the entities as they are parsed. See
+     * {@link #streaming(int)}.
      * 
      * @return an Iterator or null if the query does not retrieve elements.
      */
     public Iterator<T> iterator() {
         Iterator<T> result = null;
 
+        if (this.streamingBufferSize > 0) {
+            String targetUri = createTargetUri();
+
+            if (guessType(targetUri) != TYPE_ENTITY) {
+                Metadata metadata = (Metadata) service.getMetadata();
+
+                if (metadata == null) {
+                    getLogger().warning(
+                            "Can't execute the query without the service's metadata.");
+                } else {
+                    StreamingEntryIterator<T> iterator = new StreamingEntryIterator<T>(
+                            this.service, new Reference(targetUri),
+                            this.entityClass, this.entityType, metadata,
+                            this.streamingBufferSize, getLogger());
+                    iterator.start();
+                    result = iterator;
+                }
+
+                return result;
+            }
+        }
+
         try {
             execute();
             result = entities.iterator();
@@ -765,6 +801,35 @@ public class Query<T> implements Iterable<T> {
         return addParameter("$skiptoken", token);
     }
 
+    /**
+     * Creates a new Query<T> with the streaming mode enabled. In this mode,
+     * the entities of the entity set are not loaded in memory at once, but
+     * are parsed in a background thread while the Atom feed is received, and
+     * yielded by the iterator as soon as they are available. The server-side
+     * paging links are transparently followed, the next page being requested
+     * as soon as the previous one has been parsed.<br>
+     * <br>
+     * At most the given number of parsed entities are kept in memory, the
+     * parsing being suspended until the iterator consumes them. If the
+     * iteration is stopped before its end, the iterator should be closed (it
+     * implements {@link java.io.Closeable}) in order to release the current
+     * connection.
+     * 
+     * @param bufferSize
+     *            The maximum number of parsed entities kept in memory, or 0 to
+     *            disable the streaming mode.
+     * @return A new Query<T> with the streaming mode enabled.
+     */
+    @SuppressWarnings("unchecked")
+    public Query<T> streaming(int bufferSize) {
+        Query<T> result = new Query<T>(this.getService(), this.getSubpath(),
+                (Class<T>) this.entityClass);
+        result.setQuery(getQuery());
+        result.inlineCount = this.inlineCount;
+        result.streamingBufferSize = Math.max(0, bufferSize);
+        return result;
+    }
+
     /**
      * Creates a new Query<T> with the $top option set in the URI generated by
      * the returned query.
@@ -34,6 +34,8 @@
 package org.restlet.ext.odata;
 
 import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
@@ -76,6 +78,7 @@ import org.restlet.ext.odata.internal.reflect.ReflectUtils;
 import org.restlet.ext.xml.DomRepresentation;
 import org.restlet.ext.xml.SaxRepresentation;
 import org.restlet.ext.xml.XmlWriter;
+import org.restlet.representation.FileRepresentation;
 import org.restlet.representation.Representation;
 import org.restlet.representation.StringRepresentation;
 import org.restlet.resource.ClientResource;
@@ -139,6 +142,9 @@ public class Service {
     /** The metadata of the WCF service. */
     private Metadata metadata;
 
+    /** The local file where the metadata document is persisted, or null. */
+    private File metadataFile;
+
     /**
      * The version of the OData protocol extensions defined by the remote
      * service.
@@ -476,6 +482,26 @@ public class Service {
      * @return The metadata document related to the current service.
      */
     protected Object getMetadata() {
+        if (metadata == null && getMetadataFile() != null
+                && getMetadataFile().exists()) {
+            ClientResource resource = createResource("$metadata");
+
+            try {
+                getLogger().log(
+                        Level.FINE,
+                        "Load the metadata for " + getServiceRef() + " from "
+                                + getMetadataFile());
+                this.metadata = new Metadata(new FileRepresentation(
+                        getMetadataFile(), MediaType.APPLICATION_XML),
+                        resource.getReference());
+            } catch (Exception e) {
+                getLogger().log(
+                        Level.WARNING,
+                        "Can't load the metadata for " + getServiceRef()
+                                + " from " + getMetadataFile(), e);
+            }
+        }
+
         if (metadata == null) {
             ClientResource resource = createResource("$metadata");
 
@@ -485,6 +511,11 @@ public class Service {
                         "Get the metadata for " + getServiceRef() + " at "
                                 + resource.getReference());
                 Representation rep = resource.get(MediaType.APPLICATION_XML);
+
+                if (getMetadataFile() != null) {
+                    rep = storeMetadata(rep);
+                }
+
                 this.metadata = new Metadata(rep, resource.getReference());
             } catch (ResourceException e) {
                 getLogger().log(
@@ -504,6 +535,17 @@ public class Service {
         return metadata;
     }
 
+    /**
+     * Returns the local file where the metadata document is persisted, or
+     * null.
+     * 
+     * @return The local file where the metadata document is persisted.
+     * @see #setMetadataFile(File)
+     */
+    public File getMetadataFile() {
+        return metadataFile;
+    }
+
     /**
      * Returns the version of the OData protocol extensions supported by the
      * remote service.
@@ -1069,6 +1111,20 @@ public class Service {
         this.maxClientVersion = maxClientVersion;
     }
 
+    /**
+     * Sets the local file where the metadata document is persisted. If the
+     * file exists, the metadata are loaded from it instead of being retrieved
+     * from the remote service. Otherwise, the retrieved metadata document is
+     * stored in this file, so that new instances of the service can skip the
+     * retrieval. The file must be deleted in order to refresh the metadata.
+     * 
+     * @param metadataFile
+     *            The local file where the metadata document is persisted.
+     */
+    public void setMetadataFile(File metadataFile) {
+        this.metadataFile = metadataFile;
+    }
+
     /**
      * Sets the value of the given media entry link.
      * 
@@ -1088,6 +1144,39 @@ public class Service {
         }
     }
 
+    /**
+     * Stores the given metadata document in the local metadata file, and
+     * returns a representation of the same document that can still be parsed.
+     * 
+     * @param rep
+     *            The retrieved metadata document.
+     * @return The metadata document to parse.
+     * @throws IOException
+     */
+    private Representation storeMetadata(Representation rep)
+            throws IOException {
+        Representation result = new StringRepresentation(rep.getText(),
+                MediaType.APPLICATION_XML);
+        result.setCharacterSet(rep.getCharacterSet());
+
+        FileOutputStream fos = null;
+        try {
+            fos = new FileOutputStream(getMetadataFile());
+            result.write(fos);
+        } catch (IOException e) {
+            getLogger().log(
+                    Level.WARNING,
+                    "Can't store the metadata for " + getServiceRef() + " in "
+                            + getMetadataFile(), e);
+        } finally {
+            if (fos != null) {
+                fos.close();
+            }
+        }
+
+        return result;
+    }
+
     /**
      * Converts an entity to an Atom entry object.
      * 
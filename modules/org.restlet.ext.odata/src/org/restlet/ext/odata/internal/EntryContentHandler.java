@@ -54,7 +54,6 @@ import org.restlet.ext.odata.internal.edm.AssociationEnd;
 import org.restlet.ext.odata.internal.edm.EntityType;
 import org.restlet.ext.odata.internal.edm.Mapping;
 import org.restlet.ext.odata.internal.edm.Metadata;
-import org.restlet.ext.odata.internal.edm.Property;
 import org.restlet.ext.odata.internal.reflect.ReflectUtils;
 import org.xml.sax.Attributes;
 import org.xml.sax.SAXException;
@@ -357,10 +356,10 @@ public class EntryContentHandler<T> extends EntryReader {
                         }
                     }
                 }
-                Property property = metadata.getProperty(obj, localName);
-                if (property != null) {
+                if (obj != null) {
                     try {
-                        ReflectUtils.setProperty(obj, property, sb.toString());
+                        metadata.getBinding(obj.getClass()).setProperty(obj,
+                                localName, sb.toString());
                     } catch (Exception e) {
                         getLogger().warning(
                                 "Cannot set " + localName + " property on "
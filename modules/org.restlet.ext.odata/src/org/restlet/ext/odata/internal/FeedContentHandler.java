@@ -138,6 +138,17 @@ public class FeedContentHandler<T> extends FeedReader {
         this.metadata = metadata;
     }
 
+    /**
+     * Adds a parsed entity to the list of discovered entities. Subclasses may
+     * override it in order to hand over entities as soon as they are parsed.
+     * 
+     * @param entity
+     *            The parsed entity.
+     */
+    protected void addEntity(T entity) {
+        entities.add(entity);
+    }
+
     @Override
     public void characters(char[] ch, int start, int length)
             throws SAXException {
@@ -210,7 +221,7 @@ public class FeedContentHandler<T> extends FeedReader {
             T entity = entryHandler.getEntity();
 
             if (entity != null) {
-                entities.add(entity);
+                addEntity(entity);
             } else {
                 getLogger().warning("Can't add a null entity.");
             }
@@ -0,0 +1,361 @@
+/**
+ * Copyright 2005-2013 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.ext.odata.internal;
+
+import java.io.Closeable;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.restlet.data.MediaType;
+import org.restlet.data.Reference;
+import org.restlet.engine.log.LoggingThreadFactory;
+import org.restlet.ext.atom.Entry;
+import org.restlet.ext.atom.Feed;
+import org.restlet.ext.atom.Link;
+import org.restlet.ext.atom.Relation;
+import org.restlet.ext.odata.Service;
+import org.restlet.ext.odata.internal.edm.EntityType;
+import org.restlet.ext.odata.internal.edm.Metadata;
+import org.restlet.representation.Representation;
+import org.restlet.resource.ClientResource;
+import org.restlet.resource.ResourceException;
+
+/**
+ * Iterator that streams the entities of a feed as they are parsed. The pages
+ * of the feed are retrieved and parsed by a background thread, which follows
+ * the server-side paging links. The parsed entities are handed over through a
+ * bounded buffer, so that at most a given number of entities are kept in
+ * memory while the next entities are being fetched.<br>
+ * <br>
+ * If the iteration is stopped before its end, the iterator should be closed
+ * in order to stop the background thread and release the current connection.
+ * If a page can't be retrieved or parsed, the failure is rethrown to the
+ * consumer by {@link #hasNext()} and {@link #next()} once the previously
+ * buffered entities have been consumed.
+ * 
+ * @author Thierry Boileau
+ * @param <T>
+ *            The type of the streamed entities.
+ */
+public class StreamingEntryIterator<T> implements Iterator<T>, Closeable {
+
+    /**
+     * Content handler that hands over the entities of a single page to the
+     * buffer, and drops the parsed Atom entries.
+     */
+    private class PageContentHandler extends FeedContentHandler<T> {
+
+        /** The feed being parsed. */
+        private Feed feed;
+
+        /**
+         * Constructor.
+         */
+        public PageContentHandler() {
+            super(entityClass, entityType, metadata, logger);
+        }
+
+        @Override
+        protected void addEntity(T entity) {
+            put(entity);
+        }
+
+        @Override
+        public void endEntry(Entry entry) {
+            super.endEntry(entry);
+
+            if (feed != null) {
+                // The entity has been handed over, the entry is not needed.
+                feed.getEntries().remove(entry);
+            }
+        }
+
+        @Override
+        public void startFeed(Feed feed) {
+            super.startFeed(feed);
+            this.feed = feed;
+        }
+    }
+
+    /** Marks the end of the streamed entities. */
+    private static final Object END = new Object();
+
+    /** The bounded buffer of parsed entities. */
+    private final BlockingQueue<Object> buffer;
+
+    /** Indicates if the iterator has been closed. */
+    private volatile boolean closed;
+
+    /** The class of the streamed entities. */
+    private final Class<?> entityClass;
+
+    /** The entity type of the streamed entities. */
+    private final EntityType entityType;
+
+    /** The error that stopped the background parsing, if any. */
+    private volatile Throwable error;
+
+    /** Indicates if the end of the streamed entities has been reached. */
+    private volatile boolean finished;
+
+    /** The reference of the first page. */
+    private final Reference firstPage;
+
+    /** The logger. */
+    private final Logger logger;
+
+    /** The metadata of the OData service. */
+    private final Metadata metadata;
+
+    /** The next entity to return, or null. */
+    private volatile Object nextEntity;
+
+    /** The underlying service. */
+    private final Service service;
+
+    /**
+     * Constructor.
+     * 
+     * @param service
+     *            The underlying service.
+     * @param firstPage
+     *            The reference of the first page.
+     * @param entityClass
+     *            The class of the streamed entities.
+     * @param entityType
+     *            The entity type of the streamed entities.
+     * @param metadata
+     *            The metadata of the OData service.
+     * @param bufferSize
+     *            The maximum number of parsed entities kept in memory.
+     * @param logger
+     *            The logger.
+     */
+    public StreamingEntryIterator(Service service, Reference firstPage,
+            Class<?> entityClass, EntityType entityType, Metadata metadata,
+            int bufferSize, Logger logger) {
+        this.buffer = new LinkedBlockingQueue<Object>(Math.max(1, bufferSize));
+        this.closed = false;
+        this.entityClass = entityClass;
+        this.entityType = entityType;
+        this.error = null;
+        this.finished = false;
+        this.firstPage = firstPage;
+        this.logger = logger;
+        this.metadata = metadata;
+        this.nextEntity = null;
+        this.service = service;
+    }
+
+    /**
+     * Stops the background parsing and releases the buffered entities.
+     */
+    public void close() {
+        this.closed = true;
+        this.finished = true;
+        this.error = null;
+        this.nextEntity = null;
+        this.buffer.clear();
+    }
+
+    /**
+     * Indicates if there is a next entity, waiting for the background thread
+     * if needed.
+     * 
+     * @return True if there is a next entity.
+     * @throws ResourceException
+     *             If a page of the feed couldn't be retrieved or parsed.
+     */
+    public boolean hasNext() {
+        if (this.nextEntity == null && !this.finished) {
+            try {
+                this.nextEntity = this.buffer.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                close();
+                return false;
+            }
+
+            if (this.nextEntity == END) {
+                this.nextEntity = null;
+                this.finished = true;
+            }
+        }
+
+        if (this.nextEntity == null && this.error != null) {
+            Throwable t = this.error;
+
+            if (t instanceof ResourceException) {
+                throw (ResourceException) t;
+            }
+
+            throw new ResourceException(t);
+        }
+
+        return this.nextEntity != null;
+    }
+
+    /**
+     * Returns the next entity, waiting for the background thread if needed.
+     * 
+     * @return The next entity.
+     * @throws NoSuchElementException
+     *             If there is no more entity.
+     * @throws ResourceException
+     *             If a page of the feed couldn't be retrieved or parsed.
+     */
+    @SuppressWarnings("unchecked")
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+
+        T result = (T) this.nextEntity;
+        this.nextEntity = null;
+        return result;
+    }
+
+    /**
+     * Retrieves and parses a page of the feed, handing over its entities to
+     * the buffer.
+     * 
+     * @param page
+     *            The reference of the page.
+     * @return The reference of the next page, or null.
+     * @throws ResourceException
+     *             If the page couldn't be retrieved.
+     */
+    private Reference parsePage(Reference page) throws Exception {
+        Reference result = null;
+        ClientResource resource = this.service.createResource(page);
+        Representation representation = resource
+                .get(MediaType.APPLICATION_ATOM);
+
+        try {
+            if (!resource.getStatus().isSuccess()) {
+                throw new ResourceException(resource.getStatus());
+            }
+
+            if (representation != null) {
+                Feed feed = new Feed(representation, new PageContentHandler());
+
+                for (Link link : feed.getLinks()) {
+                    if (Relation.NEXT.equals(link.getRel())) {
+                        result = link.getHref();
+                        break;
+                    }
+                }
+            }
+        } finally {
+            if (representation != null) {
+                representation.release();
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Puts an element in the buffer, waiting for some space if needed.
+     * 
+     * @param element
+     *            The element to put.
+     * @throws CancellationException
+     *             If the iterator has been closed meanwhile.
+     */
+    private void put(Object element) {
+        try {
+            while (!this.closed
+                    && !this.buffer.offer(element, 500, TimeUnit.MILLISECONDS)) {
+                // Wait for the consumer
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            this.closed = true;
+        }
+
+        if (this.closed) {
+            throw new CancellationException("The iterator has been closed");
+        }
+    }
+
+    /**
+     * Unsupported operation.
+     */
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Starts the background thread that retrieves and parses the pages of the
+     * feed. The next page is requested as soon as the previous one has been
+     * parsed, while the buffered entities are being consumed.
+     */
+    public void start() {
+        Runnable task = new Runnable() {
+            public void run() {
+                try {
+                    Reference page = firstPage;
+
+                    while (page != null && !closed) {
+                        page = parsePage(page);
+                    }
+                } catch (CancellationException e) {
+                    // The iterator has been closed
+                } catch (Throwable t) {
+                    if (!closed) {
+                        // Otherwise, the cancellation may have been wrapped
+                        logger.log(Level.FINE, "Can't stream the content of "
+                                + firstPage, t);
+                        error = t;
+                    }
+                } finally {
+                    try {
+                        put(END);
+                    } catch (CancellationException e) {
+                        // The iterator has been closed
+                    }
+                }
+            }
+        };
+
+        new LoggingThreadFactory(this.logger, true).newThread(task).start();
+    }
+}
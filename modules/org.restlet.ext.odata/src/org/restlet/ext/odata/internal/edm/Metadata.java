@@ -38,8 +38,11 @@ import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.restlet.data.Reference;
+import org.restlet.ext.odata.internal.reflect.TypeBinding;
 import org.restlet.ext.xml.SaxRepresentation;
 import org.restlet.representation.Representation;
 
@@ -50,6 +53,9 @@ import org.restlet.representation.Representation;
  */
 public class Metadata extends SaxRepresentation {
 
+    /** The bindings between Java classes and OData types. */
+    private final ConcurrentMap<Class<?>, TypeBinding> bindings = new ConcurrentHashMap<Class<?>, TypeBinding>();
+
     /** The list of entity containers. */
     private List<EntityContainer> containers;
 
@@ -103,6 +109,33 @@ public class Metadata extends SaxRepresentation {
         return result;
     }
 
+    /**
+     * Returns the binding between the given Java class and its OData entity
+     * or complex type. The binding is computed once and then cached.
+     * 
+     * @param entityClass
+     *            The Java class.
+     * @return The binding between the given Java class and its OData type.
+     */
+    public TypeBinding getBinding(Class<?> entityClass) {
+        TypeBinding result = bindings.get(entityClass);
+
+        if (result == null) {
+            ODataType type = getEntityType(entityClass);
+            if (type == null) {
+                type = getComplexType(entityClass);
+            }
+
+            result = new TypeBinding(entityClass, type);
+            TypeBinding previous = bindings.putIfAbsent(entityClass, result);
+            if (previous != null) {
+                result = previous;
+            }
+        }
+
+        return result;
+    }
+
     /**
      * Returns the list of entity containers.
      * 
@@ -325,30 +358,7 @@ public class Metadata extends SaxRepresentation {
     public Property getProperty(Object entity, String propertyName) {
         Property result = null;
         if (entity != null) {
-            EntityType et = getEntityType(entity.getClass());
-            if (et != null) {
-                for (Property property : et.getProperties()) {
-                    if (property.getName().equals(propertyName)
-                            || property.getNormalizedName()
-                                    .equals(propertyName)) {
-                        result = property;
-                        break;
-                    }
-                }
-            } else {
-                ComplexType ct = getComplexType(entity.getClass());
-                if (ct != null) {
-                    for (Property property : ct.getProperties()) {
-                        if (property.getName().equals(propertyName)
-                                || property.getNormalizedName().equals(
-                                        propertyName)) {
-                            result = property;
-                            break;
-                        }
-                    }
-                }
-            }
-
+            result = getBinding(entity.getClass()).getProperty(propertyName);
         }
 
         return result;
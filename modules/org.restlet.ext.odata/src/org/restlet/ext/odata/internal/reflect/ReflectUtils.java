@@ -179,9 +179,9 @@ public class ReflectUtils {
 
                 Method getter = null;
                 Method method;
-                for (int i = 0; (getter == null)
-                        && (i < entity.getClass().getDeclaredMethods().length); i++) {
-                    method = entity.getClass().getDeclaredMethods()[i];
+                Method[] methods = entity.getClass().getDeclaredMethods();
+                for (int i = 0; (getter == null) && (i < methods.length); i++) {
+                    method = methods[i];
 
                     if (method.getName().equals(getterName)) {
                         getter = method;
@@ -245,9 +245,9 @@ public class ReflectUtils {
 
             Method setter = null;
             Method method;
-            for (int i = 0; (setter == null)
-                    && (i < o.getClass().getDeclaredMethods().length); i++) {
-                method = o.getClass().getDeclaredMethods()[i];
+            Method[] methods = o.getClass().getDeclaredMethods();
+            for (int i = 0; (setter == null) && (i < methods.length); i++) {
+                method = methods[i];
 
                 if (method.getName().equals(setterName)) {
                     if ((method.getParameterTypes() != null)
@@ -316,9 +316,9 @@ public class ReflectUtils {
             Method setter = null;
             Object setterParameter = null;
             Method method;
-            for (int i = 0; (setter == null)
-                    && (i < o.getClass().getDeclaredMethods().length); i++) {
-                method = o.getClass().getDeclaredMethods()[i];
+            Method[] methods = o.getClass().getDeclaredMethods();
+            for (int i = 0; (setter == null) && (i < methods.length); i++) {
+                method = methods[i];
 
                 if (method.getName().equals(setterName)) {
                     if ((method.getParameterTypes() != null)
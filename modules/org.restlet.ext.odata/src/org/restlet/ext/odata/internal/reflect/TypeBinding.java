@@ -0,0 +1,214 @@
+/**
+ * Copyright 2005-2013 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.ext.odata.internal.reflect;
+
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.restlet.ext.odata.internal.edm.ODataType;
+import org.restlet.ext.odata.internal.edm.Property;
+import org.restlet.ext.odata.internal.edm.TypeUtils;
+
+/**
+ * Binding between a Java class and its OData entity or complex type. It
+ * resolves once the properties of the type and the setters of the class, so
+ * that the values parsed from a feed can be set on the entities without
+ * further lookups.
+ * 
+ * @author Thierry Boileau
+ */
+public class TypeBinding {
+
+    /**
+     * Binding between a property of the OData type and the setter of the Java
+     * class.
+     */
+    private static class PropertyBinding {
+
+        /** The OData property. */
+        private final Property property;
+
+        /** The setter of the Java class, or null. */
+        private final Method setter;
+
+        /**
+         * Constructor.
+         * 
+         * @param property
+         *            The OData property.
+         * @param setter
+         *            The setter of the Java class, or null.
+         */
+        public PropertyBinding(Property property, Method setter) {
+            this.property = property;
+            this.setter = setter;
+        }
+    }
+
+    /** The bound Java class. */
+    private final Class<?> entityClass;
+
+    /** The property bindings, by name and normalized name. */
+    private final Map<String, PropertyBinding> properties;
+
+    /** The bound OData type, or null if the class has no type. */
+    private final ODataType type;
+
+    /**
+     * Constructor.
+     * 
+     * @param entityClass
+     *            The Java class.
+     * @param type
+     *            The OData entity or complex type, or null.
+     */
+    public TypeBinding(Class<?> entityClass, ODataType type) {
+        this.entityClass = entityClass;
+        this.type = type;
+        this.properties = new HashMap<String, PropertyBinding>();
+
+        if (type != null) {
+            Method[] methods = entityClass.getDeclaredMethods();
+
+            for (Property property : type.getProperties()) {
+                PropertyBinding binding = new PropertyBinding(property,
+                        getSetter(methods, property.getNormalizedName()));
+
+                // The first matching property wins, as in a linear lookup.
+                if (!this.properties.containsKey(property.getName())) {
+                    this.properties.put(property.getName(), binding);
+                }
+                if (!this.properties.containsKey(property
+                        .getNormalizedName())) {
+                    this.properties.put(property.getNormalizedName(), binding);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the setter of the given property in the given declared methods.
+     * 
+     * @param methods
+     *            The declared methods of the class.
+     * @param propertyName
+     *            The normalized property name.
+     * @return The setter or null.
+     */
+    private static Method getSetter(Method[] methods, String propertyName) {
+        if (propertyName == null || propertyName.length() == 0) {
+            return null;
+        }
+
+        String setterName = null;
+        char firstLetter = propertyName.charAt(0);
+        if (Character.isLowerCase(firstLetter)) {
+            setterName = "set" + Character.toUpperCase(firstLetter)
+                    + propertyName.substring(1);
+        } else {
+            setterName = "set" + propertyName;
+        }
+
+        for (Method method : methods) {
+            if (method.getName().equals(setterName)
+                    && method.getParameterTypes().length == 1) {
+                return method;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Returns the bound Java class.
+     * 
+     * @return The bound Java class.
+     */
+    public Class<?> getEntityClass() {
+        return entityClass;
+    }
+
+    /**
+     * Returns the property of the OData type with the given name or
+     * normalized name.
+     * 
+     * @param propertyName
+     *            The name of the property.
+     * @return The property or null.
+     */
+    public Property getProperty(String propertyName) {
+        PropertyBinding binding = this.properties.get(propertyName);
+        return (binding == null) ? null : binding.property;
+    }
+
+    /**
+     * Returns the bound OData type, or null if the class has no type.
+     * 
+     * @return The bound OData type.
+     */
+    public ODataType getType() {
+        return type;
+    }
+
+    /**
+     * Converts the given textual value according to the type of the property
+     * and sets it on the entity.
+     * 
+     * @param entity
+     *            The entity to update.
+     * @param propertyName
+     *            The name of the property.
+     * @param propertyValue
+     *            The textual value.
+     * @return True if the property is known by the OData type.
+     * @throws Exception
+     */
+    public boolean setProperty(Object entity, String propertyName,
+            String propertyValue) throws Exception {
+        PropertyBinding binding = this.properties.get(propertyName);
+
+        if (binding == null) {
+            return false;
+        }
+
+        Property property = binding.property;
+        if (binding.setter != null && property.getType() != null) {
+            binding.setter.invoke(entity, TypeUtils.fromEdm(propertyValue,
+                    property.getType().getName()));
+        }
+
+        return true;
+    }
+}
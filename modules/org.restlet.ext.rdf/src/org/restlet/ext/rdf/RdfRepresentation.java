@@ -55,7 +55,13 @@ import org.restlet.representation.WriterRepresentation;
  * Generic RDF representation. Provides support for the Resource Description
  * Framework (RDF) Semantic Web standard. It supports major RDF serialization
  * formats (n3, Turtle, N-Triples and RDF/XML) and is able to both serialize and
- * deserialize a {@link Graph}.
+ * deserialize a {@link Graph}.<br>
+ * <br>
+ * When it wraps a source RDF representation and no graph has been set or
+ * built, writing the representation streams the parsed links straight to the
+ * target writer without building a {@link Graph}. This allows the conversion
+ * of large documents in constant memory, see
+ * {@link #RdfRepresentation(Representation, MediaType)}.
  * 
  * @author Jerome Louvel
  */
@@ -110,6 +116,23 @@ public class RdfRepresentation extends WriterRepresentation {
         this.rdfRepresentation = rdfRepresentation;
     }
 
+    /**
+     * Constructor that converts a given RDF representation into another RDF
+     * serialization format. The links are streamed from the source
+     * representation when this representation is written, unless the graph
+     * is explicitly requested.
+     * 
+     * @param rdfRepresentation
+     *            The RDF representation to parse.
+     * @param mediaType
+     *            The target media type.
+     */
+    public RdfRepresentation(Representation rdfRepresentation,
+            MediaType mediaType) {
+        super(mediaType);
+        this.rdfRepresentation = rdfRepresentation;
+    }
+
     /**
      * Returns an instance of a graph handler used when parsing the inner RDF
      * representation.
@@ -271,14 +294,21 @@ public class RdfRepresentation extends WriterRepresentation {
     }
 
     /**
-     * Writes the
+     * Writes the graph of links to the given graph handler. If no graph has
+     * been set or built, the inner RDF representation is parsed and its links
+     * are directly streamed to the graph handler.
      * 
      * @param graphHandler
+     *            The graph handler.
      * @throws IOException
      */
     public void write(GraphHandler graphHandler) throws IOException {
         try {
-            if (graph != null) {
+            if ((graph == null) && (rdfRepresentation != null)) {
+                graphHandler.startGraph();
+                parse(graphHandler);
+                graphHandler.endGraph();
+            } else if (graph != null) {
                 discoverNamespaces(graph, graphHandler);
                 graphHandler.startGraph();
 
@@ -35,8 +35,6 @@ package org.restlet.ext.rdf.internal.ntriples;
 
 import java.io.BufferedReader;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.List;
 
 import org.restlet.data.Reference;
 import org.restlet.engine.io.IoUtils;
@@ -53,6 +51,9 @@ import org.restlet.representation.Representation;
  */
 public class RdfNTriplesReader extends RdfReader {
 
+    /** The builder reused to assemble tokens and URIs. */
+    private final StringBuilder tokenBuilder;
+
     /** Internal buffered reader. */
     private BufferedReader br;
 
@@ -93,6 +94,7 @@ public class RdfNTriplesReader extends RdfReader {
         this.buffer[BUFFER_SIZE] = this.buffer[2 * BUFFER_SIZE + 1] = EOF;
         this.scoutIndex = 2 * BUFFER_SIZE;
         this.startTokenIndex = 0;
+        this.tokenBuilder = new StringBuilder();
 
         this.br = new BufferedReader(getRdfRepresentation().getReader(),
                 IoUtils.BUFFER_SIZE);
@@ -137,6 +139,32 @@ public class RdfNTriplesReader extends RdfReader {
         startTokenIndex = scoutIndex;
     }
 
+    /**
+     * Fills a part of the reading buffer. Loops until the part is full or the
+     * end of the stream is reached, as a single read may return less
+     * characters.
+     * 
+     * @param offset
+     *            The start index of the part to fill.
+     * @return The number of characters read, or -1 if the end of the stream
+     *         is reached.
+     * @throws IOException
+     */
+    private int fill(int offset) throws IOException {
+        int result = 0;
+        int len = 0;
+
+        while ((result < BUFFER_SIZE) && (len != -1)) {
+            len = this.br.read(buffer, offset + result, BUFFER_SIZE - result);
+
+            if (len > 0) {
+                result += len;
+            }
+        }
+
+        return ((result == 0) && (len == -1)) ? -1 : result;
+    }
+
     /**
      * Returns the current parsed character.
      * 
@@ -152,43 +180,40 @@ public class RdfNTriplesReader extends RdfReader {
      * @return The current token.
      */
     protected String getCurrentToken() {
-        StringBuilder builder = new StringBuilder();
+        String result;
+
         if (startTokenIndex <= scoutIndex) {
-            if (scoutIndex <= BUFFER_SIZE) {
-                for (int i = startTokenIndex; i < scoutIndex; i++) {
-                    builder.append(buffer[i]);
-                }
+            if ((scoutIndex <= BUFFER_SIZE) || (startTokenIndex > BUFFER_SIZE)) {
+                // The token lies in a single part of the buffer
+                result = new String(buffer, startTokenIndex, scoutIndex
+                        - startTokenIndex);
             } else {
-                for (int i = startTokenIndex; i < BUFFER_SIZE; i++) {
-                    builder.append(buffer[i]);
-                }
-                for (int i = BUFFER_SIZE + 1; i < scoutIndex; i++) {
-                    builder.append(buffer[i]);
-                }
+                StringBuilder builder = getTokenBuilder();
+                builder.append(buffer, startTokenIndex, BUFFER_SIZE
+                        - startTokenIndex);
+                builder.append(buffer, BUFFER_SIZE + 1, scoutIndex
+                        - BUFFER_SIZE - 1);
+                result = builder.toString();
             }
         } else {
+            StringBuilder builder = getTokenBuilder();
+
             if (startTokenIndex <= BUFFER_SIZE) {
-                for (int i = startTokenIndex; i < BUFFER_SIZE; i++) {
-                    builder.append(buffer[i]);
-                }
-                for (int i = BUFFER_SIZE + 1; i < (2 * BUFFER_SIZE + 1); i++) {
-                    builder.append(buffer[i]);
-                }
-                for (int i = 0; i < scoutIndex; i++) {
-                    builder.append(buffer[i]);
-                }
+                builder.append(buffer, startTokenIndex, BUFFER_SIZE
+                        - startTokenIndex);
+                builder.append(buffer, BUFFER_SIZE + 1, BUFFER_SIZE);
             } else {
-                for (int i = startTokenIndex; i < (2 * BUFFER_SIZE + 1); i++) {
-                    builder.append(buffer[i]);
-                }
-                for (int i = 0; i < scoutIndex; i++) {
-                    builder.append(buffer[i]);
-                }
+                builder.append(buffer, startTokenIndex, 2 * BUFFER_SIZE + 1
+                        - startTokenIndex);
             }
+
+            builder.append(buffer, 0, scoutIndex);
+            result = builder.toString();
         }
+
         // the current token is consumed.
         startTokenIndex = scoutIndex;
-        return builder.toString();
+        return result;
     }
 
     /**
@@ -233,6 +258,16 @@ public class RdfNTriplesReader extends RdfReader {
 
     }
 
+    /**
+     * Returns the builder reused to assemble tokens, after clearing it.
+     * 
+     * @return The builder reused to assemble tokens.
+     */
+    private StringBuilder getTokenBuilder() {
+        this.tokenBuilder.setLength(0);
+        return this.tokenBuilder;
+    }
+
     /**
      * Returns true if the given character is alphanumeric.
      * 
@@ -317,16 +352,21 @@ public class RdfNTriplesReader extends RdfReader {
      * @throws IOException
      */
     protected void parseStatement() throws IOException {
-        List<Reference> lexicalUnits = new ArrayList<Reference>();
+        Reference subject = null;
+        Reference predicate = null;
+        Reference target = null;
+        int count = 0;
         String object = null;
         do {
             consumeWhiteSpaces();
+            Reference reference = null;
+
             switch (getChar()) {
             case '<':
-                lexicalUnits.add(new Reference(parseUri()));
+                reference = new Reference(parseUri());
                 break;
             case '_':
-                lexicalUnits.add(Link.createBlankRef(parseToken()));
+                reference = Link.createBlankRef(parseToken());
                 break;
             case '"':
                 int c = step();
@@ -350,17 +390,32 @@ public class RdfNTriplesReader extends RdfReader {
                         "This document does not seem to follow the N-Triples syntax. "
                                 + getParsingMessage());
             }
+
+            if (reference != null) {
+                switch (count++) {
+                case 0:
+                    subject = reference;
+                    break;
+                case 1:
+                    predicate = reference;
+                    break;
+                case 2:
+                    target = reference;
+                    break;
+                default:
+                    break;
+                }
+            }
         } while (!isEndOfFile(getChar()) && getChar() != '.'
                 && getChar() != '}');
 
         // Generate the links
-        if (!lexicalUnits.isEmpty()) {
+        if (count > 0) {
             if (object != null) {
-                getGraphHandler().link(lexicalUnits.get(0),
-                        lexicalUnits.get(1), new Literal(object));
+                getGraphHandler().link(subject, predicate,
+                        new Literal(object));
             } else {
-                getGraphHandler().link(lexicalUnits.get(0),
-                        lexicalUnits.get(1), lexicalUnits.get(2));
+                getGraphHandler().link(subject, predicate, target);
             }
         }
     }
@@ -387,7 +442,7 @@ public class RdfNTriplesReader extends RdfReader {
      * @throws IOException
      */
     protected String parseUri() throws IOException {
-        StringBuilder builder = new StringBuilder();
+        StringBuilder builder = getTokenBuilder();
         // Suppose the current character is "<".
         int c = step();
         while (c != EOF && c != '>') {
@@ -419,7 +474,7 @@ public class RdfNTriplesReader extends RdfReader {
                 // Reached the end of the first part of the buffer, read into
                 // the second one.
                 scoutIndex++;
-                int len = this.br.read(buffer, 0, BUFFER_SIZE);
+                int len = fill(BUFFER_SIZE + 1);
                 if (len == -1) {
                     // End of the stream reached
                     buffer[scoutIndex] = EOF;
@@ -430,7 +485,7 @@ public class RdfNTriplesReader extends RdfReader {
                 scoutIndex = 0;
                 // Reached the end of the second part of the buffer, read into
                 // the first one.
-                int len = this.br.read(buffer, 0, BUFFER_SIZE);
+                int len = fill(0);
                 if (len == -1) {
                     // End of the stream reached
                     buffer[scoutIndex] = EOF;
@@ -473,9 +528,15 @@ public class RdfNTriplesReader extends RdfReader {
      *            The number of steps to go back.
      */
     protected void stepBack(int n) {
-        scoutIndex -= n;
-        if (scoutIndex < 0) {
-            scoutIndex = BUFFER_SIZE * 2 + 1 - scoutIndex;
+        for (int i = 0; i < n; i++) {
+            scoutIndex--;
+            if (scoutIndex < 0) {
+                // Go back to the end of the second part of the buffer.
+                scoutIndex = BUFFER_SIZE * 2;
+            } else if (scoutIndex == BUFFER_SIZE) {
+                // Skip the upper mark of the first part of the buffer.
+                scoutIndex--;
+            }
         }
     }
 
@@ -53,12 +53,27 @@ import org.restlet.representation.Representation;
  */
 public class RdfTurtleReader extends RdfNTriplesReader {
 
+    /** Shared lexical unit of the "!" path operator. */
+    private static final Token BANG = new Token("!");
+
+    /** Shared lexical unit of the "," object list separator. */
+    private static final Token COMMA = new Token(",");
+
+    /** Shared lexical unit of the "^" path operator. */
+    private static final Token HAT = new Token("^");
+
+    /** Shared lexical unit of the ";" predicate list separator. */
+    private static final Token SEMICOLON = new Token(";");
+
     /** Increment used to identify inner blank nodes. */
     private int blankNodeId = 0;
 
     /** The current context object. */
     private Context context;
 
+    /** The lexical units of the current statement, reused between statements. */
+    private final List<LexicalUnit> statementUnits;
+
     /**
      * Constructor.
      * 
@@ -72,6 +87,7 @@ public class RdfTurtleReader extends RdfNTriplesReader {
             GraphHandler graphHandler) throws IOException {
         super(rdfN3Representation, graphHandler);
         this.context = new Context();
+        this.statementUnits = new ArrayList<LexicalUnit>();
         context.getKeywords().addAll(
                 Arrays.asList("a", "is", "of", "this", "has"));
     }
@@ -438,7 +454,8 @@ public class RdfTurtleReader extends RdfNTriplesReader {
      * @throws IOException
      */
     protected void parseStatement(Context context) throws IOException {
-        List<LexicalUnit> lexicalUnits = new ArrayList<LexicalUnit>();
+        List<LexicalUnit> lexicalUnits = this.statementUnits;
+        lexicalUnits.clear();
         do {
             consumeWhiteSpaces();
             switch (getChar()) {
@@ -459,12 +476,12 @@ public class RdfTurtleReader extends RdfNTriplesReader {
                 lexicalUnits.add(new BlankNodeToken(this, context));
                 break;
             case '!':
-                lexicalUnits.add(new Token("!"));
+                lexicalUnits.add(BANG);
                 step();
                 discard();
                 break;
             case '^':
-                lexicalUnits.add(new Token("^"));
+                lexicalUnits.add(HAT);
                 step();
                 discard();
                 break;
@@ -478,12 +495,12 @@ public class RdfTurtleReader extends RdfNTriplesReader {
             case ';':
                 step();
                 discard();
-                lexicalUnits.add(new Token(";"));
+                lexicalUnits.add(SEMICOLON);
                 break;
             case ',':
                 step();
                 discard();
-                lexicalUnits.add(new Token(","));
+                lexicalUnits.add(COMMA);
                 break;
             case '#':
                 parseComment();
@@ -500,6 +517,7 @@ public class RdfTurtleReader extends RdfNTriplesReader {
 
         // Generate the links
         generateLinks(lexicalUnits);
+        lexicalUnits.clear();
     }
 
     /**
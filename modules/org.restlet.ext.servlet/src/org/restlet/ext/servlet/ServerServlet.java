@@ -187,6 +187,13 @@ import org.restlet.routing.VirtualHost;
  *                         &lt;param-name&gt;org.restlet.autoWire&lt;/param-name&gt;
  *                         &lt;param-value&gt;true&lt;/param-value&gt;
  *                 &lt;/init-param&gt;
+ * 
+ *                 &lt;!-- Release the container thread for uncommitted responses (Optional) --&gt;
+ *                 &lt;init-param&gt;
+ *                         &lt;param-name&gt;org.restlet.async&lt;/param-name&gt;
+ *                         &lt;param-value&gt;true&lt;/param-value&gt;
+ *                 &lt;/init-param&gt;
+ *                 &lt;async-supported&gt;true&lt;/async-supported&gt;
  *         &lt;/servlet&gt;
  * 
  *         &lt;!-- Mapping catching all requests on a given path (Mandatory) --&gt;
@@ -226,6 +233,16 @@ import org.restlet.routing.VirtualHost;
  * control the URI wiring, you can disable the auto-wiring by setting the
  * property to "false".<br>
  * <br>
+ * An optional boolean parameter called "org.restlet.async" enables the
+ * asynchronous mode, requiring a Servlet 3.0 container and the
+ * "async-supported" flag on the Servlet declaration. When a Restlet returns
+ * a response that isn't committed and that has its "autoCommitting" property
+ * set to false, the call is suspended and the container thread released. The
+ * response is then sent when {@link Response#commit()} is invoked, typically
+ * from another thread. The "org.restlet.asyncTimeout" parameter sets the
+ * timeout in milliseconds of suspended calls, after which a 503 status is
+ * returned.<br>
+ * <br>
  * Also, a WAR client connector is automatically attached to the parent Restlet
  * component. It lets you access to resources inside your WAR using the uniform
  * interface. Here is an example of WAR URI that can be resolved by this client:
@@ -251,6 +268,25 @@ public class ServerServlet extends HttpServlet {
      */
     private static final String APPLICATION_KEY = "org.restlet.application";
 
+    /**
+     * The Servlet context initialization parameter's name containing a boolean
+     * value. "true" indicates that calls whose response isn't committed when
+     * the Restlet call returns are suspended using the Servlet 3.0
+     * asynchronous API, releasing the container thread until
+     * {@link Response#commit()} is invoked.
+     */
+    private static final String ASYNC_KEY = "org.restlet.async";
+
+    /** The default value for the ASYNC_KEY parameter. */
+    private static final String ASYNC_KEY_DEFAULT = "false";
+
+    /**
+     * The Servlet context initialization parameter's name containing the
+     * timeout in milliseconds of suspended calls. By default, the timeout of
+     * the Servlet container is used.
+     */
+    private static final String ASYNC_TIMEOUT_KEY = "org.restlet.asyncTimeout";
+
     /**
      * The Servlet context initialization parameter's name containing a boolean
      * value. "true" indicates that all applications will be attached to the
@@ -404,7 +440,22 @@ public class ServerServlet extends HttpServlet {
      */
     protected ServerCall createCall(Server server, HttpServletRequest request,
             HttpServletResponse response) {
-        return new ServletCall(server, request, response);
+        ServletCall result = new ServletCall(server, request, response);
+        result.setAsyncEnabled(Boolean.parseBoolean(getInitParameter(
+                ASYNC_KEY, ASYNC_KEY_DEFAULT)));
+
+        String asyncTimeout = getInitParameter(ASYNC_TIMEOUT_KEY, null);
+
+        if (asyncTimeout != null) {
+            try {
+                result.setAsyncTimeout(Long.parseLong(asyncTimeout));
+            } catch (NumberFormatException e) {
+                log("[Restlet] Invalid value for the " + ASYNC_TIMEOUT_KEY
+                        + " parameter: " + asyncTimeout);
+            }
+        }
+
+        return result;
     }
 
     /**
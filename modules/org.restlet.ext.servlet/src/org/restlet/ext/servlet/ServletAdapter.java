@@ -90,6 +90,15 @@ import org.restlet.routing.Router;
  */
 public class ServletAdapter extends ServerAdapter {
 
+    /**
+     * Indicates if calls can be suspended using the Servlet 3.0 asynchronous
+     * API.
+     */
+    private volatile boolean asyncEnabled;
+
+    /** The timeout in milliseconds of suspended calls. */
+    private volatile long asyncTimeout;
+
     /** The next Restlet. */
     private volatile Restlet next;
 
@@ -117,9 +126,21 @@ public class ServletAdapter extends ServerAdapter {
         super(new Context(new ServletLogger(context)));
         // [ifdef gae] instruction uncomment
         // super(new Context());
+        this.asyncEnabled = false;
+        this.asyncTimeout = -1L;
         this.next = next;
     }
 
+    /**
+     * Returns the timeout in milliseconds of suspended calls, or a negative
+     * value to use the default timeout of the Servlet container.
+     * 
+     * @return The timeout in milliseconds of suspended calls.
+     */
+    public long getAsyncTimeout() {
+        return asyncTimeout;
+    }
+
     /**
      * Returns the base reference of new Restlet requests.
      * 
@@ -176,6 +197,19 @@ public class ServletAdapter extends ServerAdapter {
         return getBaseRef(request);
     }
 
+    /**
+     * Indicates if calls can be suspended using the Servlet 3.0 asynchronous
+     * API. In this case, a response that isn't committed when the next Restlet
+     * returns and that isn't automatically committed is sent when
+     * {@link org.restlet.Response#commit()} is invoked, without holding the
+     * container thread meanwhile. False by default.
+     * 
+     * @return True if calls can be suspended.
+     */
+    public boolean isAsyncEnabled() {
+        return asyncEnabled;
+    }
+
     /**
      * Services a HTTP Servlet request as a Restlet request handled by the
      * "target" Restlet.
@@ -195,6 +229,8 @@ public class ServletAdapter extends ServerAdapter {
                 ServletCall servletCall = new ServletCall(request
                         .getLocalAddr(), request.getLocalPort(), request,
                         response);
+                servletCall.setAsyncEnabled(isAsyncEnabled());
+                servletCall.setAsyncTimeout(getAsyncTimeout());
                 HttpRequest httpRequest = toRequest(servletCall);
                 HttpResponse httpResponse = new HttpResponse(servletCall,
                         httpRequest);
@@ -205,9 +241,13 @@ public class ServletAdapter extends ServerAdapter {
                 // Adjust the root reference
                 httpRequest.setRootRef(getRootRef(request));
 
-                // Handle the request and commit the response
+                // Handle the request and commit the response unless the call
+                // has been suspended
                 getNext().handle(httpRequest, httpResponse);
-                commit(httpResponse);
+
+                if (!suspend(httpResponse)) {
+                    commit(httpResponse);
+                }
             } finally {
                 Engine.clearThreadLocalVariables();
             }
@@ -216,6 +256,28 @@ public class ServletAdapter extends ServerAdapter {
         }
     }
 
+    /**
+     * Indicates if calls can be suspended using the Servlet 3.0 asynchronous
+     * API.
+     * 
+     * @param asyncEnabled
+     *            True if calls can be suspended.
+     */
+    public void setAsyncEnabled(boolean asyncEnabled) {
+        this.asyncEnabled = asyncEnabled;
+    }
+
+    /**
+     * Sets the timeout in milliseconds of suspended calls, or a negative value
+     * to use the default timeout of the Servlet container.
+     * 
+     * @param asyncTimeout
+     *            The timeout in milliseconds of suspended calls.
+     */
+    public void setAsyncTimeout(long asyncTimeout) {
+        this.asyncTimeout = asyncTimeout;
+    }
+
     /**
      * Sets the next Restlet.
      * 
@@ -46,6 +46,9 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.logging.Level;
 
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
@@ -71,6 +74,54 @@ import org.restlet.util.Series;
  */
 public class ServletCall extends ServerCall {
 
+    /**
+     * Listener of the asynchronous context, ending the call with a 503 status
+     * if the response wasn't committed before the timeout.
+     */
+    private class ServletAsyncListener implements AsyncListener {
+
+        public void onComplete(AsyncEvent event) throws IOException {
+        }
+
+        public void onError(AsyncEvent event) throws IOException {
+            getLogger().log(Level.FINE,
+                    "Asynchronous Servlet call ended with an error",
+                    event.getThrowable());
+            expire();
+        }
+
+        public void onStartAsync(AsyncEvent event) throws IOException {
+        }
+
+        public void onTimeout(AsyncEvent event) throws IOException {
+            if (expire()) {
+                getLogger().fine(
+                        "Asynchronous Servlet call timed out before the response was committed");
+                getResponse().setStatus(
+                        Status.SERVER_ERROR_SERVICE_UNAVAILABLE.getCode());
+                event.getAsyncContext().complete();
+            }
+        }
+    }
+
+    /** The asynchronous context, available once the call is suspended. */
+    private volatile AsyncContext asyncContext;
+
+    /** Indicates if the call can be suspended using the Servlet 3.0 API. */
+    private volatile boolean asyncEnabled;
+
+    /** Indicates if the asynchronous context expired. */
+    private volatile boolean asyncExpired;
+
+    /**
+     * The timeout in milliseconds of the asynchronous context, or a negative
+     * value to use the default timeout of the container.
+     */
+    private volatile long asyncTimeout;
+
+    /** Indicates if the response is being sent. */
+    private volatile boolean sending;
+
     /** The HTTP Servlet request to wrap. */
     private volatile HttpServletRequest request;
 
@@ -95,6 +146,10 @@ public class ServletCall extends ServerCall {
         super(server);
         this.request = request;
         this.response = response;
+        this.asyncEnabled = false;
+        this.asyncExpired = false;
+        this.asyncTimeout = -1L;
+        this.sending = false;
     }
 
     @Override
@@ -119,6 +174,10 @@ public class ServletCall extends ServerCall {
         super(serverAddress, serverPort);
         this.request = request;
         this.response = response;
+        this.asyncEnabled = false;
+        this.asyncExpired = false;
+        this.asyncTimeout = -1L;
+        this.sending = false;
     }
 
     /**
@@ -129,6 +188,40 @@ public class ServletCall extends ServerCall {
         return false;
     }
 
+    /**
+     * Completes the asynchronous context if the call has been suspended.
+     */
+    @Override
+    public void complete() {
+        if ((this.asyncContext != null) && !this.asyncExpired) {
+            this.asyncContext.complete();
+        }
+    }
+
+    /**
+     * Marks the asynchronous context as expired, unless the response is
+     * already being sent.
+     * 
+     * @return True if the asynchronous context has been marked as expired.
+     */
+    private synchronized boolean expire() {
+        if (!this.sending) {
+            this.asyncExpired = true;
+        }
+
+        return this.asyncExpired;
+    }
+
+    /**
+     * Returns the timeout in milliseconds of the asynchronous context, or a
+     * negative value to use the default timeout of the container.
+     * 
+     * @return The timeout in milliseconds of the asynchronous context.
+     */
+    public long getAsyncTimeout() {
+        return asyncTimeout;
+    }
+
     @Override
     public List<Certificate> getCertificates() {
         Certificate[] certificateArray = (Certificate[]) getRequest()
@@ -386,6 +479,16 @@ public class ServletCall extends ServerCall {
         return result;
     }
 
+    /**
+     * Indicates if the call can be suspended using the Servlet 3.0
+     * asynchronous API. False by default.
+     * 
+     * @return True if the call can be suspended.
+     */
+    public boolean isAsyncEnabled() {
+        return asyncEnabled;
+    }
+
     /**
      * Indicates if the request was made using a confidential mean.<br>
      * 
@@ -396,15 +499,32 @@ public class ServletCall extends ServerCall {
         return getRequest().isSecure();
     }
 
+    @Override
+    public boolean isSuspended() {
+        return this.asyncContext != null;
+    }
+
     /**
      * Sends the response back to the client. Commits the status, headers and
-     * optional entity and send them on the network.
+     * optional entity and send them on the network. If the call was suspended
+     * and its asynchronous context expired in the meantime, the response is
+     * ignored.
      * 
      * @param response
      *            The high-level response.
      */
     @Override
     public void sendResponse(Response response) throws IOException {
+        synchronized (this) {
+            if (this.asyncExpired) {
+                getLogger().fine(
+                        "Asynchronous Servlet call expired. Ignoring the response.");
+                return;
+            }
+
+            this.sending = true;
+        }
+
         // Set the status code in the response. We do this after adding the
         // headers because when we have to rely on the 'sendError' method,
         // the Servlet containers are expected to commit their response.
@@ -464,4 +584,51 @@ public class ServletCall extends ServerCall {
         }
     }
 
+    /**
+     * Indicates if the call can be suspended using the Servlet 3.0
+     * asynchronous API.
+     * 
+     * @param asyncEnabled
+     *            True if the call can be suspended.
+     */
+    public void setAsyncEnabled(boolean asyncEnabled) {
+        this.asyncEnabled = asyncEnabled;
+    }
+
+    /**
+     * Sets the timeout in milliseconds of the asynchronous context, or a
+     * negative value to use the default timeout of the container.
+     * 
+     * @param asyncTimeout
+     *            The timeout in milliseconds of the asynchronous context.
+     */
+    public void setAsyncTimeout(long asyncTimeout) {
+        this.asyncTimeout = asyncTimeout;
+    }
+
+    /**
+     * Suspends the call by starting the asynchronous mode of the Servlet
+     * request, if enabled and supported by the container. The container thread
+     * is then released once the Servlet returns.
+     * 
+     * @return True if the call has been suspended.
+     */
+    @Override
+    public boolean suspend() {
+        if (isAsyncEnabled() && getRequest().isAsyncSupported()) {
+            AsyncContext context = getRequest().startAsync(getRequest(),
+                    getResponse());
+            context.addListener(new ServletAsyncListener());
+
+            if (getAsyncTimeout() >= 0) {
+                context.setTimeout(getAsyncTimeout());
+            }
+
+            this.asyncContext = context;
+            return true;
+        }
+
+        return false;
+    }
+
 }
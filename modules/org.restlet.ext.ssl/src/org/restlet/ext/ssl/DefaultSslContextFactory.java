@@ -141,6 +141,20 @@ import org.restlet.util.Series;
  * <td>Name of the RNG algorithm. (see java.security.SecureRandom class)</td>
  * </tr>
  * <tr>
+ * <td>sessionCacheSize</td>
+ * <td>int</td>
+ * <td>-1 (JSSE default)</td>
+ * <td>Maximum number of SSL sessions cached for resumption by the client and
+ * server session contexts. Zero means no limit.</td>
+ * </tr>
+ * <tr>
+ * <td>sessionTimeout</td>
+ * <td>int</td>
+ * <td>-1 (JSSE default)</td>
+ * <td>Time in seconds after which cached SSL sessions can't be resumed
+ * anymore. Zero means no limit.</td>
+ * </tr>
+ * <tr>
  * <td>trustManagerAlgorithm</td>
  * <td>String</td>
  * <td>System property "ssl.TrustManagerFactory.algorithm" or "SunX509"</td>
@@ -245,6 +259,12 @@ public class DefaultSslContextFactory extends SslContextFactory {
     /** The name of the SecureRandom algorithm. */
     private volatile String secureRandomAlgorithm = null;
 
+    /** The maximum number of cached SSL sessions, or -1 for JSSE default. */
+    private volatile int sessionCacheSize = -1;
+
+    /** The timeout in seconds of cached SSL sessions, or -1 for JSSE default. */
+    private volatile int sessionTimeout = -1;
+
     /** The name of the TrustManager algorithm. */
     private volatile String trustManagerAlgorithm = null;
 
@@ -371,6 +391,21 @@ public class DefaultSslContextFactory extends SslContextFactory {
         sslContext.init(kmf != null ? kmf.getKeyManagers() : null,
                 tmf != null ? tmf.getTrustManagers() : null, sr);
 
+        // Configures the caching of sessions for resumption
+        if (this.sessionCacheSize >= 0) {
+            sslContext.getServerSessionContext().setSessionCacheSize(
+                    this.sessionCacheSize);
+            sslContext.getClientSessionContext().setSessionCacheSize(
+                    this.sessionCacheSize);
+        }
+
+        if (this.sessionTimeout >= 0) {
+            sslContext.getServerSessionContext().setSessionTimeout(
+                    this.sessionTimeout);
+            sslContext.getClientSessionContext().setSessionTimeout(
+                    this.sessionTimeout);
+        }
+
         // Wraps the SSL context to be able to set cipher suites and other
         // properties after SSL engine creation for example
         result = createWrapper(sslContext);
@@ -556,6 +591,26 @@ public class DefaultSslContextFactory extends SslContextFactory {
         return resultSet.toArray(result);
     }
 
+    /**
+     * Returns the maximum number of SSL sessions cached for resumption, or -1
+     * to use the JSSE default. Zero means no limit.
+     * 
+     * @return The maximum number of cached SSL sessions.
+     */
+    public int getSessionCacheSize() {
+        return sessionCacheSize;
+    }
+
+    /**
+     * Returns the timeout in seconds of cached SSL sessions, or -1 to use the
+     * JSSE default. Zero means no limit.
+     * 
+     * @return The timeout in seconds of cached SSL sessions.
+     */
+    public int getSessionTimeout() {
+        return sessionTimeout;
+    }
+
     /**
      * Returns the name of the TrustManager algorithm.
      * 
@@ -711,6 +766,10 @@ public class DefaultSslContextFactory extends SslContextFactory {
         setProtocol(helperParameters.getFirstValue("protocol", true, "TLS"));
         setSecureRandomAlgorithm(helperParameters.getFirstValue(
                 "secureRandomAlgorithm", true));
+        setSessionCacheSize(Integer.parseInt(helperParameters.getFirstValue(
+                "sessionCacheSize", true, "-1")));
+        setSessionTimeout(Integer.parseInt(helperParameters.getFirstValue(
+                "sessionTimeout", true, "-1")));
         setTrustManagerAlgorithm(helperParameters.getFirstValue(
                 "trustManagerAlgorithm", true, System.getProperty(
                         "ssl.TrustManagerFactory.algorithm", "SunX509")));
@@ -912,6 +971,29 @@ public class DefaultSslContextFactory extends SslContextFactory {
         this.secureRandomAlgorithm = secureRandomAlgorithm;
     }
 
+    /**
+     * Sets the maximum number of SSL sessions cached for resumption. The
+     * default value is -1, in which case the JSSE default is used. Zero means
+     * no limit.
+     * 
+     * @param sessionCacheSize
+     *            The maximum number of cached SSL sessions.
+     */
+    public void setSessionCacheSize(int sessionCacheSize) {
+        this.sessionCacheSize = sessionCacheSize;
+    }
+
+    /**
+     * Sets the timeout in seconds of cached SSL sessions. The default value is
+     * -1, in which case the JSSE default is used. Zero means no limit.
+     * 
+     * @param sessionTimeout
+     *            The timeout in seconds of cached SSL sessions.
+     */
+    public void setSessionTimeout(int sessionTimeout) {
+        this.sessionTimeout = sessionTimeout;
+    }
+
     /**
      * Sets the TrustManager algorithm. The default value is that of the
      * <i>ssl.TrustManagerFactory.algorithm</i> system property, or
@@ -36,6 +36,9 @@ package org.restlet.ext.ssl;
 import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.nio.channels.SocketChannel;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.net.ssl.SSLContext;
 import javax.net.ssl.SSLEngine;
@@ -49,7 +52,9 @@ import org.restlet.engine.connector.InboundWay;
 import org.restlet.engine.connector.OutboundWay;
 import org.restlet.ext.ssl.internal.HttpsClientInboundWay;
 import org.restlet.ext.ssl.internal.HttpsClientOutboundWay;
+import org.restlet.ext.ssl.internal.SslBufferPool;
 import org.restlet.ext.ssl.internal.SslConnection;
+import org.restlet.ext.ssl.internal.SslHelper;
 import org.restlet.ext.ssl.internal.SslUtils;
 
 /**
@@ -70,17 +75,42 @@ import org.restlet.ext.ssl.internal.SslUtils;
  * parameter, or an instance as an attribute for a more complete and flexible
  * SSL context setting.</td>
  * </tr>
+ * <tr>
+ * <td>sslTasksThreads</td>
+ * <td>int</td>
+ * <td>Number of available processors</td>
+ * <td>Maximum number of threads running the delegated tasks of the SSL
+ * engines, such as the lengthy handshake computations. Those tasks are kept
+ * away from the worker service processing the established connections.</td>
+ * </tr>
  * </table>
+ * The SSL packet buffers of the connections are pooled and sized based on the
+ * packet buffer size of the SSL sessions. The number of full and resumed SSL
+ * handshakes can be monitored with the {@link #getFullHandshakeCount()} and
+ * {@link #getResumedHandshakeCount()} methods.
  * For the default SSL parameters see the Javadocs of the
  * {@link DefaultSslContextFactory} class.
  * 
  * @author Jerome Louvel
  */
-public class HttpsClientHelper extends ClientConnectionHelper {
+public class HttpsClientHelper extends ClientConnectionHelper implements
+        SslHelper {
+
+    /** The number of full SSL handshakes. */
+    private final AtomicLong fullHandshakeCount;
+
+    /** The pool of SSL packet buffers. */
+    private volatile SslBufferPool packetBufferPool;
+
+    /** The number of SSL handshakes resuming a cached session. */
+    private final AtomicLong resumedHandshakeCount;
 
     /** The SSL context. */
     private volatile SSLContext sslContext;
 
+    /** The executor service running the SSL delegated tasks. */
+    private volatile ThreadPoolExecutor tasksService;
+
     /**
      * Constructor.
      * 
@@ -90,6 +120,8 @@ public class HttpsClientHelper extends ClientConnectionHelper {
     public HttpsClientHelper(Client client) {
         super(client);
         getProtocols().add(Protocol.HTTPS);
+        this.fullHandshakeCount = new AtomicLong();
+        this.resumedHandshakeCount = new AtomicLong();
     }
 
     @Override
@@ -122,6 +154,34 @@ public class HttpsClientHelper extends ClientConnectionHelper {
         return new HttpsClientOutboundWay(connection, bufferSize);
     }
 
+    /**
+     * Returns the number of full SSL handshakes since the helper started.
+     * 
+     * @return The number of full SSL handshakes.
+     */
+    public long getFullHandshakeCount() {
+        return fullHandshakeCount.get();
+    }
+
+    /**
+     * Returns the pool of SSL packet buffers.
+     * 
+     * @return The pool of SSL packet buffers.
+     */
+    public SslBufferPool getPacketBufferPool() {
+        return packetBufferPool;
+    }
+
+    /**
+     * Returns the number of SSL handshakes resuming a cached session since the
+     * helper started.
+     * 
+     * @return The number of SSL handshakes resuming a cached session.
+     */
+    public long getResumedHandshakeCount() {
+        return resumedHandshakeCount.get();
+    }
+
     /**
      * Returns the SSL context.
      * 
@@ -131,6 +191,23 @@ public class HttpsClientHelper extends ClientConnectionHelper {
         return sslContext;
     }
 
+    /**
+     * Returns the executor service running the SSL delegated tasks.
+     * 
+     * @return The executor service running the SSL delegated tasks.
+     */
+    public ExecutorService getTasksService() {
+        return tasksService;
+    }
+
+    public void onHandshakeFinished(boolean resumed) {
+        if (resumed) {
+            this.resumedHandshakeCount.incrementAndGet();
+        } else {
+            this.fullHandshakeCount.incrementAndGet();
+        }
+    }
+
     /**
      * Sets the SSL context.
      * 
@@ -145,7 +222,29 @@ public class HttpsClientHelper extends ClientConnectionHelper {
     public synchronized void start() throws Exception {
         SslContextFactory factory = SslUtils.getSslContextFactory(this);
         setSslContext(factory.createSslContext());
+
+        // Size the pooled packet buffers using the SSL session
+        this.packetBufferPool = new SslBufferPool(getSslContext()
+                .createSSLEngine().getSession().getPacketBufferSize(),
+                isDirectBuffers());
+        this.tasksService = SslUtils.createTasksService(this);
+        this.fullHandshakeCount.set(0);
+        this.resumedHandshakeCount.set(0);
         super.start();
     }
 
+    @Override
+    public synchronized void stop() throws Exception {
+        super.stop();
+
+        if (this.tasksService != null) {
+            this.tasksService.shutdown();
+            this.tasksService = null;
+        }
+
+        if (this.packetBufferPool != null) {
+            this.packetBufferPool.clear();
+        }
+    }
+
 }
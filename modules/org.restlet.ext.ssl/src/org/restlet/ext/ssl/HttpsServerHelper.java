@@ -36,6 +36,9 @@ package org.restlet.ext.ssl;
 import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.nio.channels.SocketChannel;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.net.ssl.SSLContext;
 import javax.net.ssl.SSLEngine;
@@ -51,7 +54,9 @@ import org.restlet.engine.connector.OutboundWay;
 import org.restlet.ext.ssl.internal.HttpsInboundRequest;
 import org.restlet.ext.ssl.internal.HttpsServerInboundWay;
 import org.restlet.ext.ssl.internal.HttpsServerOutboundWay;
+import org.restlet.ext.ssl.internal.SslBufferPool;
 import org.restlet.ext.ssl.internal.SslConnection;
+import org.restlet.ext.ssl.internal.SslHelper;
 import org.restlet.ext.ssl.internal.SslUtils;
 
 /**
@@ -72,17 +77,42 @@ import org.restlet.ext.ssl.internal.SslUtils;
  * parameter, or an instance as an attribute for a more complete and flexible
  * SSL context setting.</td>
  * </tr>
+ * <tr>
+ * <td>sslTasksThreads</td>
+ * <td>int</td>
+ * <td>Number of available processors</td>
+ * <td>Maximum number of threads running the delegated tasks of the SSL
+ * engines, such as the lengthy handshake computations. Those tasks are kept
+ * away from the worker service processing the established connections.</td>
+ * </tr>
  * </table>
+ * The SSL packet buffers of the connections are pooled and sized based on the
+ * packet buffer size of the SSL sessions. The number of full and resumed SSL
+ * handshakes can be monitored with the {@link #getFullHandshakeCount()} and
+ * {@link #getResumedHandshakeCount()} methods.
  * For the default SSL parameters see the Javadocs of the
  * {@link DefaultSslContextFactory} class.
  * 
  * @author Jerome Louvel
  */
-public class HttpsServerHelper extends HttpServerHelper {
+public class HttpsServerHelper extends HttpServerHelper implements
+        SslHelper {
+
+    /** The number of full SSL handshakes. */
+    private final AtomicLong fullHandshakeCount;
+
+    /** The pool of SSL packet buffers. */
+    private volatile SslBufferPool packetBufferPool;
+
+    /** The number of SSL handshakes resuming a cached session. */
+    private final AtomicLong resumedHandshakeCount;
 
     /** The SSL context. */
     private volatile SSLContext sslContext;
 
+    /** The executor service running the SSL delegated tasks. */
+    private volatile ThreadPoolExecutor tasksService;
+
     /**
      * Constructor.
      * 
@@ -91,6 +121,8 @@ public class HttpsServerHelper extends HttpServerHelper {
      */
     public HttpsServerHelper(Server server) {
         super(server, Protocol.HTTPS);
+        this.fullHandshakeCount = new AtomicLong();
+        this.resumedHandshakeCount = new AtomicLong();
     }
 
     @Override
@@ -130,6 +162,34 @@ public class HttpsServerHelper extends HttpServerHelper {
                 resourceUri, protocol);
     }
 
+    /**
+     * Returns the number of full SSL handshakes since the helper started.
+     * 
+     * @return The number of full SSL handshakes.
+     */
+    public long getFullHandshakeCount() {
+        return fullHandshakeCount.get();
+    }
+
+    /**
+     * Returns the pool of SSL packet buffers.
+     * 
+     * @return The pool of SSL packet buffers.
+     */
+    public SslBufferPool getPacketBufferPool() {
+        return packetBufferPool;
+    }
+
+    /**
+     * Returns the number of SSL handshakes resuming a cached session since the
+     * helper started.
+     * 
+     * @return The number of SSL handshakes resuming a cached session.
+     */
+    public long getResumedHandshakeCount() {
+        return resumedHandshakeCount.get();
+    }
+
     /**
      * Returns the SSL context.
      * 
@@ -139,6 +199,23 @@ public class HttpsServerHelper extends HttpServerHelper {
         return sslContext;
     }
 
+    /**
+     * Returns the executor service running the SSL delegated tasks.
+     * 
+     * @return The executor service running the SSL delegated tasks.
+     */
+    public ExecutorService getTasksService() {
+        return tasksService;
+    }
+
+    public void onHandshakeFinished(boolean resumed) {
+        if (resumed) {
+            this.resumedHandshakeCount.incrementAndGet();
+        } else {
+            this.fullHandshakeCount.incrementAndGet();
+        }
+    }
+
     /**
      * Sets the SSL context.
      * 
@@ -153,7 +230,29 @@ public class HttpsServerHelper extends HttpServerHelper {
     public synchronized void start() throws Exception {
         SslContextFactory factory = SslUtils.getSslContextFactory(this);
         setSslContext(factory.createSslContext());
+
+        // Size the pooled packet buffers using the SSL session
+        this.packetBufferPool = new SslBufferPool(getSslContext()
+                .createSSLEngine().getSession().getPacketBufferSize(),
+                isDirectBuffers());
+        this.tasksService = SslUtils.createTasksService(this);
+        this.fullHandshakeCount.set(0);
+        this.resumedHandshakeCount.set(0);
         super.start();
     }
 
+    @Override
+    public synchronized void stop() throws Exception {
+        super.stop();
+
+        if (this.tasksService != null) {
+            this.tasksService.shutdown();
+            this.tasksService = null;
+        }
+
+        if (this.packetBufferPool != null) {
+            this.packetBufferPool.clear();
+        }
+    }
+
 }
@@ -68,13 +68,15 @@ public class ReadableSslChannel extends ReadableBufferedChannel implements
      *            The source channel.
      * @param connection
      *            The parent SSL connection.
+     * @param packetBuffer
+     *            The buffer of SSL packets read from the source channel.
      * @param wakeupListener
      *            The wakeup listener that will be notified.
      */
     public ReadableSslChannel(ReadableSelectionChannel source,
-            SslConnection<?> connection, WakeupListener wakeupListener) {
-        super(null, new Buffer(connection.getPacketBufferSize(), connection
-                .getHelper().isDirectBuffers()), source, wakeupListener);
+            SslConnection<?> connection, Buffer packetBuffer,
+            WakeupListener wakeupListener) {
+        super(null, packetBuffer, source, wakeupListener);
 
         if (Context.getCurrentLogger().isLoggable(Level.FINER)) {
             Context.getCurrentLogger().log(
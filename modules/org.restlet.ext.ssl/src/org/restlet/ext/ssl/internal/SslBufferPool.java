@@ -0,0 +1,125 @@
+/**
+ * Copyright 2005-2013 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.ext.ssl.internal;
+
+import org.restlet.engine.io.Buffer;
+import org.restlet.engine.util.Pool;
+
+/**
+ * Pool of SSL packet buffers, shared by the connections of a connector. The
+ * buffers are sized using the packet buffer size suggested by the SSL
+ * sessions, to hold any SSL/TLS record.
+ * 
+ * @author Jerome Louvel
+ */
+public class SslBufferPool extends Pool<Buffer> {
+
+    /** The size of the pooled buffers. */
+    private final int bufferSize;
+
+    /** Indicates if direct NIO buffers should be created. */
+    private final boolean direct;
+
+    /**
+     * Constructor.
+     * 
+     * @param bufferSize
+     *            The size of the pooled buffers, typically obtained with
+     *            {@link javax.net.ssl.SSLSession#getPacketBufferSize()}.
+     * @param direct
+     *            Indicates if direct NIO buffers should be created.
+     */
+    public SslBufferPool(int bufferSize, boolean direct) {
+        super();
+        this.bufferSize = bufferSize;
+        this.direct = direct;
+    }
+
+    /**
+     * Checks in a buffer into the pool. Buffers of a different size are
+     * ignored.
+     * 
+     * @param buffer
+     *            The buffer to check in.
+     */
+    @Override
+    public void checkin(Buffer buffer) {
+        if ((buffer != null) && (buffer.capacity() == getBufferSize())) {
+            super.checkin(buffer);
+        }
+    }
+
+    /**
+     * Checks out a buffer from the pool, able to hold at least the given
+     * number of bytes. If the minimum size exceeds the size of the pooled
+     * buffers, a new buffer is created and won't be pooled once checked in.
+     * 
+     * @param minSize
+     *            The minimum size of the buffer.
+     * @return A buffer able to hold at least the given number of bytes.
+     */
+    public Buffer checkout(int minSize) {
+        return (minSize > getBufferSize()) ? new Buffer(minSize, isDirect())
+                : checkout();
+    }
+
+    @Override
+    protected void clear(Buffer buffer) {
+        buffer.clear();
+    }
+
+    @Override
+    protected Buffer createObject() {
+        return new Buffer(getBufferSize(), isDirect());
+    }
+
+    /**
+     * Returns the size of the pooled buffers.
+     * 
+     * @return The size of the pooled buffers.
+     */
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    /**
+     * Indicates if direct NIO buffers should be created.
+     * 
+     * @return True if direct NIO buffers should be created.
+     */
+    public boolean isDirect() {
+        return direct;
+    }
+
+}
@@ -40,6 +40,7 @@ import java.nio.channels.SocketChannel;
 import java.security.cert.Certificate;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.Executor;
 import java.util.logging.Level;
 
 import javax.net.ssl.SSLEngine;
@@ -54,6 +55,7 @@ import org.restlet.Connector;
 import org.restlet.engine.connector.Connection;
 import org.restlet.engine.connector.ConnectionController;
 import org.restlet.engine.connector.ConnectionHelper;
+import org.restlet.engine.io.Buffer;
 import org.restlet.engine.io.IoState;
 import org.restlet.engine.io.ReadableSelectionChannel;
 import org.restlet.engine.io.WritableSelectionChannel;
@@ -67,6 +69,15 @@ import org.restlet.engine.io.WritableSelectionChannel;
  */
 public class SslConnection<T extends Connector> extends Connection<T> {
 
+    /** The time when the current SSL handshake began. */
+    private volatile long handshakeStartTime;
+
+    /** The packet buffer of the readable SSL channel. */
+    private volatile Buffer inboundPacketBuffer;
+
+    /** The packet buffer of the writable SSL channel. */
+    private volatile Buffer outboundPacketBuffer;
+
     /** The peer address. */
     private volatile InetSocketAddress peerAddress;
 
@@ -105,16 +116,72 @@ public class SslConnection<T extends Connector> extends Connection<T> {
         initSslEngine();
     }
 
+    /**
+     * Checks out a packet buffer from the pool of the parent helper if
+     * available, or creates a new one.
+     * 
+     * @return A packet buffer.
+     */
+    protected Buffer checkoutPacketBuffer() {
+        if (getHelper() instanceof SslHelper) {
+            SslBufferPool pool = ((SslHelper) getHelper())
+                    .getPacketBufferPool();
+
+            if (pool != null) {
+                return pool.checkout(getPacketBufferSize());
+            }
+        }
+
+        return new Buffer(getPacketBufferSize(), getHelper()
+                .isDirectBuffers());
+    }
+
+    /**
+     * Checks in a packet buffer into the pool of the parent helper if
+     * available.
+     * 
+     * @param buffer
+     *            The packet buffer to check in.
+     */
+    protected void checkinPacketBuffer(Buffer buffer) {
+        if ((buffer != null) && (getHelper() instanceof SslHelper)) {
+            SslBufferPool pool = ((SslHelper) getHelper())
+                    .getPacketBufferPool();
+
+            if (pool != null) {
+                pool.checkin(buffer);
+            }
+        }
+    }
+
+    /**
+     * Clears the connection and checks its packet buffers back into the pool.
+     */
+    @Override
+    public void clear() {
+        super.clear();
+        Buffer inboundBuffer = this.inboundPacketBuffer;
+        Buffer outboundBuffer = this.outboundPacketBuffer;
+        this.inboundPacketBuffer = null;
+        this.outboundPacketBuffer = null;
+        checkinPacketBuffer(inboundBuffer);
+        checkinPacketBuffer(outboundBuffer);
+    }
+
     @Override
     protected ReadableSelectionChannel createReadableSelectionChannel() {
+        this.inboundPacketBuffer = checkoutPacketBuffer();
         return new ReadableSslChannel(super.createReadableSelectionChannel(),
-                this, getRegistration().getWakeupListener());
+                this, this.inboundPacketBuffer, getRegistration()
+                        .getWakeupListener());
     }
 
     @Override
     protected WritableSelectionChannel createWritableSelectionChannel() {
+        this.outboundPacketBuffer = checkoutPacketBuffer();
         return new WritableSslChannel(super.createWritableSelectionChannel(),
-                this, getRegistration().getWakeupListener());
+                this, this.outboundPacketBuffer, getRegistration()
+                        .getWakeupListener());
     }
 
     /**
@@ -149,6 +216,25 @@ public class SslConnection<T extends Connector> extends Connection<T> {
                 .getPacketBufferSize();
     }
 
+    /**
+     * Returns the executor running the delegated tasks of the SSL engine. It
+     * is provided by the parent helper if available, otherwise the worker
+     * service of the helper is used.
+     * 
+     * @return The executor running the delegated tasks of the SSL engine.
+     */
+    protected Executor getTasksService() {
+        if (getHelper() instanceof SslHelper) {
+            Executor result = ((SslHelper) getHelper()).getTasksService();
+
+            if (result != null) {
+                return result;
+            }
+        }
+
+        return getHelper().getWorkerService();
+    }
+
     /**
      * Returns the peer address.
      * 
@@ -352,6 +438,7 @@ public class SslConnection<T extends Connector> extends Connection<T> {
      * @throws SSLException
      */
     public void initSslEngine() throws SSLException {
+        this.handshakeStartTime = System.currentTimeMillis();
         getSslEngine().beginHandshake();
     }
 
@@ -378,12 +465,36 @@ public class SslConnection<T extends Connector> extends Connection<T> {
         }
     }
 
+    /**
+     * Notifies the parent helper that the SSL handshake finished, indicating
+     * if a cached session was resumed.
+     */
+    private void onHandshakeFinished() {
+        if ((this.handshakeStartTime > 0) && (getSslSession() != null)) {
+            // A session created before the handshake was resumed from cache
+            long creationTime = getSslSession().getCreationTime();
+            boolean resumed = creationTime < this.handshakeStartTime;
+            this.handshakeStartTime = 0;
+
+            if (getLogger().isLoggable(Level.FINE)) {
+                getLogger().log(
+                        Level.FINE,
+                        resumed ? "SSL session resumed"
+                                : "Full SSL handshake finished");
+            }
+
+            if (getHelper() instanceof SslHelper) {
+                ((SslHelper) getHelper()).onHandshakeFinished(resumed);
+            }
+        }
+    }
+
     /**
      * Runs the pending lengthy task.
      */
     private void onNeedTask() {
-        // Delegate lengthy tasks to the connector's worker
-        // service before checking again
+        // Delegate lengthy tasks to the dedicated tasks service
+        // before checking again
         final Runnable task = getSslEngine().getDelegatedTask();
 
         if (task != null) {
@@ -392,7 +503,7 @@ public class SslConnection<T extends Connector> extends Connection<T> {
             getOutboundWay().setIoState(IoState.IDLE);
 
             // Runs the pending lengthy task.
-            getHelper().getWorkerService().execute(new Runnable() {
+            getTasksService().execute(new Runnable() {
                 public void run() {
                     getLogger().log(Level.FINER, "Running delegated tasks...");
                     task.run();
@@ -504,6 +615,12 @@ public class SslConnection<T extends Connector> extends Connection<T> {
                 getLogger().log(Level.FINER, "SSL connection: " + toString());
             }
 
+            // The handshake end is only reported once and several results
+            // can be stored before being handled, so notify it right away
+            if (sslResult.getHandshakeStatus() == HandshakeStatus.FINISHED) {
+                onHandshakeFinished();
+            }
+
             // Store the engine result
             setSslEngineResult(sslResult);
         }
@@ -0,0 +1,69 @@
+/**
+ * Copyright 2005-2013 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.ext.ssl.internal;
+
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Connector helper sharing SSL resources with its connections.
+ * 
+ * @author Jerome Louvel
+ */
+public interface SslHelper {
+
+    /**
+     * Returns the pool of SSL packet buffers.
+     * 
+     * @return The pool of SSL packet buffers.
+     */
+    public SslBufferPool getPacketBufferPool();
+
+    /**
+     * Returns the executor service running the delegated tasks of the SSL
+     * engines, typically the lengthy handshake computations.
+     * 
+     * @return The executor service running the SSL delegated tasks.
+     */
+    public ExecutorService getTasksService();
+
+    /**
+     * Callback method invoked when an SSL handshake is finished.
+     * 
+     * @param resumed
+     *            True if a cached SSL session was resumed, false if a full
+     *            handshake occurred.
+     */
+    public void onHandshakeFinished(boolean resumed);
+
+}
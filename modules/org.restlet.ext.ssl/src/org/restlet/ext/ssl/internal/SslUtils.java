@@ -36,10 +36,16 @@ package org.restlet.ext.ssl.internal;
 import java.util.StringTokenizer;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 
 import org.restlet.Context;
 import org.restlet.engine.RestletHelper;
+import org.restlet.engine.connector.BaseHelper;
+import org.restlet.engine.log.LoggingThreadFactory;
 import org.restlet.ext.ssl.DefaultSslContextFactory;
 import org.restlet.ext.ssl.SslContextFactory;
 
@@ -121,6 +127,38 @@ public class SslUtils {
         return keySize;
     }
 
+    /**
+     * Creates the executor service running the delegated tasks of the SSL
+     * engines. It is bounded by the "sslTasksThreads" helper parameter so that
+     * bursts of handshakes don't starve the worker service processing the
+     * established connections. Tasks rejected by the service, for example
+     * while it is shutting down, run on the calling thread so that the
+     * connection waiting for them doesn't stall.
+     * 
+     * @param helper
+     *            The parent connector helper.
+     * @return The executor service running the SSL delegated tasks.
+     */
+    public static ThreadPoolExecutor createTasksService(
+            final BaseHelper<?> helper) {
+        int threads = getTasksThreads(helper);
+        ThreadPoolExecutor result = new ThreadPoolExecutor(threads, threads,
+                60L, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+                new LoggingThreadFactory(helper.getLogger(), true));
+        result.allowCoreThreadTimeOut(true);
+        result.setRejectedExecutionHandler(new RejectedExecutionHandler() {
+            public void rejectedExecution(Runnable r,
+                    ThreadPoolExecutor executor) {
+                helper.getLogger().fine(
+                        "SSL delegated task rejected, running it on the calling thread: "
+                                + r);
+                r.run();
+            }
+        });
+
+        return result;
+    }
+
     // [ifndef gae] method
     /**
      * Returns the SSL context factory. It first look for a "sslContextFactory"
@@ -186,6 +224,20 @@ public class SslUtils {
         return result;
     }
 
+    /**
+     * Returns the maximum number of threads running the delegated tasks of the
+     * SSL engines. Defaults to the number of available processors.
+     * 
+     * @param helper
+     *            The parent connector helper.
+     * @return The maximum number of threads running the SSL delegated tasks.
+     */
+    public static int getTasksThreads(RestletHelper<?> helper) {
+        return Integer.parseInt(helper.getHelpedParameters().getFirstValue(
+                "sslTasksThreads",
+                Integer.toString(Runtime.getRuntime().availableProcessors())));
+    }
+
     /**
      * Private constructor to ensure that the class acts as a true utility class
      * i.e. it isn't instantiable and extensible.
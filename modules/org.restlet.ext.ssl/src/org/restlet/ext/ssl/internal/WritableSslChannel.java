@@ -67,13 +67,15 @@ public class WritableSslChannel extends WritableBufferedChannel implements
      *            The wrapped channel.
      * @param connection
      *            The parent SSL connection.
+     * @param packetBuffer
+     *            The buffer of SSL packets written to the target channel.
      * @param wakeupListener
      *            The wakeup listener that will be notified.
      */
     public WritableSslChannel(WritableSelectionChannel target,
-            SslConnection<?> connection, WakeupListener wakeupListener) {
-        super(new Buffer(connection.getPacketBufferSize(), connection
-                .getHelper().isDirectBuffers()), target, wakeupListener);
+            SslConnection<?> connection, Buffer packetBuffer,
+            WakeupListener wakeupListener) {
+        super(packetBuffer, target, wakeupListener);
         this.connection = connection;
     }
 
@@ -40,6 +40,7 @@ import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.collections.ExtendedProperties;
 import org.apache.velocity.exception.ResourceNotFoundException;
+import org.apache.velocity.runtime.RuntimeServices;
 import org.apache.velocity.runtime.resource.Resource;
 import org.apache.velocity.runtime.resource.loader.ResourceLoader;
 import org.restlet.representation.Representation;
@@ -80,8 +81,18 @@ public class RepresentationResourceLoader extends ResourceLoader {
     @Override
     public long getLastModified(Resource resource) {
         final Representation original = getStore().get(resource.getName());
-        return (original != null) ? original.getModificationDate().getTime()
-                : 0;
+        return ((original != null) && (original.getModificationDate() != null)) ? original
+                .getModificationDate().getTime() : 0;
+    }
+
+    /**
+     * Returns the runtime services of the Velocity engine that initialized
+     * this loader.
+     * 
+     * @return The runtime services or null if not initialized yet.
+     */
+    public RuntimeServices getRuntimeServices() {
+        return this.rsvc;
     }
 
     @Override
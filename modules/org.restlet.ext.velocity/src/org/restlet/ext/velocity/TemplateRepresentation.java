@@ -45,6 +45,7 @@ import org.apache.velocity.VelocityContext;
 import org.apache.velocity.app.VelocityEngine;
 import org.apache.velocity.exception.ParseErrorException;
 import org.apache.velocity.exception.ResourceNotFoundException;
+import org.apache.velocity.runtime.RuntimeServices;
 import org.apache.velocity.runtime.RuntimeSingleton;
 import org.restlet.Context;
 import org.restlet.Request;
@@ -57,7 +58,9 @@ import org.restlet.util.Resolver;
 
 /**
  * Velocity template representation. Useful for dynamic string-based
- * representations.
+ * representations. When a {@link VelocityService} is attached to the current
+ * application, its shared engine and template cache are used instead of
+ * parsing the template again for each representation.
  * 
  * @see <a href="http://velocity.apache.org/">Velocity home page</a>
  * @author Jerome Louvel
@@ -141,6 +144,54 @@ public class TemplateRepresentation extends WriterRepresentation {
 
     }
 
+    /**
+     * Parses a Velocity template from a representation with the default
+     * Velocity runtime, when no {@link VelocityService} is available.
+     * 
+     * @param templateRepresentation
+     *            The representation to 'decode'.
+     * @return The parsed template.
+     * @throws IOException
+     * @throws ParseErrorException
+     * @throws ResourceNotFoundException
+     */
+    static Template createTemplate(Representation templateRepresentation)
+            throws ResourceNotFoundException, ParseErrorException, IOException {
+        return createTemplate(templateRepresentation,
+                RuntimeSingleton.getRuntimeServices());
+    }
+
+    /**
+     * Parses a Velocity template from a representation with the given runtime.
+     * 
+     * @param templateRepresentation
+     *            The representation to 'decode'.
+     * @param runtimeServices
+     *            The runtime services of the Velocity engine.
+     * @return The parsed template.
+     * @throws IOException
+     * @throws ParseErrorException
+     * @throws ResourceNotFoundException
+     */
+    static Template createTemplate(Representation templateRepresentation,
+            RuntimeServices runtimeServices) throws ResourceNotFoundException,
+            ParseErrorException, IOException {
+        Template result = new Template();
+
+        CharacterSet charSet = (templateRepresentation.getCharacterSet() != null) ? templateRepresentation
+                .getCharacterSet() : CharacterSet.DEFAULT;
+        result.setEncoding(charSet.getName());
+        result.setLastModified((templateRepresentation.getModificationDate() == null) ? new Date()
+                .getTime() : templateRepresentation.getModificationDate()
+                .getTime());
+        result.setName("org.restlet.resource.representation");
+        result.setRuntimeServices(runtimeServices);
+        result.setResourceLoader(new RepresentationResourceLoader(
+                templateRepresentation));
+        result.process();
+        return result;
+    }
+
     /** The template's data model. */
     private volatile org.apache.velocity.context.Context context;
 
@@ -169,26 +220,8 @@ public class TemplateRepresentation extends WriterRepresentation {
     public TemplateRepresentation(Representation templateRepresentation,
             Map<String, Object> dataModel, MediaType mediaType)
             throws ResourceNotFoundException, ParseErrorException, IOException {
-        super(mediaType);
+        this(templateRepresentation, mediaType);
         setDataModel(dataModel);
-        this.engine = null;
-        this.template = new Template();
-
-        CharacterSet charSet = (templateRepresentation.getCharacterSet() != null) ? templateRepresentation
-                .getCharacterSet() : CharacterSet.DEFAULT;
-        this.template.setEncoding(charSet.getName());
-
-        if (templateRepresentation.getModificationDate() != null) {
-            this.template.setLastModified(templateRepresentation
-                    .getModificationDate().getTime());
-        }
-
-        this.template.setName("org.restlet.resource.representation");
-        this.template.setRuntimeServices(RuntimeSingleton.getRuntimeServices());
-        this.template.setResourceLoader(new RepresentationResourceLoader(
-                templateRepresentation));
-        this.template.process();
-        this.templateName = null;
     }
 
     /**
@@ -206,20 +239,10 @@ public class TemplateRepresentation extends WriterRepresentation {
             MediaType mediaType) throws ResourceNotFoundException,
             ParseErrorException, IOException {
         super(mediaType);
+        VelocityService service = VelocityService.getCurrent();
         this.engine = null;
-        this.template = new Template();
-
-        CharacterSet charSet = (templateRepresentation.getCharacterSet() != null) ? templateRepresentation
-                .getCharacterSet() : CharacterSet.DEFAULT;
-        this.template.setEncoding(charSet.getName());
-        this.template.setLastModified((templateRepresentation
-                .getModificationDate() == null) ? new Date().getTime()
-                : templateRepresentation.getModificationDate().getTime());
-        this.template.setName("org.restlet.resource.representation");
-        this.template.setRuntimeServices(RuntimeSingleton.getRuntimeServices());
-        this.template.setResourceLoader(new RepresentationResourceLoader(
-                templateRepresentation));
-        this.template.process();
+        this.template = (service == null) ? createTemplate(templateRepresentation)
+                : service.getTemplate(templateRepresentation);
         this.templateName = null;
     }
 
@@ -239,8 +262,10 @@ public class TemplateRepresentation extends WriterRepresentation {
         super(mediaType);
 
         try {
+            VelocityService service = VelocityService.getCurrent();
             setDataModel(dataModel);
-            this.engine = new VelocityEngine();
+            this.engine = (service == null) ? new VelocityEngine() : service
+                    .getEngine();
             this.template = null;
             this.templateName = templateName;
         } catch (Exception e) {
@@ -322,8 +347,17 @@ public class TemplateRepresentation extends WriterRepresentation {
         if (this.template == null) {
             if (this.templateName != null) {
                 try {
-                    getEngine().init();
-                    this.template = getEngine().getTemplate(this.templateName);
+                    VelocityService service = VelocityService.getCurrent();
+
+                    if ((service != null)
+                            && (service.getEngine() == getEngine())) {
+                        this.template = service
+                                .getTemplate(this.templateName);
+                    } else {
+                        getEngine().init();
+                        this.template = getEngine().getTemplate(
+                                this.templateName);
+                    }
                 } catch (Exception e) {
                     final Context context = Context.getCurrent();
 
@@ -33,13 +33,23 @@
 
 package org.restlet.test.component;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
 import java.util.List;
 
 import org.restlet.Client;
 import org.restlet.Component;
 import org.restlet.Context;
 import org.restlet.Server;
+import org.restlet.data.LocalReference;
+import org.restlet.data.MediaType;
 import org.restlet.data.Parameter;
+import org.restlet.engine.component.ComponentSnapshot;
+import org.restlet.engine.component.ComponentXmlParser;
+import org.restlet.representation.InputRepresentation;
 import org.restlet.representation.Representation;
 import org.restlet.representation.StringRepresentation;
 import org.restlet.routing.TemplateRoute;
@@ -620,4 +630,70 @@ public class ComponentXmlConfigTestCase extends RestletTestCase {
         checkNegativeParam(msg, ctx, A_PARAM_NAME + "5");
         checkNegativeParam(msg, ctx, A_PARAM_NAME + "6");
     }
+
+    public void testSnapshot() throws Exception {
+        System.out.println("-- testSnapshot()");
+
+        ComponentSnapshot snapshot = new ComponentXmlParser(null,
+                new StringRepresentation(RESTLET_XML)).createSnapshot();
+        assertNotNull("The snapshot MUST NOT be null", snapshot);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        snapshot.write(out);
+        Component component = new Component(new InputRepresentation(
+                new ByteArrayInputStream(out.toByteArray()),
+                MediaType.APPLICATION_JAVA_OBJECT));
+
+        try {
+            assertEquals(1, component.getClients().size());
+            assertEquals(1, component.getServers().size());
+            assertEquals(PORT1, component.getServers().get(0).getPort());
+            assertEquals(2, component.getDefaultHost().getRoutes().size());
+            assertEquals(1, component.getHosts().size());
+            assertEquals(LOGGER_NAME, component.getLogService()
+                    .getLoggerName());
+
+            TemplateRoute route = (TemplateRoute) component.getDefaultHost()
+                    .getRoutes().get(1);
+            assertEquals("/foo", route.getTemplate().getPattern());
+            assertTrue(route.getNext() instanceof HelloWorldApplication);
+
+            String msg = "[" + ATTACH + " #2] ";
+            Context ctx = route.getNext().getContext();
+            checkPositiveParam(msg, ctx, A_PARAM_NAME + "3", A_PARAM_VALUE
+                    + "3");
+            checkNegativeParam(msg, ctx, A_PARAM_NAME + "1");
+            checkPositiveParam("[" + COMPONENT + "] ",
+                    component.getContext(), C_NAME + "1", C_VALUE + "1");
+        } finally {
+            component.stop();
+        }
+    }
+
+    public void testSnapshotFile() throws Exception {
+        System.out.println("-- testSnapshotFile()");
+
+        File file = File.createTempFile("component", "."
+                + ComponentSnapshot.EXTENSION);
+
+        try {
+            OutputStream out = new FileOutputStream(file);
+
+            try {
+                new ComponentXmlParser(null, new StringRepresentation(
+                        RESTLET_XML)).createSnapshot().write(out);
+            } finally {
+                out.close();
+            }
+
+            // The snapshot is recognized by its extension
+            Component component = new Component(
+                    LocalReference.createFileReference(file));
+            assertEquals(1, component.getServers().size());
+            assertEquals(PORT1, component.getServers().get(0).getPort());
+            assertEquals(2, component.getDefaultHost().getRoutes().size());
+        } finally {
+            file.delete();
+        }
+    }
 }
@@ -0,0 +1,122 @@
+/**
+ * Copyright 2005-2013 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.test.component;
+
+import org.restlet.Component;
+import org.restlet.Request;
+import org.restlet.Response;
+import org.restlet.Restlet;
+import org.restlet.data.Method;
+import org.restlet.engine.component.ServerRouter;
+import org.restlet.routing.VirtualHost;
+import org.restlet.test.RestletTestCase;
+
+/**
+ * Unit tests for the selection of virtual hosts by the server router.
+ */
+public class ServerRouterTestCase extends RestletTestCase {
+
+    /**
+     * Restlet answering with a given text.
+     */
+    private static class NamedRestlet extends Restlet {
+
+        private final String name;
+
+        public NamedRestlet(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public void handle(Request request, Response response) {
+            response.setEntity(this.name, null);
+        }
+    }
+
+    private Component component;
+
+    private ServerRouter router;
+
+    private VirtualHost addHost(String hostDomain, String name) {
+        VirtualHost host = new VirtualHost(component.getContext());
+        host.setHostDomain(hostDomain);
+        host.attach(new NamedRestlet(name));
+        component.getHosts().add(host);
+        return host;
+    }
+
+    private String route(String hostUri) throws Exception {
+        Request request = new Request(Method.GET, hostUri + "/");
+        request.setHostRef(hostUri);
+        Response response = new Response(request);
+        router.handle(request, response);
+        return response.isEntityAvailable() ? response.getEntityAsText()
+                : null;
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        component = new Component();
+        component.getDefaultHost().attach(new NamedRestlet("default"));
+    }
+
+    public void testHostSelection() throws Exception {
+        addHost("www\\.a\\.com", "a");
+        addHost("www.b.com", "b");
+        VirtualHost c = addHost("www\\.c\\.com", "c");
+        addHost("www\\.a\\.com", "a2");
+
+        router = new ServerRouter(component);
+        router.start();
+
+        assertEquals("a", route("http://www.a.com"));
+        assertEquals("a", route("http://WWW.A.COM"));
+        assertEquals("b", route("http://www.b.com"));
+        assertEquals("b", route("http://wwwxbxcom"));
+        assertEquals("c", route("http://www.c.com"));
+        assertEquals("default", route("http://www.d.com"));
+
+        // The index is rebuilt when the router restarts, as done by
+        // Component.updateHosts()
+        c.setHostDomain("www\\.d\\.com");
+        router.stop();
+        router.start();
+        assertEquals("c", route("http://www.d.com"));
+        assertEquals("default", route("http://www.c.com"));
+
+        router.stop();
+    }
+
+}
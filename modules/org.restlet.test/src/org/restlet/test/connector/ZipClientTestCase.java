@@ -34,13 +34,26 @@
 package org.restlet.test.connector;
 
 import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileWriter;
 import java.io.IOException;
-
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.restlet.Client;
+import org.restlet.Request;
+import org.restlet.Response;
 import org.restlet.data.LocalReference;
+import org.restlet.data.Method;
+import org.restlet.data.Protocol;
 import org.restlet.data.Reference;
 import org.restlet.data.Status;
 import org.restlet.engine.io.BioUtils;
 import org.restlet.representation.EmptyRepresentation;
+import org.restlet.representation.FileRepresentation;
+import org.restlet.representation.Representation;
 import org.restlet.representation.StringRepresentation;
 import org.restlet.resource.ClientResource;
 import org.restlet.resource.ResourceException;
@@ -72,6 +85,101 @@ public class ZipClientTestCase extends RestletTestCase {
         // BioUtils.delete(testDir, true);
     }
 
+    public void testCachedArchive() throws Exception {
+        ZipOutputStream zos = new ZipOutputStream(
+                new FileOutputStream(zipFile));
+        zos.putNextEntry(new ZipEntry("web/index.html"));
+        zos.write("<html/>".getBytes("UTF-8"));
+        zos.closeEntry();
+        zos.close();
+
+        // Read the same entry twice from the cached archive
+        String fzr = "zip:" + LocalReference.createFileReference(zipFile)
+                + "!/web/index.html";
+        ClientResource r = new ClientResource(fzr);
+        assertEquals("<html/>", r.get().getText());
+        assertEquals(7, r.getResponseEntity().getSize());
+        assertNotNull(r.getResponseEntity().getModificationDate());
+        assertNotNull(r.getResponseEntity().getTag());
+        r.release();
+        assertEquals("<html/>", r.get().getText());
+        r.release();
+
+        // Serve the same entry from a class loader
+        URLClassLoader classLoader = new URLClassLoader(new URL[] { zipFile
+                .toURI().toURL() }, null);
+        Client client = new Client(Protocol.CLAP);
+        Request request = new Request(Method.GET,
+                "clap://class/web/index.html");
+        request.getAttributes().put("org.restlet.clap.classLoader",
+                classLoader);
+        Response response = client.handle(request);
+        assertEquals(Status.SUCCESS_OK, response.getStatus());
+        assertEquals(7, response.getEntity().getSize());
+        assertNotNull(response.getEntity().getModificationDate());
+        assertEquals(r.getResponseEntity().getTag(), response.getEntity()
+                .getTag());
+        assertEquals("<html/>", response.getEntity().getText());
+        response.getEntity().release();
+
+        request = new Request(Method.GET, "clap://class/web/missing.html");
+        request.getAttributes().put("org.restlet.clap.classLoader",
+                classLoader);
+        assertEquals(Status.CLIENT_ERROR_NOT_FOUND, client.handle(request)
+                .getStatus());
+    }
+
+    public void testClapEncodedDirectory() throws Exception {
+        File dir = new File(testDir, "with space \u00e9");
+        dir.mkdirs();
+        FileWriter writer = new FileWriter(new File(dir, "test.txt"));
+        writer.write("encoded");
+        writer.close();
+
+        // The class loader returns a percent-encoded URL
+        URLClassLoader classLoader = new URLClassLoader(new URL[] { dir
+                .toURI().toURL() }, null);
+        Client client = new Client(Protocol.CLAP);
+        Request request = new Request(Method.GET, "clap://class/test.txt");
+        request.getAttributes().put("org.restlet.clap.classLoader",
+                classLoader);
+        Response response = client.handle(request);
+        assertEquals(Status.SUCCESS_OK, response.getStatus());
+        assertTrue(response.getEntity() instanceof FileRepresentation);
+        assertEquals(7, response.getEntity().getSize());
+        assertEquals("encoded", response.getEntity().getText());
+    }
+
+    public void testClapStop() throws Exception {
+        ZipOutputStream zos = new ZipOutputStream(
+                new FileOutputStream(zipFile));
+        zos.putNextEntry(new ZipEntry("test.txt"));
+        zos.write("archived".getBytes("UTF-8"));
+        zos.closeEntry();
+        zos.close();
+
+        URLClassLoader classLoader = new URLClassLoader(new URL[] { zipFile
+                .toURI().toURL() }, null);
+        Client client = new Client(Protocol.CLAP);
+        client.start();
+        Request request = new Request(Method.GET, "clap://class/test.txt");
+        request.getAttributes().put("org.restlet.clap.classLoader",
+                classLoader);
+        Representation entity = client.handle(request).getEntity();
+
+        // The archive is closed once the last entity is released
+        client.stop();
+        assertEquals("archived", entity.getText());
+        entity.release();
+
+        try {
+            entity.getStream();
+            fail("The archive should be closed");
+        } catch (IllegalStateException e) {
+            // Expected
+        }
+    }
+
     public void testFileClient() throws IOException, InterruptedException {
         String text = "Test content\r\nLine 2\r\nLine2";
         String text2 = "Test content\nLine 2";
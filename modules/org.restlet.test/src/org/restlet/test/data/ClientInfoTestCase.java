@@ -67,6 +67,30 @@ public class ClientInfoTestCase extends RestletTestCase {
         super.tearDown();
     }
 
+    /**
+     * Tests the analysis of the user agent, computed once per agent string.
+     */
+    public void testAgentAttributes() throws Exception {
+        String agent = "Mozilla/5.0 (Windows; U; Windows NT 5.1; fr; rv:1.8.1.3) Gecko/20070309 Firefox/2.0.0.3";
+        ClientInfo ci1 = new ClientInfo();
+        ci1.setAgent(agent);
+        assertEquals("Firefox", ci1.getAgentName());
+        assertEquals("2.0.0.3", ci1.getAgentVersion());
+
+        // The attributes of another call with the same agent are equal but
+        // not shared
+        ClientInfo ci2 = new ClientInfo();
+        ci2.setAgent(agent);
+        assertEquals(ci1.getAgentAttributes(), ci2.getAgentAttributes());
+        assertNotSame(ci1.getAgentAttributes(), ci2.getAgentAttributes());
+        ci2.getAgentAttributes().clear();
+        assertEquals("Firefox", ci1.getAgentName());
+
+        ClientInfo ci3 = new ClientInfo();
+        ci3.setAgent(agent);
+        assertEquals("Firefox", ci3.getAgentName());
+    }
+
     /**
      * Conneg tests.
      */
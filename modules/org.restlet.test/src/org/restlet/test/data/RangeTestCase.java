@@ -34,7 +34,9 @@
 package org.restlet.test.data;
 
 import java.io.File;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Date;
 import java.util.List;
 
 import org.restlet.Application;
@@ -53,12 +55,15 @@ import org.restlet.data.Protocol;
 import org.restlet.data.Range;
 import org.restlet.data.Status;
 import org.restlet.data.Tag;
+import org.restlet.engine.header.Header;
+import org.restlet.engine.header.HeaderConstants;
 import org.restlet.engine.io.BioUtils;
 import org.restlet.engine.util.SystemUtils;
 import org.restlet.representation.StringRepresentation;
 import org.restlet.resource.Directory;
 import org.restlet.routing.Router;
 import org.restlet.test.RestletTestCase;
+import org.restlet.util.Series;
 
 /**
  * Test {@link org.restlet.data.Range}.
@@ -152,6 +157,8 @@ public class RangeTestCase extends RestletTestCase {
             if (match) {
                 response.setStatus(Status.SUCCESS_OK);
                 response.setEntity(str1000, MediaType.TEXT_PLAIN);
+                response.getEntity().setTag(new Tag("TestRangeRestlet", false));
+                response.getEntity().setModificationDate(MODIFICATION_DATE);
             } else {
                 response.setStatus(Status.CLIENT_ERROR_BAD_REQUEST);
             }
@@ -165,6 +172,9 @@ public class RangeTestCase extends RestletTestCase {
     // Sample string.
     private static String str1000;
 
+    // Modification date of the sample string.
+    private static final Date MODIFICATION_DATE = new Date(1000000000000L);
+
     /** Component used for the tests. */
     private Component component;
 
@@ -278,6 +288,40 @@ public class RangeTestCase extends RestletTestCase {
         client.stop();
     }
 
+    /**
+     * Tests requests for ranges that can't be satisfied.
+     * 
+     * @throws Exception
+     */
+    @SuppressWarnings("unchecked")
+    public void testUnsatisfiableRanges() throws Exception {
+        Client client = new Client(Protocol.HTTP);
+        Request request = new Request(Method.GET, "http://localhost:"
+                + TEST_PORT + "/testGet");
+        request.setRanges(Arrays.asList(new Range(20, 5)));
+        Response response = client.handle(request);
+        assertEquals(Status.CLIENT_ERROR_REQUESTED_RANGE_NOT_SATISFIABLE,
+                response.getStatus());
+        Series<Header> headers = (Series<Header>) response.getAttributes()
+                .get(HeaderConstants.ATTRIBUTE_HEADERS);
+        assertEquals("bytes */10", headers.getFirstValue(
+                HeaderConstants.HEADER_CONTENT_RANGE, true));
+
+        request = new Request(Method.GET, "http://localhost:" + TEST_PORT
+                + "/testGet");
+        request.setRanges(Arrays.asList(new Range(20, 5), new Range(10,
+                Range.SIZE_MAX)));
+        response = client.handle(request);
+        assertEquals(Status.CLIENT_ERROR_REQUESTED_RANGE_NOT_SATISFIABLE,
+                response.getStatus());
+        headers = (Series<Header>) response.getAttributes().get(
+                HeaderConstants.ATTRIBUTE_HEADERS);
+        assertEquals("bytes */10", headers.getFirstValue(
+                HeaderConstants.HEADER_CONTENT_RANGE, true));
+
+        client.stop();
+    }
+
     /**
      * Tests conditional ranges requests.
      * 
@@ -468,14 +512,53 @@ public class RangeTestCase extends RestletTestCase {
         assertTrue(response.getStatus().isSuccess());
         response.getEntity().exhaust();
 
-        // Multiple ranges are not supported yet.
-        // request = new Request(Method.GET, "http://localhost:" + TEST_PORT
-        // + "/test?range=500-1000&range=500-");
-        // request.setRanges(Arrays.asList(new Range(500, 500), new Range(500,
-        // Range.SIZE_MAX)));
-        // assertTrue(client.handle(request).getStatus().isSuccess());
+        // Overlapping ranges are coalesced
+        request = new Request(Method.GET, "http://localhost:" + TEST_PORT
+                + "/test?range=500-1000&range=500-");
+        request.setRanges(Arrays.asList(new Range(500, 500), new Range(500,
+                Range.SIZE_MAX)));
+        response = client.handle(request);
+        assertEquals(Status.SUCCESS_PARTIAL_CONTENT, response.getStatus());
+        assertEquals(new Range(500, 500), response.getEntity().getRange());
+        assertEquals(500, response.getEntity().getText().length());
+
+        request = new Request(Method.GET, "http://localhost:" + TEST_PORT
+                + "/test?range=0-100&range=500-600");
+        request.setRanges(Arrays.asList(new Range(0, 100),
+                new Range(500, 100)));
+        response = client.handle(request);
+        assertEquals(Status.SUCCESS_PARTIAL_CONTENT, response.getStatus());
+        assertTrue(MediaType.MULTIPART_BYTERANGES.equals(response.getEntity()
+                .getMediaType(), true));
+        assertEquals(new Tag("TestRangeRestlet", false), response.getEntity()
+                .getTag());
+        assertEquals(MODIFICATION_DATE, response.getEntity()
+                .getModificationDate());
+        response.getEntity().exhaust();
+
+        // Too many ranges, the full entity is returned
+        List<Range> ranges = new ArrayList<Range>();
 
-        // client.stop();
+        for (int i = 0; i < 20; i++) {
+            ranges.add(new Range(i * 50, 10));
+        }
 
+        request = new Request(Method.GET, "http://localhost:" + TEST_PORT
+                + "/test?range=0-10");
+        request.setRanges(ranges);
+        response = client.handle(request);
+        assertEquals(Status.SUCCESS_OK, response.getStatus());
+        assertEquals(str1000, response.getEntity().getText());
+
+        // The parts would be larger than the entity
+        request = new Request(Method.GET, "http://localhost:" + TEST_PORT
+                + "/testGet");
+        request.setRanges(Arrays.asList(new Range(0, 1), new Range(4, 1),
+                new Range(8, 1)));
+        response = client.handle(request);
+        assertEquals(Status.SUCCESS_OK, response.getStatus());
+        assertEquals("1234567890", response.getEntity().getText());
+
+        client.stop();
     }
 }
@@ -37,11 +37,15 @@ import java.util.List;
 
 import junit.framework.Assert;
 
+import org.restlet.data.MediaType;
 import org.restlet.data.Method;
 import org.restlet.engine.resource.AnnotationInfo;
 import org.restlet.engine.resource.AnnotationUtils;
+import org.restlet.representation.Variant;
 import org.restlet.resource.Get;
 import org.restlet.resource.Put;
+import org.restlet.service.ConverterService;
+import org.restlet.service.MetadataService;
 import org.restlet.test.RestletTestCase;
 
 /**
@@ -55,6 +59,13 @@ public class AnnotationUtilsTestCase extends RestletTestCase {
 
     }
 
+    public static interface ICsv {
+
+        @Get("foo")
+        String getCsv();
+
+    }
+
     public static interface IParent<S, T> {
 
         @Get
@@ -98,4 +109,31 @@ public class AnnotationUtilsTestCase extends RestletTestCase {
                 "Didn't find a method with IChild as the declaring class.",
                 true, found);
     }
+
+    public void testGetResponseVariantsPerService() throws Exception {
+        AnnotationInfo info = new AnnotationInfo(ICsv.class, Method.GET,
+                ICsv.class.getMethod("getCsv"), "foo");
+        ConverterService converterService = new ConverterService();
+        MetadataService defaultService = new MetadataService();
+        MetadataService csvService = new MetadataService();
+        csvService.addExtension("foo", MediaType.TEXT_CSV);
+
+        // The shared descriptor computes the variants of each service
+        for (int i = 0; i < 2; i++) {
+            List<Variant> variants = info.getResponseVariants(csvService,
+                    converterService);
+            Assert.assertEquals(1, variants.size());
+            Assert.assertEquals(MediaType.TEXT_CSV, variants.get(0)
+                    .getMediaType());
+
+            variants = info.getResponseVariants(defaultService,
+                    converterService);
+            Assert.assertNotNull(variants);
+
+            for (Variant variant : variants) {
+                Assert.assertFalse(MediaType.TEXT_CSV.equals(variant
+                        .getMediaType()));
+            }
+        }
+    }
 }
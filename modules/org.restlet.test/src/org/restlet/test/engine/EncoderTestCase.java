@@ -0,0 +1,170 @@
+/**
+ * Copyright 2005-2013 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.test.engine;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileWriter;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.restlet.Context;
+import org.restlet.data.ClientInfo;
+import org.restlet.data.Encoding;
+import org.restlet.data.MediaType;
+import org.restlet.data.Preference;
+import org.restlet.data.Reference;
+import org.restlet.data.Tag;
+import org.restlet.engine.application.Encoder;
+import org.restlet.engine.io.BioUtils;
+import org.restlet.representation.FileRepresentation;
+import org.restlet.representation.Representation;
+import org.restlet.representation.StringRepresentation;
+import org.restlet.service.EncoderService;
+import org.restlet.test.RestletTestCase;
+
+/**
+ * Unit tests for the {@link Encoder} filter.
+ */
+public class EncoderTestCase extends RestletTestCase {
+
+    private static String createText() {
+        StringBuilder sb = new StringBuilder();
+
+        for (int i = 0; i < 200; i++) {
+            sb.append("0123456789");
+        }
+
+        return sb.toString();
+    }
+
+    private ClientInfo gzipClient;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        this.gzipClient = new ClientInfo();
+        this.gzipClient.getAcceptedEncodings().add(
+                new Preference<Encoding>(Encoding.GZIP));
+    }
+
+    public void testEncodedCache() throws Exception {
+        EncoderService service = new EncoderService();
+        service.setEncodedCacheSize(100000);
+        Encoder encoder = new Encoder(new Context(), false, true, service);
+        Reference ref = new Reference("http://localhost/text");
+        String text = createText();
+
+        StringRepresentation rep = new StringRepresentation(text);
+        rep.setTag(new Tag("text", false));
+        Representation encoded = encoder.encode(this.gzipClient, ref, rep);
+        assertTrue(encoded.getEncodings().contains(Encoding.GZIP));
+        assertTrue(encoded.hasKnownSize());
+        assertEquals(text,
+                BioUtils.toString(new GZIPInputStream(encoded.getStream())));
+        long size = encoded.getSize();
+
+        // Cached content is reused for the same resource and tag
+        rep = new StringRepresentation(text);
+        rep.setTag(new Tag("text", false));
+        encoded = encoder.encode(this.gzipClient, ref, rep);
+        assertEquals(size, encoded.getSize());
+        assertEquals(new Tag("text", false), encoded.getTag());
+        assertEquals(text,
+                BioUtils.toString(new GZIPInputStream(encoded.getStream())));
+
+        // The same tag for another resource doesn't share the content
+        String other = text.replace('0', 'x');
+        rep = new StringRepresentation(other);
+        rep.setTag(new Tag("text", false));
+        encoded = encoder.encode(this.gzipClient, new Reference(
+                "http://localhost/other"), rep);
+        assertEquals(other,
+                BioUtils.toString(new GZIPInputStream(encoded.getStream())));
+
+        // Representations without a strong tag or a resource are encoded on
+        // the fly
+        rep = new StringRepresentation(text);
+        encoded = encoder.encode(this.gzipClient, ref, rep);
+        assertFalse(encoded.hasKnownSize());
+
+        rep = new StringRepresentation(text);
+        rep.setTag(new Tag("text"));
+        encoded = encoder.encode(this.gzipClient, ref, rep);
+        assertFalse(encoded.hasKnownSize());
+
+        rep = new StringRepresentation(text);
+        rep.setTag(new Tag("text", false));
+        encoded = encoder.encode(this.gzipClient, rep);
+        assertFalse(encoded.hasKnownSize());
+    }
+
+    public void testPrecompressedFile() throws Exception {
+        EncoderService service = new EncoderService();
+        service.setUsingPrecompressedFiles(true);
+        Encoder encoder = new Encoder(new Context(), false, true, service);
+        String text = createText();
+
+        File file = File.createTempFile("encoderTestCase", ".txt");
+        File sibling = new File(file.getPath() + ".gz");
+
+        try {
+            FileWriter writer = new FileWriter(file);
+            writer.write(text);
+            writer.close();
+
+            // Without sibling, the file is encoded on the fly
+            Representation encoded = encoder.encode(this.gzipClient,
+                    new FileRepresentation(file, MediaType.TEXT_PLAIN));
+            assertFalse(encoded.hasKnownSize());
+
+            GZIPOutputStream gzos = new GZIPOutputStream(new FileOutputStream(
+                    sibling));
+            gzos.write(text.getBytes("US-ASCII"));
+            gzos.close();
+
+            encoded = encoder.encode(this.gzipClient, new FileRepresentation(
+                    file, MediaType.TEXT_PLAIN));
+            assertEquals(sibling.length(), encoded.getSize());
+            assertEquals(MediaType.TEXT_PLAIN, encoded.getMediaType());
+            assertTrue(encoded.getEncodings().contains(Encoding.GZIP));
+            assertEquals(text, BioUtils.toString(new GZIPInputStream(encoded
+                    .getStream())));
+        } finally {
+            sibling.delete();
+            file.delete();
+        }
+    }
+
+}
@@ -69,7 +69,9 @@ public class EngineTestSuite extends TestSuite {
         addTestSuite(BioUtilsTestCase.class);
         addTestSuite(CookiesTestCase.class);
         addTestSuite(ContentTypeTestCase.class);
+        addTestSuite(EncoderTestCase.class);
         addTestSuite(HeaderTestCase.class);
+        addTestSuite(HelperIndexTestCase.class);
         addTestSuite(HttpCallTestCase.class);
         addTestSuite(AsynchroneTestCase.class);
         addTestSuite(HttpInboundRequestTestCase.class);
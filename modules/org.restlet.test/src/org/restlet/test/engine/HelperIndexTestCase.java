@@ -0,0 +1,165 @@
+/**
+ * Copyright 2005-2013 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.test.engine;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.StringWriter;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.List;
+
+import org.restlet.Client;
+import org.restlet.engine.ConnectorHelper;
+import org.restlet.engine.Engine;
+import org.restlet.engine.HelperIndex;
+import org.restlet.engine.io.BioUtils;
+import org.restlet.engine.local.FileClientHelper;
+import org.restlet.test.RestletTestCase;
+
+/**
+ * Unit tests for the {@link HelperIndex} and the lazy discovery of helpers.
+ */
+public class HelperIndexTestCase extends RestletTestCase {
+
+    public void testEngineWithIndex() throws Exception {
+        File dir = new File(System.getProperty("java.io.tmpdir"),
+                "helperIndexTestCase");
+        BioUtils.delete(dir, true);
+        dir.mkdirs();
+        FileWriter writer = new FileWriter(new File(dir, "helpers.index"));
+        writer.write("# Test index\n" + Engine.DESCRIPTOR_CLIENT_PATH + "="
+                + FileClientHelper.class.getName() + "\n");
+        writer.close();
+
+        Thread thread = Thread.currentThread();
+        ClassLoader contextClassLoader = thread.getContextClassLoader();
+
+        try {
+            thread.setContextClassLoader(new URLClassLoader(new URL[] { dir
+                    .toURI().toURL() }, contextClassLoader));
+            System.setProperty(HelperIndex.PROPERTY, "helpers.index");
+
+            Engine reference = new Engine(false);
+            reference.registerDefaultConnectors();
+            int defaultClients = reference.getRegisteredClients().size();
+
+            Engine engine = new Engine(true);
+            assertNotNull(engine.getHelperIndex());
+            List<ConnectorHelper<Client>> clients = engine
+                    .getRegisteredClients();
+            assertEquals(defaultClients + 1, clients.size());
+            assertTrue(clients.get(0) instanceof FileClientHelper);
+        } finally {
+            System.clearProperty(HelperIndex.PROPERTY);
+            thread.setContextClassLoader(contextClassLoader);
+            BioUtils.delete(dir, true);
+            Engine.register();
+        }
+    }
+
+    public void testIndex() throws Exception {
+        HelperIndex index = new HelperIndex();
+        index.add(Engine.DESCRIPTOR_CLIENT_PATH, "org.example.ClientA");
+        index.add(Engine.DESCRIPTOR_CLIENT_PATH, "org.example.ClientB");
+        index.add(Engine.DESCRIPTOR_SERVER_PATH, "org.example.Server");
+
+        StringWriter sw = new StringWriter();
+        index.write(sw);
+
+        File file = File.createTempFile("helperIndex", ".index");
+
+        try {
+            FileWriter writer = new FileWriter(file);
+            writer.write(sw.toString());
+            writer.close();
+
+            HelperIndex read = HelperIndex.read(file.toURI().toURL());
+            assertEquals(2,
+                    read.getProviderClassNames(Engine.DESCRIPTOR_CLIENT_PATH)
+                            .size());
+            assertEquals("org.example.ClientB", read.getProviderClassNames(
+                    Engine.DESCRIPTOR_CLIENT_PATH).get(1));
+            assertEquals("org.example.Server", read.getProviderClassNames(
+                    Engine.DESCRIPTOR_SERVER_PATH).get(0));
+            assertTrue(read.contains(Engine.DESCRIPTOR_CONVERTER_PATH));
+            assertTrue(read.getProviderClassNames(
+                    Engine.DESCRIPTOR_CONVERTER_PATH).isEmpty());
+            assertFalse(read.contains("META-INF/services/org.example.Other"));
+        } finally {
+            file.delete();
+        }
+    }
+
+    public void testMainWithStandardOutput() throws Exception {
+        final boolean[] closed = new boolean[1];
+        ByteArrayOutputStream baos = new ByteArrayOutputStream() {
+            @Override
+            public void close() throws IOException {
+                closed[0] = true;
+                super.close();
+            }
+        };
+        PrintStream out = System.out;
+
+        try {
+            System.setOut(new PrintStream(baos));
+            HelperIndex.main(new String[0]);
+        } finally {
+            System.setOut(out);
+        }
+
+        // The index is flushed without closing the standard output
+        assertFalse(closed[0]);
+        assertTrue(baos.toString("utf-8").contains(
+                Engine.DESCRIPTOR_CLIENT_PATH));
+    }
+
+    public void testLazyDiscovery() throws Exception {
+        Engine engine = new Engine(false);
+        assertTrue(engine.getRegisteredClients().isEmpty());
+        assertTrue(engine.getRegisteredConverters().isEmpty());
+
+        engine = new Engine(true);
+        assertFalse(engine.getRegisteredClients().isEmpty());
+        assertFalse(engine.getRegisteredServers().isEmpty());
+        assertFalse(engine.getRegisteredConverters().isEmpty());
+        assertFalse(engine.getRegisteredAuthenticators().isEmpty());
+        Engine.register();
+    }
+
+}
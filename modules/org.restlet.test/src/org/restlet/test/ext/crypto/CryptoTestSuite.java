@@ -48,9 +48,11 @@ public class CryptoTestSuite extends TestCase {
         TestSuite result = new TestSuite();
         result.setName("Crypto extension");
         result.addTestSuite(CookieAuthenticatorTestCase.class);
+        result.addTestSuite(DigestUtilsTestCase.class);
         result.addTestSuite(HttpAwsS3HostNameTestCase.class);
         result.addTestSuite(HttpAwsS3SigningTestCase.class);
         result.addTestSuite(HttpAwsS3VerifierTestCase.class);
+        result.addTestSuite(NonceStoreTestCase.class);
         return result;
     }
 
@@ -0,0 +1,100 @@
+/**
+ * Copyright 2005-2013 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+package org.restlet.test.ext.crypto;
+
+import java.util.Arrays;
+
+import org.restlet.ext.crypto.DigestUtils;
+import org.restlet.ext.crypto.internal.CryptoUtils;
+import org.restlet.test.RestletTestCase;
+
+/**
+ * Unit test for {@link DigestUtils} and {@link CryptoUtils}. HMAC test cases
+ * are taken from RFC 2202 and RFC 4231.
+ */
+public class DigestUtilsTestCase extends RestletTestCase {
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder sb = new StringBuilder();
+        for (byte b : bytes) {
+            sb.append(Character.forDigit((b >> 4) & 0xF, 16));
+            sb.append(Character.forDigit(b & 0xF, 16));
+        }
+        return sb.toString();
+    }
+
+    public void testCipher() throws Exception {
+        byte[] key1 = "0123456789abcdef".getBytes();
+        byte[] key2 = "fedcba9876543210".getBytes();
+
+        for (int i = 0; i < 3; i++) {
+            byte[] encrypted1 = CryptoUtils.encrypt("AES", key1, "content");
+            byte[] encrypted2 = CryptoUtils.encrypt("AES", key2, "content");
+            assertFalse(Arrays.equals(encrypted1, encrypted2));
+            assertEquals("content",
+                    CryptoUtils.decrypt("AES", key1, encrypted1));
+            assertEquals("content",
+                    CryptoUtils.decrypt("AES", key2, encrypted2));
+        }
+    }
+
+    public void testDigest() {
+        for (int i = 0; i < 3; i++) {
+            assertEquals("68e109f0f40ca72a15e05cc22786f8e6",
+                    DigestUtils.toMd5("HelloWorld"));
+            assertEquals("24rBwlnridShMbJTus/KXzGdVPI=",
+                    DigestUtils.toSha1("HelloWorld"));
+        }
+    }
+
+    public void testHMac() {
+        byte[] key = new byte[20];
+        Arrays.fill(key, (byte) 0x0b);
+
+        // Alternate keys to make sure the keyed MACs are not mixed up
+        for (int i = 0; i < 3; i++) {
+            assertEquals(
+                    "b0344c61d8db38535ca8afceaf0bf12b881dc200c9833da726e9376c2e32cff7",
+                    toHex(DigestUtils.toHMacSha256("Hi There", key)));
+            assertEquals(
+                    "5bdcc146bf60754e6a042426089575c75a003f089d2739839dec58b964ec3843",
+                    toHex(DigestUtils.toHMacSha256(
+                            "what do ya want for nothing?", "Jefe")));
+            assertEquals("b617318655057264e28bc0b6fb378c8ef146be00",
+                    toHex(DigestUtils.toHMacSha1("Hi There", key)));
+            assertEquals("effcdf6ae5eb2fa2d27416d5f184df9c259a7c79",
+                    toHex(DigestUtils.toHMacSha1(
+                            "what do ya want for nothing?", "Jefe")));
+        }
+    }
+}
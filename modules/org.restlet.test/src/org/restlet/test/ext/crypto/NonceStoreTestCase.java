@@ -0,0 +1,138 @@
+/**
+ * Copyright 2005-2013 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+package org.restlet.test.ext.crypto;
+
+import org.restlet.Context;
+import org.restlet.Request;
+import org.restlet.Response;
+import org.restlet.data.ChallengeResponse;
+import org.restlet.data.ChallengeScheme;
+import org.restlet.data.Method;
+import org.restlet.data.Reference;
+import org.restlet.engine.security.AuthenticatorUtils;
+import org.restlet.ext.crypto.DigestAuthenticator;
+import org.restlet.ext.crypto.DigestUtils;
+import org.restlet.ext.crypto.MemoryNonceStore;
+import org.restlet.security.MapVerifier;
+import org.restlet.security.Verifier;
+import org.restlet.test.RestletTestCase;
+
+/**
+ * Unit test for {@link MemoryNonceStore} and the nonce checks of
+ * {@link DigestAuthenticator}.
+ */
+public class NonceStoreTestCase extends RestletTestCase {
+
+    private static Request createRequest(String nonce, int nc) {
+        String a1 = DigestUtils.toHttpDigest("scott", "tiger".toCharArray(),
+                "realm");
+        String a2 = DigestUtils.toMd5("GET:/foo");
+        String response = DigestUtils.toMd5(a1 + ":" + nonce + ":"
+                + AuthenticatorUtils.formatNonceCount(nc) + ":cnonce:auth:"
+                + a2);
+
+        ChallengeResponse cr = new ChallengeResponse(
+                ChallengeScheme.HTTP_DIGEST);
+        cr.setIdentifier("scott");
+        cr.setSecret(response);
+        cr.setServerNonce(nonce);
+        cr.setServerNounceCount(nc);
+        cr.setClientNonce("cnonce");
+        cr.setQuality("auth");
+        cr.setDigestRef(new Reference("/foo"));
+
+        Request request = new Request(Method.GET, "http://localhost/foo");
+        request.setChallengeResponse(cr);
+        return request;
+    }
+
+    public void testExpiration() throws Exception {
+        MemoryNonceStore store = new MemoryNonceStore(2, 10);
+        long now = System.currentTimeMillis();
+        store.add("a", now + 20);
+        store.add("b", now + 60000);
+        assertTrue(store.contains("a"));
+
+        Thread.sleep(50);
+        assertFalse(store.contains("a"));
+        assertTrue(store.contains("b"));
+
+        // The maximum size evicts the nonces expiring first
+        store.add("c", now + 120000);
+        store.add("d", now + 120000);
+        assertFalse(store.contains("b"));
+        assertTrue(store.contains("c"));
+        assertTrue(store.contains("d"));
+    }
+
+    public void testUpdateCount() {
+        MemoryNonceStore store = new MemoryNonceStore();
+        store.add("a", System.currentTimeMillis() + 60000);
+
+        assertTrue(store.updateCount("a", 1));
+        assertFalse(store.updateCount("a", 1));
+        assertTrue(store.updateCount("a", 3));
+        assertFalse(store.updateCount("a", 2));
+        assertFalse(store.updateCount("unknown", 1));
+    }
+
+    public void testVerifier() {
+        MapVerifier mv = new MapVerifier();
+        mv.getLocalSecrets().put("scott", "tiger".toCharArray());
+        DigestAuthenticator authenticator = new DigestAuthenticator(
+                new Context(), "realm", "serverKey");
+        authenticator.setWrappedVerifier(mv);
+        authenticator.setNonceStore(new MemoryNonceStore());
+        Verifier verifier = authenticator.getVerifier();
+
+        String nonce = authenticator.generateServerNonce();
+        Request request = createRequest(nonce, 1);
+        assertEquals(Verifier.RESULT_VALID,
+                verifier.verify(request, new Response(request)));
+
+        // Replayed nonce count
+        request = createRequest(nonce, 1);
+        assertEquals(Verifier.RESULT_INVALID,
+                verifier.verify(request, new Response(request)));
+
+        request = createRequest(nonce, 2);
+        assertEquals(Verifier.RESULT_VALID,
+                verifier.verify(request, new Response(request)));
+
+        // Nonce issued by another authenticator
+        authenticator.setNonceStore(new MemoryNonceStore());
+        request = createRequest(nonce, 3);
+        assertEquals(Verifier.RESULT_STALE,
+                verifier.verify(request, new Response(request)));
+    }
+}
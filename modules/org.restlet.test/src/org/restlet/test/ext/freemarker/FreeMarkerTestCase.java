@@ -35,15 +35,22 @@ package org.restlet.test.ext.freemarker;
 
 import java.io.File;
 import java.io.FileWriter;
+import java.util.Date;
 import java.util.Map;
 import java.util.TreeMap;
 
+import org.restlet.Application;
 import org.restlet.data.MediaType;
 import org.restlet.engine.io.BioUtils;
+import org.restlet.ext.freemarker.FreemarkerService;
 import org.restlet.ext.freemarker.TemplateRepresentation;
+import org.restlet.representation.FileRepresentation;
+import org.restlet.representation.Representation;
+import org.restlet.representation.StringRepresentation;
 import org.restlet.test.RestletTestCase;
 
 import freemarker.template.Configuration;
+import freemarker.template.Template;
 
 /**
  * Unit test for the FreeMarker extension.
@@ -78,4 +85,84 @@ public class FreeMarkerTestCase extends RestletTestCase {
         BioUtils.delete(testDir, true);
     }
 
+    public void testServiceTemplate() throws Exception {
+        // Create a temporary directory for the tests
+        final File testDir = new File(System.getProperty("java.io.tmpdir"),
+                "FreeMarkerTestCase");
+        testDir.mkdir();
+
+        // Create a temporary template file
+        final File testFile = File.createTempFile("test", ".ftl", testDir);
+        final FileWriter fw = new FileWriter(testFile);
+        fw.write("Value=${value}");
+        fw.close();
+
+        final Map<String, Object> map = new TreeMap<String, Object>();
+        map.put("value", "myValue");
+
+        // Shared configuration approach
+        FreemarkerService service = new FreemarkerService();
+        service.getConfiguration().setDirectoryForTemplateLoading(testDir);
+        Application application = new Application();
+        application.getServices().add(service);
+        Application.setCurrent(application);
+
+        try {
+            Template template1 = service.getTemplate(testFile.getName());
+            assertNotNull(template1);
+            assertEquals("Value=myValue", new TemplateRepresentation(
+                    template1, map, MediaType.TEXT_PLAIN).getText());
+
+            Template template2 = service.getTemplate(testFile.getName());
+            assertSame(template1, template2);
+
+            // Templates provided as representations are cached by location
+            Representation templateRepresentation = new StringRepresentation(
+                    "Value=${value}");
+            templateRepresentation.setLocationRef("clap://class/test.ftl");
+            templateRepresentation.setModificationDate(new Date(1000L));
+            Template template3 = service.getTemplate(templateRepresentation);
+            assertEquals("Value=myValue", new TemplateRepresentation(
+                    template3, map, MediaType.TEXT_PLAIN).getText());
+
+            templateRepresentation = new StringRepresentation("Value=${value}");
+            templateRepresentation.setLocationRef("clap://class/test.ftl");
+            templateRepresentation.setModificationDate(new Date(1000L));
+            assertSame(template3, service.getTemplate(templateRepresentation));
+            assertSame(service.getConfiguration(), template3.getConfiguration());
+
+            // File representations are cached by file
+            Template template4 = service.getTemplate(new FileRepresentation(
+                    testFile, MediaType.TEXT_PLAIN));
+            assertSame(template4, service.getTemplate(new FileRepresentation(
+                    testFile, MediaType.TEXT_PLAIN)));
+
+            // Other representations are parsed at each call
+            templateRepresentation = new StringRepresentation("Value=${value}");
+            templateRepresentation.setModificationDate(new Date(1000L));
+            Template template5 = service.getTemplate(templateRepresentation);
+            templateRepresentation = new StringRepresentation("Value=${value}");
+            templateRepresentation.setModificationDate(new Date(1000L));
+            assertNotSame(template5,
+                    service.getTemplate(templateRepresentation));
+
+            // The cache only keeps the most recently used templates
+            service.setCacheSize(1);
+            template4 = service.getTemplate(new FileRepresentation(testFile,
+                    MediaType.TEXT_PLAIN));
+            templateRepresentation = new StringRepresentation("Value=${value}");
+            templateRepresentation.setLocationRef("clap://class/test.ftl");
+            templateRepresentation.setModificationDate(new Date(1000L));
+            service.getTemplate(templateRepresentation);
+            assertNotSame(template4, service.getTemplate(new FileRepresentation(
+                    testFile, MediaType.TEXT_PLAIN)));
+        } finally {
+            Application.setCurrent(null);
+        }
+
+        // Clean-up
+        BioUtils.delete(testFile);
+        BioUtils.delete(testDir, true);
+    }
+
 }
@@ -96,6 +96,17 @@ public class PathRegExpTests extends TestCase {
 
     private final PathRegExp regExpOneSegment2 = newPathRegExp(PATH_PATTERN_2);
 
+    /**
+     * Test method for {@link PathRegExp#equals(Object)} and
+     * {@link PathRegExp#hashCode()}.
+     */
+    public void testEqualsHashCode() {
+        final PathRegExp regExp = newPathRegExp(PATH_PATTERN_1);
+        assertEquals(this.regExpMultipleSegments1, regExp);
+        assertEquals(this.regExpMultipleSegments1.hashCode(), regExp
+                .hashCode());
+    }
+
     /**
      * Test method for
      * {@link org.restlet.ext.jaxrs.internal.util.PathRegExp#match(java.lang.String)} .
@@ -34,12 +34,16 @@
 package org.restlet.test.ext.jaxrs.wrappers;
 
 import java.util.Collection;
+import java.util.List;
+import java.util.Set;
 
 import javax.ws.rs.GET;
+import javax.ws.rs.PUT;
 import javax.ws.rs.Path;
 
 import junit.framework.TestCase;
 
+import org.restlet.data.Method;
 import org.restlet.engine.Engine;
 import org.restlet.ext.jaxrs.internal.core.ThreadLocalizedContext;
 import org.restlet.ext.jaxrs.internal.exceptions.IllegalPathOnClassException;
@@ -96,6 +100,28 @@ public class WrapperClassesTests extends TestCase {
         }
     }
 
+    @Path("methods")
+    static class MethodsRrc {
+        public MethodsRrc() {
+        }
+
+        @GET
+        public String get() {
+            return "resource value";
+        }
+
+        @GET
+        @Path("sub/{id}")
+        public String getSub() {
+            return "sub resource value";
+        }
+
+        @PUT
+        @Path("sub/{id}")
+        public void putSub() {
+        }
+    }
+
     private static final ResourceClasses resourceClasses = new ResourceClasses(
             new ThreadLocalizedContext(), null, null, Engine
                     .getAnonymousLogger());
@@ -111,6 +137,44 @@ public class WrapperClassesTests extends TestCase {
         rms = rrc.getMethodsForPath(new RemainingPath("subpath"));
     }
 
+    public void testMethodsForPath() throws Exception {
+        final RootResourceClass rrc = RootResourceClassTest
+                .getPerRequestRootClassWrapper(resourceClasses,
+                        MethodsRrc.class);
+        assertEquals(1, rrc.getMethodsForPath(new RemainingPath(""),
+                Method.HEAD).size());
+        assertEquals(1, rrc.getMethodsForPath(new RemainingPath("sub/1"),
+                Method.PUT).size());
+        assertEquals(2, rrc.getMethodsForPath(new RemainingPath("sub/1"))
+                .size());
+        assertTrue(rrc.getMethodsForPath(new RemainingPath("sub/1"),
+                Method.DELETE).isEmpty());
+        assertTrue(rrc.getMethodsForPath(new RemainingPath("other"),
+                Method.GET).isEmpty());
+
+        Set<Method> allowedMethods = rrc.getAllowedMethods(new RemainingPath(
+                "sub/1"));
+        assertEquals(3, allowedMethods.size());
+        assertTrue(allowedMethods.contains(Method.GET));
+        assertTrue(allowedMethods.contains(Method.HEAD));
+        assertTrue(allowedMethods.contains(Method.PUT));
+        assertTrue(rrc.getAllowedMethods(new RemainingPath("other")).isEmpty());
+    }
+
+    public void testMethodsOnSamePath() throws Exception {
+        final RootResourceClass rrc = RootResourceClassTest
+                .getPerRequestRootClassWrapper(resourceClasses,
+                        MethodsRrc.class);
+        // both methods of "sub/{id}" share the precomputed template entry
+        final List<ResourceMethod> getMethods = rrc.getMethodsForPath(
+                new RemainingPath("sub/1"), Method.GET);
+        assertEquals(1, getMethods.size());
+        assertSame(getMethods, rrc.getMethodsForPath(
+                new RemainingPath("sub/2"), Method.GET));
+        assertSame(rrc.getAllowedMethods(new RemainingPath("sub/1")), rrc
+                .getAllowedMethods(new RemainingPath("sub/2")));
+    }
+
     public void testIllegalRrcPath() throws Exception {
         try {
             final RootResourceClass rrc = RootResourceClassTest
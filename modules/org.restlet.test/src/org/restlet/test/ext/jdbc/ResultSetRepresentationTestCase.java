@@ -0,0 +1,178 @@
+/**
+ * Copyright 2005-2013 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+
+package org.restlet.test.ext.jdbc;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.List;
+
+import org.restlet.data.MediaType;
+import org.restlet.ext.jdbc.JdbcResult;
+import org.restlet.ext.jdbc.ResultSetRepresentation;
+import org.restlet.test.RestletTestCase;
+
+/**
+ * Unit tests for the {@link ResultSetRepresentation} class, using a stub
+ * result set.
+ */
+public class ResultSetRepresentationTestCase extends RestletTestCase {
+
+    /**
+     * Stub JDBC statement returning a fixed result set.
+     */
+    private static class StubResult implements InvocationHandler {
+
+        /** Indicates if the connection was closed. */
+        private boolean closed;
+
+        /** The current row index. */
+        private int index = -1;
+
+        /** The column labels. */
+        private final String[] labels;
+
+        /** The rows. */
+        private final List<Object[]> rows;
+
+        private StubResult(String[] labels, Object[]... rows) {
+            this.labels = labels;
+            this.rows = Arrays.asList(rows);
+        }
+
+        private JdbcResult createJdbcResult() {
+            return new JdbcResult(proxy(Statement.class));
+        }
+
+        public Object invoke(Object proxy, Method method, Object[] args)
+                throws Throwable {
+            String name = method.getName();
+
+            if ("getResultSet".equals(name)) {
+                return proxy(ResultSet.class);
+            } else if ("getConnection".equals(name)) {
+                return proxy(Connection.class);
+            } else if ("getMetaData".equals(name)) {
+                return proxy(ResultSetMetaData.class);
+            } else if ("getColumnCount".equals(name)) {
+                return this.labels.length;
+            } else if ("getColumnLabel".equals(name)) {
+                return this.labels[(Integer) args[0] - 1];
+            } else if ("next".equals(name)) {
+                return ++this.index < this.rows.size();
+            } else if ("getObject".equals(name)) {
+                return this.rows.get(this.index)[(Integer) args[0] - 1];
+            } else if ("getString".equals(name)) {
+                Object value = this.rows.get(this.index)[(Integer) args[0] - 1];
+                return (value == null) ? null : value.toString();
+            } else if ("close".equals(name)) {
+                if (proxy instanceof Connection) {
+                    this.closed = true;
+                }
+
+                return null;
+            }
+
+            throw new UnsupportedOperationException(name);
+        }
+
+        private <T> T proxy(Class<T> type) {
+            return type.cast(Proxy.newProxyInstance(getClass()
+                    .getClassLoader(), new Class<?>[] { type }, this));
+        }
+    }
+
+    public void testCsv() throws Exception {
+        StubResult result = new StubResult(new String[] { "id", "a,b" },
+                new Object[] { 1, "x\"y" }, new Object[] { 2, "l1\nl2" },
+                new Object[] { 3, null });
+        String text = new ResultSetRepresentation(result.createJdbcResult(),
+                MediaType.TEXT_CSV).getText();
+        assertEquals("id,\"a,b\"\r\n1,\"x\"\"y\"\r\n2,\"l1\nl2\"\r\n3,\r\n",
+                text);
+        assertTrue(result.closed);
+    }
+
+    public void testJson() throws Exception {
+        StubResult result = new StubResult(new String[] { "n", "s" },
+                new Object[] { 1.5d, "a\"b\\c\n\u0001" }, new Object[] {
+                        Double.NaN, null }, new Object[] {
+                        Float.NEGATIVE_INFINITY, "d" }, new Object[] {
+                        Double.POSITIVE_INFINITY, "e" });
+        String text = new ResultSetRepresentation(result.createJdbcResult(),
+                MediaType.APPLICATION_JSON).getText();
+        assertEquals("[{\"n\":1.5,\"s\":\"a\\\"b\\\\c\\n\\u0001\"},"
+                + "{\"n\":null,\"s\":null},{\"n\":null,\"s\":\"d\"},"
+                + "{\"n\":null,\"s\":\"e\"}]", text);
+        assertTrue(result.closed);
+    }
+
+    public void testPaging() throws Exception {
+        Object[][] rows = { { 1 }, { 2 }, { 3 }, { 4 }, { 5 } };
+        String[] labels = { "id" };
+
+        assertEquals("id\r\n2\r\n3\r\n", new ResultSetRepresentation(
+                new StubResult(labels, rows).createJdbcResult(),
+                MediaType.TEXT_CSV, 1, 2).getText());
+        assertEquals("id\r\n4\r\n5\r\n", new ResultSetRepresentation(
+                new StubResult(labels, rows).createJdbcResult(),
+                MediaType.TEXT_CSV, 3, -1).getText());
+        assertEquals("id\r\n", new ResultSetRepresentation(new StubResult(
+                labels, rows).createJdbcResult(), MediaType.TEXT_CSV, 7, 2)
+                .getText());
+        assertEquals("id\r\n", new ResultSetRepresentation(new StubResult(
+                labels, rows).createJdbcResult(), MediaType.TEXT_CSV, 0, 0)
+                .getText());
+    }
+
+    public void testXml() throws Exception {
+        StubResult result = new StubResult(new String[] { "a<b" },
+                new Object[] { "x&\"y\">" }, new Object[] { null });
+        String text = new ResultSetRepresentation(result.createJdbcResult(),
+                MediaType.TEXT_XML).getText();
+        assertEquals("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+                + "<resultSet>\n" + "  <row>\n"
+                + "    <column name=\"a&lt;b\">x&amp;&quot;y&quot;&gt;"
+                + "</column>\n" + "  </row>\n" + "  <row>\n"
+                + "    <column name=\"a&lt;b\" null=\"true\"/>\n"
+                + "  </row>\n" + "</resultSet>\n", text);
+        assertTrue(result.closed);
+    }
+}
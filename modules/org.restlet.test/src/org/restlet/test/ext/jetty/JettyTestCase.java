@@ -0,0 +1,202 @@
+/**
+ * Copyright 2005-2013 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.test.ext.jetty;
+
+import java.io.File;
+import java.io.FileWriter;
+
+import org.restlet.Component;
+import org.restlet.Request;
+import org.restlet.Response;
+import org.restlet.Restlet;
+import org.restlet.Server;
+import org.restlet.data.MediaType;
+import org.restlet.data.Protocol;
+import org.restlet.data.Status;
+import org.restlet.engine.Engine;
+import org.restlet.engine.io.BioUtils;
+import org.restlet.ext.jetty.HttpServerHelper;
+import org.restlet.representation.FileRepresentation;
+import org.restlet.representation.StringRepresentation;
+import org.restlet.resource.ClientResource;
+import org.restlet.resource.ResourceException;
+import org.restlet.test.RestletTestCase;
+
+/**
+ * Test case for the suspended calls and the direct buffers of the Jetty server
+ * connector.
+ * 
+ * @author Jerome Louvel
+ */
+public class JettyTestCase extends RestletTestCase {
+
+    private Component component;
+
+    private File testDir;
+
+    private String startComponent(Restlet restlet, String timeout)
+            throws Exception {
+        return startComponent(restlet, timeout, null);
+    }
+
+    private String startComponent(Restlet restlet, String timeout,
+            String directBuffersMaxSize) throws Exception {
+        this.component = new Component();
+        Server server = this.component.getServers().add(Protocol.HTTP, 0);
+        server.getContext().getParameters().add("asyncEnabled", "true");
+
+        if (timeout != null) {
+            server.getContext().getParameters().add("asyncTimeoutMs", timeout);
+        }
+
+        if (directBuffersMaxSize != null) {
+            server.getContext().getParameters()
+                    .add("directBuffersMaxSize", directBuffersMaxSize);
+        }
+
+        this.component.getDefaultHost().attach(restlet);
+        this.component.start();
+        return "http://localhost:" + server.getEphemeralPort() + "/";
+    }
+
+    @Override
+    protected void setUpEngine() {
+        super.setUpEngine();
+        Engine.getInstance().getRegisteredServers()
+                .add(0, new HttpServerHelper(null));
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        if (this.component != null) {
+            this.component.stop();
+            this.component = null;
+        }
+
+        if (this.testDir != null) {
+            BioUtils.delete(this.testDir, true);
+        }
+
+        super.tearDown();
+    }
+
+    private void checkFileEntity(String directBuffersMaxSize) throws Exception {
+        this.testDir = new File(System.getProperty("java.io.tmpdir"),
+                "JettyTestCase");
+        this.testDir.mkdirs();
+        final File testFile = File.createTempFile("test", ".txt", testDir);
+        StringBuilder sb = new StringBuilder();
+
+        for (int i = 0; i < 10000; i++) {
+            sb.append("Line ").append(i).append('\n');
+        }
+
+        FileWriter fw = new FileWriter(testFile);
+        fw.write(sb.toString());
+        fw.close();
+
+        String uri = startComponent(new Restlet() {
+            @Override
+            public void handle(Request request, Response response) {
+                response.setEntity(new FileRepresentation(testFile,
+                        MediaType.TEXT_PLAIN));
+            }
+        }, null, directBuffersMaxSize);
+
+        ClientResource resource = new ClientResource(uri);
+        assertEquals(sb.toString(), resource.get().getText());
+        assertEquals(Status.SUCCESS_OK, resource.getStatus());
+        resource.release();
+    }
+
+    public void testFileEntity() throws Exception {
+        checkFileEntity(null);
+    }
+
+    public void testFileEntityAboveMaxSize() throws Exception {
+        checkFileEntity("1024");
+    }
+
+    public void testSuspendedCall() throws Exception {
+        String uri = startComponent(new Restlet() {
+            @Override
+            public void handle(Request request, final Response response) {
+                response.setAutoCommitting(false);
+
+                new Thread() {
+                    @Override
+                    public void run() {
+                        try {
+                            Thread.sleep(200);
+                        } catch (InterruptedException e) {
+                            // Commit immediately
+                        }
+
+                        response.setEntity(new StringRepresentation(
+                                "Suspended", MediaType.TEXT_PLAIN));
+                        response.commit();
+                    }
+                }.start();
+            }
+        }, null);
+
+        ClientResource resource = new ClientResource(uri);
+        assertEquals("Suspended", resource.get().getText());
+        assertEquals(Status.SUCCESS_OK, resource.getStatus());
+        resource.release();
+    }
+
+    public void testSuspendedCallTimeout() throws Exception {
+        String uri = startComponent(new Restlet() {
+            @Override
+            public void handle(Request request, Response response) {
+                // Never committed
+                response.setAutoCommitting(false);
+            }
+        }, "500");
+
+        ClientResource resource = new ClientResource(uri);
+
+        try {
+            resource.get();
+            fail("A 503 status was expected");
+        } catch (ResourceException e) {
+            assertEquals(Status.SERVER_ERROR_SERVICE_UNAVAILABLE,
+                    e.getStatus());
+        }
+
+        resource.release();
+    }
+
+}
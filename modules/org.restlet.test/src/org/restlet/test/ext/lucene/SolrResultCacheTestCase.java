@@ -0,0 +1,127 @@
+/**
+ * Copyright 2005-2013 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.test.ext.lucene;
+
+import org.apache.solr.core.CoreContainer;
+import org.restlet.Client;
+import org.restlet.Context;
+import org.restlet.ext.lucene.SolrClientHelper;
+import org.restlet.ext.lucene.internal.SolrResultCache;
+import org.restlet.test.RestletTestCase;
+
+/**
+ * Unit tests for the result cache of the Solr client connector.
+ */
+public class SolrResultCacheTestCase extends RestletTestCase {
+
+    public void testEviction() {
+        SolrResultCache cache = new SolrResultCache(2, 60000);
+        cache.put("core", "/select?q=a", "a", 1);
+        cache.put("core", "/select?q=b", "b", 1);
+        assertEquals("a", cache.get("core", "/select?q=a", 1));
+
+        // The least recently used result is evicted
+        cache.put("core", "/select?q=c", "c", 1);
+        assertEquals(2, cache.size());
+        assertEquals("a", cache.get("core", "/select?q=a", 1));
+        assertNull(cache.get("core", "/select?q=b", 1));
+        assertEquals("c", cache.get("core", "/select?q=c", 1));
+    }
+
+    public void testExpiration() throws Exception {
+        SolrResultCache cache = new SolrResultCache(10, 0);
+        cache.put("core", "/select?q=a", "a", 1);
+        Thread.sleep(10);
+        assertNull(cache.get("core", "/select?q=a", 1));
+        assertEquals(0, cache.size());
+    }
+
+    public void testHelperCache() throws Exception {
+        Client client = new Client(new Context(),
+                SolrClientHelper.SOLR_PROTOCOL);
+        client.getContext().getAttributes()
+                .put("CoreContainer", new CoreContainer());
+        SolrClientHelper helper = new SolrClientHelper(client);
+
+        helper.start();
+        assertNull(helper.getCache());
+        helper.stop();
+
+        client.getContext().getParameters().add("cacheSize", "2");
+        helper.start();
+        SolrResultCache cache = helper.getCache();
+        assertNotNull(cache);
+        cache.put("core", "/select?q=a", "a", 1);
+        cache.put("core", "/select?q=b", "b", 1);
+        cache.put("core", "/select?q=c", "c", 1);
+        assertEquals(2, cache.size());
+
+        helper.stop();
+        assertNull(helper.getCache());
+        assertEquals(0, cache.size());
+    }
+
+    public void testInvalidate() {
+        SolrResultCache cache = new SolrResultCache(10, 60000);
+        cache.put("core", "/select?q=a", "a", 1);
+        cache.put("core", "/select?q=b", "b", 1);
+        cache.put("core1", "/select?q=a", "a1", 1);
+        cache.put("other", "/select?q=a", "a2", 1);
+
+        // Only the results of the updated core are discarded
+        cache.invalidate("core");
+        assertEquals(2, cache.size());
+        assertNull(cache.get("core", "/select?q=a", 1));
+        assertNull(cache.get("core", "/select?q=b", 1));
+        assertEquals("a1", cache.get("core1", "/select?q=a", 1));
+        assertEquals("a2", cache.get("other", "/select?q=a", 1));
+
+        cache.clear();
+        assertEquals(0, cache.size());
+    }
+
+    public void testSearcher() {
+        SolrResultCache cache = new SolrResultCache(10, 60000);
+        cache.put("core", "/select?q=a", "a", 1);
+        cache.put("other", "/select?q=a", "b", 1);
+        assertEquals("a", cache.get("core", "/select?q=a", 1));
+        assertEquals("b", cache.get("other", "/select?q=a", 1));
+
+        // A new index searcher discards the results of the previous one
+        assertNull(cache.get("core", "/select?q=a", 2));
+        assertNull(cache.get("core", "/select?q=a", 1));
+        assertEquals("b", cache.get("other", "/select?q=a", 1));
+    }
+
+}
@@ -96,6 +96,10 @@ public class OAuthTestBase {
             return STUB_CLIENT_ID;
         }
 
+        public long getExpirationTime() {
+            return System.currentTimeMillis() + getExpirePeriod() * 1000L;
+        }
+
         public boolean isExpired() {
             return false;
         }
@@ -37,9 +37,12 @@ import static org.hamcrest.Matchers.arrayContainingInAnyOrder;
 import static org.hamcrest.Matchers.is;
 import static org.junit.Assert.assertThat;
 import static org.restlet.ext.oauth.OAuthResourceDefs.ACCESS_TOKEN;
+import static org.restlet.ext.oauth.OAuthResourceDefs.EXPIRES_IN;
 import static org.restlet.ext.oauth.OAuthResourceDefs.SCOPE;
 import static org.restlet.ext.oauth.OAuthResourceDefs.USERNAME;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 import org.json.JSONObject;
 import org.junit.AfterClass;
 import org.junit.BeforeClass;
@@ -72,6 +75,8 @@ import org.restlet.security.Verifier;
  */
 public class TokenVerifierTest extends OAuthTestBase {
 
+    private static final String EXPIRING_TOKEN = "expiring";
+
     private Reference tokenAuthURI = new Reference(baseURI, "/oauth/token_auth");
 
     public static class StubApplication extends Application {
@@ -86,9 +91,12 @@ public class TokenVerifierTest extends OAuthTestBase {
 
     public static class StubServerResource extends ServerResource {
 
+        private static final AtomicInteger calls = new AtomicInteger();
+
         @Post
         public Representation authenticate(Representation input)
                 throws Exception {
+            calls.incrementAndGet();
             JSONObject call = new JsonRepresentation(input).getJsonObject();
 
             if (call.getString(ACCESS_TOKEN).equals(STUB_ACCESS_TOKEN)) {
@@ -96,6 +104,12 @@ public class TokenVerifierTest extends OAuthTestBase {
                 resp.put(USERNAME, "testuser");
                 resp.put(SCOPE, "a b");
                 return new JsonRepresentation(resp);
+            } else if (call.getString(ACCESS_TOKEN).equals(EXPIRING_TOKEN)) {
+                JSONObject resp = new JSONObject();
+                resp.put(USERNAME, "testuser");
+                resp.put(SCOPE, "a b");
+                resp.put(EXPIRES_IN, 0);
+                return new JsonRepresentation(resp);
             } else {
                 OAuthException oex = new OAuthException(
                         OAuthError.invalid_token, "Invalid Token", null);
@@ -225,4 +239,90 @@ public class TokenVerifierTest extends OAuthTestBase {
         assertThat(Scopes.parseScope(info.getRoles()),
                 is(arrayContainingInAnyOrder("a", "b")));
     }
+
+    /**
+     * Test case 7: Valid access_token is only validated once when cached.
+     */
+    @Test
+    public void testCase7() {
+        TokenVerifier verifier = new TokenVerifier(tokenAuthURI);
+        verifier.setCacheSize(10);
+        StubServerResource.calls.set(0);
+
+        for (int i = 0; i < 3; i++) {
+            Request request = new Request();
+            ChallengeResponse cr = new ChallengeResponse(
+                    ChallengeScheme.HTTP_OAUTH_BEARER);
+            cr.setRawValue(STUB_ACCESS_TOKEN);
+            request.setChallengeResponse(cr);
+
+            int result = verifier.verify(request, new Response(request));
+            assertThat(result, is(Verifier.RESULT_VALID));
+            assertThat(request.getClientInfo().getUser().getIdentifier(),
+                    is("testuser"));
+        }
+
+        assertThat(StubServerResource.calls.get(), is(1));
+    }
+
+    /**
+     * Test case 8: Invalid access_token is only remembered with a negative
+     * TTL.
+     */
+    @Test
+    public void testCase8() {
+        TokenVerifier verifier = new TokenVerifier(tokenAuthURI);
+        verifier.setCacheSize(10);
+        StubServerResource.calls.set(0);
+
+        for (int i = 0; i < 2; i++) {
+            Request request = new Request();
+            ChallengeResponse cr = new ChallengeResponse(
+                    ChallengeScheme.HTTP_OAUTH_BEARER);
+            cr.setRawValue("qux");
+            request.setChallengeResponse(cr);
+            assertThat(verifier.verify(request, new Response(request)),
+                    is(Verifier.RESULT_INVALID));
+        }
+
+        assertThat(StubServerResource.calls.get(), is(2));
+
+        verifier.setNegativeCacheTtl(60);
+        StubServerResource.calls.set(0);
+
+        for (int i = 0; i < 2; i++) {
+            Request request = new Request();
+            ChallengeResponse cr = new ChallengeResponse(
+                    ChallengeScheme.HTTP_OAUTH_BEARER);
+            cr.setRawValue("qux");
+            request.setChallengeResponse(cr);
+            assertThat(verifier.verify(request, new Response(request)),
+                    is(Verifier.RESULT_INVALID));
+        }
+
+        assertThat(StubServerResource.calls.get(), is(1));
+    }
+
+    /**
+     * Test case 9: Valid access_token is not cached beyond its remaining
+     * lifetime.
+     */
+    @Test
+    public void testCase9() {
+        TokenVerifier verifier = new TokenVerifier(tokenAuthURI);
+        verifier.setCacheSize(10);
+        StubServerResource.calls.set(0);
+
+        for (int i = 0; i < 2; i++) {
+            Request request = new Request();
+            ChallengeResponse cr = new ChallengeResponse(
+                    ChallengeScheme.HTTP_OAUTH_BEARER);
+            cr.setRawValue(EXPIRING_TOKEN);
+            request.setChallengeResponse(cr);
+            assertThat(verifier.verify(request, new Response(request)),
+                    is(Verifier.RESULT_VALID));
+        }
+
+        assertThat(StubServerResource.calls.get(), is(2));
+    }
 }
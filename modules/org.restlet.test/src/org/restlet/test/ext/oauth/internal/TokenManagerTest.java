@@ -0,0 +1,192 @@
+/**
+ * Copyright 2005-2013 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+package org.restlet.test.ext.oauth.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.restlet.ext.oauth.OAuthException;
+import org.restlet.ext.oauth.internal.AuthSession;
+import org.restlet.ext.oauth.internal.Client;
+import org.restlet.ext.oauth.internal.Client.ClientType;
+import org.restlet.ext.oauth.internal.Token;
+import org.restlet.ext.oauth.internal.memory.MemoryClientManager;
+import org.restlet.ext.oauth.internal.memory.MemoryTokenManager;
+
+/**
+ * Tests the indexes and the expiration of {@link MemoryTokenManager}.
+ */
+public class TokenManagerTest {
+
+    private Client client;
+
+    private MemoryTokenManager tokens;
+
+    @Before
+    public void setupTokenManager() {
+        client = new MemoryClientManager().createClient(
+                ClientType.CONFIDENTIAL, null, null);
+        tokens = new MemoryTokenManager();
+    }
+
+    @Test
+    public void testFindTokens() throws OAuthException {
+        Token alice = tokens.generateToken(client, "alice",
+                new String[] { "a" });
+        Token bob = tokens.generateToken(client, "bob", new String[] { "a" });
+        Token self = tokens.generateToken(client, new String[] { "a" });
+        assertEquals(3, tokens.getTokenCount());
+
+        assertSame(alice, tokens.findToken(client, "alice"));
+        assertSame(self, tokens.findToken(client));
+        assertEquals(1, tokens.findTokens("bob").length);
+        assertEquals(3, tokens.findTokens(client).length);
+
+        // A new token replaces the previous one of the same user
+        Token alice2 = tokens.generateToken(client, "alice",
+                new String[] { "a" });
+        assertSame(alice2, tokens.findToken(client, "alice"));
+        assertEquals(3, tokens.getTokenCount());
+
+        Token refreshed = tokens.refreshToken(client, bob.getRefreshToken(),
+                null);
+        assertNotNull(refreshed);
+        assertSame(refreshed, tokens.findToken(client, "bob"));
+        try {
+            tokens.refreshToken(client, bob.getRefreshToken(), null);
+            fail("OAuthException expected.");
+        } catch (OAuthException ex) {
+            // The previous refresh token was replaced
+        }
+
+        tokens.revokeAllTokens("alice");
+        assertNull(tokens.findToken(client, "alice"));
+        assertEquals(0, tokens.findTokens("alice").length);
+
+        tokens.revokeAllTokens(client);
+        assertEquals(0, tokens.getTokenCount());
+        assertEquals(0, tokens.findTokens(client).length);
+    }
+
+    @Test
+    public void testPurgeExpired() throws Exception {
+        tokens.setExpirePeriod(0);
+        Token token = tokens.generateToken(client, "alice",
+                new String[] { "a" });
+
+        AuthSession session = AuthSession.newAuthSession();
+        session.setSessionTimeout(0);
+        String code = tokens.storeSession(session);
+        assertEquals(1, tokens.getSessionCount());
+
+        Thread.sleep(1100);
+        tokens.purgeExpired();
+
+        // The token can still be refreshed
+        assertEquals(1, tokens.getTokenCount());
+        assertEquals(1, tokens.getExpiredTokenCount());
+        assertSame(token, tokens.findToken(client, "alice"));
+        try {
+            tokens.validateToken(token.getAccessToken());
+            fail("OAuthException expected.");
+        } catch (OAuthException ex) {
+            // Expected
+        }
+
+        assertEquals(0, tokens.getSessionCount());
+        assertEquals(1, tokens.getExpiredSessionCount());
+        try {
+            tokens.restoreSession(code);
+            fail("OAuthException expected.");
+        } catch (OAuthException ex) {
+            // Expected
+        }
+    }
+
+    @Test
+    public void testRefreshExpiredToken() throws Exception {
+        tokens.setExpirePeriod(0);
+        Token token = tokens.generateToken(client, "alice",
+                new String[] { "a" });
+
+        Thread.sleep(1100);
+        tokens.purgeExpired();
+        assertEquals(1, tokens.getExpiredTokenCount());
+
+        Token refreshed = tokens.refreshToken(client, token.getRefreshToken(),
+                null);
+        assertNotNull(refreshed);
+        assertSame(refreshed, tokens.findToken(client, "alice"));
+        assertSame(refreshed, tokens.validateToken(refreshed.getAccessToken()));
+        assertEquals(1, tokens.getTokenCount());
+
+        // The refresh token is consumed once used
+        try {
+            tokens.refreshToken(client, token.getRefreshToken(), null);
+            fail("OAuthException expected.");
+        } catch (OAuthException ex) {
+            // Expected
+        }
+    }
+
+    @Test
+    public void testRefreshTokenExpiration() throws Exception {
+        tokens.setExpirePeriod(0);
+        tokens.setRefreshTokenExpirePeriod(1);
+        Token token = tokens.generateToken(client, "alice",
+                new String[] { "a" });
+        assertSame(token, tokens.findToken(client, "alice"));
+
+        Thread.sleep(1100);
+
+        // Lookups purge the tokens whose refresh token expired
+        assertNull(tokens.findToken(client, "alice"));
+        assertEquals(0, tokens.findTokens("alice").length);
+        assertEquals(0, tokens.findTokens(client).length);
+        assertEquals(0, tokens.getTokenCount());
+        assertEquals(1, tokens.getExpiredTokenCount());
+        assertEquals(1, tokens.getExpiredRefreshTokenCount());
+
+        try {
+            tokens.refreshToken(client, token.getRefreshToken(), null);
+            fail("OAuthException expected.");
+        } catch (OAuthException ex) {
+            // Expected
+        }
+    }
+}
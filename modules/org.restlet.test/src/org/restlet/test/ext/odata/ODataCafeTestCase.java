@@ -33,11 +33,15 @@
 
 package org.restlet.test.ext.odata;
 
+import java.io.Closeable;
+import java.io.File;
 import java.util.Iterator;
 
 import org.restlet.Component;
 import org.restlet.data.Protocol;
+import org.restlet.data.Status;
 import org.restlet.ext.odata.Query;
+import org.restlet.resource.ResourceException;
 import org.restlet.test.RestletTestCase;
 import org.restlet.test.ext.odata.cafe.Cafe;
 import org.restlet.test.ext.odata.cafe.CafeService;
@@ -78,6 +82,38 @@ public class ODataCafeTestCase extends RestletTestCase {
         super.tearDown();
     }
 
+    /**
+     * Tests the persistence of the metadata document in a local file.
+     */
+    public void testMetadataFile() throws Exception {
+        File file = File.createTempFile("metadata", ".xml");
+        file.delete();
+
+        try {
+            service.setMetadataFile(file);
+            Query<Cafe> query = service.createCafeQuery("/Cafes");
+            assertNotNull(service.getLatestRequest());
+            assertTrue(file.exists());
+
+            // A new service loads the metadata from the local file
+            CafeService service2 = new CafeService();
+            service2.setMetadataFile(file);
+            Query<Cafe> query2 = service2.createCafeQuery("/Cafes");
+            assertNull(service2.getLatestRequest());
+
+            Iterator<Cafe> iterator = query.iterator();
+            Iterator<Cafe> iterator2 = query2.iterator();
+            assertTrue(iterator2.hasNext());
+            Cafe cafe = iterator.next();
+            Cafe cafe2 = iterator2.next();
+            assertEquals(cafe.getId(), cafe2.getId());
+            assertEquals(cafe.getName(), cafe2.getName());
+            assertEquals(cafe.getZipCode(), cafe2.getZipCode());
+        } finally {
+            file.delete();
+        }
+    }
+
     /**
      * Tests the parsing of Feed element.
      */
@@ -243,4 +279,62 @@ public class ODataCafeTestCase extends RestletTestCase {
         assertEquals("Marly Le Roi", cafe.getCity());
         assertEquals(78310, cafe.getZipCode());
     }
+
+    /**
+     * Tests the server paging feature in streaming mode.
+     */
+    public void testStreamingServerPaging() throws Exception {
+        Query<Cafe> query1 = service.createCafeQuery("/Cafes");
+        Query<Cafe> query2 = query1.skipToken("Skip1").streaming(1);
+
+        Iterator<Cafe> iterator = query2.iterator();
+
+        String[] ids = { "1", "2", "1", "2" };
+        for (String id : ids) {
+            assertTrue(iterator.hasNext());
+            Cafe cafe = iterator.next();
+            assertEquals(id, cafe.getId());
+        }
+        assertFalse(iterator.hasNext());
+    }
+
+    /**
+     * Tests that the failure of a page retrieval is rethrown by a streaming
+     * iterator.
+     */
+    public void testStreamingError() throws Exception {
+        Query<Cafe> query = service.createCafeQuery("/Cafes")
+                .skipToken("Missing").streaming(1);
+
+        Iterator<Cafe> iterator = query.iterator();
+        try {
+            iterator.hasNext();
+            fail("The failure of the page retrieval must be rethrown");
+        } catch (ResourceException e) {
+            assertEquals(Status.CLIENT_ERROR_NOT_FOUND, e.getStatus());
+        }
+
+        try {
+            iterator.next();
+            fail("The failure of the page retrieval must be rethrown");
+        } catch (ResourceException e) {
+            assertEquals(Status.CLIENT_ERROR_NOT_FOUND, e.getStatus());
+        }
+    }
+
+    /**
+     * Tests that a streaming iterator can be closed before its end.
+     */
+    public void testStreamingClose() throws Exception {
+        Query<Cafe> query = service.createCafeQuery("/Cafes").streaming(1);
+
+        Iterator<Cafe> iterator = query.iterator();
+        assertTrue(iterator.hasNext());
+        Cafe cafe = iterator.next();
+        assertEquals("1", cafe.getId());
+        assertEquals("Le Cafe Louis", cafe.getName());
+
+        ((Closeable) iterator).close();
+        assertFalse(iterator.hasNext());
+    }
 }
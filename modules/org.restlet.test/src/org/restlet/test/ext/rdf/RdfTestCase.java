@@ -82,4 +82,27 @@ public class RdfTestCase extends RestletTestCase {
         Representation n3Rep = new RdfRepresentation(rep);
         n3Rep.write(System.out);
     }
+
+    public void testStreamingConversion() throws Exception {
+        // Larger than the reading buffer of the parser
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            sb.append("<http://www.example.com/s").append(i)
+                    .append("> <http://www.example.com/p> \"value")
+                    .append(i).append("\".\n");
+        }
+
+        Representation source = new StringRepresentation(sb.toString(),
+                MediaType.TEXT_RDF_NTRIPLES);
+        String text = new RdfRepresentation(source,
+                MediaType.TEXT_RDF_NTRIPLES).getText();
+        assertEquals(sb.toString(), text);
+
+        source = new StringRepresentation(sb.toString(),
+                MediaType.TEXT_RDF_NTRIPLES);
+        text = new RdfRepresentation(source, MediaType.APPLICATION_RDF_TURTLE)
+                .getText();
+        assertTrue(text.contains("<http://www.example.com/s999> "
+                + "<http://www.example.com/p> \"value999\""));
+    }
 }
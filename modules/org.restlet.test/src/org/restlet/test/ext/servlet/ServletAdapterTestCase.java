@@ -0,0 +1,250 @@
+/**
+ * Copyright 2005-2013 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+
+package org.restlet.test.ext.servlet;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.ServletContext;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.restlet.Request;
+import org.restlet.Response;
+import org.restlet.Restlet;
+import org.restlet.data.MediaType;
+import org.restlet.data.Status;
+import org.restlet.ext.servlet.ServletAdapter;
+import org.restlet.test.RestletTestCase;
+
+/**
+ * Unit tests for the asynchronous mode of {@link ServletAdapter}, using a stub
+ * Servlet container.
+ */
+public class ServletAdapterTestCase extends RestletTestCase {
+
+    /**
+     * Restlet leaving the response uncommitted so that it can be committed
+     * later by the test.
+     */
+    private static class DeferringRestlet extends Restlet {
+
+        /** The pending response. */
+        private Response response;
+
+        @Override
+        public void handle(Request request, Response response) {
+            response.setAutoCommitting(false);
+            this.response = response;
+        }
+    }
+
+    /**
+     * Stub Servlet request, response and asynchronous context.
+     */
+    private static class StubContainer implements InvocationHandler {
+
+        /** The asynchronous context, once started. */
+        private AsyncContext asyncContext;
+
+        /** The listener registered on the asynchronous context. */
+        private AsyncListener asyncListener;
+
+        /** The timeout set on the asynchronous context. */
+        private long asyncTimeout = -1L;
+
+        /** Indicates if the asynchronous context was completed. */
+        private boolean completed;
+
+        /** The response entity. */
+        private final ByteArrayOutputStream entity = new ByteArrayOutputStream();
+
+        /** The response status code. */
+        private int status;
+
+        private HttpServletRequest createRequest() {
+            return proxy(HttpServletRequest.class);
+        }
+
+        private HttpServletResponse createResponse() {
+            return proxy(HttpServletResponse.class);
+        }
+
+        public Object invoke(Object proxy, Method method, Object[] args)
+                throws Throwable {
+            String name = method.getName();
+
+            if ("isAsyncSupported".equals(name)) {
+                return true;
+            } else if ("startAsync".equals(name)) {
+                this.asyncContext = proxy(AsyncContext.class);
+                return this.asyncContext;
+            } else if ("addListener".equals(name)) {
+                this.asyncListener = (AsyncListener) args[0];
+                return null;
+            } else if ("setTimeout".equals(name)) {
+                this.asyncTimeout = (Long) args[0];
+                return null;
+            } else if ("complete".equals(name)) {
+                this.completed = true;
+                return null;
+            } else if ("setStatus".equals(name) || "sendError".equals(name)) {
+                this.status = (Integer) args[0];
+                return null;
+            } else if ("getOutputStream".equals(name)) {
+                return new ServletOutputStream() {
+                    @Override
+                    public void write(int b) throws IOException {
+                        entity.write(b);
+                    }
+                };
+            } else if ("getMethod".equals(name)) {
+                return "GET";
+            } else if ("getScheme".equals(name)) {
+                return "http";
+            } else if ("getProtocol".equals(name)) {
+                return "HTTP/1.1";
+            } else if ("getRequestURI".equals(name)) {
+                return "/test";
+            } else if ("getRequestURL".equals(name)) {
+                return new StringBuffer("http://localhost:8182/test");
+            } else if ("getContextPath".equals(name)
+                    || "getServletPath".equals(name)) {
+                return "";
+            } else if ("getServerName".equals(name)) {
+                return "localhost";
+            } else if ("getLocalAddr".equals(name)
+                    || "getRemoteAddr".equals(name)) {
+                return "127.0.0.1";
+            } else if ("getHeaderNames".equals(name)
+                    || "getHeaders".equals(name)
+                    || "getAttributeNames".equals(name)) {
+                return Collections.enumeration(Collections.emptyList());
+            }
+
+            // Default values for the other accessors
+            Class<?> type = method.getReturnType();
+
+            if (type == Boolean.TYPE) {
+                return false;
+            } else if (type == Integer.TYPE) {
+                return (name.endsWith("Port")) ? 8182 : 0;
+            } else if (type == Long.TYPE) {
+                return 0L;
+            }
+
+            return null;
+        }
+
+        private <T> T proxy(Class<T> type) {
+            return type.cast(Proxy.newProxyInstance(getClass()
+                    .getClassLoader(), new Class<?>[] { type }, this));
+        }
+    }
+
+    /** The stub Servlet container. */
+    private StubContainer container;
+
+    /** The next Restlet. */
+    private DeferringRestlet restlet;
+
+    /**
+     * Handles a request with an asynchronous adapter.
+     */
+    private void service() {
+        ServletAdapter adapter = new ServletAdapter(
+                this.container.proxy(ServletContext.class), this.restlet);
+        adapter.setAsyncEnabled(true);
+        adapter.setAsyncTimeout(5000L);
+        adapter.service(this.container.createRequest(),
+                this.container.createResponse());
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        this.container = new StubContainer();
+        this.restlet = new DeferringRestlet();
+    }
+
+    public void testCommitAfterSuspend() throws Exception {
+        service();
+
+        // The call is suspended and nothing was sent yet
+        assertNotNull(this.container.asyncContext);
+        assertNotNull(this.container.asyncListener);
+        assertEquals(5000L, this.container.asyncTimeout);
+        assertEquals(0, this.container.status);
+        assertFalse(this.container.completed);
+
+        Response response = this.restlet.response;
+        response.setStatus(Status.SUCCESS_OK);
+        response.setEntity("Hello", MediaType.TEXT_PLAIN);
+        response.commit();
+
+        assertEquals(200, this.container.status);
+        assertEquals("Hello", this.container.entity.toString("UTF-8"));
+        assertTrue(this.container.completed);
+    }
+
+    public void testTimeout() throws Exception {
+        service();
+        assertNotNull(this.container.asyncListener);
+
+        this.container.asyncListener.onTimeout(new AsyncEvent(
+                this.container.asyncContext));
+        assertEquals(503, this.container.status);
+        assertTrue(this.container.completed);
+
+        // The late response is ignored
+        this.container.completed = false;
+        Response response = this.restlet.response;
+        response.setStatus(Status.SUCCESS_OK);
+        response.setEntity("Hello", MediaType.TEXT_PLAIN);
+        response.commit();
+
+        assertEquals(503, this.container.status);
+        assertEquals(0, this.container.entity.size());
+        assertFalse(this.container.completed);
+    }
+}
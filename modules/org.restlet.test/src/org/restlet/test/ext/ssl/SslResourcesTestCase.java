@@ -0,0 +1,217 @@
+/**
+ * Copyright 2005-2013 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+
+package org.restlet.test.ext.ssl;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSocket;
+
+import org.restlet.Context;
+import org.restlet.Request;
+import org.restlet.Response;
+import org.restlet.Restlet;
+import org.restlet.Server;
+import org.restlet.data.MediaType;
+import org.restlet.data.Parameter;
+import org.restlet.data.Protocol;
+import org.restlet.engine.Engine;
+import org.restlet.engine.io.BioUtils;
+import org.restlet.engine.io.Buffer;
+import org.restlet.ext.ssl.DefaultSslContextFactory;
+import org.restlet.ext.ssl.HttpsServerHelper;
+import org.restlet.ext.ssl.internal.SslBufferPool;
+import org.restlet.ext.ssl.internal.SslUtils;
+import org.restlet.test.RestletTestCase;
+import org.restlet.util.Series;
+
+/**
+ * Unit tests for the SSL resources shared by the connections of the internal
+ * HTTPS connectors: packet buffers, delegated tasks and session resumption.
+ */
+public class SslResourcesTestCase extends RestletTestCase {
+
+    /** The test key store. */
+    private File keystoreFile;
+
+    /**
+     * Connects to the server, completes an SSL handshake and sends a request.
+     * 
+     * @param sslContext
+     *            The client SSL context.
+     * @param port
+     *            The server port.
+     */
+    private void call(SSLContext sslContext, int port) throws Exception {
+        SSLSocket socket = (SSLSocket) sslContext.getSocketFactory()
+                .createSocket("localhost", port);
+
+        try {
+            // Session IDs are resumed with TLS 1.2
+            socket.setEnabledProtocols(new String[] { "TLSv1.2" });
+            socket.startHandshake();
+
+            OutputStream out = socket.getOutputStream();
+            out.write(("GET / HTTP/1.1\r\nHost: localhost\r\n"
+                    + "Content-Length: 0\r\nConnection: close\r\n\r\n")
+                    .getBytes("US-ASCII"));
+            out.flush();
+            BioUtils.exhaust(socket.getInputStream());
+        } finally {
+            socket.close();
+        }
+    }
+
+    /**
+     * Creates a context configured with the test key store.
+     * 
+     * @return The configured context.
+     */
+    private Context createContext() {
+        Context context = new Context();
+        Series<Parameter> parameters = context.getParameters();
+        parameters.add("keystorePath", this.keystoreFile.getPath());
+        parameters.add("keystorePassword", "testtest");
+        parameters.add("keyPassword", "testtest");
+        parameters.add("truststorePath", this.keystoreFile.getPath());
+        parameters.add("truststorePassword", "testtest");
+        return context;
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        this.keystoreFile = File.createTempFile("dummy", ".jks");
+        InputStream in = getClass().getResourceAsStream(
+                "/org/restlet/test/engine/dummy.jks");
+        OutputStream out = new FileOutputStream(this.keystoreFile);
+
+        try {
+            BioUtils.copy(in, out);
+        } finally {
+            out.close();
+        }
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        BioUtils.delete(this.keystoreFile);
+
+        // Restore a clean engine
+        Engine.register();
+        super.tearDown();
+    }
+
+    public void testBufferPool() {
+        SslBufferPool pool = new SslBufferPool(1024, false);
+        Buffer buffer = pool.checkout(512);
+        assertEquals(1024, buffer.capacity());
+        buffer.fill("test");
+        pool.checkin(buffer);
+
+        // The buffer is cleared and reused
+        Buffer reused = pool.checkout(1024);
+        assertSame(buffer, reused);
+        assertEquals(0, reused.getBytes().position());
+
+        // Larger buffers are created on demand but not pooled
+        Buffer larger = pool.checkout(2048);
+        assertEquals(2048, larger.capacity());
+        pool.checkin(larger);
+        assertNotSame(larger, pool.checkout(0));
+    }
+
+    public void testResumedHandshakes() throws Exception {
+        Engine.register(false);
+        Context context = createContext();
+        Server server = new Server(context, Protocol.HTTPS, TEST_PORT,
+                new Restlet() {
+                    @Override
+                    public void handle(Request request, Response response) {
+                        response.setEntity("Hello", MediaType.TEXT_PLAIN);
+                    }
+                });
+        server.start();
+        HttpsServerHelper helper = new HttpsServerHelper(server);
+        helper.start();
+
+        try {
+            DefaultSslContextFactory factory = new DefaultSslContextFactory();
+            factory.init(context.getParameters());
+            SSLContext sslContext = factory.createSslContext();
+
+            call(sslContext, TEST_PORT);
+            assertEquals(1, helper.getFullHandshakeCount());
+            assertEquals(0, helper.getResumedHandshakeCount());
+            // The client reuses its cached session
+            call(sslContext, TEST_PORT);
+            assertEquals(1, helper.getFullHandshakeCount());
+            assertEquals(1, helper.getResumedHandshakeCount());
+        } finally {
+            helper.stop();
+            server.stop();
+        }
+    }
+
+    public void testTasksService() throws Exception {
+        Context context = createContext();
+        context.getParameters().add("sslTasksThreads", "2");
+        HttpsServerHelper helper = new HttpsServerHelper(new Server(context,
+                Protocol.HTTPS, 0));
+        ThreadPoolExecutor service = SslUtils.createTasksService(helper);
+        assertEquals(2, service.getMaximumPoolSize());
+
+        final Thread[] threads = new Thread[1];
+        Runnable task = new Runnable() {
+            public void run() {
+                threads[0] = Thread.currentThread();
+            }
+        };
+
+        service.submit(task).get();
+        assertNotNull(threads[0]);
+        assertNotSame(Thread.currentThread(), threads[0]);
+
+        // Rejected tasks run on the calling thread
+        service.shutdown();
+        threads[0] = null;
+        service.execute(task);
+        assertSame(Thread.currentThread(), threads[0]);
+    }
+}
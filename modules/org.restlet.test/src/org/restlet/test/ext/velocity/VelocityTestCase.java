@@ -35,15 +35,21 @@ package org.restlet.test.ext.velocity;
 
 import java.io.File;
 import java.io.FileWriter;
+import java.util.Date;
 import java.util.Map;
 import java.util.TreeMap;
 
+import org.apache.velocity.Template;
+import org.restlet.Application;
 import org.restlet.data.LocalReference;
 import org.restlet.data.MediaType;
 import org.restlet.data.Reference;
 import org.restlet.engine.io.BioUtils;
 import org.restlet.ext.velocity.TemplateRepresentation;
+import org.restlet.ext.velocity.VelocityService;
+import org.restlet.representation.FileRepresentation;
 import org.restlet.representation.Representation;
+import org.restlet.representation.StringRepresentation;
 import org.restlet.resource.ClientResource;
 import org.restlet.test.RestletTestCase;
 
@@ -110,4 +116,80 @@ public class VelocityTestCase extends RestletTestCase {
         BioUtils.delete(testFile);
         BioUtils.delete(testDir, true);
     }
+
+    public void testServiceTemplate() throws Exception {
+        // Create a temporary directory for the tests
+        final File testDir = new File(System.getProperty("java.io.tmpdir"),
+                "VelocityTestCase");
+        testDir.mkdir();
+
+        // Create a temporary template file
+        final File testFile = File.createTempFile("test", ".vm", testDir);
+        final FileWriter fw = new FileWriter(testFile);
+        fw.write("Value=$value");
+        fw.close();
+
+        final Map<String, Object> map = new TreeMap<String, Object>();
+        map.put("value", "myValue");
+
+        // Shared engine approach
+        VelocityService service = new VelocityService();
+        service.getEngine().setProperty("file.resource.loader.path",
+                testDir.getAbsolutePath());
+        Application application = new Application();
+        application.getServices().add(service);
+        Application.setCurrent(application);
+
+        try {
+            TemplateRepresentation tr1 = new TemplateRepresentation(testFile
+                    .getName(), map, MediaType.TEXT_PLAIN);
+            assertEquals("Value=myValue", tr1.getText());
+
+            TemplateRepresentation tr2 = new TemplateRepresentation(testFile
+                    .getName(), map, MediaType.TEXT_PLAIN);
+            assertEquals("Value=myValue", tr2.getText());
+            assertSame(service.getEngine(), tr2.getEngine());
+            assertSame(tr1.getTemplate(), tr2.getTemplate());
+
+            // Templates parsed from representations use the shared engine
+            TemplateRepresentation tr3 = new TemplateRepresentation(
+                    new StringRepresentation("Value=$value"), map,
+                    MediaType.TEXT_PLAIN);
+            assertEquals("Value=myValue", tr3.getText());
+            assertNotNull(service.getRuntimeServices());
+
+            // File representations are cached by file
+            Template template1 = service.getTemplate(new FileRepresentation(
+                    testFile, MediaType.TEXT_PLAIN));
+            assertSame(template1, service.getTemplate(new FileRepresentation(
+                    testFile, MediaType.TEXT_PLAIN)));
+
+            // Other representations are parsed at each call
+            Representation templateRepresentation = new StringRepresentation(
+                    "Value=$value");
+            templateRepresentation.setModificationDate(new Date(1000L));
+            Template template2 = service.getTemplate(templateRepresentation);
+            templateRepresentation = new StringRepresentation("Value=$value");
+            templateRepresentation.setModificationDate(new Date(1000L));
+            assertNotSame(template2,
+                    service.getTemplate(templateRepresentation));
+
+            // The cache only keeps the most recently used templates
+            service.setCacheSize(1);
+            template1 = service.getTemplate(new FileRepresentation(testFile,
+                    MediaType.TEXT_PLAIN));
+            templateRepresentation = new StringRepresentation("Value=$value");
+            templateRepresentation.setLocationRef("clap://class/test.vm");
+            templateRepresentation.setModificationDate(new Date(1000L));
+            service.getTemplate(templateRepresentation);
+            assertNotSame(template1, service.getTemplate(new FileRepresentation(
+                    testFile, MediaType.TEXT_PLAIN)));
+        } finally {
+            Application.setCurrent(null);
+        }
+
+        // Clean-up
+        BioUtils.delete(testFile);
+        BioUtils.delete(testDir, true);
+    }
 }
@@ -33,8 +33,21 @@
 
 package org.restlet.test.representation;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileWriter;
+import java.util.Arrays;
+import java.util.Date;
+
+import org.restlet.data.MediaType;
 import org.restlet.data.Range;
+import org.restlet.data.Tag;
+import org.restlet.engine.application.ByteRangesRepresentation;
 import org.restlet.engine.application.RangeRepresentation;
+import org.restlet.engine.io.BioUtils;
+import org.restlet.representation.FileRepresentation;
+import org.restlet.representation.InputRepresentation;
 import org.restlet.representation.StringRepresentation;
 import org.restlet.test.RestletTestCase;
 
@@ -56,6 +69,101 @@ public class RangeRepresentationTestCase extends RestletTestCase {
         assertEquals("34567", rr.getText());
     }
 
+    public void testByteRanges() throws Exception {
+        StringRepresentation sr = new StringRepresentation("1234567890");
+        ByteRangesRepresentation brr = new ByteRangesRepresentation(sr,
+                Arrays.asList(new Range(1, 2), new Range(Range.INDEX_LAST, 3),
+                        new Range(20, 5)));
+        assertEquals(2, brr.getRanges().size());
+        assertTrue(MediaType.MULTIPART_BYTERANGES.equals(brr.getMediaType(),
+                true));
+
+        String boundary = brr.getMediaType().getParameters()
+                .getFirstValue("boundary");
+        String text = brr.getText();
+        assertEquals(brr.getSize(), text.length());
+        assertEquals("\r\n--" + boundary + "\r\n"
+                + "Content-Type: text/plain; charset=UTF-8\r\n"
+                + "Content-Range: bytes 1-2/10\r\n\r\n23\r\n--" + boundary
+                + "\r\n" + "Content-Type: text/plain; charset=UTF-8\r\n"
+                + "Content-Range: bytes 7-9/10\r\n\r\n890\r\n--" + boundary
+                + "--\r\n", text);
+    }
+
+    public void testByteRangesCoalesced() throws Exception {
+        StringRepresentation sr = new StringRepresentation("1234567890");
+        ByteRangesRepresentation brr = new ByteRangesRepresentation(sr,
+                Arrays.asList(new Range(5, 2), new Range(0, 2),
+                        new Range(1, 3), new Range(6, 1)));
+        assertEquals(Arrays.asList(new Range(0, 4), new Range(5, 2)),
+                brr.getRanges());
+
+        brr = new ByteRangesRepresentation(sr, Arrays.asList(new Range(
+                Range.INDEX_LAST, 4), new Range(2, 4)));
+        assertEquals(Arrays.asList(new Range(2, 8)), brr.getRanges());
+    }
+
+    public void testByteRangesMetadata() throws Exception {
+        StringRepresentation sr = new StringRepresentation("1234567890");
+        sr.setTag(new Tag("tag", false));
+        sr.setModificationDate(new Date(1000L));
+        sr.setExpirationDate(new Date(2000L));
+        ByteRangesRepresentation brr = new ByteRangesRepresentation(sr,
+                Arrays.asList(new Range(1, 2), new Range(7, 3)));
+        assertEquals(sr.getTag(), brr.getTag());
+        assertEquals(sr.getModificationDate(), brr.getModificationDate());
+        assertEquals(sr.getExpirationDate(), brr.getExpirationDate());
+    }
+
+    public void testByteRangesStream() throws Exception {
+        InputRepresentation ir = new InputRepresentation(
+                new ByteArrayInputStream("1234567890".getBytes()),
+                MediaType.TEXT_PLAIN, 10);
+        ByteRangesRepresentation brr = new ByteRangesRepresentation(ir,
+                Arrays.asList(new Range(7, 3), new Range(1, 2)));
+        String boundary = brr.getMediaType().getParameters()
+                .getFirstValue("boundary");
+
+        // The transient content is read once
+        assertEquals("\r\n--" + boundary + "\r\n"
+                + "Content-Type: text/plain\r\n"
+                + "Content-Range: bytes 1-2/10\r\n\r\n23\r\n--" + boundary
+                + "\r\n" + "Content-Type: text/plain\r\n"
+                + "Content-Range: bytes 7-9/10\r\n\r\n890\r\n--" + boundary
+                + "--\r\n", brr.getText());
+    }
+
+    public void testFile() throws Exception {
+        File file = File.createTempFile("rangeRepresentation", ".txt");
+
+        try {
+            FileWriter writer = new FileWriter(file);
+            writer.write("1234567890");
+            writer.close();
+
+            FileRepresentation fr = new FileRepresentation(file,
+                    MediaType.TEXT_PLAIN);
+            RangeRepresentation rr = new RangeRepresentation(fr, new Range(3,
+                    4));
+            assertEquals(4, rr.getAvailableSize());
+            assertEquals("4567", rr.getText());
+
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            rr.write(baos);
+            assertEquals("4567", baos.toString());
+
+            rr.setRange(new Range(Range.INDEX_LAST, 3));
+            assertEquals("890", BioUtils.toString(rr.getStream()));
+
+            rr.setRange(new Range(8, Range.SIZE_MAX));
+            baos = new ByteArrayOutputStream();
+            rr.write(baos);
+            assertEquals("90", baos.toString());
+        } finally {
+            file.delete();
+        }
+    }
+
     public void testSize() throws Exception {
         StringRepresentation sr = new StringRepresentation("1234567890");
         RangeRepresentation rr = new RangeRepresentation(sr);
@@ -0,0 +1,228 @@
+/**
+ * Copyright 2005-2013 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.test.resource;
+
+import org.restlet.Request;
+import org.restlet.Response;
+import org.restlet.data.Method;
+import org.restlet.data.Status;
+import org.restlet.representation.Representation;
+import org.restlet.representation.StringRepresentation;
+import org.restlet.resource.Finder;
+import org.restlet.resource.ServerResource;
+import org.restlet.test.RestletTestCase;
+
+/**
+ * Test the creation and pooling of server resources by the {@link Finder}.
+ */
+public class FinderTestCase extends RestletTestCase {
+
+    public static class NegotiatedResource extends ServerResource {
+
+        private static volatile int instances;
+
+        public NegotiatedResource() {
+            instances++;
+        }
+
+        @Override
+        protected void doInit() {
+            if (getReference().getPath().equals("/plain")) {
+                setNegotiated(false);
+            }
+        }
+
+        @Override
+        protected Representation get() {
+            return new StringRepresentation(Boolean.toString(isNegotiated()));
+        }
+
+        @Override
+        public boolean isReusable() {
+            return true;
+        }
+    }
+
+    public static class PooledResource extends ServerResource {
+
+        private static volatile int instances;
+
+        private volatile String state;
+
+        public PooledResource() {
+            instances++;
+        }
+
+        @Override
+        protected void doInit() {
+            assertNull(this.state);
+            this.state = getReference().getPath();
+        }
+
+        @Override
+        protected Representation get() {
+            return new StringRepresentation(this.state);
+        }
+
+        @Override
+        public boolean isReusable() {
+            return true;
+        }
+
+        @Override
+        protected void recycle() {
+            super.recycle();
+            this.state = null;
+        }
+    }
+
+    public static class MissingResource extends ServerResource {
+
+        private static volatile int instances;
+
+        public MissingResource() {
+            instances++;
+        }
+
+        @Override
+        protected void doInit() {
+            setExisting(!getReference().getPath().equals("/missing"));
+        }
+
+        @Override
+        protected Representation get() {
+            return new StringRepresentation("found");
+        }
+
+        @Override
+        public boolean isReusable() {
+            return true;
+        }
+    }
+
+    public static class SimpleResource extends ServerResource {
+
+        private static volatile int instances;
+
+        public SimpleResource() {
+            instances++;
+        }
+
+        @Override
+        protected Representation get() {
+            return new StringRepresentation("simple");
+        }
+    }
+
+    private String handle(Finder finder, String path) throws Exception {
+        Request request = new Request(Method.GET, "http://localhost" + path);
+        Response response = new Response(request);
+        finder.handle(request, response);
+        assertTrue(response.getStatus().isSuccess());
+        return response.getEntity().getText();
+    }
+
+    public void testPooled() throws Exception {
+        Finder finder = new Finder(null, PooledResource.class);
+        PooledResource.instances = 0;
+
+        assertEquals("/a", handle(finder, "/a"));
+        assertEquals("/b", handle(finder, "/b"));
+        assertEquals("/c", handle(finder, "/c"));
+        assertEquals(1, PooledResource.instances);
+
+        finder.setPoolCapacity(0);
+        assertEquals("/d", handle(finder, "/d"));
+        assertEquals("/e", handle(finder, "/e"));
+        assertEquals(2, PooledResource.instances);
+    }
+
+    public void testNotAutoCommitting() throws Exception {
+        Finder finder = new Finder(null, PooledResource.class);
+        PooledResource.instances = 0;
+
+        // The resource may still update the response, it isn't recycled
+        Request request = new Request(Method.GET, "http://localhost/a");
+        Response response = new Response(request);
+        response.setAutoCommitting(false);
+        finder.handle(request, response);
+        assertEquals("/a", response.getEntity().getText());
+        assertEquals("/b", handle(finder, "/b"));
+        assertEquals(2, PooledResource.instances);
+
+        // Committed responses let the resource be recycled
+        request = new Request(Method.GET, "http://localhost/c");
+        response = new Response(request);
+        response.setAutoCommitting(false);
+        response.setCommitted(true);
+        finder.handle(request, response);
+        assertEquals("/c", response.getEntity().getText());
+        assertEquals("/d", handle(finder, "/d"));
+        assertEquals("/e", handle(finder, "/e"));
+        assertEquals(2, PooledResource.instances);
+    }
+
+    public void testRecycledFlags() throws Exception {
+        Finder finder = new Finder(null, NegotiatedResource.class);
+        NegotiatedResource.instances = 0;
+
+        Request request = new Request(Method.GET, "http://localhost/plain");
+        Response response = new Response(request);
+        finder.handle(request, response);
+        assertEquals("false", response.getEntity().getText());
+
+        // The flag changed by the previous call is reset
+        assertEquals("true", handle(finder, "/a"));
+        assertEquals(1, NegotiatedResource.instances);
+
+        finder = new Finder(null, MissingResource.class);
+        MissingResource.instances = 0;
+        request = new Request(Method.GET, "http://localhost/missing");
+        response = new Response(request);
+        finder.handle(request, response);
+        assertEquals(Status.CLIENT_ERROR_NOT_FOUND, response.getStatus());
+        assertEquals("found", handle(finder, "/a"));
+        assertEquals(1, MissingResource.instances);
+    }
+
+    public void testNotPooled() throws Exception {
+        Finder finder = new Finder(null, SimpleResource.class);
+        SimpleResource.instances = 0;
+
+        assertEquals("simple", handle(finder, "/a"));
+        assertEquals("simple", handle(finder, "/b"));
+        assertEquals(2, SimpleResource.instances);
+    }
+
+}
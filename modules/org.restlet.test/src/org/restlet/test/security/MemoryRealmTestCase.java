@@ -0,0 +1,154 @@
+/**
+ * Copyright 2005-2013 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+package org.restlet.test.security;
+
+import java.util.Iterator;
+import java.util.ListIterator;
+
+import org.restlet.Application;
+import org.restlet.data.ClientInfo;
+import org.restlet.security.Group;
+import org.restlet.security.MemoryRealm;
+import org.restlet.security.Role;
+import org.restlet.security.User;
+import org.restlet.test.RestletTestCase;
+
+/**
+ * Suite of unit tests for the {@link MemoryRealm} class.
+ */
+public class MemoryRealmTestCase extends RestletTestCase {
+
+    public void testIndexInvalidation() {
+        Application app = new Application();
+        Role admin = new Role(app, "admin", null);
+        Role member = new Role(app, "member", null);
+
+        MemoryRealm realm = new MemoryRealm();
+        User scott = new User("scott", "tiger");
+        realm.getUsers().add(scott);
+        assertSame(scott, realm.findUser("scott"));
+        assertNull(realm.findUser("tom"));
+
+        Group root = new Group("root", null, true);
+        Group staff = new Group("staff", null, true);
+        root.getMemberGroups().add(staff);
+        realm.getRootGroups().add(root);
+        realm.map(root, member);
+        realm.map(scott, admin);
+
+        ClientInfo clientInfo = new ClientInfo();
+        clientInfo.setUser(new User("scott"));
+        realm.getEnroler().enrole(clientInfo);
+        assertEquals(1, clientInfo.getRoles().size());
+        assertTrue(clientInfo.getRoles().contains(admin));
+
+        // Group membership changes are detected
+        staff.getMemberUsers().add(scott);
+        assertTrue(realm.findGroups(scott).contains(root));
+        clientInfo = new ClientInfo();
+        clientInfo.setUser(new User("scott"));
+        realm.getEnroler().enrole(clientInfo);
+        assertEquals(2, clientInfo.getRoles().size());
+        assertTrue(clientInfo.getRoles().contains(member));
+
+        staff.setInheritingRoles(false);
+        assertFalse(realm.findGroups(scott).contains(root));
+        assertTrue(realm.findGroups(scott, false).contains(root));
+
+        realm.unmap(scott, admin);
+        assertTrue(realm.findRoles(scott).isEmpty());
+        assertTrue(realm.findRoles(root).contains(member));
+        assertTrue(realm.findRoles(app, root).contains(member));
+        assertTrue(realm.findRoles(new Application(), root).isEmpty());
+
+        // User identifier changes are detected
+        scott.setIdentifier("tom");
+        assertNull(realm.findUser("scott"));
+        assertSame(scott, realm.findUser("tom"));
+    }
+
+    public void testListViews() {
+        Group staff = new Group("staff", null, true);
+        User scott = new User("scott", "tiger");
+        staff.getMemberUsers().add(scott);
+
+        MemoryRealm realm = new MemoryRealm();
+        realm.getRootGroups().add(staff);
+        assertTrue(realm.findGroups(scott).contains(staff));
+
+        // Modifications through sub lists and iterators are detected
+        realm.getRootGroups().subList(0, 1).clear();
+        assertTrue(realm.findGroups(scott).isEmpty());
+
+        realm.getRootGroups().add(staff);
+        assertTrue(realm.findGroups(scott).contains(staff));
+
+        for (Iterator<Group> iter = realm.getRootGroups().iterator(); iter
+                .hasNext();) {
+            iter.next();
+            iter.remove();
+        }
+
+        assertTrue(realm.getRootGroups().isEmpty());
+        assertTrue(realm.findGroups(scott).isEmpty());
+
+        realm.getRootGroups().add(staff);
+        assertTrue(realm.findGroups(scott).contains(staff));
+        ListIterator<User> users = staff.getMemberUsers().listIterator();
+        users.next();
+        users.set(new User("tom"));
+        assertTrue(realm.findGroups(scott).isEmpty());
+    }
+
+    public void testSharedGroups() {
+        Group staff = new Group("staff", null, true);
+        User scott = new User("scott", "tiger");
+
+        MemoryRealm realm1 = new MemoryRealm();
+        realm1.getRootGroups().add(staff);
+        MemoryRealm realm2 = new MemoryRealm();
+        realm2.getRootGroups().add(staff);
+        assertTrue(realm1.findGroups(scott).isEmpty());
+        assertTrue(realm2.findGroups(scott).isEmpty());
+
+        // Modifications of a shared group are detected by both realms
+        staff.getMemberUsers().add(scott);
+        assertTrue(realm1.findGroups(scott).contains(staff));
+        assertTrue(realm2.findGroups(scott).contains(staff));
+
+        // Modifications of a realm don't affect the other one
+        realm1.getUsers().add(scott);
+        assertSame(scott, realm1.findUser("scott"));
+        assertNull(realm2.findUser("scott"));
+    }
+}
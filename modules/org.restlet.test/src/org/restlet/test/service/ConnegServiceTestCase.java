@@ -84,4 +84,45 @@ public class ConnegServiceTestCase extends RestletTestCase {
         assertEquals(MediaType.APPLICATION_JSON, preferedVariant.getMediaType());
 
     }
+
+    public void testCachedPreferences() {
+        List<Variant> variants = new ArrayList<Variant>();
+        variants.add(new Variant(MediaType.APPLICATION_XML));
+        variants.add(new Variant(MediaType.APPLICATION_JSON));
+
+        MetadataService metadataService = new MetadataService();
+        ConnegService connegService = new ConnegService();
+
+        for (int i = 0; i < 3; i++) {
+            Request jsonRequest = new Request();
+            jsonRequest.getClientInfo().getAcceptedMediaTypes()
+                    .add(new Preference<MediaType>(MediaType.APPLICATION_JSON));
+            Request xmlRequest = new Request();
+            xmlRequest.getClientInfo().getAcceptedMediaTypes()
+                    .add(new Preference<MediaType>(MediaType.APPLICATION_XML));
+            xmlRequest.getClientInfo().getAcceptedMediaTypes()
+                    .add(new Preference<MediaType>(MediaType.APPLICATION_JSON,
+                            0.5f));
+
+            assertEquals(MediaType.APPLICATION_JSON, connegService
+                    .getPreferredVariant(variants, jsonRequest,
+                            metadataService).getMediaType());
+            assertEquals(MediaType.APPLICATION_XML, connegService
+                    .getPreferredVariant(variants, xmlRequest,
+                            metadataService).getMediaType());
+        }
+
+        // A change of default metadata must not reuse stale preferences
+        Request request = new Request();
+        request.getClientInfo().getAcceptedMediaTypes()
+                .add(new Preference<MediaType>(MediaType.TEXT_PLAIN));
+        metadataService.setDefaultMediaType(MediaType.APPLICATION_XML);
+        assertEquals(MediaType.APPLICATION_XML, connegService
+                .getPreferredVariant(variants, request, metadataService)
+                .getMediaType());
+        metadataService.setDefaultMediaType(MediaType.APPLICATION_JSON);
+        assertEquals(MediaType.APPLICATION_JSON, connegService
+                .getPreferredVariant(variants, request, metadataService)
+                .getMediaType());
+    }
 }
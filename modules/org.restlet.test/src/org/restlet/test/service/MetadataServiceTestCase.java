@@ -33,6 +33,9 @@
 
 package org.restlet.test.service;
 
+import java.util.List;
+
+import org.restlet.data.Language;
 import org.restlet.data.MediaType;
 import org.restlet.service.MetadataService;
 import org.restlet.test.RestletTestCase;
@@ -49,4 +52,35 @@ public class MetadataServiceTestCase extends RestletTestCase {
         MediaType ma = ms.getMediaType("ma");
         assertNull(ma);
     }
+
+    public void testExtensionIndexes() {
+        MetadataService ms = new MetadataService();
+
+        // The first mapping wins in both directions
+        assertEquals(MediaType.TEXT_XML, ms.getMediaType("xml"));
+        List<MediaType> xmlTypes = ms.getAllMediaTypes("xml");
+        assertEquals(2, xmlTypes.size());
+        assertEquals(MediaType.TEXT_XML, xmlTypes.get(0));
+        assertEquals(MediaType.APPLICATION_XML, xmlTypes.get(1));
+        assertEquals("txt", ms.getExtension(MediaType.TEXT_PLAIN));
+        assertEquals(Language.FRENCH, ms.getLanguage("fr"));
+        assertNull(ms.getLanguage("xml"));
+
+        // Mappings added later are indexed
+        ms.addExtension("foo", MediaType.APPLICATION_JSON);
+        assertEquals(MediaType.APPLICATION_JSON, ms.getMediaType("foo"));
+        assertEquals("json", ms.getExtension(MediaType.APPLICATION_JSON));
+
+        // Preferred mappings take precedence
+        ms.addExtension("bar", MediaType.APPLICATION_JSON, true);
+        assertEquals("bar", ms.getExtension(MediaType.APPLICATION_JSON));
+        ms.addExtension("xml", MediaType.APPLICATION_XML, true);
+        assertEquals(MediaType.APPLICATION_XML, ms.getMediaType("xml"));
+        assertEquals(3, ms.getAllMetadata("xml").size());
+
+        ms.clearExtensions();
+        assertNull(ms.getMediaType("foo"));
+        assertNull(ms.getAllMetadata("xml"));
+        assertNull(ms.getExtension(MediaType.APPLICATION_JSON));
+    }
 }
@@ -39,9 +39,11 @@ import java.util.List;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.logging.Level;
 
+import org.restlet.data.MediaType;
 import org.restlet.data.Reference;
 import org.restlet.engine.Engine;
 import org.restlet.engine.component.ComponentHelper;
+import org.restlet.engine.component.ComponentSnapshot;
 import org.restlet.engine.component.ComponentXmlParser;
 import org.restlet.engine.component.InternalRouter;
 import org.restlet.representation.Representation;
@@ -204,7 +206,9 @@ public class Component extends Restlet {
     }
 
     /**
-     * Constructor with the reference to the XML configuration file.
+     * Constructor with the reference to the XML configuration file. A reference
+     * with the {@link ComponentSnapshot#EXTENSION} extension is loaded as a
+     * compiled {@link ComponentSnapshot}.
      * 
      * @param xmlConfigRef
      *            The URI reference to the XML configuration file.
@@ -220,6 +224,13 @@ public class Component extends Restlet {
             xmlConfigRepresentation = cr.get();
 
             if (xmlConfigRepresentation != null) {
+                if (ComponentSnapshot.EXTENSION.equals(xmlConfigRef
+                        .getExtensions())) {
+                    // Not mapped by the metadata service
+                    xmlConfigRepresentation
+                            .setMediaType(MediaType.APPLICATION_JAVA_OBJECT);
+                }
+
                 new ComponentXmlParser(this, xmlConfigRepresentation).parse();
             } else {
                 getLogger().log(
@@ -231,7 +242,9 @@ public class Component extends Restlet {
     }
 
     /**
-     * Constructor with the representation of the XML configuration file.
+     * Constructor with the representation of the XML configuration file. A
+     * compiled {@link ComponentSnapshot} with the
+     * {@link MediaType#APPLICATION_JAVA_OBJECT} media type is also accepted.
      * 
      * @param xmlConfigRepresentation
      *            The representation of the XML configuration file.
@@ -36,6 +36,7 @@ package org.restlet.data;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
@@ -132,13 +133,34 @@ import org.restlet.engine.io.IoUtils;
  */
 public final class ClientInfo {
 
+    // [ifndef gwt] member
+    /** Maximum number of user agents kept in the agent attributes cache. */
+    private static final int AGENT_CACHE_SIZE = 256;
+
+    // [ifndef gwt] member
+    /**
+     * Attributes of the most recently analyzed user agents, in access order.
+     * 
+     * @see The {@link ClientInfo#getAgentAttributes()} method.
+     */
+    private static final Map<String, Map<String, String>> agentAttributesCache = new LinkedHashMap<String, Map<String, String>>(
+            16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(
+                Map.Entry<String, Map<String, String>> eldest) {
+            return size() > AGENT_CACHE_SIZE;
+        }
+    };
+
     // [ifndef gwt] member
     /**
      * List of user-agent templates defined in "agent.properties" file.<br>
      * 
      * @see The {@link ClientInfo#getAgentAttributes()} method.
      */
-    private static volatile List<String> userAgentTemplates = null;
+    private static volatile List<org.restlet.routing.Template> userAgentTemplates = null;
 
     // [ifndef gwt] method
     /**
@@ -174,15 +196,17 @@ public final class ClientInfo {
     // [ifndef gwt] method
     /**
      * Returns the list of user-agent templates defined in "agent.properties"
-     * file.
+     * file. The templates are created once, with the predefined variables
+     * "agentName", "agentVersion", "agentComment", "agentOs",
+     * "commentAttribute" and "facultativeData".
      * 
      * @return The list of user-agent templates defined in "agent.properties"
      *         file.
      * @see The {@link ClientInfo#getAgentAttributes()} method.
      */
-    private static List<String> getUserAgentTemplates() {
+    private static List<org.restlet.routing.Template> getUserAgentTemplates() {
         // Lazy initialization with double-check.
-        List<String> u = ClientInfo.userAgentTemplates;
+        List<org.restlet.routing.Template> u = ClientInfo.userAgentTemplates;
         if (u == null) {
             synchronized (ClientInfo.class) {
                 u = ClientInfo.userAgentTemplates;
@@ -191,6 +215,18 @@ public final class ClientInfo {
                     java.net.URL userAgentPropertiesUrl = Engine
                             .getResource("org/restlet/data/agent.properties");
                     if (userAgentPropertiesUrl != null) {
+                        // Predefined variables.
+                        org.restlet.routing.Variable agentName = new org.restlet.routing.Variable(
+                                org.restlet.routing.Variable.TYPE_TOKEN);
+                        org.restlet.routing.Variable agentVersion = new org.restlet.routing.Variable(
+                                org.restlet.routing.Variable.TYPE_TOKEN);
+                        org.restlet.routing.Variable agentComment = new org.restlet.routing.Variable(
+                                org.restlet.routing.Variable.TYPE_COMMENT);
+                        org.restlet.routing.Variable agentCommentAttribute = new org.restlet.routing.Variable(
+                                org.restlet.routing.Variable.TYPE_COMMENT_ATTRIBUTE);
+                        org.restlet.routing.Variable facultativeData = new org.restlet.routing.Variable(
+                                org.restlet.routing.Variable.TYPE_ALL, null,
+                                false, false);
                         BufferedReader reader;
                         try {
                             reader = new BufferedReader(new InputStreamReader(
@@ -202,9 +238,26 @@ public final class ClientInfo {
                                 if ((line.trim().length() > 0)
                                         && !line.trim().startsWith("#")) {
                                     if (u == null) {
-                                        u = new CopyOnWriteArrayList<String>();
+                                        u = new CopyOnWriteArrayList<org.restlet.routing.Template>();
                                     }
-                                    u.add(line);
+
+                                    org.restlet.routing.Template template = new org.restlet.routing.Template(
+                                            line,
+                                            org.restlet.routing.Template.MODE_EQUALS);
+                                    template.getVariables().put("agentName",
+                                            agentName);
+                                    template.getVariables().put(
+                                            "agentVersion", agentVersion);
+                                    template.getVariables().put(
+                                            "agentComment", agentComment);
+                                    template.getVariables().put("agentOs",
+                                            agentCommentAttribute);
+                                    template.getVariables().put(
+                                            "commentAttribute",
+                                            agentCommentAttribute);
+                                    template.getVariables().put(
+                                            "facultativeData", facultativeData);
+                                    u.add(template);
                                 }
                             }
                             reader.close();
@@ -542,52 +595,47 @@ public final class ClientInfo {
     public Map<String, String> getAgentAttributes() {
         if (this.agentAttributes == null) {
             this.agentAttributes = new ConcurrentHashMap<String, String>();
-            Map<String, Object> map = new ConcurrentHashMap<String, Object>();
-
-            // Loop on a list of user-agent templates until a template match
-            // the current user-agent string. The list of templates is
-            // located in a file named "agent.properties" available on
-            // the classpath.
-            // Some defined variables are used in order to catch the name,
-            // version and optional comment. Respectively, these
-            // variables are called "agentName", "agentVersion" and
-            // "agentComment".
-            org.restlet.routing.Template template = null;
-            // Predefined variables.
-            org.restlet.routing.Variable agentName = new org.restlet.routing.Variable(
-                    org.restlet.routing.Variable.TYPE_TOKEN);
-            org.restlet.routing.Variable agentVersion = new org.restlet.routing.Variable(
-                    org.restlet.routing.Variable.TYPE_TOKEN);
-            org.restlet.routing.Variable agentComment = new org.restlet.routing.Variable(
-                    org.restlet.routing.Variable.TYPE_COMMENT);
-            org.restlet.routing.Variable agentCommentAttribute = new org.restlet.routing.Variable(
-                    org.restlet.routing.Variable.TYPE_COMMENT_ATTRIBUTE);
-            org.restlet.routing.Variable facultativeData = new org.restlet.routing.Variable(
-                    org.restlet.routing.Variable.TYPE_ALL, null, false, false);
-
-            if (ClientInfo.getUserAgentTemplates() != null) {
-                for (String string : ClientInfo.getUserAgentTemplates()) {
-                    template = new org.restlet.routing.Template(string,
-                            org.restlet.routing.Template.MODE_EQUALS);
-
-                    // Update the predefined variables.
-                    template.getVariables().put("agentName", agentName);
-                    template.getVariables().put("agentVersion", agentVersion);
-                    template.getVariables().put("agentComment", agentComment);
-                    template.getVariables().put("agentOs",
-                            agentCommentAttribute);
-                    template.getVariables().put("commentAttribute",
-                            agentCommentAttribute);
-                    template.getVariables().put("facultativeData",
-                            facultativeData);
-
-                    // Parse the template
-                    if (template.parse(getAgent(), map) > -1) {
-                        for (String key : map.keySet()) {
-                            this.agentAttributes
-                                    .put(key, (String) map.get(key));
+            String agent = getAgent();
+            Map<String, String> cached = null;
+
+            if (agent != null) {
+                synchronized (agentAttributesCache) {
+                    cached = agentAttributesCache.get(agent);
+                }
+            }
+
+            if (cached != null) {
+                this.agentAttributes.putAll(cached);
+            } else {
+                Map<String, Object> map = new ConcurrentHashMap<String, Object>();
+
+                // Loop on a list of user-agent templates until a template
+                // match the current user-agent string. The list of templates
+                // is located in a file named "agent.properties" available on
+                // the classpath.
+                // Some defined variables are used in order to catch the name,
+                // version and optional comment. Respectively, these
+                // variables are called "agentName", "agentVersion" and
+                // "agentComment".
+                if (ClientInfo.getUserAgentTemplates() != null) {
+                    for (org.restlet.routing.Template template : ClientInfo
+                            .getUserAgentTemplates()) {
+                        // Parse the template
+                        if (template.parse(agent, map) > -1) {
+                            for (String key : map.keySet()) {
+                                this.agentAttributes.put(key,
+                                        (String) map.get(key));
+                            }
+                            break;
                         }
-                        break;
+                    }
+                }
+
+                if (agent != null) {
+                    synchronized (agentAttributesCache) {
+                        agentAttributesCache.put(agent,
+                                new ConcurrentHashMap<String, String>(
+                                        this.agentAttributes));
                     }
                 }
             }
@@ -33,7 +33,18 @@
 
 package org.restlet.engine;
 
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
 import org.restlet.Client;
+import org.restlet.Request;
+import org.restlet.Response;
+import org.restlet.data.Status;
+import org.restlet.engine.log.LoggingThreadFactory;
 
 /**
  * Client connector helper. Base client helper based on NIO non blocking
@@ -68,6 +79,43 @@ public class ClientHelper extends ConnectorHelper<Client> {
         super(client);
     }
 
+    // [ifndef gwt] method
+    /**
+     * Creates a bounded worker service, for helpers handling calls outside of
+     * the calling thread. Idle threads are released after one minute and calls
+     * exceeding the queue capacity are rejected.
+     * 
+     * @param maxThreads
+     *            The maximum number of worker threads.
+     * @param maxQueued
+     *            The maximum number of calls waiting for a worker thread.
+     * @return The worker service.
+     * @see #handleAsynchronously(Request, Response, Executor)
+     */
+    protected ThreadPoolExecutor createWorkerService(int maxThreads,
+            int maxQueued) {
+        ThreadPoolExecutor result = new ThreadPoolExecutor(maxThreads,
+                maxThreads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<Runnable>(Math.max(1, maxQueued)),
+                new LoggingThreadFactory(getLogger(), true));
+        result.allowCoreThreadTimeOut(true);
+        return result;
+    }
+
+    // [ifndef gwt] method
+    /**
+     * Handles a call using the current thread. Invoked from the worker threads
+     * by {@link #handleAsynchronously(Request, Response, Executor)}. Does
+     * nothing by default.
+     * 
+     * @param request
+     *            The request to handle.
+     * @param response
+     *            The response to update.
+     */
+    protected void doHandle(Request request, Response response) {
+    }
+
     /**
      * Returns the connection timeout.
      * 
@@ -84,4 +132,62 @@ public class ClientHelper extends ConnectorHelper<Client> {
         return result;
     }
 
+    // [ifndef gwt] method
+    /**
+     * Handles an asynchronous call using a worker service. The call is handled
+     * by {@link #doHandle(Request, Response)} on a worker thread which then
+     * invokes the response callback. If the worker service rejects the call,
+     * the response gets a 503 status and the callback is invoked by the
+     * calling thread.
+     * 
+     * @param request
+     *            The request to handle.
+     * @param response
+     *            The response to update.
+     * @param workerService
+     *            The worker service.
+     */
+    protected void handleAsynchronously(final Request request,
+            final Response response, Executor workerService) {
+        try {
+            workerService.execute(new Runnable() {
+                public void run() {
+                    try {
+                        doHandle(request, response);
+                    } catch (Throwable t) {
+                        getLogger().log(Level.WARNING,
+                                "Error while handling the client call", t);
+                        response.setStatus(Status.CONNECTOR_ERROR_INTERNAL, t);
+                    }
+
+                    onResponse(request, response);
+                }
+            });
+        } catch (RejectedExecutionException ree) {
+            getLogger().warning(
+                    "Unable to queue the client call, too many pending calls");
+            response.setStatus(Status.SERVER_ERROR_SERVICE_UNAVAILABLE, ree);
+            onResponse(request, response);
+        }
+    }
+
+    // [ifndef gwt] method
+    /**
+     * Invokes the response callback of an asynchronous call.
+     * 
+     * @param request
+     *            The handled request.
+     * @param response
+     *            The response to send back.
+     */
+    protected void onResponse(Request request, Response response) {
+        try {
+            request.getOnResponse().handle(request, response);
+        } catch (Throwable t) {
+            getLogger().log(Level.WARNING,
+                    "Unexpected error or exception inside the user call back",
+                    t);
+        }
+    }
+
 }
@@ -63,6 +63,13 @@ import org.restlet.engine.log.LoggerFacade;
  * , {@link ClientHelper}, {@link org.restlet.engine.converter.ConverterHelper}
  * and {@link ServerHelper} classes.<br>
  * <br>
+ * The connector, authenticator and converter helpers are only discovered when
+ * their registry is first accessed, so that short-lived processes only pay for
+ * the helpers they actually use. To also skip the scanning of the
+ * "META-INF/services" descriptors, a {@link HelperIndex} generated at build
+ * time can be declared with the "org.restlet.engine.helperIndex" system
+ * property.<br>
+ * <br>
  * Note that by default the JULI logging mechanism is used but it is possible to
  * replace it by providing an alternate {@link LoggerFacade} implementation. For
  * this, just pass a system property named
@@ -73,6 +80,64 @@ import org.restlet.engine.log.LoggerFacade;
  */
 public class Engine {
 
+    /**
+     * Lazy discovery of a category of helpers. The discovery runs once, the
+     * first time the helpers are needed, and other threads wait for its
+     * completion.
+     */
+    private abstract class HelperDiscovery {
+
+        /** Indicates if the discovery is complete or not needed. */
+        private volatile boolean done;
+
+        /** Indicates if the discovery is in progress. */
+        private boolean running;
+
+        /**
+         * Constructor.
+         * 
+         * @param needed
+         *            True if the discovery is needed.
+         */
+        private HelperDiscovery(boolean needed) {
+            this.done = !needed;
+            this.running = false;
+        }
+
+        /**
+         * Discovers the helpers.
+         * 
+         * @throws IOException
+         */
+        protected abstract void discover() throws IOException;
+
+        /**
+         * Runs the discovery if it wasn't done yet. Calls made by the
+         * discovery itself return immediately.
+         */
+        private void ensure() {
+            if (!this.done) {
+                synchronized (this) {
+                    if (!this.done && !this.running) {
+                        this.running = true;
+
+                        try {
+                            discover();
+                        } catch (IOException e) {
+                            Context.getCurrentLogger()
+                                    .log(Level.WARNING,
+                                            "An error occured while discovering the engine helpers.",
+                                            e);
+                        } finally {
+                            this.running = false;
+                            this.done = true;
+                        }
+                    }
+                }
+            }
+        }
+    }
+
     public static final String DESCRIPTOR = "META-INF/services";
 
     public static final String DESCRIPTOR_AUTHENTICATOR = "org.restlet.engine.security.AuthenticatorHelper";
@@ -436,10 +501,29 @@ public class Engine {
         configureLog();
     }
 
+    // [ifndef gwt] member
+    /** Lazy discovery of the authenticator helpers. */
+    private final HelperDiscovery authenticatorsDiscovery;
+
     // [ifndef gwt] member
     /** Class loader to use for dynamic class loading. */
     private volatile ClassLoader classLoader;
 
+    /** Lazy discovery of the client and server connectors. */
+    private final HelperDiscovery connectorsDiscovery;
+
+    // [ifndef gwt] member
+    /** Lazy discovery of the converter helpers. */
+    private final HelperDiscovery convertersDiscovery;
+
+    // [ifndef gwt] member
+    /** The index of helper providers, if any. */
+    private volatile HelperIndex helperIndex;
+
+    // [ifndef gwt] member
+    /** Indicates if the index of helper providers was looked up. */
+    private volatile boolean helperIndexLoaded;
+
     /** The logger facade to use. */
     private LoggerFacade loggerFacade;
 
@@ -513,15 +597,35 @@ public class Engine {
         this.registeredConverters = new CopyOnWriteArrayList<org.restlet.engine.converter.ConverterHelper>();
         // [enddef]
 
-        if (discoverHelpers) {
-            try {
+        this.connectorsDiscovery = new HelperDiscovery(discoverHelpers) {
+            @Override
+            protected void discover() throws IOException {
                 discoverConnectors();
-                discoverProtocols();
+            }
+        };
 
-                // [ifndef gwt]
+        // [ifndef gwt]
+        this.helperIndex = null;
+        this.helperIndexLoaded = false;
+        this.authenticatorsDiscovery = new HelperDiscovery(discoverHelpers) {
+            @Override
+            protected void discover() throws IOException {
                 discoverAuthenticators();
+            }
+        };
+        this.convertersDiscovery = new HelperDiscovery(discoverHelpers) {
+            @Override
+            protected void discover() throws IOException {
                 discoverConverters();
-                // [enddef]
+            }
+        };
+        // [enddef]
+
+        if (discoverHelpers) {
+            // Protocol helpers register their methods when instantiated, so
+            // they are discovered eagerly
+            try {
+                discoverProtocols();
             } catch (IOException e) {
                 Context.getCurrentLogger()
                         .log(Level.WARNING,
@@ -779,6 +883,47 @@ public class Engine {
         return classLoader;
     }
 
+    // [ifndef gwt] method
+    /**
+     * Returns the index of helper providers declared by the
+     * "org.restlet.engine.helperIndex" system property, if any. The index is
+     * read once.
+     * 
+     * @return The index of helper providers or null.
+     */
+    public HelperIndex getHelperIndex() {
+        if (!this.helperIndexLoaded) {
+            synchronized (this) {
+                if (!this.helperIndexLoaded) {
+                    String location = System.getProperty(HelperIndex.PROPERTY);
+
+                    if (location != null) {
+                        java.net.URL indexUrl = getClassLoader().getResource(
+                                location);
+
+                        if (indexUrl == null) {
+                            Context.getCurrentLogger().log(
+                                    Level.WARNING,
+                                    "Unable to find the helper index: "
+                                            + location);
+                        } else {
+                            try {
+                                this.helperIndex = HelperIndex.read(indexUrl);
+                            } catch (IOException e) {
+                                Context.getCurrentLogger().log(Level.WARNING,
+                                        "Unable to read the helper index", e);
+                            }
+                        }
+                    }
+
+                    this.helperIndexLoaded = true;
+                }
+            }
+        }
+
+        return this.helperIndex;
+    }
+
     /**
      * Returns the logger facade to use.
      * 
@@ -811,6 +956,7 @@ public class Engine {
      * @return The list of available authentication helpers.
      */
     public List<org.restlet.engine.security.AuthenticatorHelper> getRegisteredAuthenticators() {
+        this.authenticatorsDiscovery.ensure();
         return this.registeredAuthenticators;
     }
 
@@ -820,6 +966,7 @@ public class Engine {
      * @return The list of available client connectors.
      */
     public List<ConnectorHelper<Client>> getRegisteredClients() {
+        this.connectorsDiscovery.ensure();
         return this.registeredClients;
     }
 
@@ -830,6 +977,7 @@ public class Engine {
      * @return The list of available converters.
      */
     public List<org.restlet.engine.converter.ConverterHelper> getRegisteredConverters() {
+        this.convertersDiscovery.ensure();
         return registeredConverters;
     }
 
@@ -849,6 +997,7 @@ public class Engine {
      * @return The list of available server connectors.
      */
     public List<ConnectorHelper<org.restlet.Server>> getRegisteredServers() {
+        this.connectorsDiscovery.ensure();
         return this.registeredServers;
     }
 
@@ -1000,7 +1149,9 @@ public class Engine {
 
     // [ifndef gwt] method
     /**
-     * Registers a list of helpers.
+     * Registers a list of helpers. The providers are read from the
+     * {@link HelperIndex} if one is declared, or from all the descriptors found
+     * on the classpath otherwise.
      * 
      * @param descriptorPath
      *            Classpath to the descriptor file.
@@ -1013,6 +1164,17 @@ public class Engine {
     public void registerHelpers(String descriptorPath, List<?> helpers,
             Class<?> constructorClass) throws IOException {
         ClassLoader classLoader = getClassLoader();
+        HelperIndex index = getHelperIndex();
+
+        if ((index != null) && index.contains(descriptorPath)) {
+            for (String provider : index.getProviderClassNames(descriptorPath)) {
+                registerHelper(classLoader, provider, helpers,
+                        constructorClass);
+            }
+
+            return;
+        }
+
         Enumeration<java.net.URL> configUrls = classLoader
                 .getResources(descriptorPath);
 
@@ -1119,6 +1281,8 @@ public class Engine {
      */
     public void setRegisteredAuthenticators(
             List<org.restlet.engine.security.AuthenticatorHelper> registeredAuthenticators) {
+        this.authenticatorsDiscovery.ensure();
+
         synchronized (this.registeredAuthenticators) {
             if (registeredAuthenticators != this.registeredAuthenticators) {
                 this.registeredAuthenticators.clear();
@@ -1139,6 +1303,8 @@ public class Engine {
      */
     public void setRegisteredClients(
             List<ConnectorHelper<Client>> registeredClients) {
+        this.connectorsDiscovery.ensure();
+
         synchronized (this.registeredClients) {
             if (registeredClients != this.registeredClients) {
                 this.registeredClients.clear();
@@ -1159,6 +1325,8 @@ public class Engine {
      */
     public void setRegisteredConverters(
             List<org.restlet.engine.converter.ConverterHelper> registeredConverters) {
+        this.convertersDiscovery.ensure();
+
         synchronized (this.registeredConverters) {
             if (registeredConverters != this.registeredConverters) {
                 this.registeredConverters.clear();
@@ -1197,6 +1365,8 @@ public class Engine {
      */
     public void setRegisteredServers(
             List<ConnectorHelper<org.restlet.Server>> registeredServers) {
+        this.connectorsDiscovery.ensure();
+
         synchronized (this.registeredServers) {
             if (registeredServers != this.registeredServers) {
                 this.registeredServers.clear();
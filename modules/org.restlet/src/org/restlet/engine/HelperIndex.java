@@ -0,0 +1,283 @@
+/**
+ * Copyright 2005-2013 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.engine;
+
+import java.io.BufferedReader;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.restlet.engine.io.IoUtils;
+
+// [excludes gwt]
+/**
+ * Index of the helper providers declared in the "META-INF/services"
+ * descriptors of a classpath. When the "org.restlet.engine.helperIndex" system
+ * property gives the classpath location of an index, the {@link Engine} reads
+ * the providers from it instead of scanning the descriptors of every JAR.<br>
+ * <br>
+ * The index is typically generated at build time, once the final classpath is
+ * known, by invoking the {@link #main(String[])} method with the path of the
+ * file to generate. Each line associates a descriptor path with a provider
+ * class name, in the discovery order: <br>
+ * <code>META-INF/services/org.restlet.engine.ClientHelper=org.restlet.ext.httpclient.HttpClientHelper</code>
+ */
+public class HelperIndex {
+
+    /** The name of the system property giving the index location. */
+    public static final String PROPERTY = "org.restlet.engine.helperIndex";
+
+    /** The descriptors indexed by default. */
+    private static final List<String> DESCRIPTOR_PATHS = Arrays.asList(
+            Engine.DESCRIPTOR_AUTHENTICATOR_PATH,
+            Engine.DESCRIPTOR_CLIENT_PATH, Engine.DESCRIPTOR_CONVERTER_PATH,
+            Engine.DESCRIPTOR_PROTOCOL_PATH, Engine.DESCRIPTOR_SERVER_PATH);
+
+    /**
+     * Generates the index of the current classpath.
+     * 
+     * @param args
+     *            The path of the file to generate, the standard output being
+     *            used otherwise.
+     * @throws IOException
+     */
+    public static void main(String[] args) throws IOException {
+        HelperIndex index = scan(Thread.currentThread()
+                .getContextClassLoader());
+        Writer writer = (args.length > 0) ? new OutputStreamWriter(
+                new FileOutputStream(args[0]), "utf-8")
+                : new OutputStreamWriter(System.out, "utf-8");
+
+        try {
+            index.write(writer);
+        } finally {
+            if (args.length > 0) {
+                writer.close();
+            } else {
+                // Leave the standard output open
+                writer.flush();
+            }
+        }
+    }
+
+    /**
+     * Parses a line to extract the provider class name.
+     * 
+     * @param line
+     *            The line to parse.
+     * @return The provider's class name or an empty string.
+     */
+    private static String getProviderClassName(String line) {
+        int index = line.indexOf('#');
+
+        if (index != -1) {
+            line = line.substring(0, index);
+        }
+
+        return line.trim();
+    }
+
+    /**
+     * Reads an index.
+     * 
+     * @param indexUrl
+     *            The index location.
+     * @return The index read.
+     * @throws IOException
+     */
+    public static HelperIndex read(URL indexUrl) throws IOException {
+        HelperIndex result = new HelperIndex();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(
+                indexUrl.openStream(), "utf-8"), IoUtils.BUFFER_SIZE);
+
+        try {
+            String line = reader.readLine();
+
+            while (line != null) {
+                line = getProviderClassName(line);
+                int index = line.indexOf('=');
+
+                if (index != -1) {
+                    result.add(line.substring(0, index).trim(), line
+                            .substring(index + 1).trim());
+                }
+
+                line = reader.readLine();
+            }
+        } finally {
+            reader.close();
+        }
+
+        return result;
+    }
+
+    /**
+     * Builds the index of the default descriptors visible from a class loader.
+     * 
+     * @param classLoader
+     *            The class loader to scan.
+     * @return The index built.
+     * @throws IOException
+     */
+    public static HelperIndex scan(ClassLoader classLoader) throws IOException {
+        HelperIndex result = new HelperIndex();
+
+        for (String descriptorPath : DESCRIPTOR_PATHS) {
+            // Indexed descriptors are known even without provider
+            result.getProviders(descriptorPath);
+
+            for (Enumeration<URL> configUrls = classLoader
+                    .getResources(descriptorPath); configUrls
+                    .hasMoreElements();) {
+                BufferedReader reader = new BufferedReader(
+                        new InputStreamReader(configUrls.nextElement()
+                                .openStream(), "utf-8"), IoUtils.BUFFER_SIZE);
+
+                try {
+                    String line = reader.readLine();
+
+                    while (line != null) {
+                        result.add(descriptorPath, getProviderClassName(line));
+                        line = reader.readLine();
+                    }
+                } finally {
+                    reader.close();
+                }
+            }
+        }
+
+        return result;
+    }
+
+    /** The provider class names by descriptor path. */
+    private final Map<String, List<String>> providers;
+
+    /**
+     * Constructor.
+     */
+    public HelperIndex() {
+        this.providers = new LinkedHashMap<String, List<String>>();
+    }
+
+    /**
+     * Adds a provider to a descriptor.
+     * 
+     * @param descriptorPath
+     *            The descriptor path.
+     * @param provider
+     *            The provider class name.
+     */
+    public void add(String descriptorPath, String provider) {
+        if (!provider.equals("")) {
+            getProviders(descriptorPath).add(provider);
+        }
+    }
+
+    /**
+     * Indicates if a descriptor is indexed. The default descriptors are always
+     * indexed, even when no provider was found for them.
+     * 
+     * @param descriptorPath
+     *            The descriptor path.
+     * @return True if the descriptor is indexed.
+     */
+    public boolean contains(String descriptorPath) {
+        return this.providers.containsKey(descriptorPath)
+                || DESCRIPTOR_PATHS.contains(descriptorPath);
+    }
+
+    /**
+     * Returns the modifiable list of providers of a descriptor.
+     * 
+     * @param descriptorPath
+     *            The descriptor path.
+     * @return The list of providers of the descriptor.
+     */
+    private List<String> getProviders(String descriptorPath) {
+        List<String> result = this.providers.get(descriptorPath);
+
+        if (result == null) {
+            result = new ArrayList<String>();
+            this.providers.put(descriptorPath, result);
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the providers of a descriptor, in discovery order.
+     * 
+     * @param descriptorPath
+     *            The descriptor path.
+     * @return The providers of the descriptor.
+     */
+    public List<String> getProviderClassNames(String descriptorPath) {
+        List<String> result = this.providers.get(descriptorPath);
+        return (result == null) ? Collections.<String> emptyList()
+                : Collections.unmodifiableList(result);
+    }
+
+    /**
+     * Writes the index.
+     * 
+     * @param writer
+     *            The writer to use.
+     */
+    public void write(Writer writer) {
+        PrintWriter pw = new PrintWriter(writer);
+        pw.println("# Restlet helper index");
+
+        for (Map.Entry<String, List<String>> entry : this.providers.entrySet()) {
+            for (String provider : entry.getValue()) {
+                pw.print(entry.getKey());
+                pw.print('=');
+                pw.println(provider);
+            }
+        }
+
+        pw.flush();
+    }
+
+}
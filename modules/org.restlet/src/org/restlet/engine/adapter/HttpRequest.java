@@ -41,6 +41,7 @@ import java.util.logging.Level;
 
 import org.restlet.Context;
 import org.restlet.Request;
+import org.restlet.Response;
 import org.restlet.data.CacheDirective;
 import org.restlet.data.ChallengeResponse;
 import org.restlet.data.ClientInfo;
@@ -91,6 +92,9 @@ public class HttpRequest extends Request {
         }
     }
 
+    /** The server adapter that converted the call, used to commit it later. */
+    private volatile ServerAdapter adapter;
+
     /** Indicates if the cache control data was parsed and added. */
     private volatile boolean cacheDirectivesAdded;
 
@@ -203,11 +207,50 @@ public class HttpRequest extends Request {
         return getHttpCall().abort();
     }
 
+    /**
+     * Commits the given response. If the underlying HTTP call has been
+     * suspended, the response is immediately sent back to the client via the
+     * server adapter, then the call is completed. Otherwise, the response is
+     * only marked as committed and will be sent when the handling thread
+     * returns to the connector.
+     * 
+     * @param response
+     *            The response to commit.
+     */
+    @Override
+    public void commit(Response response) {
+        if (response instanceof HttpResponse) {
+            HttpResponse httpResponse = (HttpResponse) response;
+            boolean resume = false;
+
+            synchronized (httpResponse) {
+                if (!httpResponse.isCommitted()) {
+                    httpResponse.setCommitted(true);
+                    resume = getHttpCall().isSuspended();
+                }
+            }
+
+            if (resume && (getAdapter() != null)) {
+                getAdapter().commit(httpResponse);
+            }
+        }
+    }
+
     @Override
     public void flushBuffers() throws IOException {
         getHttpCall().flushBuffers();
     }
 
+    /**
+     * Returns the server adapter that converted the call, used to commit it
+     * later.
+     * 
+     * @return The server adapter.
+     */
+    public ServerAdapter getAdapter() {
+        return this.adapter;
+    }
+
     @Override
     public List<CacheDirective> getCacheDirectives() {
         List<CacheDirective> result = super.getCacheDirectives();
@@ -608,6 +651,17 @@ public class HttpRequest extends Request {
         return result;
     }
 
+    /**
+     * Sets the server adapter that converted the call, used to commit it
+     * later.
+     * 
+     * @param adapter
+     *            The server adapter.
+     */
+    public void setAdapter(ServerAdapter adapter) {
+        this.adapter = adapter;
+    }
+
     @Override
     public void setChallengeResponse(ChallengeResponse response) {
         super.setChallengeResponse(response);
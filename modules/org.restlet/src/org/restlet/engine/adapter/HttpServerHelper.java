@@ -140,7 +140,10 @@ public class HttpServerHelper extends ServerHelper {
 
     /**
      * Handles the connector call. The default behavior is to create an REST
-     * call and delegate it to the attached Restlet.
+     * call and delegate it to the attached Restlet. If the response isn't
+     * committed when the Restlet returns and isn't automatically committed, the
+     * call is suspended when supported by the connector, and the response will
+     * be sent when {@link org.restlet.Response#commit()} is invoked.
      * 
      * @param httpCall
      *            The HTTP server call.
@@ -150,7 +153,10 @@ public class HttpServerHelper extends ServerHelper {
             HttpRequest request = getAdapter().toRequest(httpCall);
             HttpResponse response = new HttpResponse(httpCall, request);
             handle(request, response);
-            getAdapter().commit(response);
+
+            if (!getAdapter().suspend(response)) {
+                getAdapter().commit(response);
+            }
         } catch (Exception e) {
             getLogger().log(Level.WARNING,
                     "Error while handling an HTTP server call: ",
@@ -176,7 +176,7 @@ public class ServerAdapter extends Adapter {
 
                 if (!response.isEntityAvailable()) {
                     if ((response.getEntity() != null)
-                            && (response.getEntity().getSize() != 0)) {
+                            && (response.getEntity().getAvailableSize() != 0)) {
                         getLogger()
                                 .warning(
                                         "A response with an unavailable and potentially non empty entity was returned. Ignoring the entity for resource \""
@@ -228,6 +228,30 @@ public class ServerAdapter extends Adapter {
         }
     }
 
+    /**
+     * Suspends the HTTP call if the response hasn't been committed yet and
+     * isn't automatically committed, so that the current thread can be
+     * released. In this case, the response will be sent when
+     * {@link org.restlet.Response#commit()} is invoked. Otherwise, or if the
+     * HTTP call can't be suspended, the response must be immediately committed
+     * via {@link #commit(HttpResponse)}.
+     * 
+     * @param response
+     *            The high-level response.
+     * @return True if the HTTP call has been suspended.
+     */
+    public boolean suspend(HttpResponse response) {
+        synchronized (response) {
+            if (!response.isCommitted() && !response.isAutoCommitting()
+                    && response.getHttpCall().suspend()) {
+                return true;
+            }
+
+            response.setCommitted(true);
+            return false;
+        }
+    }
+
     /**
      * Converts a low-level HTTP call into a high-level uniform request.
      * 
@@ -237,6 +261,7 @@ public class ServerAdapter extends Adapter {
      */
     public HttpRequest toRequest(ServerCall httpCall) {
         HttpRequest result = new HttpRequest(getContext(), httpCall);
+        result.setAdapter(this);
         result.getAttributes().put(HeaderConstants.ATTRIBUTE_HEADERS,
                 httpCall.getRequestHeaders());
 
@@ -106,7 +106,8 @@ public abstract class ServerCall extends Call {
     public abstract boolean abort();
 
     /**
-     * Complete the response
+     * Complete the response. When the call has been suspended, this also
+     * resumes the underlying connector call.
      */
     public void complete() {
 
@@ -338,6 +339,17 @@ public abstract class ServerCall extends Call {
         return true;
     }
 
+    /**
+     * Indicates if the call has been suspended, releasing the thread that
+     * handled it until the response is committed. Returns false by default.
+     * 
+     * @return True if the call has been suspended.
+     * @see #suspend()
+     */
+    public boolean isSuspended() {
+        return false;
+    }
+
     /**
      * Parses the "host" header to set the server host and port properties.
      */
@@ -501,6 +513,19 @@ public abstract class ServerCall extends Call {
                 && !response.getEntity().hasKnownSize();
     }
 
+    /**
+     * Suspends the call so that the thread that handled it can be released
+     * before the response is committed. The response will then be sent later,
+     * when {@link Response#commit()} is invoked from another thread, and the
+     * call completed via {@link #complete()}. Returns false by default, meaning
+     * that suspension isn't supported by the connector.
+     * 
+     * @return True if the call has been suspended.
+     */
+    public boolean suspend() {
+        return false;
+    }
+
     /**
      * Effectively writes the response body. The entity to write is guaranteed
      * to be non null. Attempts to write the entity on the response channel or
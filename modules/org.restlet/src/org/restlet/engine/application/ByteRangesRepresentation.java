@@ -0,0 +1,316 @@
+/**
+ * Copyright 2005-2013 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.engine.application;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+
+import org.restlet.data.CharacterSet;
+import org.restlet.data.MediaType;
+import org.restlet.data.Parameter;
+import org.restlet.data.Range;
+import org.restlet.engine.header.ContentType;
+import org.restlet.engine.header.HeaderConstants;
+import org.restlet.engine.header.RangeWriter;
+import org.restlet.representation.FileRepresentation;
+import org.restlet.representation.OutputRepresentation;
+import org.restlet.representation.Representation;
+import org.restlet.util.Series;
+
+// [excludes gwt]
+/**
+ * Representation exposing several ranges of the content of a wrapped
+ * representation as a "multipart/byteranges" entity. The wrapped
+ * representation must have a known size. The ranges are sorted and the
+ * overlapping or adjacent ones are coalesced, so the parts can be written
+ * while reading the wrapped content once. Parts of a file are directly read
+ * from the start index of their range (see {@link RangeRepresentation}). The
+ * entity tag, modification date, expiration date and disposition of the
+ * wrapped representation are kept.
+ */
+public class ByteRangesRepresentation extends OutputRepresentation {
+
+    /** The line separator. */
+    private static final String CRLF = "\r\n";
+
+    /** Orders absolute ranges by start index. */
+    private static final Comparator<Range> INDEX_COMPARATOR = new Comparator<Range>() {
+        public int compare(Range r1, Range r2) {
+            return (r1.getIndex() < r2.getIndex()) ? -1 : ((r1.getIndex() == r2
+                    .getIndex()) ? 0 : 1);
+        }
+    };
+
+    /**
+     * Converts a range into a range with an absolute start index and a
+     * definite size.
+     * 
+     * @param range
+     *            The range to convert.
+     * @param totalSize
+     *            The size of the complete content.
+     * @return The absolute range or null if it can't be satisfied.
+     */
+    static Range toAbsolute(Range range, long totalSize) {
+        long start;
+        long end;
+
+        if (range.getIndex() == Range.INDEX_LAST) {
+            start = (range.getSize() == Range.SIZE_MAX) ? 0 : Math.max(0,
+                    totalSize - range.getSize());
+            end = totalSize;
+        } else {
+            start = range.getIndex();
+            end = (range.getSize() == Range.SIZE_MAX) ? totalSize : Math.min(
+                    totalSize, range.getIndex() + range.getSize());
+        }
+
+        return (start < end) ? new Range(start, end - start) : null;
+    }
+
+    /** The boundary separating the parts. */
+    private final String boundary;
+
+    /** The headers of each part. */
+    private final List<String> headers;
+
+    /** The coalesced satisfiable ranges, sorted by absolute start index. */
+    private final List<Range> ranges;
+
+    /** The wrapped representation. */
+    private final Representation wrappedRepresentation;
+
+    /**
+     * Constructor. Ranges starting after the end of the wrapped content are
+     * ignored, overlapping or adjacent ones are coalesced.
+     * 
+     * @param wrappedRepresentation
+     *            The wrapped representation with a complete content.
+     * @param ranges
+     *            The ranges to expose.
+     */
+    public ByteRangesRepresentation(Representation wrappedRepresentation,
+            List<Range> ranges) {
+        super(MediaType.MULTIPART_BYTERANGES);
+        this.wrappedRepresentation = wrappedRepresentation;
+        this.boundary = UUID.randomUUID().toString().replace("-", "");
+        this.ranges = new ArrayList<Range>();
+        this.headers = new ArrayList<String>();
+        Series<Parameter> parameters = new Series<Parameter>(Parameter.class);
+        parameters.add("boundary", this.boundary);
+        setMediaType(new MediaType(MediaType.MULTIPART_BYTERANGES.getName(),
+                parameters));
+
+        // Keep the validators and cache metadata of the complete entity
+        setTag(wrappedRepresentation.getTag());
+        setModificationDate(wrappedRepresentation.getModificationDate());
+        setExpirationDate(wrappedRepresentation.getExpirationDate());
+        setDisposition(wrappedRepresentation.getDisposition());
+
+        long totalSize = wrappedRepresentation.getSize();
+        String contentType = null;
+
+        if (wrappedRepresentation.getMediaType() != null) {
+            contentType = new ContentType(wrappedRepresentation.getMediaType(),
+                    wrappedRepresentation.getCharacterSet()).toString();
+        }
+
+        List<Range> absolutes = new ArrayList<Range>();
+
+        for (Range range : ranges) {
+            Range absolute = toAbsolute(range, totalSize);
+
+            if (absolute != null) {
+                absolutes.add(absolute);
+            }
+        }
+
+        Collections.sort(absolutes, INDEX_COMPARATOR);
+        Range last = null;
+
+        for (Range absolute : absolutes) {
+            if ((last != null)
+                    && (absolute.getIndex() <= (last.getIndex() + last
+                            .getSize()))) {
+                last.setSize(Math.max(last.getSize(), absolute.getIndex()
+                        + absolute.getSize() - last.getIndex()));
+            } else {
+                this.ranges.add(absolute);
+                last = absolute;
+            }
+        }
+
+        long size = 0;
+
+        for (Range absolute : this.ranges) {
+            StringBuilder sb = new StringBuilder();
+            sb.append(CRLF).append("--").append(this.boundary).append(CRLF);
+
+            if (contentType != null) {
+                sb.append(HeaderConstants.HEADER_CONTENT_TYPE).append(": ")
+                        .append(contentType).append(CRLF);
+            }
+
+            sb.append(HeaderConstants.HEADER_CONTENT_RANGE).append(": ")
+                    .append(RangeWriter.write(absolute, totalSize))
+                    .append(CRLF).append(CRLF);
+
+            this.headers.add(sb.toString());
+            size += sb.length() + absolute.getSize();
+        }
+
+        size += getTrailer().length();
+        setSize(size);
+    }
+
+    /**
+     * Returns the coalesced satisfiable ranges, sorted by absolute start index.
+     * 
+     * @return The satisfiable ranges.
+     */
+    public List<Range> getRanges() {
+        return this.ranges;
+    }
+
+    /**
+     * Returns the final boundary.
+     * 
+     * @return The final boundary.
+     */
+    private String getTrailer() {
+        return CRLF + "--" + this.boundary + "--" + CRLF;
+    }
+
+    /**
+     * Indicates if the parts can be directly read from the start index of
+     * their range.
+     * 
+     * @return True if the parts can be directly read from their start index.
+     */
+    private boolean isSeekable() {
+        return (this.wrappedRepresentation instanceof FileRepresentation)
+                && (((FileRepresentation) this.wrappedRepresentation)
+                        .getFile() != null);
+    }
+
+    /**
+     * Skips bytes of the wrapped content then copies a given number of bytes.
+     * 
+     * @param inputStream
+     *            The wrapped content.
+     * @param skip
+     *            The number of bytes to skip.
+     * @param length
+     *            The number of bytes to copy.
+     * @param outputStream
+     *            The output stream.
+     * @throws IOException
+     */
+    private void transfer(InputStream inputStream, long skip, long length,
+            OutputStream outputStream) throws IOException {
+        while (skip > 0) {
+            long skipped = inputStream.skip(skip);
+
+            if (skipped <= 0) {
+                if (inputStream.read() == -1) {
+                    throw new EOFException(
+                            "The wrapped content is shorter than expected");
+                }
+
+                skipped = 1;
+            }
+
+            skip -= skipped;
+        }
+
+        byte[] buffer = new byte[2048];
+
+        while (length > 0) {
+            int read = inputStream.read(buffer, 0,
+                    (int) Math.min(buffer.length, length));
+
+            if (read == -1) {
+                throw new EOFException(
+                        "The wrapped content is shorter than expected");
+            }
+
+            outputStream.write(buffer, 0, read);
+            length -= read;
+        }
+    }
+
+    @Override
+    public void write(OutputStream outputStream) throws IOException {
+        boolean seekable = isSeekable();
+        InputStream inputStream = seekable ? null : this.wrappedRepresentation
+                .getStream();
+        long position = 0;
+        byte[] bytes;
+
+        try {
+            for (int i = 0; i < this.ranges.size(); i++) {
+                Range range = this.ranges.get(i);
+                bytes = this.headers.get(i).getBytes(
+                        CharacterSet.ISO_8859_1.getName());
+                outputStream.write(bytes);
+
+                if (seekable) {
+                    new RangeRepresentation(this.wrappedRepresentation, range)
+                            .write(outputStream);
+                } else {
+                    // The sorted ranges don't overlap, keep reading forward
+                    transfer(inputStream, range.getIndex() - position,
+                            range.getSize(), outputStream);
+                    position = range.getIndex() + range.getSize();
+                }
+            }
+        } finally {
+            if (inputStream != null) {
+                inputStream.close();
+            }
+        }
+
+        outputStream.write(getTrailer().getBytes(
+                CharacterSet.ISO_8859_1.getName()));
+        outputStream.flush();
+    }
+
+}
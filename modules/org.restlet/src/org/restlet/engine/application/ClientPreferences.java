@@ -0,0 +1,242 @@
+/**
+ * Copyright 2005-2013 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.engine.application;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.restlet.data.CharacterSet;
+import org.restlet.data.ClientInfo;
+import org.restlet.data.Encoding;
+import org.restlet.data.Language;
+import org.restlet.data.MediaType;
+import org.restlet.data.Metadata;
+import org.restlet.data.Preference;
+import org.restlet.representation.Variant;
+import org.restlet.service.MetadataService;
+
+/**
+ * Immutable set of client preferences used by a content negotiation algorithm,
+ * shared by all the requests with the same normalized preferences. It also
+ * memoizes the score of the variant metadata relatively to these preferences.
+ * 
+ * @see StrictConneg#getPreferences()
+ */
+public class ClientPreferences {
+
+    /** The maximum number of variant scores memoized. */
+    public static final int MAX_SCORES = 256;
+
+    /**
+     * Appends the normalized form of a list of preferences to a key.
+     * 
+     * @param key
+     *            The key to update.
+     * @param prefs
+     *            The preferences to append.
+     */
+    private static <T extends Metadata> void append(StringBuilder key,
+            List<Preference<T>> prefs) {
+        for (Preference<T> pref : prefs) {
+            key.append(pref.getMetadata().getName());
+
+            if (pref.getMetadata() instanceof MediaType) {
+                key.append(((MediaType) pref.getMetadata()).getParameters());
+            }
+
+            key.append(';').append(pref.getQuality()).append(',');
+        }
+
+        key.append('|');
+    }
+
+    /**
+     * Returns a key that identifies the client preferences of a request and
+     * the default metadata that can enrich them.
+     * 
+     * @param clientInfo
+     *            The client info holding the preferences.
+     * @param metadataService
+     *            The metadata service providing default metadata values.
+     * @return The normalized key.
+     */
+    public static String getKey(ClientInfo clientInfo,
+            MetadataService metadataService) {
+        StringBuilder result = new StringBuilder();
+        append(result, clientInfo.getAcceptedMediaTypes());
+        append(result, clientInfo.getAcceptedLanguages());
+        append(result, clientInfo.getAcceptedCharacterSets());
+        append(result, clientInfo.getAcceptedEncodings());
+
+        if (metadataService != null) {
+            result.append(metadataService.getDefaultMediaType()).append('|')
+                    .append(metadataService.getDefaultLanguage()).append('|')
+                    .append(metadataService.getDefaultCharacterSet())
+                    .append('|')
+                    .append(metadataService.getDefaultEncoding());
+        }
+
+        return result.toString();
+    }
+
+    /**
+     * Returns an unmodifiable copy of a list.
+     * 
+     * @param list
+     *            The list to copy.
+     * @return The unmodifiable copy or null.
+     */
+    private static <T> List<T> copy(List<T> list) {
+        return (list == null) ? null : Collections
+                .unmodifiableList(new ArrayList<T>(list));
+    }
+
+    /** The character set preferences. */
+    private final List<Preference<CharacterSet>> characterSetPrefs;
+
+    /** The encoding preferences. */
+    private final List<Preference<Encoding>> encodingPrefs;
+
+    /** The language preferences. */
+    private final List<Preference<Language>> languagePrefs;
+
+    /** The media type preferences. */
+    private final List<Preference<MediaType>> mediaTypePrefs;
+
+    /** The memoized variant scores, keyed by variant metadata. */
+    private final ConcurrentMap<List<Object>, Float> scores;
+
+    /**
+     * Constructor.
+     * 
+     * @param characterSetPrefs
+     *            The character set preferences.
+     * @param encodingPrefs
+     *            The encoding preferences.
+     * @param languagePrefs
+     *            The language preferences.
+     * @param mediaTypePrefs
+     *            The media type preferences.
+     */
+    public ClientPreferences(List<Preference<CharacterSet>> characterSetPrefs,
+            List<Preference<Encoding>> encodingPrefs,
+            List<Preference<Language>> languagePrefs,
+            List<Preference<MediaType>> mediaTypePrefs) {
+        this.characterSetPrefs = copy(characterSetPrefs);
+        this.encodingPrefs = copy(encodingPrefs);
+        this.languagePrefs = copy(languagePrefs);
+        this.mediaTypePrefs = copy(mediaTypePrefs);
+        this.scores = new ConcurrentHashMap<List<Object>, Float>();
+    }
+
+    /**
+     * Returns the character set preferences.
+     * 
+     * @return The character set preferences.
+     */
+    public List<Preference<CharacterSet>> getCharacterSetPrefs() {
+        return characterSetPrefs;
+    }
+
+    /**
+     * Returns the encoding preferences.
+     * 
+     * @return The encoding preferences.
+     */
+    public List<Preference<Encoding>> getEncodingPrefs() {
+        return encodingPrefs;
+    }
+
+    /**
+     * Returns the language preferences.
+     * 
+     * @return The language preferences.
+     */
+    public List<Preference<Language>> getLanguagePrefs() {
+        return languagePrefs;
+    }
+
+    /**
+     * Returns the media type preferences.
+     * 
+     * @return The media type preferences.
+     */
+    public List<Preference<MediaType>> getMediaTypePrefs() {
+        return mediaTypePrefs;
+    }
+
+    /**
+     * Returns the memoized score of the variant metadata.
+     * 
+     * @param variant
+     *            The variant.
+     * @return The memoized score or null.
+     */
+    public Float getScore(Variant variant) {
+        return this.scores.get(getScoreKey(variant));
+    }
+
+    /**
+     * Returns the key identifying the metadata of a variant.
+     * 
+     * @param variant
+     *            The variant.
+     * @return The key identifying the metadata of a variant.
+     */
+    private List<Object> getScoreKey(Variant variant) {
+        return Arrays.asList(variant.getMediaType(),
+                variant.getCharacterSet(),
+                new ArrayList<Language>(variant.getLanguages()),
+                new ArrayList<Encoding>(variant.getEncodings()));
+    }
+
+    /**
+     * Memoizes the score of the variant metadata, unless too many scores are
+     * already memoized.
+     * 
+     * @param variant
+     *            The variant.
+     * @param score
+     *            The score of the variant metadata.
+     */
+    public void setScore(Variant variant, float score) {
+        if (this.scores.size() < MAX_SCORES) {
+            this.scores.put(getScoreKey(variant), score);
+        }
+    }
+}
@@ -33,8 +33,14 @@
 
 package org.restlet.engine.application;
 
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
 
 import org.restlet.Context;
 import org.restlet.Request;
@@ -42,9 +48,14 @@ import org.restlet.Response;
 import org.restlet.data.ClientInfo;
 import org.restlet.data.Encoding;
 import org.restlet.data.Preference;
+import org.restlet.data.Reference;
+import org.restlet.data.Tag;
+import org.restlet.representation.ByteArrayRepresentation;
+import org.restlet.representation.FileRepresentation;
 import org.restlet.representation.Representation;
 import org.restlet.routing.Filter;
 import org.restlet.service.EncoderService;
+import org.restlet.service.MetadataService;
 
 // [excludes gwt]
 /**
@@ -54,6 +65,10 @@ import org.restlet.service.EncoderService;
  * If the {@link org.restlet.representation.Representation} has an unknown size,
  * it will always be a candidate for encoding. Candidate representations need to
  * respect media type criteria by the lists of accepted and ignored media types.
+ * <br>
+ * Depending on the {@link EncoderService} settings, precompressed sibling files
+ * or previously compressed content are used instead of compressing the entity
+ * again.<br>
  * 
  * Concurrency note: instances of this class or its subclasses can be invoked by
  * several threads at the same time and therefore must be thread-safe. You
@@ -65,6 +80,12 @@ import org.restlet.service.EncoderService;
  */
 public class Encoder extends Filter {
 
+    /** The cached encoded content, in access order. */
+    private final LinkedHashMap<String, byte[]> encodedCache;
+
+    /** The total size of the cached encoded content. */
+    private long encodedCacheLength;
+
     /** Indicates if the request entity should be encoded. */
     private final boolean encodingRequest;
 
@@ -92,6 +113,8 @@ public class Encoder extends Filter {
         this.encodingRequest = encodingRequest;
         this.encodingResponse = encodingResponse;
         this.encoderService = encoderService;
+        this.encodedCache = new LinkedHashMap<String, byte[]>(16, 0.75f, true);
+        this.encodedCacheLength = 0;
     }
 
     /**
@@ -109,7 +132,7 @@ public class Encoder extends Filter {
         if (isEncodingResponse()
                 && getEncoderService().canEncode(response.getEntity())) {
             response.setEntity(encode(request.getClientInfo(),
-                    response.getEntity()));
+                    request.getResourceRef(), response.getEntity()));
         }
     }
 
@@ -147,11 +170,39 @@ public class Encoder extends Filter {
      */
     public Representation encode(ClientInfo client,
             Representation representation) {
+        return encode(client, null, representation);
+    }
+
+    /**
+     * Encodes a given representation of a resource if an encoding is supported
+     * by the client. The encoded content can be cached for the resource.
+     * 
+     * @param client
+     *            The client preferences to use.
+     * @param resourceRef
+     *            The reference of the represented resource or null.
+     * @param representation
+     *            The representation to encode.
+     * @return The encoded representation or the original one if no encoding
+     *         supported by the client.
+     */
+    public Representation encode(ClientInfo client, Reference resourceRef,
+            Representation representation) {
         Representation result = representation;
         Encoding bestEncoding = getBestEncoding(client);
 
         if (bestEncoding != null) {
-            result = new EncodeRepresentation(bestEncoding, representation);
+            result = getPrecompressedRepresentation(bestEncoding,
+                    representation);
+
+            if (result == null) {
+                result = getCachedRepresentation(bestEncoding, resourceRef,
+                        representation);
+            }
+
+            if (result == null) {
+                result = new EncodeRepresentation(bestEncoding, representation);
+            }
         }
 
         return result;
@@ -192,6 +243,77 @@ public class Encoder extends Filter {
         return bestEncoding;
     }
 
+    /**
+     * Returns a representation whose content was encoded once and cached for a
+     * resource. The representation must have a strong entity tag, a known
+     * size, a non transient content and no range. Returns null if the cache is
+     * disabled or if the representation can't be cached.
+     * 
+     * @param encoding
+     *            The encoding to apply.
+     * @param resourceRef
+     *            The reference of the represented resource.
+     * @param representation
+     *            The representation to encode.
+     * @return The encoded representation or null.
+     */
+    protected Representation getCachedRepresentation(Encoding encoding,
+            Reference resourceRef, Representation representation) {
+        long maxLength = getEncoderService().getEncodedCacheSize();
+        Tag tag = representation.getTag();
+
+        if ((maxLength <= 0) || Encoding.IDENTITY.equals(encoding)
+                || (resourceRef == null) || (tag == null) || tag.isWeak()
+                || !representation.hasKnownSize()
+                || (representation.getSize() > maxLength)
+                || representation.isTransient()
+                || (representation.getRange() != null)) {
+            return null;
+        }
+
+        String key = encoding.getName() + " " + tag.format() + " "
+                + resourceRef.getTargetRef().toString(true, false);
+        byte[] content;
+
+        synchronized (this.encodedCache) {
+            content = this.encodedCache.get(key);
+        }
+
+        if (content == null) {
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+
+            try {
+                new EncodeRepresentation(encoding, representation).write(baos);
+            } catch (IOException e) {
+                getLogger().log(Level.FINE,
+                        "Unable to encode the representation to cache", e);
+                return null;
+            }
+
+            content = baos.toByteArray();
+
+            synchronized (this.encodedCache) {
+                byte[] previous = this.encodedCache.put(key, content);
+
+                if (previous != null) {
+                    this.encodedCacheLength -= previous.length;
+                }
+
+                this.encodedCacheLength += content.length;
+
+                for (Iterator<Map.Entry<String, byte[]>> iter = this.encodedCache
+                        .entrySet().iterator(); (this.encodedCacheLength > maxLength)
+                        && iter.hasNext();) {
+                    this.encodedCacheLength -= iter.next().getValue().length;
+                    iter.remove();
+                }
+            }
+        }
+
+        return new PreEncodedRepresentation(encoding, representation,
+                new ByteArrayRepresentation(content, null, content.length));
+    }
+
     /**
      * Returns the parent encoder service.
      * 
@@ -201,6 +323,70 @@ public class Encoder extends Filter {
         return encoderService;
     }
 
+    /**
+     * Returns the extension of the precompressed sibling files for a given
+     * encoding. The extension registered in the {@link MetadataService} is
+     * preferred, "gz" and "deflate" being used otherwise.
+     * 
+     * @param encoding
+     *            The encoding.
+     * @return The extension or null.
+     */
+    protected String getPrecompressedExtension(Encoding encoding) {
+        String result = null;
+
+        if (getApplication() != null) {
+            MetadataService metadataService = getApplication()
+                    .getMetadataService();
+            result = metadataService.getExtension(encoding);
+        }
+
+        if (result == null) {
+            if (Encoding.GZIP.equals(encoding)) {
+                result = "gz";
+            } else if (Encoding.DEFLATE.equals(encoding)) {
+                result = "deflate";
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns a representation based on a precompressed sibling of the file
+     * of a given representation, if one exists and isn't older than the file.
+     * 
+     * @param encoding
+     *            The encoding to apply.
+     * @param representation
+     *            The representation to encode.
+     * @return The precompressed representation or null.
+     */
+    protected Representation getPrecompressedRepresentation(
+            Encoding encoding, Representation representation) {
+        Representation result = null;
+
+        if (getEncoderService().isUsingPrecompressedFiles()
+                && (representation instanceof FileRepresentation)
+                && (representation.getRange() == null)) {
+            File file = ((FileRepresentation) representation).getFile();
+            String extension = getPrecompressedExtension(encoding);
+
+            if ((file != null) && (extension != null)) {
+                File sibling = new File(file.getPath() + "." + extension);
+
+                if (sibling.isFile()
+                        && (sibling.lastModified() >= file.lastModified())) {
+                    result = new PreEncodedRepresentation(encoding,
+                            representation, new FileRepresentation(sibling,
+                                    representation.getMediaType()));
+                }
+            }
+        }
+
+        return result;
+    }
+
     /**
      * Returns the list of supported encodings. By default it calls
      * {@link EncodeRepresentation#getSupportedEncodings()} static method.
@@ -76,10 +76,31 @@ public class FlexibleConneg extends StrictConneg {
      *            The metadata service used to get default metadata values.
      */
     public FlexibleConneg(Request request, MetadataService metadataService) {
-        super(request, metadataService);
+        this(request, metadataService, null);
+    }
+
+    /**
+     * Constructor.
+     * 
+     * @param request
+     *            The request including client preferences.
+     * @param metadataService
+     *            The metadata service used to get default metadata values.
+     * @param preferences
+     *            The shared enriched preferences previously obtained with the
+     *            same request preferences and metadata service, or null.
+     */
+    public FlexibleConneg(Request request, MetadataService metadataService,
+            ClientPreferences preferences) {
+        super(request, metadataService, preferences);
         ClientInfo clientInfo = request.getClientInfo();
 
-        if (clientInfo != null) {
+        if (preferences != null) {
+            this.languagePrefs = preferences.getLanguagePrefs();
+            this.mediaTypePrefs = preferences.getMediaTypePrefs();
+            this.characterSetPrefs = preferences.getCharacterSetPrefs();
+            this.encodingPrefs = preferences.getEncodingPrefs();
+        } else if (clientInfo != null) {
             // Get the enriched user preferences
             this.languagePrefs = getEnrichedPreferences(
                     clientInfo.getAcceptedLanguages(),
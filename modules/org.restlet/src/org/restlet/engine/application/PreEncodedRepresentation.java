@@ -0,0 +1,167 @@
+/**
+ * Copyright 2005-2013 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.engine.application;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.restlet.data.Encoding;
+import org.restlet.engine.io.BioUtils;
+import org.restlet.representation.Representation;
+import org.restlet.util.WrapperRepresentation;
+
+// [excludes gwt]
+/**
+ * Representation whose content was encoded ahead of time, for example a
+ * precompressed sibling file or bytes compressed once and cached. The metadata
+ * are those of the wrapped representation, plus the applied encoding, while
+ * the content is read from the encoded representation.
+ */
+public class PreEncodedRepresentation extends WrapperRepresentation {
+
+    /** The representation of the encoded content. */
+    private final Representation encodedContent;
+
+    /** The applied encoding. */
+    private final Encoding encoding;
+
+    /** The applied encodings. */
+    private volatile List<Encoding> encodings;
+
+    /**
+     * Constructor.
+     * 
+     * @param encoding
+     *            The applied encoding.
+     * @param wrappedRepresentation
+     *            The wrapped representation providing the metadata.
+     * @param encodedContent
+     *            The representation of the encoded content.
+     */
+    public PreEncodedRepresentation(Encoding encoding,
+            Representation wrappedRepresentation, Representation encodedContent) {
+        super(wrappedRepresentation);
+        this.encoding = encoding;
+        this.encodedContent = encodedContent;
+        this.encodings = null;
+    }
+
+    @Override
+    public long exhaust() throws IOException {
+        return this.encodedContent.exhaust();
+    }
+
+    @Override
+    public long getAvailableSize() {
+        return this.encodedContent.getAvailableSize();
+    }
+
+    @Override
+    public ReadableByteChannel getChannel() throws IOException {
+        return this.encodedContent.getChannel();
+    }
+
+    /**
+     * Returns the encodings of the wrapped representation followed by the
+     * applied encoding.
+     * 
+     * @return The applied encodings.
+     */
+    @Override
+    public List<Encoding> getEncodings() {
+        if (this.encodings == null) {
+            List<Encoding> result = new ArrayList<Encoding>(
+                    getWrappedRepresentation().getEncodings());
+            result.add(this.encoding);
+            this.encodings = result;
+        }
+
+        return this.encodings;
+    }
+
+    @Override
+    public Reader getReader() throws IOException {
+        return BioUtils.getReader(getStream(), getCharacterSet());
+    }
+
+    @Override
+    public long getSize() {
+        return this.encodedContent.getSize();
+    }
+
+    @Override
+    public InputStream getStream() throws IOException {
+        return this.encodedContent.getStream();
+    }
+
+    @Override
+    public String getText() throws IOException {
+        return BioUtils.toString(getStream(), getCharacterSet());
+    }
+
+    @Override
+    public boolean isTransient() {
+        return this.encodedContent.isTransient();
+    }
+
+    @Override
+    public void release() {
+        this.encodedContent.release();
+        super.release();
+    }
+
+    @Override
+    public void write(OutputStream outputStream) throws IOException {
+        this.encodedContent.write(outputStream);
+    }
+
+    @Override
+    public void write(WritableByteChannel writableChannel) throws IOException {
+        this.encodedContent.write(writableChannel);
+    }
+
+    @Override
+    public void write(java.io.Writer writer) throws IOException {
+        OutputStream os = BioUtils.getStream(writer, getCharacterSet());
+        write(os);
+        os.flush();
+    }
+
+}
@@ -38,6 +38,8 @@ import org.restlet.Request;
 import org.restlet.Response;
 import org.restlet.data.Range;
 import org.restlet.data.Status;
+import org.restlet.representation.EmptyRepresentation;
+import org.restlet.representation.Representation;
 import org.restlet.routing.Filter;
 import org.restlet.service.RangeService;
 
@@ -80,7 +82,6 @@ public class RangeFilter extends Filter {
                             // properly ranged.
                         }
                     } else {
-                        // At this time, list of ranges are not supported.
                         if (request.getRanges().size() == 1
                                 && (!request.getConditions().hasSomeRange() || request
                                         .getConditions()
@@ -88,7 +89,12 @@ public class RangeFilter extends Filter {
                                         .isSuccess())) {
                             Range requestedRange = request.getRanges().get(0);
 
-                            if ((!response.getEntity().hasKnownSize())
+                            if (response.getEntity().hasKnownSize()
+                                    && (ByteRangesRepresentation.toAbsolute(
+                                            requestedRange, response
+                                                    .getEntity().getSize()) == null)) {
+                                setUnsatisfiable(response);
+                            } else if ((!response.getEntity().hasKnownSize())
                                     && ((requestedRange.getIndex() == Range.INDEX_LAST || requestedRange
                                             .getSize() == Range.SIZE_MAX) && !(requestedRange
                                             .getIndex() == Range.INDEX_LAST && requestedRange
@@ -116,14 +122,47 @@ public class RangeFilter extends Filter {
                                         response.getEntity(), requestedRange));
                                 response.setStatus(Status.SUCCESS_PARTIAL_CONTENT);
                             }
-                        } else if (request.getRanges().size() > 1) {
-                            // Return a server error as this feature isn't
-                            // supported yet
-                            response.setStatus(Status.SERVER_ERROR_NOT_IMPLEMENTED);
-                            getLogger()
-                                    .warning(
-                                            "Multiple ranges are not supported at this time.");
-                            response.setEntity(null);
+                        } else if (request.getRanges().size() > 1
+                                && (!request.getConditions().hasSomeRange() || request
+                                        .getConditions()
+                                        .getRangeStatus(response.getEntity())
+                                        .isSuccess())) {
+                            Representation entity = response.getEntity();
+
+                            if (request.getRanges().size() > getRangeService()
+                                    .getMaxRanges()) {
+                                getLogger().fine(
+                                        "Multiple ranges ignored as more than "
+                                                + getRangeService()
+                                                        .getMaxRanges()
+                                                + " ranges were requested.");
+                            } else if (entity.hasKnownSize()) {
+                                ByteRangesRepresentation byteRanges = new ByteRangesRepresentation(
+                                        entity, request.getRanges());
+
+                                if (byteRanges.getRanges().isEmpty()) {
+                                    setUnsatisfiable(response);
+                                } else if (byteRanges.getRanges().size() == 1) {
+                                    // The ranges have been coalesced
+                                    response.setEntity(new RangeRepresentation(
+                                            entity, byteRanges.getRanges()
+                                                    .get(0)));
+                                    response.setStatus(Status.SUCCESS_PARTIAL_CONTENT);
+                                } else if (byteRanges.getSize() > entity
+                                        .getSize()) {
+                                    // Cheaper to return the entity entirely
+                                    getLogger()
+                                            .fine("Multiple ranges ignored as the parts are larger than the entity.");
+                                } else {
+                                    response.setEntity(byteRanges);
+                                    response.setStatus(Status.SUCCESS_PARTIAL_CONTENT);
+                                }
+                            } else {
+                                // The parts can't be located, return the
+                                // entity entirely
+                                getLogger()
+                                        .fine("Multiple ranges ignored as the entity has an unknown size.");
+                            }
                         }
                     }
                 } else {
@@ -133,6 +172,23 @@ public class RangeFilter extends Filter {
         }
     }
 
+    /**
+     * Answers with a 416 status as none of the requested ranges can be
+     * satisfied. The response keeps an empty entity indicating the size of the
+     * complete content in its "Content-Range" header.
+     * 
+     * @param response
+     *            The response to update.
+     */
+    private void setUnsatisfiable(Response response) {
+        Representation unsatisfied = new EmptyRepresentation();
+        unsatisfied.setSize(response.getEntity().getSize());
+        unsatisfied.setRange(new Range(0, 0));
+        response.getEntity().release();
+        response.setEntity(unsatisfied);
+        response.setStatus(Status.CLIENT_ERROR_REQUESTED_RANGE_NOT_SATISFIABLE);
+    }
+
     /**
      * Returns the Range service of the parent application.
      * 
@@ -33,23 +33,30 @@
 
 package org.restlet.engine.application;
 
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.Reader;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 import java.nio.channels.WritableByteChannel;
 
 import org.restlet.data.Range;
 import org.restlet.engine.io.BioUtils;
 import org.restlet.engine.io.NioUtils;
 import org.restlet.engine.io.RangeInputStream;
+import org.restlet.representation.FileRepresentation;
 import org.restlet.representation.Representation;
 import org.restlet.util.WrapperRepresentation;
 
 // [excludes gwt]
 /**
  * Representation that exposes only a range of the content of a wrapped
- * representation.
+ * representation. When the wrapped representation is a
+ * {@link FileRepresentation} with a known size, the range is directly read
+ * from its start index using a positioned file channel, instead of reading and
+ * discarding the preceding bytes.
  * 
  * @author Jerome Louvel
  */
@@ -90,6 +97,41 @@ public class RangeRepresentation extends WrapperRepresentation {
         return BioUtils.getAvailableSize(this);
     }
 
+    /**
+     * Returns the index of the byte following the range in the wrapped
+     * content. The size of the wrapped representation must be known.
+     * 
+     * @return The index of the byte following the range.
+     */
+    private long getEndIndex() {
+        long size = getSize();
+
+        if ((getRange().getIndex() == Range.INDEX_LAST)
+                || (getRange().getSize() == Range.SIZE_MAX)) {
+            return size;
+        }
+
+        return Math.min(size, getRange().getIndex() + getRange().getSize());
+    }
+
+    /**
+     * Returns the index of the first byte of the range in the wrapped content.
+     * The size of the wrapped representation must be known.
+     * 
+     * @return The index of the first byte of the range.
+     */
+    private long getStartIndex() {
+        if (getRange().getIndex() == Range.INDEX_LAST) {
+            if (getRange().getSize() == Range.SIZE_MAX) {
+                return 0;
+            }
+
+            return Math.max(0, getSize() - getRange().getSize());
+        }
+
+        return Math.min(getSize(), getRange().getIndex());
+    }
+
     // [ifndef gwt] method
     @Override
     public java.nio.channels.ReadableByteChannel getChannel()
@@ -115,6 +157,15 @@ public class RangeRepresentation extends WrapperRepresentation {
 
     @Override
     public InputStream getStream() throws IOException {
+        if (isSeekable()) {
+            long start = getStartIndex();
+            long length = getEndIndex() - start;
+            FileInputStream fis = ((FileRepresentation) getWrappedRepresentation())
+                    .getStream();
+            fis.getChannel().position(start);
+            return new RangeInputStream(fis, length, new Range(0, length));
+        }
+
         return new RangeInputStream(super.getStream(), getSize(), getRange());
     }
 
@@ -123,6 +174,18 @@ public class RangeRepresentation extends WrapperRepresentation {
         return BioUtils.getText(this);
     }
 
+    /**
+     * Indicates if the range can be directly read from its start index.
+     * 
+     * @return True if the range can be directly read from its start index.
+     */
+    private boolean isSeekable() {
+        return (getRange() != null)
+                && (getWrappedRepresentation() instanceof FileRepresentation)
+                && ((FileRepresentation) getWrappedRepresentation()).getFile() != null
+                && hasKnownSize();
+    }
+
     /**
      * Sets the range specific to this wrapper. This will not affect the wrapped
      * representation.
@@ -145,14 +208,55 @@ public class RangeRepresentation extends WrapperRepresentation {
 
     @Override
     public void write(OutputStream outputStream) throws IOException {
-        BioUtils.copy(getStream(), outputStream);
+        if (isSeekable()) {
+            WritableByteChannel wbc = Channels.newChannel(outputStream);
+            transferTo(wbc);
+            outputStream.flush();
+        } else {
+            BioUtils.copy(getStream(), outputStream);
+        }
     }
 
     @Override
     public void write(WritableByteChannel writableChannel) throws IOException {
-        OutputStream os = NioUtils.getStream(writableChannel);
-        write(os);
-        os.flush();
+        if (isSeekable() && NioUtils.isBlocking(writableChannel)) {
+            transferTo(writableChannel);
+        } else {
+            OutputStream os = NioUtils.getStream(writableChannel);
+            write(os);
+            os.flush();
+        }
+    }
+
+    /**
+     * Transfers the range from the wrapped file to a blocking channel.
+     * 
+     * @param writableChannel
+     *            The channel to write to.
+     * @throws IOException
+     */
+    private void transferTo(WritableByteChannel writableChannel)
+            throws IOException {
+        long position = getStartIndex();
+        long end = getEndIndex();
+        FileChannel fc = ((FileRepresentation) getWrappedRepresentation())
+                .getChannel();
+
+        try {
+            while (position < end) {
+                long count = fc.transferTo(position, end - position,
+                        writableChannel);
+
+                if (count <= 0) {
+                    // The file is shorter than expected
+                    break;
+                }
+
+                position += count;
+            }
+        } finally {
+            fc.close();
+        }
     }
 
 }
@@ -61,6 +61,9 @@ import org.restlet.service.MetadataService;
  */
 public class StrictConneg extends Conneg {
 
+    /** The shared client preferences, memoizing the variant scores. */
+    private volatile ClientPreferences preferences;
+
     /**
      * Constructor.
      * 
@@ -70,7 +73,24 @@ public class StrictConneg extends Conneg {
      *            The metadata service used to get default metadata values.
      */
     public StrictConneg(Request request, MetadataService metadataService) {
+        this(request, metadataService, null);
+    }
+
+    /**
+     * Constructor.
+     * 
+     * @param request
+     *            The request including client preferences.
+     * @param metadataService
+     *            The metadata service used to get default metadata values.
+     * @param preferences
+     *            The shared client preferences previously obtained with the
+     *            same request preferences, or null.
+     */
+    public StrictConneg(Request request, MetadataService metadataService,
+            ClientPreferences preferences) {
         super(request, metadataService);
+        this.preferences = preferences;
     }
 
     /**
@@ -79,7 +99,8 @@ public class StrictConneg extends Conneg {
      * @return The enriched list of character set preferences.
      */
     protected List<Preference<CharacterSet>> getCharacterSetPrefs() {
-        return getRequest().getClientInfo().getAcceptedCharacterSets();
+        return (this.preferences == null) ? getRequest().getClientInfo()
+                .getAcceptedCharacterSets() : this.preferences.getCharacterSetPrefs();
     }
 
     /**
@@ -88,7 +109,8 @@ public class StrictConneg extends Conneg {
      * @return The enriched list of encoding preferences.
      */
     protected List<Preference<Encoding>> getEncodingPrefs() {
-        return getRequest().getClientInfo().getAcceptedEncodings();
+        return (this.preferences == null) ? getRequest().getClientInfo()
+                .getAcceptedEncodings() : this.preferences.getEncodingPrefs();
     }
 
     /**
@@ -97,7 +119,8 @@ public class StrictConneg extends Conneg {
      * @return The enriched list of language preferences.
      */
     protected List<Preference<Language>> getLanguagePrefs() {
-        return getRequest().getClientInfo().getAcceptedLanguages();
+        return (this.preferences == null) ? getRequest().getClientInfo()
+                .getAcceptedLanguages() : this.preferences.getLanguagePrefs();
     }
 
     /**
@@ -106,7 +129,24 @@ public class StrictConneg extends Conneg {
      * @return The enriched list of media type preferences.
      */
     protected List<Preference<MediaType>> getMediaTypePrefs() {
-        return getRequest().getClientInfo().getAcceptedMediaTypes();
+        return (this.preferences == null) ? getRequest().getClientInfo()
+                .getAcceptedMediaTypes() : this.preferences.getMediaTypePrefs();
+    }
+
+    /**
+     * Returns the client preferences used by this algorithm, so they can be
+     * shared with subsequent requests having the same preferences.
+     * 
+     * @return The client preferences used by this algorithm.
+     */
+    public ClientPreferences getPreferences() {
+        if (this.preferences == null) {
+            this.preferences = new ClientPreferences(getCharacterSetPrefs(),
+                    getEncodingPrefs(), getLanguagePrefs(),
+                    getMediaTypePrefs());
+        }
+
+        return this.preferences;
     }
 
     /**
@@ -345,6 +385,52 @@ public class StrictConneg extends Conneg {
      * @return The enriched client preferences.
      */
     public float scoreVariant(Variant variant) {
+        float result = -1.0F;
+        float metadataScore = scoreVariantMetadata(variant);
+
+        if (metadataScore != -1.0F) {
+            if (variant instanceof VariantInfo) {
+                float annotationScore = scoreAnnotation(((VariantInfo) variant)
+                        .getAnnotationInfo());
+
+                // Return the weighted average score
+                result = (metadataScore + (annotationScore * 2.0F)) / 12.0F;
+
+                // Take into account the affinity with the input entity
+                result = result * ((VariantInfo) variant).getInputScore();
+            } else {
+                // Return the weighted average score
+                result = metadataScore / 10.0F;
+            }
+        }
+
+        if (Context.getCurrentLogger().isLoggable(Level.FINE)) {
+            Context.getCurrentLogger().fine(
+                    "Total score of variant \"" + variant + "\"= " + result);
+        }
+
+        return result;
+    }
+
+    /**
+     * Scores the metadata of a variant relatively to enriched client
+     * preferences. The language has a weight of 4, the media type 3, the
+     * character set 2 and the encoding 1. The score is memoized in the shared
+     * client preferences if available.
+     * 
+     * @param variant
+     *            The variant to score.
+     * @return The weighted sum of the metadata scores or -1 if a metadata
+     *         isn't acceptable.
+     */
+    protected float scoreVariantMetadata(Variant variant) {
+        Float cached = (this.preferences == null) ? null : this.preferences
+                .getScore(variant);
+
+        if (cached != null) {
+            return cached.floatValue();
+        }
+
         float result = -1.0F;
         float languageScore = scoreLanguages(variant.getLanguages());
 
@@ -359,32 +445,17 @@ public class StrictConneg extends Conneg {
                     float encodingScore = scoreEncodings(variant.getEncodings());
 
                     if (encodingScore != -1.0F) {
-                        if (variant instanceof VariantInfo) {
-                            float annotationScore = scoreAnnotation(((VariantInfo) variant)
-                                    .getAnnotationInfo());
-
-                            // Return the weighted average score
-                            result = ((languageScore * 4.0F)
-                                    + (mediaTypeScore * 3.0F)
-                                    + (characterSetScore * 2.0F)
-                                    + (encodingScore * 1.0F) + (annotationScore * 2.0F)) / 12.0F;
-                            // Take into account the affinity with the input entity
-                            result = result
-                                    * ((VariantInfo) variant).getInputScore();
-                        } else {
-                            // Return the weighted average score
-                            result = ((languageScore * 4.0F)
-                                    + (mediaTypeScore * 3.0F)
-                                    + (characterSetScore * 2.0F) + (encodingScore * 1.0F)) / 10.0F;
-                        }
+                        result = (languageScore * 4.0F)
+                                + (mediaTypeScore * 3.0F)
+                                + (characterSetScore * 2.0F)
+                                + (encodingScore * 1.0F);
                     }
                 }
             }
         }
 
-        if (Context.getCurrentLogger().isLoggable(Level.FINE)) {
-            Context.getCurrentLogger().fine(
-                    "Total score of variant \"" + variant + "\"= " + result);
+        if (this.preferences != null) {
+            this.preferences.setScore(variant, result);
         }
 
         return result;
@@ -0,0 +1,310 @@
+/**
+ * Copyright 2005-2013 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.engine.component;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Logger;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.restlet.Context;
+import org.restlet.data.MediaType;
+import org.restlet.representation.FileRepresentation;
+import org.restlet.representation.OutputRepresentation;
+import org.restlet.representation.Representation;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+
+/**
+ * Compiled form of a component XML configuration. The configuration is parsed
+ * and validated once, then only its elements and attributes, including the
+ * default values contributed by the validation, are kept and serialized. A
+ * snapshot representation has the {@link MediaType#APPLICATION_JAVA_OBJECT}
+ * media type and can be given to the {@link org.restlet.Component}
+ * constructors in place of the XML configuration, skipping the validating
+ * parse, the entity resolution and the XInclude processing at startup. When
+ * the configuration is given by reference, snapshots are recognized by their
+ * {@link #EXTENSION} extension.<br>
+ * <br>
+ * A snapshot can be produced from the command line:<br>
+ * 
+ * <pre>
+ * java org.restlet.engine.component.ComponentSnapshot component.xml component.ser
+ * </pre>
+ * 
+ * @see ComponentXmlParser
+ * @see org.restlet.Component
+ */
+public class ComponentSnapshot implements Serializable {
+
+    /**
+     * Serializable form of a configuration element.
+     */
+    private static class Entry implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        /** The attribute names and values, alternatively. */
+        private final String[] attributes;
+
+        /** The child elements. */
+        private final Entry[] children;
+
+        /** The element name. */
+        private final String name;
+
+        /**
+         * Constructor.
+         * 
+         * @param element
+         *            The DOM element to copy.
+         */
+        private Entry(Node element) {
+            this.name = element.getNodeName();
+
+            NamedNodeMap attrs = element.getAttributes();
+            int count = (attrs == null) ? 0 : attrs.getLength();
+            this.attributes = new String[count * 2];
+
+            for (int i = 0; i < count; i++) {
+                this.attributes[i * 2] = attrs.item(i).getNodeName();
+                this.attributes[i * 2 + 1] = attrs.item(i).getNodeValue();
+            }
+
+            List<Entry> entries = new ArrayList<Entry>();
+
+            for (Node child = element.getFirstChild(); child != null; child = child
+                    .getNextSibling()) {
+                if (child.getNodeType() == Node.ELEMENT_NODE) {
+                    entries.add(new Entry(child));
+                }
+            }
+
+            this.children = entries.toArray(new Entry[entries.size()]);
+        }
+
+        /**
+         * Creates the equivalent DOM element.
+         * 
+         * @param document
+         *            The owner document.
+         * @return The DOM element.
+         */
+        private Element toElement(Document document) {
+            Element result = document.createElement(this.name);
+
+            for (int i = 0; i < this.attributes.length; i += 2) {
+                result.setAttribute(this.attributes[i], this.attributes[i + 1]);
+            }
+
+            for (Entry child : this.children) {
+                result.appendChild(child.toElement(document));
+            }
+
+            return result;
+        }
+    }
+
+    /**
+     * Object input stream that only accepts the classes of a snapshot.
+     */
+    private static class SnapshotInputStream extends ObjectInputStream {
+
+        /**
+         * Constructor.
+         * 
+         * @param in
+         *            The input stream to read.
+         * @throws IOException
+         */
+        public SnapshotInputStream(InputStream in) throws IOException {
+            super(in);
+        }
+
+        @Override
+        protected Class<?> resolveClass(ObjectStreamClass desc)
+                throws IOException, ClassNotFoundException {
+            String name = desc.getName();
+
+            if (!ComponentSnapshot.class.getName().equals(name)
+                    && !Entry.class.getName().equals(name)
+                    && !("[L" + Entry.class.getName() + ";").equals(name)
+                    && !String.class.getName().equals(name)
+                    && !String[].class.getName().equals(name)) {
+                throw new InvalidClassException(name,
+                        "Unexpected class in a component snapshot");
+            }
+
+            return super.resolveClass(desc);
+        }
+    }
+
+    /** The extension of snapshot files. */
+    public static final String EXTENSION = "ser";
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Compiles a component XML configuration file into a snapshot file.
+     * 
+     * @param args
+     *            The path of the XML configuration and the path of the
+     *            snapshot to write.
+     * @throws IOException
+     */
+    public static void main(String[] args) throws IOException {
+        Logger logger = Context.getCurrentLogger();
+
+        if (args.length != 2) {
+            logger.warning("Usage: ComponentSnapshot <component.xml> <component.ser>");
+            return;
+        }
+
+        ComponentSnapshot snapshot = new ComponentXmlParser(null,
+                new FileRepresentation(new File(args[0]), MediaType.TEXT_XML))
+                .createSnapshot();
+
+        if (snapshot == null) {
+            logger.warning("Unable to compile " + args[0]);
+        } else {
+            OutputStream out = new FileOutputStream(args[1]);
+
+            try {
+                snapshot.write(out);
+            } finally {
+                out.close();
+            }
+        }
+    }
+
+    /**
+     * Reads a snapshot from a stream.
+     * 
+     * @param in
+     *            The stream to read.
+     * @return The snapshot read.
+     * @throws IOException
+     */
+    public static ComponentSnapshot read(InputStream in) throws IOException {
+        ObjectInputStream ois = new SnapshotInputStream(in);
+
+        try {
+            return (ComponentSnapshot) ois.readObject();
+        } catch (ClassNotFoundException e) {
+            throw new IOException("Unable to read the component snapshot", e);
+        } finally {
+            ois.close();
+        }
+    }
+
+    /**
+     * Reads a snapshot from a representation.
+     * 
+     * @param representation
+     *            The representation to read.
+     * @return The snapshot read.
+     * @throws IOException
+     */
+    public static ComponentSnapshot read(Representation representation)
+            throws IOException {
+        return read(representation.getStream());
+    }
+
+    /** The root "component" element. */
+    private final Entry root;
+
+    /**
+     * Constructor.
+     * 
+     * @param root
+     *            The root "component" element of the parsed configuration.
+     */
+    public ComponentSnapshot(Node root) {
+        this.root = new Entry(root);
+    }
+
+    /**
+     * Returns a representation of the serialized snapshot.
+     * 
+     * @return A representation of the serialized snapshot.
+     */
+    public Representation getRepresentation() {
+        return new OutputRepresentation(MediaType.APPLICATION_JAVA_OBJECT) {
+            @Override
+            public void write(OutputStream outputStream) throws IOException {
+                ComponentSnapshot.this.write(outputStream);
+            }
+        };
+    }
+
+    /**
+     * Rebuilds the DOM document of the configuration, without any parsing.
+     * 
+     * @return The DOM document of the configuration.
+     * @throws ParserConfigurationException
+     */
+    public Document toDocument() throws ParserConfigurationException {
+        Document result = DocumentBuilderFactory.newInstance()
+                .newDocumentBuilder().newDocument();
+        result.appendChild(this.root.toElement(result));
+        return result;
+    }
+
+    /**
+     * Writes the snapshot to a stream.
+     * 
+     * @param out
+     *            The stream to write to.
+     * @throws IOException
+     */
+    public void write(OutputStream out) throws IOException {
+        ObjectOutputStream oos = new ObjectOutputStream(out);
+        oos.writeObject(this);
+        oos.flush();
+    }
+}
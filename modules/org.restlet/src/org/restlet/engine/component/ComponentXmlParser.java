@@ -50,6 +50,7 @@ import org.restlet.Request;
 import org.restlet.Response;
 import org.restlet.Restlet;
 import org.restlet.Server;
+import org.restlet.data.MediaType;
 import org.restlet.data.Method;
 import org.restlet.data.Parameter;
 import org.restlet.data.Protocol;
@@ -388,7 +389,8 @@ public class ComponentXmlParser {
      * @return The component's logger.
      */
     private Logger getLogger() {
-        return getComponent().getLogger();
+        return (getComponent() == null) ? Context.getCurrentLogger()
+                : getComponent().getLogger();
     }
 
     /**
@@ -437,38 +439,41 @@ public class ComponentXmlParser {
         return xmlConfiguration;
     }
 
+    /**
+     * Parses and validates the XML configuration into a reusable snapshot.
+     * 
+     * @return The snapshot or null if the configuration couldn't be parsed.
+     * @see ComponentSnapshot
+     */
+    public ComponentSnapshot createSnapshot() {
+        ComponentSnapshot result = null;
+
+        try {
+            Document document = readDocument();
+
+            if ("component".equals(document.getFirstChild().getNodeName())) {
+                result = new ComponentSnapshot(document.getFirstChild());
+            } else {
+                getLogger()
+                        .log(Level.WARNING,
+                                "Unable to find the root \"component\" node in the XML configuration.");
+            }
+        } catch (Exception e) {
+            getLogger().log(Level.WARNING,
+                    "Unable to parse the Component XML configuration.", e);
+        }
+
+        return result;
+    }
+
     /**
      * Parse a configuration file and update the component's configuration.
+     * The configuration can also be a {@link ComponentSnapshot} with the
+     * {@link MediaType#APPLICATION_JAVA_OBJECT} media type.
      */
     public void parse() {
         try {
-            // Parse and validate the XML configuration
-            DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
-            dbf.setNamespaceAware(true);
-            dbf.setValidating(true);
-            dbf.setXIncludeAware(true);
-
-            DefaultSaxHandler handler = new DefaultSaxHandler();
-            DocumentBuilder db = dbf.newDocumentBuilder();
-            db.setErrorHandler(handler);
-            db.setEntityResolver(handler);
-
-            // try {
-            // Client client = new Client(Protocol.CLAP);
-            // Representation xsd = client.get(
-            // "clap://class/org/restlet/Component.xsd").getEntity();
-            // db.dom.setSchema(xsd);
-            // } catch (Exception x) {
-            // Context
-            // .getCurrentLogger()
-            // .log(
-            // Level.CONFIG,
-            // "Unable to acquire a compiled instance of Component.xsd "
-            // + "to check the given restlet.xml. Ignore and continue");
-            // }
-
-            final Document document = db.parse(new InputSource(
-                    getXmlConfiguration().getReader()));
+            final Document document = readDocument();
 
             // Check root node
             if ("component".equals(document.getFirstChild().getNodeName())) {
@@ -697,6 +702,48 @@ public class ComponentXmlParser {
         }
     }
 
+    /**
+     * Reads the DOM document of the configuration, either by parsing and
+     * validating the XML configuration or by rebuilding it from a
+     * {@link ComponentSnapshot}.
+     * 
+     * @return The DOM document of the configuration.
+     * @throws Exception
+     */
+    private Document readDocument() throws Exception {
+        if (MediaType.APPLICATION_JAVA_OBJECT.equals(getXmlConfiguration()
+                .getMediaType(), true)) {
+            return ComponentSnapshot.read(getXmlConfiguration()).toDocument();
+        }
+
+        // Parse and validate the XML configuration
+        DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
+        dbf.setNamespaceAware(true);
+        dbf.setValidating(true);
+        dbf.setXIncludeAware(true);
+
+        DefaultSaxHandler handler = new DefaultSaxHandler();
+        DocumentBuilder db = dbf.newDocumentBuilder();
+        db.setErrorHandler(handler);
+        db.setEntityResolver(handler);
+
+        // try {
+        // Client client = new Client(Protocol.CLAP);
+        // Representation xsd = client.get(
+        // "clap://class/org/restlet/Component.xsd").getEntity();
+        // db.dom.setSchema(xsd);
+        // } catch (Exception x) {
+        // Context
+        // .getCurrentLogger()
+        // .log(
+        // Level.CONFIG,
+        // "Unable to acquire a compiled instance of Component.xsd "
+        // + "to check the given restlet.xml. Ignore and continue");
+        // }
+
+        return db.parse(new InputSource(getXmlConfiguration().getReader()));
+    }
+
     /**
      * Parse the attributes of a DOM node and update the given host.
      * 
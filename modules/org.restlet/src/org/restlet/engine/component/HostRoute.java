@@ -33,6 +33,7 @@
 
 package org.restlet.engine.component;
 
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.logging.Level;
 import java.util.regex.Pattern;
 
@@ -52,6 +53,37 @@ import org.restlet.routing.VirtualHost;
  * @author Jerome Louvel
  */
 public class HostRoute extends Route {
+
+    /** Index of the compiled host domain pattern. */
+    private static final int HOST_DOMAIN = 0;
+
+    /** Index of the compiled host port pattern. */
+    private static final int HOST_PORT = 1;
+
+    /** Index of the compiled host scheme pattern. */
+    private static final int HOST_SCHEME = 2;
+
+    /** Index of the compiled resource domain pattern. */
+    private static final int RESOURCE_DOMAIN = 3;
+
+    /** Index of the compiled resource port pattern. */
+    private static final int RESOURCE_PORT = 4;
+
+    /** Index of the compiled resource scheme pattern. */
+    private static final int RESOURCE_SCHEME = 5;
+
+    /** Index of the compiled server address pattern. */
+    private static final int SERVER_ADDRESS = 6;
+
+    /** Index of the compiled server port pattern. */
+    private static final int SERVER_PORT = 7;
+
+    /**
+     * The compiled patterns of the virtual host properties, recompiled when a
+     * property changes.
+     */
+    private final AtomicReferenceArray<Pattern> patterns;
+
     /**
      * Constructor.
      * 
@@ -62,6 +94,7 @@ public class HostRoute extends Route {
      */
     public HostRoute(Router router, VirtualHost target) {
         super(router, target);
+        this.patterns = new AtomicReferenceArray<Pattern>(8);
     }
 
     /**
@@ -105,17 +138,25 @@ public class HostRoute extends Route {
 
     /**
      * Matches a formatted string against a regex pattern, in a case insensitive
-     * manner.
+     * manner. The compiled pattern is cached until the regex changes.
      * 
+     * @param index
+     *            The index of the compiled pattern.
      * @param regex
      *            The pattern to use.
      * @param formattedString
      *            The formatted string to match.
      * @return True if the formatted string matched the pattern.
      */
-    private boolean matches(String regex, String formattedString) {
-        return Pattern.compile(regex, Pattern.CASE_INSENSITIVE)
-                .matcher(formattedString).matches();
+    private boolean matches(int index, String regex, String formattedString) {
+        Pattern pattern = this.patterns.get(index);
+
+        if ((pattern == null) || !pattern.pattern().equals(regex)) {
+            pattern = Pattern.compile(regex, Pattern.CASE_INSENSITIVE);
+            this.patterns.set(index, pattern);
+        }
+
+        return pattern.matcher(formattedString).matches();
     }
 
     /**
@@ -196,17 +237,20 @@ public class HostRoute extends Route {
                     .getPort());
 
             // Check if all the criteria match
-            if (matches(getVirtualHost().getHostDomain(), hostDomain)
-                    && matches(getVirtualHost().getHostPort(), hostPort)
-                    && matches(getVirtualHost().getHostScheme(), hostScheme)
-                    && matches(getVirtualHost().getResourceDomain(),
+            VirtualHost host = getVirtualHost();
+
+            if (matches(HOST_DOMAIN, host.getHostDomain(), hostDomain)
+                    && matches(HOST_PORT, host.getHostPort(), hostPort)
+                    && matches(HOST_SCHEME, host.getHostScheme(), hostScheme)
+                    && matches(RESOURCE_DOMAIN, host.getResourceDomain(),
                             resourceDomain)
-                    && matches(getVirtualHost().getResourcePort(), resourcePort)
-                    && matches(getVirtualHost().getResourceScheme(),
+                    && matches(RESOURCE_PORT, host.getResourcePort(),
+                            resourcePort)
+                    && matches(RESOURCE_SCHEME, host.getResourceScheme(),
                             resourceScheme)
-                    && matches(getVirtualHost().getServerAddress(),
+                    && matches(SERVER_ADDRESS, host.getServerAddress(),
                             serverAddress)
-                    && matches(getVirtualHost().getServerPort(), serverPort)) {
+                    && matches(SERVER_PORT, host.getServerPort(), serverPort)) {
                 result = 1F;
             }
         }
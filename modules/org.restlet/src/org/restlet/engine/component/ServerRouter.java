@@ -33,6 +33,11 @@
 
 package org.restlet.engine.component;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.logging.Level;
 
 import org.restlet.Component;
@@ -40,14 +45,23 @@ import org.restlet.Request;
 import org.restlet.Response;
 import org.restlet.Restlet;
 import org.restlet.data.Status;
+import org.restlet.routing.Route;
 import org.restlet.routing.Router;
 import org.restlet.routing.VirtualHost;
+import org.restlet.util.RouteList;
 
 /**
  * Router that collects calls from all server connectors and dispatches them to
  * the appropriate host routers. The host routers then dispatch them to the user
- * applications.
- * 
+ * applications.<br>
+ * <br>
+ * Routes are selected in first match mode. In order to avoid scoring every
+ * virtual host, the hosts whose domain pattern is a literal name are indexed
+ * by name, so only them and the hosts with a regex domain pattern are scored
+ * for a given call. The index is built when the router starts, so changes to
+ * the virtual hosts are taken into account by
+ * {@link Component#updateHosts()}, which replaces the server router.<br>
+ * <br>
  * Concurrency note: instances of this class or its subclasses can be invoked by
  * several threads at the same time and therefore must be thread-safe. You
  * should be especially careful when storing state in member variables.
@@ -56,6 +70,125 @@ import org.restlet.routing.VirtualHost;
  */
 public class ServerRouter extends Router {
 
+    /**
+     * Index of the routes by literal host domain. Immutable snapshot of the
+     * routes list, built when the router starts.
+     */
+    private static class HostIndex {
+
+        /** The candidate routes by lower case host domain. */
+        private final Map<String, Route[]> candidates;
+
+        /** The candidate routes for the other host domains. */
+        private final Route[] others;
+
+        /**
+         * Constructor.
+         * 
+         * @param routes
+         *            The routes to index.
+         */
+        private HostIndex(List<Route> routes) {
+            Route[] array = routes.toArray(new Route[routes.size()]);
+            String[] literals = new String[array.length];
+            List<Route> otherList = new ArrayList<Route>();
+
+            for (int i = 0; i < array.length; i++) {
+                if (array[i] instanceof HostRoute) {
+                    literals[i] = getLiteral(((HostRoute) array[i])
+                            .getVirtualHost().getHostDomain());
+                }
+
+                if (literals[i] == null) {
+                    otherList.add(array[i]);
+                }
+            }
+
+            // Each literal domain keeps the routes order, including the
+            // routes matching any domain
+            Map<String, List<Route>> lists = new HashMap<String, List<Route>>();
+
+            for (int i = 0; i < array.length; i++) {
+                if ((literals[i] != null) && !lists.containsKey(literals[i])) {
+                    List<Route> list = new ArrayList<Route>();
+
+                    for (int j = 0; j < array.length; j++) {
+                        if ((literals[j] == null)
+                                || literals[j].equals(literals[i])) {
+                            list.add(array[j]);
+                        }
+                    }
+
+                    lists.put(literals[i], list);
+                }
+            }
+
+            this.candidates = new HashMap<String, Route[]>();
+
+            for (Map.Entry<String, List<Route>> entry : lists.entrySet()) {
+                this.candidates.put(entry.getKey(), entry.getValue().toArray(
+                        new Route[entry.getValue().size()]));
+            }
+
+            this.others = otherList.toArray(new Route[otherList.size()]);
+        }
+
+        /**
+         * Returns the candidate routes for a given host domain.
+         * 
+         * @param hostDomain
+         *            The lower case host domain.
+         * @return The candidate routes, in the routes order.
+         */
+        private Route[] getCandidates(String hostDomain) {
+            Route[] result = this.candidates.get(hostDomain);
+            return (result == null) ? this.others : result;
+        }
+    }
+
+    /**
+     * Returns the lower case host name matched by a domain pattern if it is a
+     * literal, possibly with escaped characters.
+     * 
+     * @param regex
+     *            The host domain pattern.
+     * @return The lower case literal host name or null if the pattern isn't a
+     *         literal.
+     */
+    private static String getLiteral(String regex) {
+        if (regex == null) {
+            return null;
+        }
+
+        StringBuilder sb = new StringBuilder();
+
+        for (int i = 0; i < regex.length(); i++) {
+            char c = regex.charAt(i);
+
+            if (c > 127) {
+                // Only ASCII characters are matched case insensitively
+                return null;
+            } else if (c == '\\') {
+                if ((i + 1 < regex.length())
+                        && !Character.isLetterOrDigit(regex.charAt(i + 1))
+                        && (regex.charAt(i + 1) <= 127)) {
+                    sb.append(regex.charAt(++i));
+                } else {
+                    return null;
+                }
+            } else if (".[]{}()*+?^$|".indexOf(c) != -1) {
+                return null;
+            } else {
+                sb.append(c);
+            }
+        }
+
+        return sb.toString().toLowerCase(Locale.ENGLISH);
+    }
+
+    /** The index of routes by host domain. */
+    private volatile HostIndex index;
+
     /** The parent component. */
     private volatile Component component;
 
@@ -69,7 +202,44 @@ public class ServerRouter extends Router {
         super((component == null) ? null : component.getContext()
                 .createChildContext());
         this.component = component;
-        setRoutingMode(MODE_FIRST_MATCH);
+        setRoutingMode(MODE_CUSTOM);
+    }
+
+    /**
+     * Returns the first matching route, only scoring the routes whose host
+     * domain pattern can match the host domain of the request.
+     * 
+     * @param request
+     *            The request to handle.
+     * @param response
+     *            The response to update.
+     * @return The matched route if available or null.
+     */
+    @Override
+    protected Route getCustom(Request request, Response response) {
+        HostIndex current = this.index;
+
+        if (current == null) {
+            current = new HostIndex(getRoutes());
+            this.index = current;
+        }
+
+        String hostDomain = null;
+
+        if (request.getHostRef() != null) {
+            hostDomain = request.getHostRef().getHostDomain();
+        }
+
+        hostDomain = (hostDomain == null) ? "" : hostDomain
+                .toLowerCase(Locale.ENGLISH);
+
+        for (Route route : current.getCandidates(hostDomain)) {
+            if (route.score(request, response) >= getRequiredScore()) {
+                return route;
+            }
+        }
+
+        return null;
     }
 
     /**
@@ -101,6 +271,19 @@ public class ServerRouter extends Router {
         }
     }
 
+    /**
+     * Sets the modifiable list of routes. The host index is rebuilt on the
+     * next call.
+     * 
+     * @param routes
+     *            The modifiable list of routes.
+     */
+    @Override
+    public void setRoutes(RouteList routes) {
+        super.setRoutes(routes);
+        this.index = null;
+    }
+
     /** Starts the Restlet. */
     @Override
     public synchronized void start() throws Exception {
@@ -128,13 +311,15 @@ public class ServerRouter extends Router {
         setDefaultRoute(new org.restlet.routing.TemplateRoute(this, "",
                 noHostMatched));
 
-        // Start the router
+        // Index the routes, then start the router
+        this.index = new HostIndex(getRoutes());
         super.start();
     }
 
     @Override
     public synchronized void stop() throws Exception {
         getRoutes().clear();
+        this.index = null;
         super.stop();
     }
 }
@@ -57,7 +57,9 @@ public class RangeWriter extends HeaderWriter<Range> {
     }
 
     /**
-     * Formats {@code range} as a Content-Range header value.
+     * Formats {@code range} as a Content-Range header value. An empty range is
+     * formatted as an unsatisfied range, with an asterisk instead of the first
+     * and last byte positions.
      * 
      * @param range
      *            Range to format
@@ -68,7 +70,9 @@ public class RangeWriter extends HeaderWriter<Range> {
     public static String write(Range range, long size) {
         StringBuilder b = new StringBuilder(range.getUnitName() + " ");
 
-        if (range.getIndex() >= Range.INDEX_FIRST) {
+        if (range.getSize() == 0) {
+            b.append("*");
+        } else if (range.getIndex() >= Range.INDEX_FIRST) {
             b.append(range.getIndex());
             b.append("-");
             if (range.getSize() != Range.SIZE_MAX) {
@@ -35,18 +35,28 @@ package org.restlet.engine.local;
 
 import java.io.File;
 import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.net.URISyntaxException;
 import java.net.URL;
+import java.util.Collections;
 import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.logging.Level;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 
 import org.restlet.Client;
 import org.restlet.Request;
 import org.restlet.Response;
 import org.restlet.data.LocalReference;
+import org.restlet.data.MediaType;
 import org.restlet.data.Method;
 import org.restlet.data.Protocol;
 import org.restlet.data.Reference;
 import org.restlet.data.Status;
+import org.restlet.data.Tag;
+import org.restlet.representation.FileRepresentation;
 import org.restlet.representation.InputRepresentation;
 import org.restlet.representation.Representation;
 import org.restlet.service.MetadataService;
@@ -56,11 +66,126 @@ import org.restlet.service.MetadataService;
  * the class authority for your CLAP URIs, you can provide a custom classloader
  * instead of the one of the connector. For this, your requests need to have a
  * "org.restlet.clap.classLoader" attribute set with the instance of your
- * classloader and use the {@link LocalReference#CLAP_CLASS} authority.
+ * classloader and use the {@link LocalReference#CLAP_CLASS} authority.<br>
+ * <br>
+ * The resolved resources are cached. Resources located in directories are
+ * served like local files and resources located in JAR or Zip archives are read
+ * from archives kept open in a {@link ZipFileCache} until the connector stops,
+ * both with a known size, modification date and entity tag. Here is the list
+ * of additional
+ * parameters that are supported. They should be set in the Client's context
+ * before it is started:
+ * <table>
+ * <tr>
+ * <th>Parameter name</th>
+ * <th>Value type</th>
+ * <th>Default value</th>
+ * <th>Description</th>
+ * </tr>
+ * <tr>
+ * <td>resourceCacheSize</td>
+ * <td>int</td>
+ * <td>512</td>
+ * <td>Maximum number of resolved resources to cache. If you set the value to
+ * '0', the resources are resolved for each call.</td>
+ * </tr>
+ * </table>
  * 
  * @author Jerome Louvel
  */
 public class ClapClientHelper extends LocalClientHelper {
+
+    /** A resource resolved by a class loader. */
+    private static class ClapEntry {
+
+        /** The archive containing the resource, if any. */
+        private final File archive;
+
+        /** The resolving class loader. */
+        private final WeakReference<ClassLoader> classLoader;
+
+        /** The name of the resource in its archive, if any. */
+        private final String entryName;
+
+        /** The resource file, if any. */
+        private final File file;
+
+        /** The file last modification time when resolved. */
+        private final long lastModified;
+
+        /** The file entity tag. */
+        private final Tag tag;
+
+        /** The resource URL. */
+        private final URL url;
+
+        /**
+         * Constructor.
+         * 
+         * @param classLoader
+         *            The resolving class loader.
+         * @param url
+         *            The resource URL.
+         */
+        private ClapEntry(ClassLoader classLoader, URL url) {
+            this.classLoader = new WeakReference<ClassLoader>(classLoader);
+            this.url = url;
+            File archive = null;
+            String entryName = null;
+            File file = null;
+
+            if (url.getProtocol().equals("file")) {
+                try {
+                    file = new File(url.toURI());
+                } catch (URISyntaxException e) {
+                    // Fall back to the URL stream
+                } catch (IllegalArgumentException e) {
+                    // Fall back to the URL stream
+                }
+            } else if (url.getProtocol().equals("jar")) {
+                String spec = url.getFile();
+                int index = spec.indexOf("!/");
+
+                if ((index != -1) && spec.startsWith("file:")) {
+                    archive = new LocalReference(spec.substring(0, index))
+                            .getFile();
+                    entryName = Reference.decode(spec.substring(index + 2));
+                }
+            }
+
+            this.archive = archive;
+            this.entryName = entryName;
+            this.file = file;
+
+            if (file != null) {
+                this.lastModified = file.lastModified();
+                this.tag = new Tag(Long.toHexString(this.lastModified) + "-"
+                        + Long.toHexString(file.length()));
+            } else {
+                this.lastModified = 0L;
+                this.tag = null;
+            }
+        }
+
+        /**
+         * Indicates if the entry can be used for a given class loader.
+         * 
+         * @param classLoader
+         *            The class loader.
+         * @return True if the entry can be used.
+         */
+        private boolean isValid(ClassLoader classLoader) {
+            return (this.classLoader.get() == classLoader)
+                    && ((this.file == null) || (this.file.lastModified() == this.lastModified));
+        }
+    }
+
+    /** The cache of resolved resources. */
+    private volatile Map<String, ClapEntry> entries;
+
+    /** The cache of open archives. */
+    private final ZipFileCache zipFileCache;
+
     /**
      * Constructor.
      * 
@@ -70,6 +195,133 @@ public class ClapClientHelper extends LocalClientHelper {
     public ClapClientHelper(Client client) {
         super(client);
         getProtocols().add(Protocol.CLAP);
+        this.zipFileCache = new ZipFileCache(ZipFileCache.DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates the representation of a resolved resource. Archive entries that
+     * can't be found anymore return null.
+     * 
+     * @param entry
+     *            The resolved resource.
+     * @param defaultMediaType
+     *            The default media type.
+     * @return The representation or null.
+     * @throws IOException
+     */
+    private Representation createRepresentation(ClapEntry entry,
+            MediaType defaultMediaType) throws IOException {
+        Representation result = null;
+
+        if (entry.file != null) {
+            result = new FileRepresentation(entry.file, defaultMediaType);
+            result.setTag(entry.tag);
+        } else if (entry.archive != null) {
+            ZipFile zipFile = this.zipFileCache.acquire(entry.archive);
+            ZipEntry zipEntry = zipFile.getEntry(entry.entryName);
+
+            if ((zipEntry == null) || zipEntry.isDirectory()) {
+                this.zipFileCache.release(zipFile);
+            } else {
+                result = new ZipEntryRepresentation(defaultMediaType,
+                        zipFile, zipEntry, this.zipFileCache);
+            }
+        } else {
+            result = new InputRepresentation(entry.url.openStream(),
+                    defaultMediaType);
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the resolved resource for a given path, using the cache when
+     * possible.
+     * 
+     * @param classLoader
+     *            The class loader.
+     * @param path
+     *            The resource path, without leading slash.
+     * @return The resolved resource or null if it wasn't found.
+     */
+    private ClapEntry getEntry(ClassLoader classLoader, String path) {
+        Map<String, ClapEntry> cache = getEntries();
+        String key = System.identityHashCode(classLoader) + ":" + path;
+        ClapEntry result = (cache == null) ? null : cache.get(key);
+
+        if ((result == null) || !result.isValid(classLoader)) {
+            // As the path may be percent-encoded, it has to be
+            // percent-decoded.
+            URL url = classLoader.getResource(Reference.decode(path));
+            result = null;
+
+            // The ClassLoader returns a directory listing in some cases.
+            // As this listing is partial, it is of little value in the
+            // context of the CLAP client, so we have to ignore them.
+            if (url != null) {
+                result = new ClapEntry(classLoader, url);
+
+                if ((result.file != null) && result.file.isDirectory()) {
+                    result = null;
+                }
+            }
+
+            if (cache != null) {
+                if (result == null) {
+                    cache.remove(key);
+                } else {
+                    cache.put(key, result);
+                }
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the cache of resolved resources or null if disabled.
+     * 
+     * @return The cache of resolved resources or null if disabled.
+     */
+    private Map<String, ClapEntry> getEntries() {
+        Map<String, ClapEntry> result = this.entries;
+
+        if (result == null) {
+            final int capacity = getResourceCacheSize();
+
+            if (capacity > 0) {
+                synchronized (this) {
+                    result = this.entries;
+
+                    if (result == null) {
+                        result = Collections
+                                .synchronizedMap(new LinkedHashMap<String, ClapEntry>(
+                                        16, 0.75f, true) {
+                                    private static final long serialVersionUID = 1L;
+
+                                    @Override
+                                    protected boolean removeEldestEntry(
+                                            Map.Entry<String, ClapEntry> eldest) {
+                                        return size() > capacity;
+                                    }
+                                });
+                        this.entries = result;
+                    }
+                }
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the maximum number of resolved resources to cache.
+     * 
+     * @return The maximum number of resolved resources to cache.
+     */
+    public int getResourceCacheSize() {
+        return Integer.parseInt(getHelpedParameters().getFirstValue(
+                "resourceCacheSize", "512"));
     }
 
     /**
@@ -87,71 +339,57 @@ public class ClapClientHelper extends LocalClientHelper {
         if (request.getMethod().equals(Method.GET)
                 || request.getMethod().equals(Method.HEAD)) {
             String path = request.getResourceRef().getPath();
-            URL url = null;
-            Date modificationDate = null;
+            ClapEntry entry = null;
 
             // Prepare a classloader URI, removing the leading slash
             if ((path != null) && path.startsWith("/")) {
                 path = path.substring(1);
             }
 
-            // Get the URL to the classloader 'resource'
+            // Get the classloader 'resource'
             if (classLoader != null) {
-                // As the path may be percent-encoded, it has to be
-                // percent-decoded.
-                url = classLoader.getResource(Reference.decode(path));
+                entry = getEntry(classLoader, path);
             } else {
                 getLogger()
                         .warning(
                                 "Unable to get the resource. The selected classloader is null.");
             }
 
-            // The ClassLoader returns a directory listing in some cases.
-            // As this listing is partial, it is of little value in the context
-            // of the CLAP client, so we have to ignore them.
-            if (url != null) {
-                if (url.getProtocol().equals("file")) {
-                    File file = new File(url.getFile());
-                    modificationDate = new Date(file.lastModified());
-
-                    if (file.isDirectory()) {
-                        url = null;
-                    }
-                }
-            }
+            Representation output = null;
 
-            if (url != null) {
+            if (entry != null) {
                 try {
-                    Representation output = new InputRepresentation(
-                            url.openStream(),
+                    output = createRepresentation(entry,
                             metadataService.getDefaultMediaType());
-                    output.setLocationRef(request.getResourceRef());
-                    output.setModificationDate(modificationDate);
-
-                    // Update the expiration date
-                    long timeToLive = getTimeToLive();
-
-                    if (timeToLive == 0) {
-                        output.setExpirationDate(null);
-                    } else if (timeToLive > 0) {
-                        output.setExpirationDate(new Date(System
-                                .currentTimeMillis() + (1000L * timeToLive)));
-                    }
-
-                    // Update the metadata based on file extensions
-                    String name = path.substring(path.lastIndexOf('/') + 1);
-                    Entity.updateMetadata(name, output, true,
-                            getMetadataService());
-
-                    // Update the response
-                    response.setEntity(output);
-                    response.setStatus(Status.SUCCESS_OK);
                 } catch (IOException ioe) {
                     getLogger().log(Level.WARNING,
                             "Unable to open the representation's input stream",
                             ioe);
                     response.setStatus(Status.SERVER_ERROR_INTERNAL);
+                    return;
                 }
+            }
+
+            if (output != null) {
+                output.setLocationRef(request.getResourceRef());
+
+                // Update the expiration date
+                long timeToLive = getTimeToLive();
+
+                if (timeToLive == 0) {
+                    output.setExpirationDate(null);
+                } else if (timeToLive > 0) {
+                    output.setExpirationDate(new Date(System
+                            .currentTimeMillis() + (1000L * timeToLive)));
+                }
+
+                // Update the metadata based on file extensions
+                String name = path.substring(path.lastIndexOf('/') + 1);
+                Entity.updateMetadata(name, output, true, getMetadataService());
+
+                // Update the response
+                response.setEntity(output);
+                response.setStatus(Status.SUCCESS_OK);
             } else {
                 response.setStatus(Status.CLIENT_ERROR_NOT_FOUND);
             }
@@ -197,4 +435,16 @@ public class ClapClientHelper extends LocalClientHelper {
                             + "\" not supported by the connector. Only CLAP is supported.");
         }
     }
+
+    /**
+     * Stops the connector, discarding the resolved resources and closing the
+     * cached archives. Archives still read by a response entity are closed
+     * once the entity is released.
+     */
+    @Override
+    public void stop() throws Exception {
+        this.entries = null;
+        this.zipFileCache.clear();
+        super.stop();
+    }
 }
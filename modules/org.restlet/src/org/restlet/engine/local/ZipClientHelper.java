@@ -59,7 +59,8 @@ import org.restlet.service.MetadataService;
 
 /**
  * ZIP and JAR client connector. Only works for archives available as local
- * files.<br>
+ * files. Archives are kept open in the shared {@link ZipFileCache} between
+ * calls.<br>
  * <br>
  * Handles GET, HEAD and PUT request on resources referenced as :
  * zip:file://<file path>
@@ -149,7 +150,7 @@ public class ZipClientHelper extends LocalClientHelper {
             ZipFile zipFile;
 
             try {
-                zipFile = new ZipFile(file);
+                zipFile = ZipFileCache.getInstance().acquire(file);
             } catch (Exception e) {
                 response.setStatus(Status.SERVER_ERROR_INTERNAL, e);
                 return;
@@ -158,6 +159,7 @@ public class ZipClientHelper extends LocalClientHelper {
             Entity entity = new ZipEntryEntity(zipFile, entryName,
                     metadataService);
             if (!entity.exists()) {
+                ZipFileCache.getInstance().release(zipFile);
                 response.setStatus(Status.CLIENT_ERROR_NOT_FOUND);
             } else {
                 final Representation output;
@@ -176,12 +178,7 @@ public class ZipClientHelper extends LocalClientHelper {
                     }
 
                     output = rl.getTextRepresentation();
-
-                    try {
-                        zipFile.close();
-                    } catch (IOException e) {
-                        // Do something ???
-                    }
+                    ZipFileCache.getInstance().release(zipFile);
                 } else {
                     // Return the file content
                     output = entity.getRepresentation(metadataService
@@ -211,6 +208,8 @@ public class ZipClientHelper extends LocalClientHelper {
      */
     protected void handlePut(Request request, Response response, File file,
             String entryName) {
+        // Close the cached archive so that it can be replaced
+        ZipFileCache.getInstance().invalidate(file);
         boolean zipExists = file.exists();
         ZipOutputStream zipOut = null;
 
@@ -339,6 +338,8 @@ public class ZipClientHelper extends LocalClientHelper {
         } catch (Exception e) {
             response.setStatus(Status.SERVER_ERROR_INTERNAL, e);
             return;
+        } finally {
+            ZipFileCache.getInstance().invalidate(file);
         }
     }
 
@@ -42,14 +42,17 @@ import java.util.zip.ZipFile;
 
 import org.restlet.data.Disposition;
 import org.restlet.data.MediaType;
+import org.restlet.data.Tag;
 import org.restlet.engine.io.BioUtils;
 import org.restlet.representation.StreamRepresentation;
 
 /**
  * An entry in a Zip/JAR file.
  * 
- * It is very important {@link #release()} is called to close the underlying Zip
- * file.
+ * It is very important {@link #release()} is called to release the underlying
+ * Zip file, which is closed once no longer used when it comes from the
+ * {@link ZipFileCache}. The entity tag is derived from the CRC-32 and the size
+ * of the entry.
  * 
  * @author Remi Dewitte <remi@gide.net>
  */
@@ -61,6 +64,12 @@ public class ZipEntryRepresentation extends StreamRepresentation {
     /** The Zip entry. */
     protected final ZipEntry entry;
 
+    /** The cache the Zip file was acquired from. */
+    private final ZipFileCache cache;
+
+    /** Indicates if the Zip file was released. */
+    private volatile boolean released;
+
     /**
      * Constructor.
      * 
@@ -73,7 +82,25 @@ public class ZipEntryRepresentation extends StreamRepresentation {
      */
     public ZipEntryRepresentation(MediaType mediaType, ZipFile zipFile,
             ZipEntry entry) {
+        this(mediaType, zipFile, entry, ZipFileCache.getInstance());
+    }
+
+    /**
+     * Constructor.
+     * 
+     * @param mediaType
+     *            The entry media type.
+     * @param zipFile
+     *            The parent Zip archive file.
+     * @param entry
+     *            The Zip entry.
+     * @param cache
+     *            The cache the Zip archive file was acquired from.
+     */
+    public ZipEntryRepresentation(MediaType mediaType, ZipFile zipFile,
+            ZipEntry entry, ZipFileCache cache) {
         super(mediaType);
+        this.cache = cache;
         this.zipFile = zipFile;
         this.entry = entry;
         Disposition disposition = new Disposition();
@@ -81,13 +108,20 @@ public class ZipEntryRepresentation extends StreamRepresentation {
         this.setDisposition(disposition);
         setSize(entry.getSize());
         setModificationDate(new Date(entry.getTime()));
+
+        if ((entry.getCrc() != -1) && (entry.getSize() != -1)) {
+            setTag(new Tag(Long.toHexString(entry.getCrc()) + "-"
+                    + Long.toHexString(entry.getSize())));
+        }
+
+        this.released = false;
     }
 
     @Override
     public void release() {
-        try {
-            zipFile.close();
-        } catch (IOException e) {
+        if (!this.released) {
+            this.released = true;
+            this.cache.release(zipFile);
         }
     }
 
@@ -0,0 +1,295 @@
+/**
+ * Copyright 2005-2013 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.engine.local;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.ZipFile;
+
+/**
+ * Cache of open Zip and JAR archives shared by the local connectors. Parsing
+ * the central directory of an archive is only done when it is first accessed
+ * or when the archive file changes on disk.<br>
+ * <br>
+ * Each {@link #acquire(File)} call must be balanced by a
+ * {@link #release(ZipFile)} call. An archive is only closed once it is no
+ * longer referenced, either after being evicted by less recently used archives
+ * or after being invalidated.
+ */
+public class ZipFileCache {
+
+    /** An open archive and its references count. */
+    private static class Handle {
+
+        /** Indicates if the handle was removed from the cache. */
+        private boolean evicted;
+
+        /** The file last modification time when opened. */
+        private final long lastModified;
+
+        /** The file length when opened. */
+        private final long length;
+
+        /** The number of acquisitions not yet released. */
+        private int references;
+
+        /** The open archive. */
+        private final ZipFile zipFile;
+
+        /**
+         * Constructor.
+         * 
+         * @param file
+         *            The archive file.
+         * @throws IOException
+         */
+        private Handle(File file) throws IOException {
+            this.lastModified = file.lastModified();
+            this.length = file.length();
+            this.zipFile = new ZipFile(file);
+            this.references = 0;
+            this.evicted = false;
+        }
+
+        /**
+         * Indicates if the archive file changed since it was opened.
+         * 
+         * @param file
+         *            The archive file.
+         * @return True if the archive file changed since it was opened.
+         */
+        private boolean isStale(File file) {
+            return (this.lastModified != file.lastModified())
+                    || (this.length != file.length());
+        }
+    }
+
+    /** The default maximum number of cached archives. */
+    public static final int DEFAULT_CAPACITY = 32;
+
+    /** The shared instance. */
+    private static final ZipFileCache instance = new ZipFileCache(
+            DEFAULT_CAPACITY);
+
+    /**
+     * Returns the instance shared by the local connectors.
+     * 
+     * @return The instance shared by the local connectors.
+     */
+    public static ZipFileCache getInstance() {
+        return instance;
+    }
+
+    /** The maximum number of cached archives. */
+    private volatile int capacity;
+
+    /** The cached handles, by archive path, in access order. */
+    private final LinkedHashMap<String, Handle> handles;
+
+    /** The open handles, including evicted ones still referenced. */
+    private final Map<ZipFile, Handle> openHandles;
+
+    /**
+     * Constructor.
+     * 
+     * @param capacity
+     *            The maximum number of cached archives.
+     */
+    public ZipFileCache(int capacity) {
+        this.capacity = capacity;
+        this.handles = new LinkedHashMap<String, Handle>(16, 0.75f, true);
+        this.openHandles = new IdentityHashMap<ZipFile, Handle>();
+    }
+
+    /**
+     * Removes all the archives from the cache. Those that are still referenced
+     * are closed once released.
+     */
+    public synchronized void clear() {
+        Iterator<Map.Entry<String, Handle>> iter = this.handles.entrySet()
+                .iterator();
+
+        while (iter.hasNext()) {
+            Handle handle = iter.next().getValue();
+            iter.remove();
+            handle.evicted = true;
+            closeIfUnused(handle);
+        }
+    }
+
+    /**
+     * Returns an open archive for a given file. It is opened if it isn't
+     * cached yet or if the file changed since it was cached.
+     * 
+     * @param file
+     *            The archive file.
+     * @return The open archive.
+     * @throws IOException
+     */
+    public synchronized ZipFile acquire(File file) throws IOException {
+        String key = file.getAbsolutePath();
+        Handle handle = this.handles.get(key);
+
+        if ((handle != null) && handle.isStale(file)) {
+            evict(key, handle);
+            handle = null;
+        }
+
+        if (handle == null) {
+            handle = new Handle(file);
+            this.handles.put(key, handle);
+            this.openHandles.put(handle.zipFile, handle);
+        }
+
+        handle.references++;
+        trim();
+        return handle.zipFile;
+    }
+
+    /**
+     * Closes an archive if it is no longer referenced.
+     * 
+     * @param handle
+     *            The archive handle.
+     */
+    private void closeIfUnused(Handle handle) {
+        if (handle.evicted && (handle.references <= 0)) {
+            this.openHandles.remove(handle.zipFile);
+
+            try {
+                handle.zipFile.close();
+            } catch (IOException e) {
+                // Nothing else can be done
+            }
+        }
+    }
+
+    /**
+     * Removes a handle from the cache and closes it if it is no longer
+     * referenced.
+     * 
+     * @param key
+     *            The archive path.
+     * @param handle
+     *            The archive handle.
+     */
+    private void evict(String key, Handle handle) {
+        this.handles.remove(key);
+        handle.evicted = true;
+        closeIfUnused(handle);
+    }
+
+    /**
+     * Returns the maximum number of cached archives.
+     * 
+     * @return The maximum number of cached archives.
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Removes an archive from the cache, typically after it was updated. It is
+     * closed once it is no longer referenced.
+     * 
+     * @param file
+     *            The archive file.
+     */
+    public synchronized void invalidate(File file) {
+        String key = file.getAbsolutePath();
+        Handle handle = this.handles.get(key);
+
+        if (handle != null) {
+            evict(key, handle);
+        }
+    }
+
+    /**
+     * Releases an archive previously acquired. Archives that weren't acquired
+     * from this cache are directly closed.
+     * 
+     * @param zipFile
+     *            The archive to release.
+     */
+    public synchronized void release(ZipFile zipFile) {
+        Handle handle = this.openHandles.get(zipFile);
+
+        if (handle == null) {
+            try {
+                zipFile.close();
+            } catch (IOException e) {
+                // Nothing else can be done
+            }
+        } else {
+            handle.references--;
+            closeIfUnused(handle);
+            trim();
+        }
+    }
+
+    /**
+     * Sets the maximum number of cached archives.
+     * 
+     * @param capacity
+     *            The maximum number of cached archives.
+     */
+    public synchronized void setCapacity(int capacity) {
+        this.capacity = capacity;
+        trim();
+    }
+
+    /**
+     * Evicts the least recently used archives that aren't referenced until the
+     * capacity is respected.
+     */
+    private void trim() {
+        Iterator<Map.Entry<String, Handle>> iter = this.handles.entrySet()
+                .iterator();
+
+        while ((this.handles.size() > this.capacity) && iter.hasNext()) {
+            Handle handle = iter.next().getValue();
+
+            if (handle.references <= 0) {
+                iter.remove();
+                handle.evicted = true;
+                closeIfUnused(handle);
+            }
+        }
+    }
+
+}
@@ -42,6 +42,8 @@ import java.lang.reflect.TypeVariable;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
 
 import org.restlet.Context;
 import org.restlet.data.CharacterSet;
@@ -174,6 +176,14 @@ public class AnnotationInfo {
     /** The class that hosts the annotated Java method. */
     private final Class<?> resourceClass;
 
+    // [ifndef gwt] member
+    /**
+     * The response variants computed for each pair of metadata and converter
+     * services. The keys are weak as the annotation descriptors are shared by
+     * all the applications.
+     */
+    private final Map<MetadataService, Map<org.restlet.service.ConverterService, List<Variant>>> responseVariants = new WeakHashMap<MetadataService, Map<org.restlet.service.ConverterService, List<Variant>>>();
+
     /** The matching Restlet method. */
     private final Method restletMethod;
 
@@ -442,7 +452,10 @@ public class AnnotationInfo {
 
     // [ifndef gwt] method
     /**
-     * Returns a list of response variants based on the annotation value.
+     * Returns a list of response variants based on the annotation value. The
+     * variants are computed once for each pair of services and a new list
+     * of the same variants is returned for each call. The variants themselves
+     * are shared and must not be modified.
      * 
      * @param metadataService
      *            The metadata service to use.
@@ -455,20 +468,45 @@ public class AnnotationInfo {
     public List<Variant> getResponseVariants(MetadataService metadataService,
             org.restlet.service.ConverterService converterService)
             throws IOException {
-        List<Variant> result = null;
+        List<Variant> variants = null;
+        boolean cached;
 
-        if ((getJavaOutputType() != null)
-                && (getJavaOutputType() != void.class)
-                && (getJavaOutputType() != Void.class)) {
-            result = getVariants(metadataService, getOutput());
+        synchronized (this.responseVariants) {
+            Map<org.restlet.service.ConverterService, List<Variant>> map = this.responseVariants
+                    .get(metadataService);
+            cached = (map != null) && map.containsKey(converterService);
 
-            if (result == null) {
-                result = (List<Variant>) converterService.getVariants(
-                        getJavaOutputType(), null);
+            if (cached) {
+                variants = map.get(converterService);
             }
         }
 
-        return result;
+        if (!cached) {
+            if ((getJavaOutputType() != null)
+                    && (getJavaOutputType() != void.class)
+                    && (getJavaOutputType() != Void.class)) {
+                variants = getVariants(metadataService, getOutput());
+
+                if (variants == null) {
+                    variants = (List<Variant>) converterService.getVariants(
+                            getJavaOutputType(), null);
+                }
+            }
+
+            synchronized (this.responseVariants) {
+                Map<org.restlet.service.ConverterService, List<Variant>> map = this.responseVariants
+                        .get(metadataService);
+
+                if (map == null) {
+                    map = new WeakHashMap<org.restlet.service.ConverterService, List<Variant>>();
+                    this.responseVariants.put(metadataService, map);
+                }
+
+                map.put(converterService, variants);
+            }
+        }
+
+        return (variants == null) ? null : new ArrayList<Variant>(variants);
     }
 
     /**
@@ -34,6 +34,11 @@
 package org.restlet.resource;
 
 import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -55,7 +60,12 @@ import org.restlet.data.Status;
  * {@link ServerResource#handle()} method.<br>
  * <br>
  * Once the call is handled, the {@link ServerResource#release()} method is
- * invoked to permit clean-up actions.<br>
+ * invoked to permit clean-up actions. Resources whose
+ * {@link ServerResource#isReusable()} method returns true are then recycled
+ * and kept in a bounded pool per resource class, to be reused by subsequent
+ * calls instead of being instantiated again. Resources whose response isn't
+ * automatically committed and isn't committed yet are never recycled. The
+ * default constructors of the target classes are looked up once and cached.<br>
  * <br>
  * Concurrency note: instances of this class or its subclasses can be invoked by
  * several threads at the same time and therefore must be thread-safe. You
@@ -101,6 +111,18 @@ public class Finder extends Restlet {
         return result;
     }
 
+    /** The default maximum number of pooled instances per resource class. */
+    public static final int DEFAULT_POOL_CAPACITY = 16;
+
+    /** The cached default constructors of the target classes. */
+    private final ConcurrentMap<Class<? extends ServerResource>, Constructor<? extends ServerResource>> constructors = new ConcurrentHashMap<Class<? extends ServerResource>, Constructor<? extends ServerResource>>();
+
+    /** The maximum number of pooled instances per resource class. */
+    private volatile int poolCapacity = DEFAULT_POOL_CAPACITY;
+
+    /** The pools of reusable instances per resource class. */
+    private final ConcurrentMap<Class<? extends ServerResource>, BlockingQueue<ServerResource>> pools = new ConcurrentHashMap<Class<? extends ServerResource>, BlockingQueue<ServerResource>>();
+
     /** Target {@link ServerResource} subclass. */
     private volatile Class<? extends ServerResource> targetClass;
 
@@ -136,8 +158,8 @@ public class Finder extends Restlet {
     }
 
     /**
-     * Creates a new instance of a given {@link ServerResource} subclass. Note
-     * that {@link Error} and {@link RuntimeException} thrown by
+     * Creates a new instance of a given {@link ServerResource} subclass, or
+     * reuses a pooled one if available. Note that {@link Error} thrown by
      * {@link ServerResource} constructors are re-thrown by this method. Other
      * exception are caught and logged.
      * 
@@ -152,14 +174,31 @@ public class Finder extends Restlet {
         ServerResource result = null;
 
         if (targetClass != null) {
-            try {
-                // Invoke the default constructor
-                result = targetClass.newInstance();
-            } catch (Exception e) {
-                getLogger()
-                        .log(Level.WARNING,
-                                "Exception while instantiating the target server resource.",
-                                e);
+            BlockingQueue<ServerResource> pool = this.pools.get(targetClass);
+
+            if (pool != null) {
+                result = pool.poll();
+            }
+
+            if (result == null) {
+                try {
+                    // Invoke the default constructor
+                    result = getConstructor(targetClass).newInstance();
+                } catch (InvocationTargetException e) {
+                    if (e.getCause() instanceof Error) {
+                        throw (Error) e.getCause();
+                    }
+
+                    getLogger()
+                            .log(Level.WARNING,
+                                    "Exception while instantiating the target server resource.",
+                                    e.getCause());
+                } catch (Exception e) {
+                    getLogger()
+                            .log(Level.WARNING,
+                                    "Exception while instantiating the target server resource.",
+                                    e);
+                }
             }
         }
 
@@ -203,6 +242,41 @@ public class Finder extends Restlet {
         return create(request, response);
     }
 
+    /**
+     * Returns the default constructor of a {@link ServerResource} subclass,
+     * looking it up only once.
+     * 
+     * @param targetClass
+     *            The {@link ServerResource} subclass.
+     * @return The default constructor.
+     * @throws NoSuchMethodException
+     */
+    private Constructor<? extends ServerResource> getConstructor(
+            Class<? extends ServerResource> targetClass)
+            throws NoSuchMethodException {
+        Constructor<? extends ServerResource> result = this.constructors
+                .get(targetClass);
+
+        if (result == null) {
+            result = targetClass.getDeclaredConstructor();
+            this.constructors.put(targetClass, result);
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the maximum number of reusable instances pooled per resource
+     * class. The default value is {@link #DEFAULT_POOL_CAPACITY}.
+     * 
+     * @return The maximum number of reusable instances pooled per resource
+     *         class.
+     * @see ServerResource#isReusable()
+     */
+    public int getPoolCapacity() {
+        return poolCapacity;
+    }
+
     /**
      * Returns the target resource class which must be either a subclass of
      * {@link ServerResource}.
@@ -251,10 +325,65 @@ public class Finder extends Restlet {
                 }
 
                 targetResource.release();
+
+                // A response committed later may still be updated by the
+                // resource from another thread
+                if (targetResource.isReusable()
+                        && ((response == null) || response.isAutoCommitting() || response
+                                .isCommitted())) {
+                    recycle(targetResource);
+                }
             }
         }
     }
 
+    /**
+     * Recycles a released reusable resource and returns it to the pool of its
+     * class, unless the pool is full.
+     * 
+     * @param resource
+     *            The released resource.
+     */
+    protected void recycle(ServerResource resource) {
+        int capacity = getPoolCapacity();
+
+        if (capacity > 0) {
+            try {
+                resource.recycle();
+                BlockingQueue<ServerResource> pool = this.pools.get(resource
+                        .getClass());
+
+                if (pool == null) {
+                    pool = new ArrayBlockingQueue<ServerResource>(capacity);
+                    BlockingQueue<ServerResource> current = this.pools
+                            .putIfAbsent(resource.getClass(), pool);
+
+                    if (current != null) {
+                        pool = current;
+                    }
+                }
+
+                pool.offer(resource);
+            } catch (RuntimeException e) {
+                getLogger().log(Level.WARNING,
+                        "Unable to recycle the target server resource.", e);
+            }
+        }
+    }
+
+    /**
+     * Sets the maximum number of reusable instances pooled per resource class.
+     * A value of zero disables the pooling. Only affects the pools not created
+     * yet.
+     * 
+     * @param poolCapacity
+     *            The maximum number of reusable instances pooled per resource
+     *            class.
+     */
+    public void setPoolCapacity(int poolCapacity) {
+        this.poolCapacity = poolCapacity;
+    }
+
     /**
      * Sets the target resource class which must be a subclass of
      * {@link ServerResource}.
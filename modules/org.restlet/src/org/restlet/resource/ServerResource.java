@@ -1165,6 +1165,23 @@ public abstract class ServerResource extends Resource {
         return this.negotiated;
     }
 
+    /**
+     * Indicates if the instance can be reused by its {@link Finder} to handle
+     * subsequent calls. When true, the instance is recycled after being
+     * released and returned to a bounded pool of instances of the same class.
+     * Subclasses opting in must not keep any call-specific state after
+     * {@link #doRelease()} or must reset it by overriding {@link #recycle()}.
+     * Note that the constructor is only invoked once per pooled instance and
+     * that the negotiated, conditional, existing and annotated flags are reset
+     * when recycled, so they should be set in the {@link #doInit()} method.
+     * The default value is false.
+     * 
+     * @return True if the instance can be reused.
+     */
+    public boolean isReusable() {
+        return false;
+    }
+
     /**
      * Indicates the communication options available for this resource. This
      * method is only invoked if content negotiation has been disabled as
@@ -1394,6 +1411,25 @@ public abstract class ServerResource extends Resource {
         return result;
     }
 
+    /**
+     * Clears the call-specific state before the instance is returned to the
+     * pool of its {@link Finder}. The annotated, conditional, existing and
+     * negotiated flags are reset to their default values. Only invoked if
+     * {@link #isReusable()} returns true. Subclasses keeping call-specific
+     * state in member variables should override this method and invoke the
+     * parent one.
+     */
+    protected void recycle() {
+        setApplication(null);
+        setRequest(null);
+        setResponse(null);
+        this.annotated = true;
+        this.conditional = true;
+        this.existing = true;
+        this.negotiated = true;
+        this.variants = null;
+    }
+
     /**
      * Permanently redirects the client to a target URI. The client is expected
      * to reuse the same method for the new request.
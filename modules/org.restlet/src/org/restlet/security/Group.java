@@ -34,7 +34,6 @@
 package org.restlet.security;
 
 import java.util.List;
-import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * Group that contains member groups and users.
@@ -61,6 +60,9 @@ public class Group {
     /** The display name. */
     private volatile String name;
 
+    /** The tracker of the modifications of this group. */
+    private final TrackedList.Tracker tracker;
+
     /**
      * Default constructor. Note that roles are inherited by default.
      */
@@ -95,8 +97,9 @@ public class Group {
         this.name = name;
         this.description = description;
         this.inheritingRoles = inheritingRoles;
-        this.memberGroups = new CopyOnWriteArrayList<Group>();
-        this.memberUsers = new CopyOnWriteArrayList<User>();
+        this.tracker = new TrackedList.Tracker();
+        this.memberGroups = new TrackedList<Group>(this.tracker);
+        this.memberUsers = new TrackedList<User>(this.tracker);
     }
 
     /**
@@ -130,6 +133,15 @@ public class Group {
         return this.name;
     }
 
+    /**
+     * Returns the tracker of the modifications of this group.
+     * 
+     * @return The tracker of the modifications of this group.
+     */
+    TrackedList.Tracker getTracker() {
+        return tracker;
+    }
+
     /**
      * Indicates if the roles of the parent group should be inherited. Those
      * roles indirectly cover the granted or denied permissions.
@@ -159,6 +171,7 @@ public class Group {
      */
     public void setInheritingRoles(boolean inheritingRoles) {
         this.inheritingRoles = inheritingRoles;
+        this.tracker.modified();
     }
 
     /**
@@ -34,10 +34,16 @@
 package org.restlet.security;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.restlet.Application;
 import org.restlet.Request;
@@ -47,7 +53,12 @@ import org.restlet.engine.security.RoleMapping;
 
 /**
  * Security realm based on a memory model. The model is composed of root groups,
- * users and mapping to associated roles.
+ * users and mapping to associated roles.<br>
+ * <br>
+ * Users and role mappings are indexed, and the groups and roles of each user
+ * are computed once, so that authenticating a request doesn't scan the model.
+ * The indexes are rebuilt after any modification of the users, groups or role
+ * mappings of this realm.
  * 
  * @author Jerome Louvel
  */
@@ -62,20 +73,9 @@ public class MemoryRealm extends Realm {
             User user = findUser(clientInfo.getUser().getIdentifier());
 
             if (user != null) {
-                // Find all the inherited groups of this user
-                Set<Group> userGroups = findGroups(user);
-
-                // Add roles specific to this user
-                Set<Role> userRoles = findRoles(user);
-
-                for (Role role : userRoles) {
-                    clientInfo.getRoles().add(role);
-                }
-
-                // Add roles common to group members
-                Set<Role> groupRoles = findRoles(userGroups);
-
-                for (Role role : groupRoles) {
+                // Add roles specific to this user and common to the
+                // inherited groups of this user
+                for (Role role : getIndex().getRoles(user)) {
                     clientInfo.getRoles().add(role);
                 }
             }
@@ -120,9 +120,128 @@ public class MemoryRealm extends Realm {
         }
     }
 
+    /**
+     * Indexes of the security model, valid until the next modification.
+     */
+    private class Index {
+
+        /** The inherited groups of each user, computed lazily. */
+        private final ConcurrentMap<User, Set<Group>> groups;
+
+        /** The roles of each user, including group ones, computed lazily. */
+        private final ConcurrentMap<User, Set<Role>> roles;
+
+        /** The roles mapped to each user or group. */
+        private final Map<Object, Set<Role>> sourceRoles;
+
+        /** The users by identifier. */
+        private final Map<String, User> users;
+
+        /** The version of the security model covered by the indexes. */
+        private final long version;
+
+        /**
+         * Constructor.
+         * 
+         * @param version
+         *            The version of the security model covered by the indexes.
+         */
+        private Index(long version) {
+            this.version = version;
+            this.groups = new ConcurrentHashMap<User, Set<Group>>();
+            this.roles = new ConcurrentHashMap<User, Set<Role>>();
+            this.sourceRoles = new HashMap<Object, Set<Role>>();
+            this.users = new HashMap<String, User>();
+
+            for (User user : getUsers()) {
+                user.getTracker().register(modifications);
+
+                if (!this.users.containsKey(user.getIdentifier())) {
+                    this.users.put(user.getIdentifier(), user);
+                }
+            }
+
+            for (RoleMapping mapping : getRoleMappings()) {
+                Set<Role> set = this.sourceRoles.get(mapping.getSource());
+
+                if (set == null) {
+                    set = new LinkedHashSet<Role>();
+                    this.sourceRoles.put(mapping.getSource(), set);
+                }
+
+                set.add(mapping.getTarget());
+            }
+        }
+
+        /**
+         * Returns the inheritable groups of a user.
+         * 
+         * @param user
+         *            The member user.
+         * @return The unmodifiable set of groups.
+         */
+        private Set<Group> getGroups(User user) {
+            Set<Group> result = this.groups.get(user);
+
+            if (result == null) {
+                result = Collections.unmodifiableSet(scanGroups(user, true));
+                this.groups.put(user, result);
+            }
+
+            return result;
+        }
+
+        /**
+         * Returns the roles mapped to a user or to one of its inheritable
+         * groups.
+         * 
+         * @param user
+         *            The user.
+         * @return The unmodifiable set of roles.
+         */
+        private Set<Role> getRoles(User user) {
+            Set<Role> result = this.roles.get(user);
+
+            if (result == null) {
+                Set<Role> set = new LinkedHashSet<Role>(getSourceRoles(user));
+
+                for (Group group : getGroups(user)) {
+                    set.addAll(getSourceRoles(group));
+                }
+
+                result = Collections.unmodifiableSet(set);
+                this.roles.put(user, result);
+            }
+
+            return result;
+        }
+
+        /**
+         * Returns the roles mapped to a user or a group.
+         * 
+         * @param source
+         *            The user or group.
+         * @return The set of roles, not to be modified.
+         */
+        private Set<Role> getSourceRoles(Object source) {
+            Set<Role> result = (source == null) ? null : this.sourceRoles
+                    .get(source);
+            return (result == null) ? Collections.<Role> emptySet() : result;
+        }
+    }
+
+    /**
+     * The version of the security model, incremented by the modifications of
+     * the lists of this realm and of the indexed groups and users.
+     */
+    private final AtomicLong modifications;
+
     /** The modifiable list of role mappings. */
     private final List<RoleMapping> roleMappings;
 
+    /** The current indexes of the security model. */
+    private volatile Index index;
+
     /** The modifiable list of root groups. */
     private final List<Group> rootGroups;
 
@@ -135,9 +254,12 @@ public class MemoryRealm extends Realm {
     public MemoryRealm() {
         setVerifier(new DefaultVerifier());
         setEnroler(new DefaultEnroler());
-        this.rootGroups = new CopyOnWriteArrayList<Group>();
-        this.roleMappings = new CopyOnWriteArrayList<RoleMapping>();
-        this.users = new CopyOnWriteArrayList<User>();
+        this.modifications = new AtomicLong();
+        TrackedList.Tracker tracker = new TrackedList.Tracker();
+        tracker.register(this.modifications);
+        this.rootGroups = new TrackedList<Group>(tracker);
+        this.roleMappings = new TrackedList<RoleMapping>(tracker);
+        this.users = new TrackedList<User>(tracker);
     }
 
     /**
@@ -158,6 +280,8 @@ public class MemoryRealm extends Realm {
     private void addGroups(User user, Set<Group> userGroups,
             Group currentGroup, List<Group> stack, boolean inheritOnly) {
         if ((currentGroup != null) && !stack.contains(currentGroup)) {
+            // Further modifications of the group invalidate the indexes
+            currentGroup.getTracker().register(this.modifications);
             stack.add(currentGroup);
 
             if (currentGroup.getMemberUsers().contains(user)) {
@@ -181,6 +305,27 @@ public class MemoryRealm extends Realm {
         }
     }
 
+    /**
+     * Filters the roles belonging to a given application.
+     * 
+     * @param application
+     *            The parent application.
+     * @param roles
+     *            The roles to filter.
+     * @return The roles found.
+     */
+    private Set<Role> filterRoles(Application application, Set<Role> roles) {
+        Set<Role> result = new HashSet<Role>();
+
+        for (Role role : roles) {
+            if (role.getApplication() == application) {
+                result.add(role);
+            }
+        }
+
+        return result;
+    }
+
     /**
      * Finds the set of groups where a given user is a member. Note that
      * inheritable ancestors groups are also returned.
@@ -204,16 +349,11 @@ public class MemoryRealm extends Realm {
      * @return The set of groups.
      */
     public Set<Group> findGroups(User user, boolean inheritOnly) {
-        Set<Group> result = new HashSet<Group>();
-        List<Group> stack;
-
-        // Recursively find user groups
-        for (Group group : getRootGroups()) {
-            stack = new ArrayList<Group>();
-            addGroups(user, result, group, stack, inheritOnly);
+        if (inheritOnly) {
+            return new HashSet<Group>(getIndex().getGroups(user));
         }
 
-        return result;
+        return scanGroups(user, inheritOnly);
     }
 
     /**
@@ -233,20 +373,8 @@ public class MemoryRealm extends Realm {
                     "The application argument can't be null");
         }
 
-        Set<Role> result = new HashSet<Role>();
-        Object source;
-
-        for (RoleMapping mapping : getRoleMappings()) {
-            source = mapping.getSource();
-
-            if ((userGroup != null) && userGroup.equals(source)) {
-                if (mapping.getTarget().getApplication() == application) {
-                    result.add(mapping.getTarget());
-                }
-            }
-        }
-
-        return result;
+        return filterRoles(application,
+                getIndex().getSourceRoles(userGroup));
     }
 
     /**
@@ -266,20 +394,7 @@ public class MemoryRealm extends Realm {
                     "The application argument can't be null");
         }
 
-        Set<Role> result = new HashSet<Role>();
-        Object source;
-
-        for (RoleMapping mapping : getRoleMappings()) {
-            source = mapping.getSource();
-
-            if ((userGroups != null) && userGroups.contains(source)) {
-                if (mapping.getTarget().getApplication() == application) {
-                    result.add(mapping.getTarget());
-                }
-            }
-        }
-
-        return result;
+        return filterRoles(application, findRoles(userGroups));
     }
 
     /**
@@ -299,20 +414,7 @@ public class MemoryRealm extends Realm {
                     "The application argument can't be null");
         }
 
-        Set<Role> result = new HashSet<Role>();
-        Object source;
-
-        for (RoleMapping mapping : getRoleMappings()) {
-            source = mapping.getSource();
-
-            if ((user != null) && user.equals(source)) {
-                if (mapping.getTarget().getApplication() == application) {
-                    result.add(mapping.getTarget());
-                }
-            }
-        }
-
-        return result;
+        return filterRoles(application, getIndex().getSourceRoles(user));
     }
 
     /**
@@ -323,18 +425,7 @@ public class MemoryRealm extends Realm {
      * @return The roles found.
      */
     public Set<Role> findRoles(Group userGroup) {
-        Set<Role> result = new HashSet<Role>();
-        Object source;
-
-        for (RoleMapping mapping : getRoleMappings()) {
-            source = mapping.getSource();
-
-            if ((userGroup != null) && userGroup.equals(source)) {
-                result.add(mapping.getTarget());
-            }
-        }
-
-        return result;
+        return new HashSet<Role>(getIndex().getSourceRoles(userGroup));
     }
 
     /**
@@ -346,13 +437,12 @@ public class MemoryRealm extends Realm {
      */
     public Set<Role> findRoles(Set<Group> userGroups) {
         Set<Role> result = new HashSet<Role>();
-        Object source;
 
-        for (RoleMapping mapping : getRoleMappings()) {
-            source = mapping.getSource();
+        if (userGroups != null) {
+            Index index = getIndex();
 
-            if ((userGroups != null) && userGroups.contains(source)) {
-                result.add(mapping.getTarget());
+            for (Group group : userGroups) {
+                result.addAll(index.getSourceRoles(group));
             }
         }
 
@@ -367,18 +457,7 @@ public class MemoryRealm extends Realm {
      * @return The roles found.
      */
     public Set<Role> findRoles(User user) {
-        Set<Role> result = new HashSet<Role>();
-        Object source;
-
-        for (RoleMapping mapping : getRoleMappings()) {
-            source = mapping.getSource();
-
-            if ((user != null) && user.equals(source)) {
-                result.add(mapping.getTarget());
-            }
-        }
-
-        return result;
+        return new HashSet<Role>(getIndex().getSourceRoles(user));
     }
 
     /**
@@ -389,14 +468,30 @@ public class MemoryRealm extends Realm {
      * @return The matched user or null.
      */
     public User findUser(String userIdentifier) {
-        User result = null;
-        User user;
-
-        for (int i = 0; (result == null) && (i < getUsers().size()); i++) {
-            user = getUsers().get(i);
+        return (userIdentifier == null) ? null : getIndex().users
+                .get(userIdentifier);
+    }
 
-            if (user.getIdentifier().equals(userIdentifier)) {
-                result = user;
+    /**
+     * Returns the indexes of the security model, rebuilding them if the model
+     * was modified. Concurrent callers wait for a single rebuild.
+     * 
+     * @return The indexes of the security model.
+     */
+    private Index getIndex() {
+        Index result = this.index;
+
+        if ((result == null)
+                || (result.version != this.modifications.get())) {
+            synchronized (this.modifications) {
+                result = this.index;
+                long version = this.modifications.get();
+
+                if ((result == null) || (result.version != version)) {
+                    // Concurrent modifications are detected by the next call
+                    result = new Index(version);
+                    this.index = result;
+                }
             }
         }
 
@@ -470,6 +565,29 @@ public class MemoryRealm extends Realm {
         getRoleMappings().add(new RoleMapping(user, role));
     }
 
+    /**
+     * Recursively finds the set of groups where a given user is a member.
+     * 
+     * @param user
+     *            The member user.
+     * @param inheritOnly
+     *            Indicates if only the ancestors groups that have their
+     *            "inheritRoles" property enabled should be added.
+     * @return The set of groups.
+     */
+    private Set<Group> scanGroups(User user, boolean inheritOnly) {
+        Set<Group> result = new HashSet<Group>();
+        List<Group> stack;
+
+        // Recursively find user groups
+        for (Group group : getRootGroups()) {
+            stack = new ArrayList<Group>();
+            addGroups(user, result, group, stack, inheritOnly);
+        }
+
+        return result;
+    }
+
     /**
      * Sets the modifiable list of root groups. This method clears the current
      * list and adds all entries in the parameter list.
@@ -550,7 +668,7 @@ public class MemoryRealm extends Realm {
     private void unmap(Object source, Role role) {
         RoleMapping mapping;
 
-        for (int i = getRoleMappings().size(); i >= 0; i--) {
+        for (int i = getRoleMappings().size() - 1; i >= 0; i--) {
             mapping = getRoleMappings().get(i);
 
             if (mapping.getSource().equals(source)
@@ -0,0 +1,285 @@
+/**
+ * Copyright 2005-2013 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+package org.restlet.security;
+
+import java.util.AbstractList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Thread-safe list that reports its modifications to a tracker. The trackers
+ * of groups, users and realms notify the realms whose indexes depend on them,
+ * so that those indexes can detect that they need to be rebuilt.<br>
+ * <br>
+ * The elements are kept in a private copy on write list. Iterators work on a
+ * snapshot like those of {@link CopyOnWriteArrayList}, and every mutation,
+ * including those made through iterators, list iterators and sub lists, goes
+ * through the tracked methods of this class.
+ * 
+ * @param <E>
+ *            The element type.
+ */
+class TrackedList<E> extends AbstractList<E> implements RandomAccess {
+
+    /**
+     * Tracker of the modifications of an element of the security model. Each
+     * modification increments the version counters of the dependent realms.
+     */
+    static class Tracker {
+
+        /** The version counters of the dependent realms. */
+        private final Set<AtomicLong> versions = Collections
+                .synchronizedSet(Collections
+                        .newSetFromMap(new WeakHashMap<AtomicLong, Boolean>()));
+
+        /**
+         * Records a modification of the tracked element.
+         */
+        void modified() {
+            synchronized (this.versions) {
+                for (AtomicLong version : this.versions) {
+                    version.incrementAndGet();
+                }
+            }
+        }
+
+        /**
+         * Registers the version counter of a dependent realm. The counter is
+         * weakly referenced.
+         * 
+         * @param version
+         *            The version counter to increment on modifications.
+         */
+        void register(AtomicLong version) {
+            this.versions.add(version);
+        }
+    }
+
+    /** The elements. */
+    private final CopyOnWriteArrayList<E> elements;
+
+    /** The tracker notified of the modifications. */
+    private final Tracker tracker;
+
+    /**
+     * Constructor.
+     * 
+     * @param tracker
+     *            The tracker notified of the modifications.
+     */
+    TrackedList(Tracker tracker) {
+        this.elements = new CopyOnWriteArrayList<E>();
+        this.tracker = tracker;
+    }
+
+    /**
+     * Records a modification of the list.
+     */
+    private void modified() {
+        this.tracker.modified();
+    }
+
+    @Override
+    public boolean add(E e) {
+        try {
+            return this.elements.add(e);
+        } finally {
+            modified();
+        }
+    }
+
+    @Override
+    public void add(int index, E element) {
+        try {
+            this.elements.add(index, element);
+        } finally {
+            modified();
+        }
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends E> c) {
+        try {
+            return this.elements.addAll(c);
+        } finally {
+            modified();
+        }
+    }
+
+    @Override
+    public boolean addAll(int index, Collection<? extends E> c) {
+        try {
+            return this.elements.addAll(index, c);
+        } finally {
+            modified();
+        }
+    }
+
+    @Override
+    public void clear() {
+        try {
+            this.elements.clear();
+        } finally {
+            modified();
+        }
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return this.elements.contains(o);
+    }
+
+    @Override
+    public E get(int index) {
+        return this.elements.get(index);
+    }
+
+    @Override
+    public int indexOf(Object o) {
+        return this.elements.indexOf(o);
+    }
+
+    /**
+     * Returns an iterator over a snapshot of the elements. Its remove method
+     * removes the last returned element from this list.
+     */
+    @Override
+    public Iterator<E> iterator() {
+        final Iterator<E> snapshot = this.elements.iterator();
+
+        return new Iterator<E>() {
+
+            /** The last returned element. */
+            private E last;
+
+            /** Indicates if the last returned element can be removed. */
+            private boolean removable;
+
+            public boolean hasNext() {
+                return snapshot.hasNext();
+            }
+
+            public E next() {
+                if (!snapshot.hasNext()) {
+                    throw new NoSuchElementException();
+                }
+
+                this.last = snapshot.next();
+                this.removable = true;
+                return this.last;
+            }
+
+            public void remove() {
+                if (!this.removable) {
+                    throw new IllegalStateException();
+                }
+
+                this.removable = false;
+                TrackedList.this.remove(this.last);
+            }
+        };
+    }
+
+    @Override
+    public int lastIndexOf(Object o) {
+        return this.elements.lastIndexOf(o);
+    }
+
+    @Override
+    public E remove(int index) {
+        try {
+            return this.elements.remove(index);
+        } finally {
+            modified();
+        }
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        try {
+            return this.elements.remove(o);
+        } finally {
+            modified();
+        }
+    }
+
+    @Override
+    public boolean removeAll(Collection<?> c) {
+        try {
+            return this.elements.removeAll(c);
+        } finally {
+            modified();
+        }
+    }
+
+    @Override
+    public boolean retainAll(Collection<?> c) {
+        try {
+            return this.elements.retainAll(c);
+        } finally {
+            modified();
+        }
+    }
+
+    @Override
+    public E set(int index, E element) {
+        try {
+            return this.elements.set(index, element);
+        } finally {
+            modified();
+        }
+    }
+
+    @Override
+    public int size() {
+        return this.elements.size();
+    }
+
+    @Override
+    public Object[] toArray() {
+        return this.elements.toArray();
+    }
+
+    @Override
+    public <T> T[] toArray(T[] a) {
+        return this.elements.toArray(a);
+    }
+
+}
@@ -60,6 +60,9 @@ public class User implements Principal {
     /** The secret. */
     private volatile char[] secret;
 
+    /** The tracker of the modifications of this user. */
+    private final TrackedList.Tracker tracker = new TrackedList.Tracker();
+
     /**
      * Default constructor.
      */
@@ -197,6 +200,15 @@ public class User implements Principal {
         return secret;
     }
 
+    /**
+     * Returns the tracker of the modifications of this user.
+     * 
+     * @return The tracker of the modifications of this user.
+     */
+    TrackedList.Tracker getTracker() {
+        return tracker;
+    }
+
     /**
      * Sets the email.
      * 
@@ -225,6 +237,7 @@ public class User implements Principal {
      */
     public void setIdentifier(String identifier) {
         this.identifier = identifier;
+        this.tracker.modified();
     }
 
     /**
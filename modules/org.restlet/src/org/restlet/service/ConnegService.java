@@ -33,10 +33,12 @@
 
 package org.restlet.service;
 
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.restlet.Request;
-import org.restlet.engine.application.Conneg;
+import org.restlet.engine.application.ClientPreferences;
 import org.restlet.engine.application.FlexibleConneg;
 import org.restlet.engine.application.StrictConneg;
 import org.restlet.representation.Variant;
@@ -44,12 +46,26 @@ import org.restlet.representation.Variant;
 /**
  * Application service negotiating the preferred resource variants. This service
  * is leveraged by server-side and client-side content negotiation, annotated
- * method dispatching, and so on.
+ * method dispatching, and so on.<br>
+ * <br>
+ * As a few distinct sets of client preferences usually make up most of the
+ * traffic, the preferences prepared by the conneg algorithm, and the scores of
+ * the variant metadata relatively to them, are cached per normalized set of
+ * preferences (see {@link #getPreferencesCacheSize()}).
  * 
  * @author Jerome Louvel
  */
 public class ConnegService extends Service {
 
+    /** The default maximum number of cached client preferences. */
+    public static final int DEFAULT_PREFERENCES_CACHE_SIZE = 64;
+
+    /** The cached client preferences, by normalized key. */
+    private final Map<String, ClientPreferences> preferencesCache;
+
+    /** The maximum number of cached client preferences. */
+    private volatile int preferencesCacheSize;
+
     /**
      * Indicates if the conneg algorithm should strictly respect client
      * preferences or be more flexible.
@@ -72,6 +88,38 @@ public class ConnegService extends Service {
     public ConnegService(boolean enabled) {
         super(enabled);
         this.strict = false;
+        this.preferencesCacheSize = DEFAULT_PREFERENCES_CACHE_SIZE;
+        this.preferencesCache = new LinkedHashMap<String, ClientPreferences>(
+                16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(
+                    Map.Entry<String, ClientPreferences> eldest) {
+                return size() > getPreferencesCacheSize();
+            }
+        };
+    }
+
+    /**
+     * Creates the conneg algorithm.
+     * 
+     * @param strict
+     *            True if the conneg algorithm should strictly respect client
+     *            preferences.
+     * @param request
+     *            The request including client preferences.
+     * @param metadataService
+     *            The metadata service used to get default metadata values.
+     * @param preferences
+     *            The cached client preferences or null.
+     * @return The conneg algorithm.
+     */
+    private StrictConneg createConneg(boolean strict, Request request,
+            MetadataService metadataService, ClientPreferences preferences) {
+        return strict ? new StrictConneg(request, metadataService,
+                preferences) : new FlexibleConneg(request, metadataService,
+                preferences);
     }
 
     /**
@@ -93,11 +141,47 @@ public class ConnegService extends Service {
      */
     public Variant getPreferredVariant(List<? extends Variant> variants,
             Request request, MetadataService metadataService) {
-        Conneg conneg = isStrict() ? new StrictConneg(request, metadataService)
-                : new FlexibleConneg(request, metadataService);
+        if ((getPreferencesCacheSize() <= 0)
+                || (request.getClientInfo() == null)) {
+            return createConneg(isStrict(), request, metadataService, null)
+                    .getPreferredVariant(variants);
+        }
+
+        boolean strictConneg = isStrict();
+        String key = (strictConneg ? "strict|" : "flexible|")
+                + ClientPreferences.getKey(request.getClientInfo(),
+                        strictConneg ? null : metadataService);
+        ClientPreferences preferences;
+
+        synchronized (this.preferencesCache) {
+            preferences = this.preferencesCache.get(key);
+        }
+
+        StrictConneg conneg = createConneg(strictConneg, request,
+                metadataService, preferences);
+
+        if (preferences == null) {
+            preferences = conneg.getPreferences();
+
+            synchronized (this.preferencesCache) {
+                this.preferencesCache.put(key, preferences);
+            }
+        }
+
         return conneg.getPreferredVariant(variants);
     }
 
+    /**
+     * Returns the maximum number of cached client preferences. A value of zero
+     * disables the cache. The default value is
+     * {@link #DEFAULT_PREFERENCES_CACHE_SIZE}.
+     * 
+     * @return The maximum number of cached client preferences.
+     */
+    public int getPreferencesCacheSize() {
+        return preferencesCacheSize;
+    }
+
     /**
      * Indicates if the conneg algorithm should strictly respect client
      * preferences or be more flexible. Value is false by default.
@@ -109,6 +193,21 @@ public class ConnegService extends Service {
         return strict;
     }
 
+    /**
+     * Sets the maximum number of cached client preferences. A value of zero
+     * disables the cache.
+     * 
+     * @param preferencesCacheSize
+     *            The maximum number of cached client preferences.
+     */
+    public void setPreferencesCacheSize(int preferencesCacheSize) {
+        this.preferencesCacheSize = preferencesCacheSize;
+
+        synchronized (this.preferencesCache) {
+            this.preferencesCache.clear();
+        }
+    }
+
     /**
      * Indicates if the conneg algorithm should strictly respect client
      * preferences or be more flexible.
@@ -47,6 +47,15 @@ import org.restlet.routing.Filter;
 
 /**
  * Application service automatically encoding or compressing request entities.
+ * <br>
+ * <br>
+ * To avoid compressing the same static content for each call, response
+ * entities based on files can be served from a precompressed sibling file (for
+ * example "index.html.gz" for "index.html" and the GZip encoding), using the
+ * extension of the encoding in the {@link MetadataService} or the usual "gz"
+ * and "deflate" extensions. Response entities that have an entity tag, a known
+ * size and a non transient content can also be compressed once and kept in a
+ * cache bounded by its total size in bytes.
  * 
  * @author Jerome Louvel
  */
@@ -97,11 +106,21 @@ public class EncoderService extends Service {
      */
     private final List<MediaType> ignoredMediaTypes;
 
+    /**
+     * The maximum total size in bytes of the cached encoded content.
+     */
+    private volatile long encodedCacheSize;
+
     /**
      * The minimal size necessary for encoding.
      */
     private volatile long mininumSize;
 
+    /**
+     * Indicates if precompressed sibling files should be looked up.
+     */
+    private volatile boolean usingPrecompressedFiles;
+
     /**
      * Constructor.
      */
@@ -117,7 +136,9 @@ public class EncoderService extends Service {
      */
     public EncoderService(boolean enabled) {
         super(enabled);
+        this.encodedCacheSize = 0;
         this.mininumSize = DEFAULT_MINIMUM_SIZE;
+        this.usingPrecompressedFiles = false;
         this.acceptedMediaTypes = new CopyOnWriteArrayList<MediaType>(
                 getDefaultAcceptedMediaTypes());
         this.ignoredMediaTypes = new CopyOnWriteArrayList<MediaType>(
@@ -202,6 +223,17 @@ public class EncoderService extends Service {
         return this.acceptedMediaTypes;
     }
 
+    /**
+     * Returns the maximum total size in bytes of the cached encoded content.
+     * Zero, the default value, disables the cache. Only entities with a strong
+     * entity tag are cached, for the resource they represent.
+     * 
+     * @return The maximum total size in bytes of the cached encoded content.
+     */
+    public long getEncodedCacheSize() {
+        return this.encodedCacheSize;
+    }
+
     /**
      * Returns the media types that should be ignored.
      * 
@@ -222,6 +254,28 @@ public class EncoderService extends Service {
         return this.mininumSize;
     }
 
+    /**
+     * Indicates if precompressed sibling files should be looked up. False by
+     * default.
+     * 
+     * @return True if precompressed sibling files should be looked up.
+     */
+    public boolean isUsingPrecompressedFiles() {
+        return this.usingPrecompressedFiles;
+    }
+
+    /**
+     * Sets the maximum total size in bytes of the cached encoded content. Zero
+     * disables the cache.
+     * 
+     * @param encodedCacheSize
+     *            The maximum total size in bytes of the cached encoded
+     *            content.
+     */
+    public void setEncodedCacheSize(long encodedCacheSize) {
+        this.encodedCacheSize = encodedCacheSize;
+    }
+
     /**
      * Sets the minimum size a representation must have before compression is
      * done.
@@ -234,4 +288,14 @@ public class EncoderService extends Service {
         this.mininumSize = mininumSize;
     }
 
+    /**
+     * Indicates if precompressed sibling files should be looked up.
+     * 
+     * @param usingPrecompressedFiles
+     *            True if precompressed sibling files should be looked up.
+     */
+    public void setUsingPrecompressedFiles(boolean usingPrecompressedFiles) {
+        this.usingPrecompressedFiles = usingPrecompressedFiles;
+    }
+
 }
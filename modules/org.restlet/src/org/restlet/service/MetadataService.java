@@ -34,7 +34,10 @@
 package org.restlet.service;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CopyOnWriteArrayList;
 
 import org.restlet.data.CharacterSet;
@@ -49,11 +52,41 @@ import org.restlet.engine.application.MetadataExtension;
  * extension names. The list of default mappings is documented in the
  * {@link #addCommonExtensions()} method.<br>
  * <br>
- * Internally, the mappings are stored as a list of "extension, metadata" pairs.
+ * Internally, the mappings are stored as a list of "extension, metadata" pairs,
+ * indexed by extension name and by metadata to avoid scanning the whole list
+ * for each lookup.
  * 
  * @author Jerome Louvel
  */
 public class MetadataService extends Service {
+
+    /**
+     * Immutable snapshot of the indexes built from the list of mappings. It is
+     * replaced as a whole so that readers never see the index by extension
+     * name and the index by metadata from different generations.
+     */
+    private static final class Indexes {
+        /** The mappings indexed by extension name, in the order of the list. */
+        private final Map<String, List<MetadataExtension>> extensions;
+
+        /** The first extension name mapped to each metadata. */
+        private final Map<Metadata, String> metadata;
+
+        /**
+         * Constructor.
+         * 
+         * @param extensions
+         *            The mappings indexed by extension name.
+         * @param metadata
+         *            The first extension name mapped to each metadata.
+         */
+        private Indexes(Map<String, List<MetadataExtension>> extensions,
+                Map<Metadata, String> metadata) {
+            this.extensions = extensions;
+            this.metadata = metadata;
+        }
+    }
+
     /** The default character set for textual representations. */
     private volatile CharacterSet defaultCharacterSet;
 
@@ -66,6 +99,9 @@ public class MetadataService extends Service {
     /** The default media type for representations. */
     private volatile MediaType defaultMediaType;
 
+    /** The current indexes of the mappings. */
+    private volatile Indexes indexes;
+
     /** The list of mappings between extension names and metadata. */
     private final List<MetadataExtension> mappings;
 
@@ -84,6 +120,9 @@ public class MetadataService extends Service {
         // [ifdef gwt] instruction uncomment
         // this.defaultMediaType = MediaType.APPLICATION_JSON;
         this.mappings = new CopyOnWriteArrayList<MetadataExtension>();
+        this.indexes = new Indexes(
+                Collections.<String, List<MetadataExtension>> emptyMap(),
+                Collections.<Metadata, String> emptyMap());
         addCommonExtensions();
     }
 
@@ -373,7 +412,10 @@ public class MetadataService extends Service {
         ext(dm, "xml", MediaType.APPLICATION_XML);
 
         // Add all those mappings
-        this.mappings.addAll(dm);
+        synchronized (this.mappings) {
+            this.mappings.addAll(dm);
+            updateIndexes();
+        }
     }
 
     /**
@@ -402,12 +444,16 @@ public class MetadataService extends Service {
      */
     public void addExtension(String extension, Metadata metadata,
             boolean preferred) {
-        if (preferred) {
-            // Add the mapping at the beginning of the list
-            this.mappings.add(0, new MetadataExtension(extension, metadata));
-        } else {
-            // Add the mapping at the end of the list
-            this.mappings.add(new MetadataExtension(extension, metadata));
+        synchronized (this.mappings) {
+            if (preferred) {
+                // Add the mapping at the beginning of the list
+                this.mappings.add(0, new MetadataExtension(extension, metadata));
+            } else {
+                // Add the mapping at the end of the list
+                this.mappings.add(new MetadataExtension(extension, metadata));
+            }
+
+            updateIndexes();
         }
     }
 
@@ -415,7 +461,10 @@ public class MetadataService extends Service {
      * clears the mappings for all extensions.
      */
     public void clearExtensions() {
-        this.mappings.clear();
+        synchronized (this.mappings) {
+            this.mappings.clear();
+            updateIndexes();
+        }
     }
 
     /**
@@ -491,9 +540,8 @@ public class MetadataService extends Service {
 
         if (extension != null) {
             // Look for all registered convenient mapping.
-            for (MetadataExtension metadataExtension : this.mappings) {
-                if (extension.equals(metadataExtension.getName())
-                        && (metadataExtension.getMetadata() instanceof CharacterSet)) {
+            for (MetadataExtension metadataExtension : getMappings(extension)) {
+                if (metadataExtension.getMetadata() instanceof CharacterSet) {
                     if (result == null) {
                         result = new ArrayList<CharacterSet>();
                     }
@@ -572,9 +620,8 @@ public class MetadataService extends Service {
 
         if (extension != null) {
             // Look for all registered convenient mapping.
-            for (MetadataExtension metadataExtension : this.mappings) {
-                if (extension.equals(metadataExtension.getName())
-                        && (metadataExtension.getMetadata() instanceof Language)) {
+            for (MetadataExtension metadataExtension : getMappings(extension)) {
+                if (metadataExtension.getMetadata() instanceof Language) {
                     if (result == null) {
                         result = new ArrayList<Language>();
                     }
@@ -618,9 +665,8 @@ public class MetadataService extends Service {
 
         if (extension != null) {
             // Look for all registered convenient mapping.
-            for (MetadataExtension metadataExtension : this.mappings) {
-                if (extension.equals(metadataExtension.getName())
-                        && (metadataExtension.getMetadata() instanceof MediaType)) {
+            for (MetadataExtension metadataExtension : getMappings(extension)) {
+                if (metadataExtension.getMetadata() instanceof MediaType) {
                     if (result == null) {
                         result = new ArrayList<MediaType>();
                     }
@@ -646,14 +692,12 @@ public class MetadataService extends Service {
 
         if (extension != null) {
             // Look for all registered convenient mapping.
-            for (MetadataExtension metadataExtension : this.mappings) {
-                if (extension.equals(metadataExtension.getName())) {
-                    if (result == null) {
-                        result = new ArrayList<Metadata>();
-                    }
-
-                    result.add(metadataExtension.getMetadata());
+            for (MetadataExtension metadataExtension : getMappings(extension)) {
+                if (result == null) {
+                    result = new ArrayList<Metadata>();
                 }
+
+                result.add(metadataExtension.getMetadata());
             }
         }
 
@@ -751,15 +795,7 @@ public class MetadataService extends Service {
      * @return The first extension mapping to this metadata.
      */
     public String getExtension(Metadata metadata) {
-        if (metadata != null) {
-            // Look for the first registered convenient mapping.
-            for (final MetadataExtension metadataExtension : this.mappings) {
-                if (metadata.equals(metadataExtension.getMetadata())) {
-                    return metadataExtension.getName();
-                }
-            }
-        }
-        return null;
+        return (metadata == null) ? null : this.indexes.metadata.get(metadata);
     }
 
     /**
@@ -785,6 +821,19 @@ public class MetadataService extends Service {
         // [enddef]
     }
 
+    /**
+     * Returns the ordered list of mappings for an extension name.
+     * 
+     * @param extension
+     *            The extension name without any delimiter.
+     * @return The ordered list of mappings, possibly empty.
+     */
+    private List<MetadataExtension> getMappings(String extension) {
+        List<MetadataExtension> result = this.indexes.extensions.get(extension);
+        return (result == null) ? Collections.<MetadataExtension> emptyList()
+                : result;
+    }
+
     /**
      * Returns the mediatype associated to this extension. It returns null if
      * the extension was not declared of it is corresponds to another type of
@@ -823,10 +872,10 @@ public class MetadataService extends Service {
     public Metadata getMetadata(String extension) {
         if (extension != null) {
             // Look for the first registered convenient mapping.
-            for (final MetadataExtension metadataExtension : this.mappings) {
-                if (extension.equals(metadataExtension.getName())) {
-                    return metadataExtension.getMetadata();
-                }
+            List<MetadataExtension> extensionMappings = getMappings(extension);
+
+            if (!extensionMappings.isEmpty()) {
+                return extensionMappings.get(0).getMetadata();
             }
         }
 
@@ -897,4 +946,34 @@ public class MetadataService extends Service {
         this.defaultMediaType = defaultMediaType;
     }
 
+    /**
+     * Rebuilds the indexes by extension name and by metadata from the list of
+     * mappings. Both indexes are published together in a single immutable
+     * holder, so readers keep using the previous ones until the new ones are
+     * complete.
+     */
+    private void updateIndexes() {
+        Map<String, List<MetadataExtension>> extensions = new HashMap<String, List<MetadataExtension>>();
+        Map<Metadata, String> metadata = new HashMap<Metadata, String>();
+
+        for (MetadataExtension mapping : this.mappings) {
+            if ((mapping.getName() != null) && (mapping.getMetadata() != null)) {
+                List<MetadataExtension> list = extensions
+                        .get(mapping.getName());
+
+                if (list == null) {
+                    list = new ArrayList<MetadataExtension>(2);
+                    extensions.put(mapping.getName(), list);
+                }
+
+                list.add(mapping);
+
+                if (!metadata.containsKey(mapping.getMetadata())) {
+                    metadata.put(mapping.getMetadata(), mapping.getName());
+                }
+            }
+        }
+
+        this.indexes = new Indexes(extensions, metadata);
+    }
 }
@@ -48,11 +48,17 @@ import org.restlet.routing.Filter;
  */
 public class RangeService extends Service {
 
+    /** The default maximum number of ranges served in a single response. */
+    public static final int DEFAULT_MAX_RANGES = 16;
+
+    /** The maximum number of ranges served in a single response. */
+    private volatile int maxRanges;
+
     /**
      * Constructor.
      */
     public RangeService() {
-        super();
+        this(true);
     }
 
     /**
@@ -63,6 +69,7 @@ public class RangeService extends Service {
      */
     public RangeService(boolean enabled) {
         super(enabled);
+        this.maxRanges = DEFAULT_MAX_RANGES;
     }
 
     @Override
@@ -70,4 +77,26 @@ public class RangeService extends Service {
         return new RangeFilter(context);
     }
 
+    /**
+     * Returns the maximum number of ranges served in a single response.
+     * Requests asking for more ranges receive the full entity. The default
+     * value is {@link #DEFAULT_MAX_RANGES}.
+     * 
+     * @return The maximum number of ranges served in a single response.
+     */
+    public int getMaxRanges() {
+        return maxRanges;
+    }
+
+    /**
+     * Sets the maximum number of ranges served in a single response. Requests
+     * asking for more ranges receive the full entity.
+     * 
+     * @param maxRanges
+     *            The maximum number of ranges served in a single response.
+     */
+    public void setMaxRanges(int maxRanges) {
+        this.maxRanges = maxRanges;
+    }
+
 }